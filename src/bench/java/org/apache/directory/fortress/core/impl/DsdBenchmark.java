@@ -0,0 +1,133 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.SDSet;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * JMH benchmarks for {@link DSDChecker#validate}, which computes the inherited roles of a session and looks each one up in the
+ * tenant's DSD index.  The role hierarchy generated by {@link HierBenchmark} and a set of randomly populated DSD's are seeded into the
+ * 'fortress.roles' and 'fortress.dsd' caches so no ldap server is needed.  The cardinality of every DSD is set above its membership
+ * so that the session's roles are never removed between invocations.
+ * <p>
+ * To execute: mvn -Pbenchmark test -Djmh.include=DsdBenchmark
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DsdBenchmark
+{
+    private static final int ROLES = 1000;
+    private static final int MEMBERS = 5;
+
+    @Param({ "10", "1000" })
+    public int dsds;
+
+    @Param({ "2", "10" })
+    public int activated;
+
+    private final DSDChecker checker = new DSDChecker();
+    private Session session;
+
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random( 42 );
+        CacheMgr.getInstance().getCache( "fortress.roles" ).put( HierUtil.Type.ROLE.toString(),
+            new AtomicReference<>( new HierIndex( HierUtil.buildGraph( HierBenchmark.buildHier( ROLES ) ) ) ) );
+
+        Map<String, Set<SDSet>> members = new HashMap<>();
+        for ( int i = 0; i < dsds; i++ )
+        {
+            SDSet dsd = new SDSet();
+            dsd.setName( "benchDsd" + i );
+            dsd.setType( SDSet.SDType.DYNAMIC );
+            dsd.setCardinality( MEMBERS + 1 );
+            for ( int j = 0; j < MEMBERS; j++ )
+            {
+                String member = HierBenchmark.getName( random.nextInt( ROLES ) );
+                dsd.setMember( member );
+                Set<SDSet> dsdSets = members.get( member );
+                if ( dsdSets == null )
+                {
+                    dsdSets = new HashSet<>();
+                    members.put( member, dsdSets );
+                }
+                dsdSets.add( dsd );
+            }
+        }
+        // Same layout as SDUtil.putDsdCache for a tenant whose DSD's were all loaded:
+        Map<String, Set<SDSet>> index = new ConcurrentHashMap<>();
+        for ( Map.Entry<String, Set<SDSet>> entry : members.entrySet() )
+        {
+            index.put( entry.getKey(), Collections.unmodifiableSet( entry.getValue() ) );
+        }
+        index.put( "complete", Collections.<SDSet>emptySet() );
+        CacheMgr.getInstance().getCache( "fortress.dsd" ).put( "fortress.dsd:" + GlobalIds.HOME, index );
+
+        User user = new User( "benchUser" );
+        List<UserRole> uRoles = new ArrayList<>();
+        for ( int i = 0; i < activated; i++ )
+        {
+            uRoles.add( new UserRole( user.getUserId(), HierBenchmark.getName( ROLES - 1 - i ) ) );
+        }
+        user.setRoles( uRoles );
+        session = new Session( user );
+    }
+
+
+    @Benchmark
+    public int validate() throws SecurityException
+    {
+        return checker.validate( session, session.getUser(), null, VUtil.ConstraintType.ROLE );
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.directory.fortress.core.model.Hier;
+import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * JMH benchmarks for the hierarchy traversals that are performed on every session activation and access check.  A role tree of
+ * {@link #size} vertices is generated where every role has {@link #FANOUT} children, and the ascendants of the deepest role and the
+ * descendants of the root are computed:
+ * <ol>
+ * <li>recursively over the {@code org.jgrapht.graph.SimpleDirectedGraph} by {@link HierUtil}</li>
+ * <li>by lookup in the closure {@link HierIndex} built from the same graph</li>
+ * <li>by {@link RoleUtil#getInheritedRoles} with the index seeded into the 'fortress.roles' cache, so no ldap server is needed</li>
+ * </ol>
+ * To execute: mvn -Pbenchmark test -Djmh.include=HierBenchmark
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HierBenchmark
+{
+    private static final int FANOUT = 4;
+    private static final String ROLE_PREFIX = "BENCHROLE";
+
+    @Param({ "10", "1000", "100000" })
+    public int size;
+
+    private SimpleDirectedGraph<String, Relationship> graph;
+    private HierIndex index;
+    private String root;
+    private String leaf;
+    private List<UserRole> uRoles;
+
+
+    @Setup
+    public void setup()
+    {
+        graph = HierUtil.buildGraph( buildHier( size ) );
+        index = new HierIndex( graph );
+        root = getName( 0 );
+        leaf = getName( size - 1 );
+        uRoles = new ArrayList<>();
+        uRoles.add( new UserRole( leaf ) );
+        // Seed the cache used by RoleUtil for the default tenant:
+        CacheMgr.getInstance().getCache( "fortress.roles" ).put( HierUtil.Type.ROLE.toString(), new AtomicReference<>( index ) );
+    }
+
+
+    /**
+     * Generate a tree where the parent of role i is role (i - 1) / FANOUT.
+     *
+     * @param size number of roles.
+     * @return Hier containing the relationships.
+     */
+    static Hier buildHier( int size )
+    {
+        Hier hier = new Hier( Hier.Type.ROLE );
+        for ( int i = 1; i < size; i++ )
+        {
+            hier.setRelationship( new Relationship( getName( i ), getName( ( i - 1 ) / FANOUT ) ) );
+        }
+        return hier;
+    }
+
+
+    static String getName( int i )
+    {
+        return ROLE_PREFIX + i;
+    }
+
+
+    @Benchmark
+    public Set<String> graphAscendants()
+    {
+        return HierUtil.getAscendants( leaf, graph );
+    }
+
+
+    @Benchmark
+    public Set<String> graphDescendants()
+    {
+        return HierUtil.getDescendants( root, graph );
+    }
+
+
+    @Benchmark
+    public Set<String> indexAscendants()
+    {
+        return index.getAscendants( leaf );
+    }
+
+
+    @Benchmark
+    public Set<String> indexDescendants()
+    {
+        return index.getDescendants( root );
+    }
+
+
+    @Benchmark
+    public Set<String> inheritedRoles()
+    {
+        return RoleUtil.getInstance().getInheritedRoles( uRoles, null );
+    }
+}
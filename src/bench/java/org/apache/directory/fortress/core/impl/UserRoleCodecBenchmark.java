@@ -0,0 +1,176 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.directory.fortress.core.model.ObjectFactory;
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * JMH benchmarks for decoding the 'ftRC' and 'ftARC' values of a user entry that has {@link #roles} role assignments:
+ * <ol>
+ * <li>by {@link UserRole#load} and {@link UserAdminRole#load} with a new {@link RoleUtil} per value and the parents looked up,
+ * as the user read path did before {@link RoleConstraintCodec}</li>
+ * <li>by {@link RoleConstraintCodec}, with the parents left unresolved</li>
+ * <li>by {@link RoleConstraintCodec}, with the parents then looked up for every role</li>
+ * </ol>
+ * The role hierarchy is seeded into the 'fortress.roles' cache, so no ldap server is needed.  To compare the bytes allocated per
+ * decode, run org.openjdk.jmh.Main on the test classpath with the '-prof gc' option.
+ * <p>
+ * To execute: mvn -Pbenchmark test -Djmh.include=UserRoleCodecBenchmark
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserRoleCodecBenchmark
+{
+    private static final String CONTEXT_ID = null;
+    private static final int HIER_SIZE = 1000;
+
+    @Param({ "1", "10", "100" })
+    public int roles;
+
+    private List<String> rawRoles;
+    private List<String> rawAdminRoles;
+    private String delimiter;
+
+
+    @Setup
+    public void setup()
+    {
+        delimiter = Config.getInstance().getDelimiter();
+        rawRoles = new ArrayList<>();
+        rawAdminRoles = new ArrayList<>();
+        for ( int i = 0; i < roles; i++ )
+        {
+            UserRole uRole = new UserRole( HierBenchmark.getName( HIER_SIZE - 1 - i ) );
+            setConstraints( uRole );
+            rawRoles.add( uRole.getRawData() );
+            UserAdminRole uAdminRole = new UserAdminRole( null, HierBenchmark.getName( HIER_SIZE - 1 - i ) );
+            setConstraints( uAdminRole );
+            uAdminRole.setOsP( "BENCHPOU" + i );
+            uAdminRole.setOsU( "BENCHUOU" + i );
+            uAdminRole.setBeginRange( HierBenchmark.getName( 0 ) );
+            uAdminRole.setEndRange( HierBenchmark.getName( i ) );
+            rawAdminRoles.add( uAdminRole.getRawData() );
+        }
+        // Seed the cache used by RoleUtil for the default tenant:
+        HierIndex index = new HierIndex( HierUtil.buildGraph( HierBenchmark.buildHier( HIER_SIZE ) ) );
+        CacheMgr.getInstance().getCache( "fortress.roles" ).put( HierUtil.Type.ROLE.toString(), new AtomicReference<>( index ) );
+    }
+
+
+    private static void setConstraints( UserRole uRole )
+    {
+        uRole.setTimeout( 30 );
+        uRole.setBeginTime( "0800" );
+        uRole.setEndTime( "1700" );
+        uRole.setBeginDate( "20150101" );
+        uRole.setEndDate( "21000101" );
+        uRole.setDayMask( "23456" );
+    }
+
+
+    @Benchmark
+    public List<UserRole> loadUserRoles()
+    {
+        List<UserRole> uRoles = new ArrayList<>();
+        for ( String raw : rawRoles )
+        {
+            UserRole uRole = new ObjectFactory().createUserRole();
+            uRole.load( raw, CONTEXT_ID, new RoleUtil() );
+            uRole.getParents();
+            uRoles.add( uRole );
+        }
+        return uRoles;
+    }
+
+
+    @Benchmark
+    public List<UserRole> decodeUserRoles()
+    {
+        List<UserRole> uRoles = new ArrayList<>( rawRoles.size() );
+        for ( String raw : rawRoles )
+        {
+            uRoles.add( RoleConstraintCodec.decodeUserRole( raw, delimiter, CONTEXT_ID ) );
+        }
+        return uRoles;
+    }
+
+
+    @Benchmark
+    public List<UserRole> decodeUserRolesWithParents()
+    {
+        List<UserRole> uRoles = new ArrayList<>( rawRoles.size() );
+        for ( String raw : rawRoles )
+        {
+            UserRole uRole = RoleConstraintCodec.decodeUserRole( raw, delimiter, CONTEXT_ID );
+            uRole.getParents();
+            uRoles.add( uRole );
+        }
+        return uRoles;
+    }
+
+
+    @Benchmark
+    public List<UserAdminRole> loadUserAdminRoles()
+    {
+        List<UserAdminRole> uRoles = new ArrayList<>();
+        for ( String raw : rawAdminRoles )
+        {
+            UserAdminRole uRole = new ObjectFactory().createUserAdminRole();
+            uRole.load( raw, CONTEXT_ID, new RoleUtil() );
+            uRole.getParents();
+            uRoles.add( uRole );
+        }
+        return uRoles;
+    }
+
+
+    @Benchmark
+    public List<UserAdminRole> decodeUserAdminRoles()
+    {
+        List<UserAdminRole> uRoles = new ArrayList<>( rawAdminRoles.size() );
+        for ( String raw : rawAdminRoles )
+        {
+            uRoles.add( RoleConstraintCodec.decodeUserAdminRole( raw, delimiter, CONTEXT_ID ) );
+        }
+        return uRoles;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl.apacheds;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.fortress.core.AccessMgr;
+import org.apache.directory.fortress.core.AccessMgrFactory;
+import org.apache.directory.fortress.core.AdminMgr;
+import org.apache.directory.fortress.core.AdminMgrFactory;
+import org.apache.directory.fortress.core.DelAdminMgr;
+import org.apache.directory.fortress.core.DelAdminMgrFactory;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.ldap.LdapConnectionProvider;
+import org.apache.directory.fortress.core.model.OrgUnit;
+import org.apache.directory.fortress.core.model.PermObj;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.Role;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.server.annotations.CreateLdapServer;
+import org.apache.directory.server.annotations.CreateTransport;
+import org.apache.directory.server.core.annotations.ApplyLdifFiles;
+import org.apache.directory.server.core.annotations.CreateDS;
+import org.apache.directory.server.core.annotations.CreatePartition;
+import org.apache.directory.server.core.api.DirectoryService;
+import org.apache.directory.server.core.factory.DSAnnotationProcessor;
+import org.apache.directory.server.factory.ServerAnnotationProcessor;
+import org.apache.directory.server.ldap.LdapServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * JMH benchmarks for the end to end {@link AccessMgr#createSession} and {@link AccessMgr#checkAccess} calls.  An embedded ApacheDS
+ * server is started with the same partition and ldif files as the {@link AdminManagerTest}, so the fortress.properties used by the
+ * apacheds tests must be on the classpath.  A user, role and permission are added before measurement begins.
+ * <p>
+ * To execute: mvn -Pbenchmark test -Djmh.include=AccessMgrBenchmark
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccessMgrBenchmark
+{
+    private static final String USER_OU = "benchUsrOu";
+    private static final String PERM_OU = "benchPrmOu";
+    private static final String ROLE = "benchRole";
+    private static final String USER = "benchUser";
+    private static final char[] PASSWORD = "passw0rd".toCharArray();
+    private static final String OBJ = "benchObj";
+    private static final int OPS = 10;
+
+    private DirectoryService service;
+    private LdapServer ldapServer;
+    private AccessMgr accessMgr;
+    private Session session;
+    private Permission perm;
+    private List<Permission> perms;
+
+
+    /**
+     * Holds the annotations used to create the embedded directory.
+     */
+    @CreateDS(name = "benchDS", partitions =
+        { @CreatePartition(name = "example", suffix = "dc=example,dc=com") })
+    @CreateLdapServer(
+        transports =
+            {
+                @CreateTransport(protocol = "LDAP", port = 10389)
+        })
+    @ApplyLdifFiles(
+        { "fortress-schema.ldif", "init-ldap.ldif" })
+    private static class EmbeddedDirectory
+    {
+    }
+
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception
+    {
+        service = DSAnnotationProcessor.createDS( EmbeddedDirectory.class.getAnnotation( CreateDS.class ) );
+        DSAnnotationProcessor.injectLdifFiles( EmbeddedDirectory.class, service,
+            EmbeddedDirectory.class.getAnnotation( ApplyLdifFiles.class ).value() );
+        ldapServer = ServerAnnotationProcessor.instantiateLdapServer(
+            EmbeddedDirectory.class.getAnnotation( CreateLdapServer.class ), service );
+        if ( !ldapServer.isStarted() )
+        {
+            ldapServer.start();
+        }
+        loadData();
+        accessMgr = AccessMgrFactory.createInstance( GlobalIds.HOME );
+        session = accessMgr.createSession( new User( USER, PASSWORD ), false );
+        perm = new Permission( OBJ, "benchOp0" );
+        perms = new ArrayList<>();
+        for ( int i = 0; i < OPS; i++ )
+        {
+            perms.add( new Permission( OBJ, "benchOp" + i ) );
+        }
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        LdapConnectionProvider.closeAllConnectionPools();
+        ldapServer.stop();
+        service.shutdown();
+    }
+
+
+    /**
+     * Add the entities used by the benchmarks.
+     *
+     * @throws SecurityException in the event of a system error.
+     */
+    private void loadData() throws SecurityException
+    {
+        DelAdminMgr delAdminMgr = DelAdminMgrFactory.createInstance( GlobalIds.HOME );
+        delAdminMgr.add( new OrgUnit( USER_OU, OrgUnit.Type.USER ) );
+        delAdminMgr.add( new OrgUnit( PERM_OU, OrgUnit.Type.PERM ) );
+
+        AdminMgr adminMgr = AdminMgrFactory.createInstance( GlobalIds.HOME );
+        Role role = adminMgr.addRole( new Role( ROLE ) );
+        User user = new User( USER, PASSWORD );
+        user.setOu( USER_OU );
+        adminMgr.addUser( user );
+        adminMgr.assignUser( new UserRole( USER, ROLE ) );
+        adminMgr.addPermObj( new PermObj( OBJ, PERM_OU ) );
+        for ( int i = 0; i < OPS; i++ )
+        {
+            Permission op = adminMgr.addPermission( new Permission( OBJ, "benchOp" + i ) );
+            adminMgr.grantPermission( op, role );
+        }
+    }
+
+
+    @Benchmark
+    public Session createSession() throws SecurityException
+    {
+        return accessMgr.createSession( new User( USER, PASSWORD ), false );
+    }
+
+
+    @Benchmark
+    public Session createSessionTrusted() throws SecurityException
+    {
+        return accessMgr.createSession( new User( USER ), true );
+    }
+
+
+    @Benchmark
+    public boolean checkAccess() throws SecurityException
+    {
+        return accessMgr.checkAccess( session, perm );
+    }
+
+
+    @Benchmark
+    public Map<Permission, Boolean> checkAccessList() throws SecurityException
+    {
+        return accessMgr.checkAccess( session, perms );
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.rest;
+
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.fortress.core.model.FortRequest;
+import org.apache.directory.fortress.core.model.FortResponse;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * JMH benchmarks for the xml conversions performed by {@link RestUtils} on every call to the En Masse server.  The request carries a
+ * session with {@link #roles} activated roles, as sent by checkAccess, and the response carries {@link #roles} permissions, as
+ * returned by sessionPermissions.
+ * <p>
+ * To execute: mvn -Pbenchmark test -Djmh.include=MarshalBenchmark
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MarshalBenchmark
+{
+    @Param({ "1", "10", "100" })
+    public int roles;
+
+    private FortRequest request;
+    private String szResponse;
+
+
+    @Setup
+    public void setup() throws Exception
+    {
+        User user = new User( "benchUser" );
+        List<UserRole> uRoles = new ArrayList<>();
+        List<Permission> perms = new ArrayList<>();
+        for ( int i = 0; i < roles; i++ )
+        {
+            uRoles.add( new UserRole( user.getUserId(), "benchRole" + i ) );
+            perms.add( new Permission( "benchObj" + i, "benchOp" + i ) );
+        }
+        user.setRoles( uRoles );
+        request = new FortRequest();
+        request.setContextId( "HOME" );
+        request.setSession( new Session( user ) );
+        request.setEntity( new Permission( "benchObj", "benchOp" ) );
+
+        FortResponse response = new FortResponse();
+        response.setErrorCode( 0 );
+        response.setEntities( perms );
+        StringWriter writer = new StringWriter();
+        new CachedJaxbContext().getMarshaller( FortResponse.class ).marshal( response, writer );
+        szResponse = writer.toString();
+    }
+
+
+    @Benchmark
+    public String marshal() throws RestException
+    {
+        return RestUtils.marshal( request );
+    }
+
+
+    @Benchmark
+    public FortResponse unmarshall() throws RestException
+    {
+        return RestUtils.unmarshall( szResponse );
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * JMH benchmarks for the temporal constraint checks performed by {@link VUtil#validateConstraints} on every createSession and
+ * checkAccess call.  The validators are those configured by the 'temporal.validator.*' properties.  Every constraint is set to values
+ * that pass so that the session isn't modified between invocations.  DSD validation is measured separately by the DsdBenchmark.
+ * <p>
+ * To execute: mvn -Pbenchmark test -Djmh.include=ConstraintBenchmark
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConstraintBenchmark
+{
+    @Param({ "1", "10", "100" })
+    public int roles;
+
+    private Session session;
+
+
+    @Setup
+    public void setup()
+    {
+        User user = new User( "benchUser" );
+        permit( user );
+        List<UserRole> uRoles = new ArrayList<>();
+        for ( int i = 0; i < roles; i++ )
+        {
+            UserRole uRole = new UserRole( user.getUserId(), "benchRole" + i );
+            permit( uRole );
+            uRoles.add( uRole );
+        }
+        user.setRoles( uRoles );
+        session = new Session( user );
+    }
+
+
+    /**
+     * Set the temporal constraints to values that are always valid.
+     *
+     * @param constraint on user or role.
+     */
+    private static void permit( Constraint constraint )
+    {
+        constraint.setTimeout( 0 );
+        constraint.setBeginTime( "0000" );
+        constraint.setEndTime( "2359" );
+        constraint.setBeginDate( "20000101" );
+        constraint.setEndDate( "20991231" );
+        constraint.setDayMask( "1234567" );
+        constraint.setBeginLockDate( "none" );
+        constraint.setEndLockDate( "none" );
+    }
+
+
+    @Benchmark
+    public Session validateUser() throws SecurityException
+    {
+        VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.USER, false );
+        return session;
+    }
+
+
+    @Benchmark
+    public Session validateRoles() throws SecurityException
+    {
+        VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.ROLE, false );
+        return session;
+    }
+}
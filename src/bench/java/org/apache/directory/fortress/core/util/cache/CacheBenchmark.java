@@ -0,0 +1,123 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+
+/**
+ * JMH benchmarks for cache reads, the lookup done on every access check for hierarchies, permissions and DSD's.  The same
+ * {@link #KEYS} entries are read round robin from:
+ * <ol>
+ * <li>the 'fortress.perms' cache, an {@link EhCacheImpl} wrapping an Ehcache {@code BlockingCache}</li>
+ * <li>a {@link LocalCacheImpl} with the same size and time to live</li>
+ * </ol>
+ * Each is read by one thread and by four threads.  The Ehcache provider must be in effect, i.e. 'cache.provider' not set.
+ * <p>
+ * To execute: mvn -Pbenchmark test -Djmh.include=CacheBenchmark
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheBenchmark
+{
+    private static final int KEYS = 1000;
+
+    private Cache ehcache;
+    private Cache local;
+
+
+    /**
+     * The next key to read, per thread so the threads don't contend on it.
+     */
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        private int next;
+
+
+        String nextKey()
+        {
+            next = ( next + 1 ) % KEYS;
+            return getKey( next );
+        }
+    }
+
+
+    @Setup
+    public void setup()
+    {
+        ehcache = CacheMgr.getInstance().getCache( "fortress.perms" );
+        local = new LocalCacheImpl( "bench.local", 10000, 0, 600, 600 );
+        for ( int i = 0; i < KEYS; i++ )
+        {
+            ehcache.put( getKey( i ), i );
+            local.put( getKey( i ), i );
+        }
+    }
+
+
+    private static String getKey( int i )
+    {
+        return "BENCHKEY" + i;
+    }
+
+
+    @Benchmark
+    public Object ehcacheGet( Cursor cursor )
+    {
+        return ehcache.get( cursor.nextKey() );
+    }
+
+
+    @Benchmark
+    public Object localGet( Cursor cursor )
+    {
+        return local.get( cursor.nextKey() );
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public Object ehcacheGetContended( Cursor cursor )
+    {
+        return ehcache.get( cursor.nextKey() );
+    }
+
+
+    @Benchmark
+    @Threads(4)
+    public Object localGetContended( Cursor cursor )
+    {
+        return local.get( cursor.nextKey() );
+    }
+}
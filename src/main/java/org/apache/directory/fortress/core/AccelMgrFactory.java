@@ -21,12 +21,14 @@ package org.apache.directory.fortress.core;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.impl.AccelMgrImpl;
+import org.apache.directory.fortress.core.impl.AsyncAccelMgrImpl;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
- * Creates an instance of the AccelMgr object.
+ * Creates an instance of the AccelMgr object, or of the AsyncAccelMgr object that pipelines its requests.
  * <p>
  * The default implementation class is specified as {@link AccelMgrImpl} but can be overridden by
  * adding the {@link GlobalIds#ACCEL_IMPLEMENTATION} config property.
@@ -80,6 +82,39 @@ public final class AccelMgrFactory
         }
 
         accelMgr.setContextId(contextId);
-        return accelMgr;
+        return Metrics.getInstance().wrap( AccelMgr.class, accelMgr );
+    }
+
+    /**
+     * Create and return a reference to {@link AsyncAccelMgr} object using HOME context.
+     *
+     * @return instance of {@link AsyncAccelMgr}.
+     * @throws SecurityException in the event of failure during instantiation.
+     */
+    public static AsyncAccelMgr createAsyncInstance()
+        throws SecurityException
+    {
+        return createAsyncInstance( GlobalIds.HOME );
+    }
+
+    /**
+     * Create and return a reference to {@link AsyncAccelMgr} object.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return instance of {@link AsyncAccelMgr}.
+     * @throws SecurityException in the event of failure during instantiation.
+     */
+    public static AsyncAccelMgr createAsyncInstance(String contextId)
+        throws SecurityException
+    {
+        VUtil.assertNotNull(contextId, GlobalErrIds.CONTEXT_NULL, CLS_NM + ".createAsyncInstance");
+        Config cfg = Config.getInstance();
+        if(!cfg.isRemoteConfigLoaded()){
+            cfg.loadRemoteConfig();
+        }
+
+        AsyncAccelMgr accelMgr = new AsyncAccelMgrImpl();
+        accelMgr.setContextId(contextId);
+        return Metrics.getInstance().wrap( AsyncAccelMgr.class, accelMgr );
     }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ package org.apache.directory.fortress.core;
 
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.directory.fortress.core.model.Permission;
@@ -205,6 +206,24 @@ public interface AccessMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * Perform user RBAC authorization on a list of permissions.  This function returns the same result as calling
+     * {@link #checkAccess(Session, Permission)} for each permission but the session's constraints are validated once, its inherited
+     * roles are computed once and the permissions not already cached are read from the directory in a single search.  Use when many
+     * permissions must be checked at once, i.e. to render a menu.
+     *
+     * @param session This object must be instantiated by calling {@link AccessMgr#createSession} method before passing
+     * into the method.  No variables need to be set by client after returned from createSession.
+     * @param perms   each must contain the object, {@link Permission#objName}, and operation, {@link Permission#opName}, of
+     * permission User is trying to access.
+     * @return Map containing every permission passed in, in the same order, mapped to true if user has access, false otherwise.
+     * @throws SecurityException
+     *          in the event of data validation failure, security policy violation or DAO error.
+     */
+    Map<Permission, Boolean> checkAccess( Session session, List<Permission> perms )
+        throws SecurityException;
+
+
     /**
      * This function returns the permissions of the session, i.e., the permissions assigned
      * to its authorized roles. The function is valid if and only if the session is a valid Fortress session.
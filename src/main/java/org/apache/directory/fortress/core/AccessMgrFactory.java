@@ -21,10 +21,12 @@ package org.apache.directory.fortress.core;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.impl.AccessMgrImpl;
+import org.apache.directory.fortress.core.impl.WarmUp;
 import org.apache.directory.fortress.core.rest.AccessMgrRestImpl;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
  * Creates an instance of the AccessMgr object.
@@ -32,6 +34,8 @@ import org.apache.directory.fortress.core.util.VUtil;
  * The default implementation class is specified as {@link AccessMgrImpl} but can be overridden by
  * adding the {@link GlobalIds#ACCESS_IMPLEMENTATION} config property.
  * <p>
+ * The first instance created begins the cache warm-up, see {@link WarmUp}, and may wait for it to finish.
+ * <p>
 
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
@@ -87,9 +91,11 @@ public final class AccessMgrFactory
         	if(!cfg.isRemoteConfigLoaded()){
         		cfg.loadRemoteConfig();
         	}
+        	// Preload the policy caches, and wait for them if so configured:
+        	WarmUp.gate();
         }
 
         accessMgr.setContextId(contextId);
-        return accessMgr;
+        return Metrics.getInstance().wrap( AccessMgr.class, accessMgr );
     }
 }
\ No newline at end of file
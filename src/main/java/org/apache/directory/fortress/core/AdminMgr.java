@@ -20,6 +20,8 @@
 package org.apache.directory.fortress.core;
 
 
+import java.util.List;
+
 import org.apache.directory.fortress.core.model.PermObj;
 import org.apache.directory.fortress.core.model.Permission;
 import org.apache.directory.fortress.core.model.Role;
@@ -127,6 +129,19 @@ public interface AdminMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * This command creates a list of users, as if {@link #addUser(User)} was called for each of them, with a single call.
+     * The users are added over one ldap connection.  A user that fails doesn't stop the others from being added.
+     *
+     * @param users each must contain the attributes required by {@link #addUser(User)}.
+     * @return List containing the entities of the users that were added, in the order passed in.
+     * @throws SecurityException in the event the list is null or of system error, or {@link BatchException}, after the
+     * others were added, if any user failed.
+     */
+    List<User> addUsers( List<User> users )
+        throws SecurityException;
+
+
     /**
      * This command deletes an existing user from the RBAC database. The command is valid
      * if and only if the user to be deleted is a member of the USERS data set. The USERS and
@@ -448,6 +463,20 @@ public interface AdminMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * This command assigns a list of users to roles, as if {@link #assignUser(UserRole)} was called for each of them, with a
+     * single call.  The SSD constraints are evaluated against the user's existing roles along with the roles assigned to it
+     * earlier in the list.  Each user entry, and each role entry, is updated once for all of its assignments.
+     * An assignment that fails validation doesn't stop the others.
+     *
+     * @param uRoles each must contain {@link UserRole#userId} and {@link UserRole#name} and optional {@code Constraints}.
+     * @throws SecurityException in the event the list is null or of system error, or {@link BatchException}, after the
+     * others were assigned, if any assignment failed.
+     */
+    void assignUsers( List<UserRole> uRoles )
+        throws SecurityException;
+
+
     /**
      * This command deletes the assignment of the User from the Role entities. The command is
      * valid if and only if the user is a member of the USERS data set, the role is a member of
@@ -665,6 +694,21 @@ public interface AdminMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * This command grants a list of permissions to a role, as if {@link #grantPermission(Permission, Role)} was called for
+     * each of them, with a single call.  The role is validated once for the whole list.  A permission that fails doesn't
+     * stop the others from being granted.
+     *
+     * @param perms each must contain the object, {@link Permission#objName}, and operation, {@link Permission#opName}, that
+     * identifies target.
+     * @param role must contains {@link Role#name}.
+     * @throws SecurityException in the event the list or role is null or of system error, or {@link BatchException}, after
+     * the others were granted, if any permission failed.
+     */
+    void grantPermissions( List<Permission> perms, Role role )
+        throws SecurityException;
+
+
     /**
      * This command revokes the permission to perform an operation on an object from the set
      * of permissions assigned to a role. The command is implemented by setting the access control
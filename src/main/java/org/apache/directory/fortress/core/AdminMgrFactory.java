@@ -26,6 +26,7 @@ import org.apache.directory.fortress.core.rest.AdminMgrRestImpl;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
  * Creates an instance of the AdminMgr object.
@@ -93,7 +94,7 @@ public final class AdminMgrFactory
         }
         
         adminMgr.setContextId(contextId);
-        return adminMgr;
+        return Metrics.getInstance().wrap( AdminMgr.class, adminMgr );
     }
 
     /**
@@ -0,0 +1,124 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core;
+
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+
+
+/**
+ * This object performs the runtime access control operations of {@link AccelMgr} without waiting for the OpenLDAP RBAC Accelerator
+ * to reply.  Each method sends its extended operation and returns a {@link Future} of the result, so a caller can have many
+ * requests outstanding at once, for example the checkAccess calls for every permission of a page.
+ * <p>
+ * The requests are pipelined over a few long-lived connections rather than sent one at a time on connections borrowed from the
+ * admin pool.  The settings are:
+ * <ul>
+ *   <li>'accel.pipeline.connections' - number of connections, default 2.</li>
+ *   <li>'accel.pipeline.max.inflight' - requests outstanding per connection, default 128.  Callers wait once it is reached.</li>
+ *   <li>'accel.pipeline.timeout' - milliseconds to wait for a reply before the request fails, default 30000.</li>
+ * </ul>
+ * <p>
+ * Invalid arguments are reported by the methods themselves.  Failures of the operation, for example an invalid password or a
+ * role that can't be activated, are reported by {@link Future#get()} as an {@link java.util.concurrent.ExecutionException} whose
+ * cause is the {@link SecurityException} that {@link AccelMgr} would have thrown.
+ * <p>
+ * This interface's implementer will NOT be thread safe if parent instance variables ({@link Manageable#setContextId(String)}
+ * or {@link Manageable#setAdmin(org.apache.directory.fortress.core.model.Session)}) are set.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface AsyncAccelMgr extends Manageable
+{
+    /**
+     * Perform user authentication and role activations, see {@link AccelMgr#createSession(User, boolean)}.
+     *
+     * @param user Contains {@link User#userId}, {@link User#password} and optional {@link User#roles}.
+     * @return future of the Session, which contains the sessionId of the session stored on the server.
+     * @throws SecurityException in the event of data validation failure or if the request could not be sent.
+     */
+    Future<Session> createSession( User user )
+        throws SecurityException;
+
+
+    /**
+     * Delete a session from the accelerator, see {@link AccelMgr#deleteSession(Session)}.
+     *
+     * @param session object contains the user's returned RBAC session from the createSession method.
+     * @return future that completes once the session has been deleted.
+     * @throws SecurityException in the event of data validation failure or if the request could not be sent.
+     */
+    Future<Void> deleteSession( Session session )
+        throws SecurityException;
+
+
+    /**
+     * Return the active roles of a session, see {@link AccelMgr#sessionRoles(Session)}.
+     *
+     * @param session object contains the user's returned RBAC session from the createSession method.
+     * @return future of the List of type UserRole, which may be null if no roles are active.
+     * @throws SecurityException in the event of data validation failure or if the request could not be sent.
+     */
+    Future<List<UserRole>> sessionRoles( Session session )
+        throws SecurityException;
+
+
+    /**
+     * Perform user authorization, see {@link AccelMgr#checkAccess(Session, Permission)}.
+     *
+     * @param session object contains the user's returned RBAC session from the createSession method.
+     * @param perm    must contain the object, {@link Permission#objName}, and operation, {@link Permission#opName}, of the
+     *                permission User is trying to access.
+     * @return future of the decision, true if user has access, false otherwise.
+     * @throws SecurityException in the event of data validation failure or if the request could not be sent.
+     */
+    Future<Boolean> checkAccess( Session session, Permission perm )
+        throws SecurityException;
+
+
+    /**
+     * Activate a role into a session, see {@link AccelMgr#addActiveRole(Session, UserRole)}.
+     *
+     * @param session object contains the user's returned RBAC session from the createSession method.
+     * @param role    object contains the role name, {@link UserRole#name}, and userId, {@link UserRole#userId}.
+     * @return future that completes once the role has been activated.
+     * @throws SecurityException in the event of data validation failure or if the request could not be sent.
+     */
+    Future<Void> addActiveRole( Session session, UserRole role )
+        throws SecurityException;
+
+
+    /**
+     * Deactivate a role from a session, see {@link AccelMgr#dropActiveRole(Session, UserRole)}.
+     *
+     * @param session object contains the user's returned RBAC session from the createSession method.
+     * @param role    object contains the role name, {@link UserRole#name}, and userId, {@link UserRole#userId}.
+     * @return future that completes once the role has been deactivated.
+     * @throws SecurityException in the event of data validation failure or if the request could not be sent.
+     */
+    Future<Void> dropActiveRole( Session session, UserRole role )
+        throws SecurityException;
+}
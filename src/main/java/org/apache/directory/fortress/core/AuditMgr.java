@@ -151,6 +151,30 @@ public interface AuditMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * This method opens a cursor over the authorization events that {@link #searchAuthZs(UserAudit)} would return.  The result
+     * set is read from the directory a page at a time as the cursor is advanced.  The cursor must be closed after use.
+     * <h3></h3>
+     * <h4>required parameters</h4>
+     * <ul>
+     *   <li>{@link UserAudit#userId} - contains the target userId</li>
+     *   <li>{@link UserAudit#objName} - contains the object (authorization resource) name</li>
+     * </ul>
+     * <h4>optional parameters</h4>
+     * <ul>
+     *   <li>{@link UserAudit#beginDate} - contains the date in which to begin search</li>
+     *   <li>{@link UserAudit#failedOnly} - if set to 'true', return only failed authorization events</li>
+     * </ul>
+     *
+     * @param uAudit This entity is instantiated and populated before invocation.
+     * @return a ResultCursor of type AuthZ.  Each AuthZ object contains one authorization event.
+     * @throws SecurityException
+     *          if a runtime system error occurs.
+     */
+    ResultCursor<AuthZ> iterateAuthZs( UserAudit uAudit )
+        throws SecurityException;
+
+
     /**
      * This method returns a list of authentication audit events for a particular user 
      * {@link org.apache.directory.fortress.core.model.UserAudit#userId},
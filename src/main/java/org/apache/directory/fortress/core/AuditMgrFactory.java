@@ -26,6 +26,7 @@ import org.apache.directory.fortress.core.rest.AuditMgrRestImpl;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
  * Creates an instance of the AuditMgr object.
@@ -92,7 +93,7 @@ public final class AuditMgrFactory
         }
 
         auditMgr.setContextId(contextId);
-        return auditMgr;
+        return Metrics.getInstance().wrap( AuditMgr.class, auditMgr );
     }
 
     /**
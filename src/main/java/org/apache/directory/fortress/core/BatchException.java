@@ -0,0 +1,65 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core;
+
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * This exception extends {@link SecurityException} and is thrown by the batch apis of {@link AdminMgr} once every item has
+ * been processed, if any of them failed.  The items that are not in {@link #getFailures()} have succeeded.
+ * See the {@link GlobalErrIds} javadoc for list of error ids.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class BatchException extends SecurityException
+{
+    /** Default serialVersionUID */
+    private static final long serialVersionUID = 1L;
+    private final Map<Integer, SecurityException> failures;
+
+
+    /**
+     * Create exception with error id, message and the failed items.  The first failure is set as the cause.
+     * @param  errorId see {@link GlobalErrIds} for list of valid error codes that can be set.  Valid values between 
+     * 0 &amp; 100_000.
+     * @param msg contains textual information including method of origin and description of the root cause.
+     * @param failures contains the exception of each item that failed keyed by its position in the list passed in.
+     */
+    public BatchException( int errorId, String msg, Map<Integer, SecurityException> failures )
+    {
+        super( errorId, msg, failures.isEmpty() ? null : new TreeMap<>( failures ).firstEntry().getValue() );
+        this.failures = Collections.unmodifiableMap( new TreeMap<>( failures ) );
+    }
+
+
+    /**
+     * Return the items that failed.
+     *
+     * @return Map containing the exception of each item that failed keyed by its position in the list passed in, in order.
+     */
+    public Map<Integer, SecurityException> getFailures()
+    {
+        return failures;
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.directory.fortress.core.rest.DelAccessMgrRestImpl;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
  * Creates an instance of the DelAccessMgr object.
@@ -92,7 +93,7 @@ public final class DelAccessMgrFactory
         }
 
         accessMgr.setContextId(contextId);
-        return accessMgr;
+        return Metrics.getInstance().wrap( DelAccessMgr.class, accessMgr );
     }
 
 
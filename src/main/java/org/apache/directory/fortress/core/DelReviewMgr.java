@@ -163,6 +163,30 @@ public interface DelReviewMgr extends Manageable
      */
     List<OrgUnit> search( OrgUnit.Type type, String searchVal )
         throws SecurityException;
+
+
+    /**
+     * Commands opens a cursor over existing OrgUnit entities from OrgUnit dataset.  The OrgUnit can be either User or Perm
+     * and is set by setting type parameter on API.  The result set is read from the directory a page at a time as the cursor
+     * is advanced.  The cursor must be closed after use.
+     * <h3></h3>
+     * <h4>required parameters</h4>
+     * <ul>
+     *   <li>
+     *     {@link org.apache.directory.fortress.core.model.OrgUnit#type} - contains the type of OU:
+     *     {@link org.apache.directory.fortress.core.model.OrgUnit.Type#USER} or
+     *     {@link org.apache.directory.fortress.core.model.OrgUnit.Type#PERM}
+     *   </li>
+     *   <li>searchVal - contains some or all of the chars associated with the OrgUnit objects targeted for search.</li>
+     * </ul>
+     *
+     * @param type      either PERM or USER
+     * @param searchVal contains the leading chars that map to {@link OrgUnit#name} on existing OrgUnit(s) targeted for search.
+     * @return ResultCursor of type OrgUnit containing the OrgUnit data.
+     * @throws SecurityException in the event of data validation or system error.
+     */
+    ResultCursor<OrgUnit> iterateOrgs( OrgUnit.Type type, String searchVal )
+        throws SecurityException;
     
     /**
      * This function returns the set of all ARBAC permissions (op, obj), granted to or inherited by a
@@ -26,6 +26,7 @@ import org.apache.directory.fortress.core.rest.DelReviewMgrRestImpl;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
  * Creates an instance of the DelReviewMgr object.
@@ -90,7 +91,7 @@ public final class DelReviewMgrFactory
         }
 
         delReviewMgr.setContextId(contextId);
-        return delReviewMgr;
+        return Metrics.getInstance().wrap( DelReviewMgr.class, delReviewMgr );
     }
 
     /**
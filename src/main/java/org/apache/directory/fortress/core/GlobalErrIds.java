@@ -24,6 +24,7 @@ package org.apache.directory.fortress.core;
  * The Fortress Manager APIs declare {@code SecurityException} as thrown even though the child exception may vary according 
  * to type:
  * <ul>
+ *   <li>{@link BatchException} in the event items of a batch api fail.</li>
  *   <li>{@link CfgException} in the event the cfg of runtime fails.</li>
  *   <li>{@link CreateException} in the event DAO cannot create entity.</li>
  *   <li>{@link FinderException} in the event DAO cannot find the entity.</li>
@@ -186,6 +187,11 @@ public final class GlobalErrIds
      */
     public static final int FT_CONFIG_JSSE_TRUSTSTORE_NULL = 136;
 
+    /**
+     * One or more of the items passed to a batch api failed.
+     */
+    public static final int FT_BATCH_FAILED = 137;
+
     /**
      * 1000's - User Entity Rule and LDAP Errors
      */
@@ -25,6 +25,7 @@ import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
  * Creates an instance of the ConfigMgr object.
@@ -86,7 +87,7 @@ public final class GroupMgrFactory
         	}
         }
         
-        return groupMgr;
+        return Metrics.getInstance().wrap( GroupMgr.class, groupMgr );
     }
 
 
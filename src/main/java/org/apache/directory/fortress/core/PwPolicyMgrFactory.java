@@ -26,6 +26,7 @@ import org.apache.directory.fortress.core.rest.PwPolicyMgrRestImpl;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
  * Creates an instance of the PwPolicyMgr object.
@@ -91,7 +92,7 @@ public final class PwPolicyMgrFactory
         }
         
         policyMgr.setContextId(contextId);
-        return policyMgr;
+        return Metrics.getInstance().wrap( PwPolicyMgr.class, policyMgr );
     }
 
     /**
@@ -0,0 +1,73 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core;
+
+
+/**
+ * Interface allows outside clients to step through the results of a Fortress search one entity at a time rather than
+ * receiving the entire result set as a List.  It is returned by the iterate methods on {@link ReviewMgr}, {@link DelReviewMgr}
+ * and {@link AuditMgr}.  The ldap implementation reads the entries off the server a page at a time using the RFC 2696
+ * Simple Paged Results control, so the result set is neither truncated nor held in memory all at once.
+ * <p>
+ * The cursor holds a pooled connection until it is exhausted or closed.  Callers must close it, preferably with a
+ * try-with-resources statement:
+ * <pre>
+ * try ( ResultCursor&lt;User&gt; cursor = reviewMgr.iterateUsers( new User( "jts" ) ) )
+ * {
+ *     while ( cursor.next() )
+ *     {
+ *         User user = cursor.get();
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * Implementations of this interface are not thread safe.
+ *
+ * @param <T> the type of entity that is returned by the search.
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface ResultCursor<T> extends AutoCloseable
+{
+    /**
+     * Move to the next entity in the result set.  Once this method has returned false the cursor has already released its
+     * resources.
+     *
+     * @return boolean value. true indicates {@link #get()} will return the next entity, false if there are none left.
+     * @throws SecurityException in the event of a system error.  The cursor is closed before it is thrown.
+     */
+    boolean next()
+        throws SecurityException;
+
+
+    /**
+     * Return the entity the cursor is currently positioned on.
+     *
+     * @return entity that was read by the last call to {@link #next()}.
+     */
+    T get();
+
+
+    /**
+     * Release the resources held by this cursor, abandoning the search if it had not completed.  This method may be called
+     * more than once.
+     */
+    @Override
+    void close();
+}
@@ -128,6 +128,26 @@ public interface ReviewMgr extends Manageable
     List<Permission> findPermissions( Permission permission )
         throws SecurityException;
 
+
+    /**
+     * Method opens a cursor over the permissions that match the perm object search string.  Unlike
+     * {@link #findPermissions(Permission)} the result set is not limited in size, it is read from the directory a page at a time
+     * as the cursor is advanced.  The cursor must be closed after use.
+     * <h3></h3>
+     * <h4>optional parameters</h4>
+     * <ul>
+     *   <li>{@link Permission#objName} - contains one or more characters of existing object being targeted</li>
+     *   <li>{@link Permission#opName} - contains one or more characters of existing permission operation</li>
+     * </ul>
+     *
+     * @param permission contains object and operation name search strings.  Each contains 1 or more leading chars that
+     * correspond to object or op name.
+     * @return ResultCursor of type Permission.
+     * @throws SecurityException thrown in the event of system error.
+     */
+    ResultCursor<Permission> iteratePermissions( Permission permission )
+        throws SecurityException;
+
     /**
      * Method returns Permission operations for the provided permission object
      * 
@@ -213,6 +233,18 @@ public interface ReviewMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * Method opens a cursor over the roles matching all or part of Role name, {@link Role#name}.  The result set is read from
+     * the directory a page at a time as the cursor is advanced.  The cursor must be closed after use.
+     *
+     * @param searchVal contains all or some of the chars corresponding to role entities stored in directory.
+     * @return ResultCursor of type Role containing role entities that match the search criteria.
+     * @throws SecurityException in the event of system error.
+     */
+    ResultCursor<Role> iterateRoles( String searchVal )
+        throws SecurityException;
+
+
     /**
      * Method returns a list of roles of type String.  This method can be limited by integer value that indicates max
      * number of records that may be contained in the result set.  This number can further limit global default but can
@@ -262,6 +294,24 @@ public interface ReviewMgr extends Manageable
         throws SecurityException;
 
 
+    /**
+     * Method opens a cursor over all users in the people container that match all or part of the {@link User#userId} field
+     * passed in User entity.  Unlike {@link #findUsers(User)} the result set is not limited in size, it is read from the
+     * directory a page at a time as the cursor is advanced.  The cursor must be closed after use.
+     * <h3></h3>
+     * <h4>required parameters</h4>
+     * <ul>
+     *   <li>{@link User#userId} - contains all or some leading chars that match userId(s) stored in the directory.</li>
+     * </ul>
+     *
+     * @param user contains all or some leading chars that match userIds stored in the directory.
+     * @return ResultCursor of type User.
+     * @throws SecurityException In the event of system error.
+     */
+    ResultCursor<User> iterateUsers( User user )
+        throws SecurityException;
+
+
     /**
      * Return a list of type User of all users in the people container that match the name field passed in OrgUnit entity.
      * <h3></h3>
@@ -26,6 +26,7 @@ import org.apache.directory.fortress.core.rest.ReviewMgrRestImpl;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 /**
  * Creates an instance of the ReviewMgr object.
@@ -91,7 +92,7 @@ public final class ReviewMgrFactory
         }
         
         reviewMgr.setContextId(contextId);
-        return reviewMgr;
+        return Metrics.getInstance().wrap( ReviewMgr.class, reviewMgr );
     }
 
     /**
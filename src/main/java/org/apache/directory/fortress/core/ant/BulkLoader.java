@@ -0,0 +1,364 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ant;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.tools.ant.BuildException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class runs the entities of one load phase of {@link FortressAntTask} on a pool of worker threads.  The phases themselves
+ * are run one after the other, in the order of precedence that is documented on {@link FortressAntTask}, so that every entity
+ * type is loaded after the types it depends on.  Within a phase the entities do not depend on each other and are loaded
+ * concurrently, unless the phase is given a {@link Partition} in which case the entities that share a key are loaded one after the
+ * other, in the order of the xml file, by the same worker.  With a single worker the entities are loaded on the calling thread in
+ * the order of the xml file.
+ * <p>
+ * An entity that fails is logged and counted but does not stop the phase.  The outcome of every phase is kept as a
+ * {@link Result} with its entity count, error count and throughput.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class BulkLoader
+{
+    private static final String CLS_NM = BulkLoader.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private final int workers;
+    private final ExecutorService executor;
+    private final List<Result> results = Collections.synchronizedList( new ArrayList<Result>() );
+
+
+    /**
+     * Loads a single entity of a phase.
+     *
+     * @param <T> type of entity loaded by the phase.
+     */
+    public interface Loader<T>
+    {
+        /**
+         * Load the entity into the directory.
+         *
+         * @param entity contains the data from the xml file.
+         * @throws SecurityException in the event the entity could not be loaded.
+         */
+        void load( T entity ) throws SecurityException;
+    }
+
+
+    /**
+     * Returns the key of an entity whose load depends on the entities that were loaded before it with the same key.
+     *
+     * @param <T> type of entity loaded by the phase.
+     */
+    public interface Partition<T>
+    {
+        /**
+         * Return the key of the entity, entities with equal keys are never loaded concurrently.
+         *
+         * @param entity contains the data from the xml file.
+         * @return key of the entity.
+         */
+        Object getKey( T entity );
+    }
+
+
+    /**
+     * Contains the outcome of a load phase.
+     */
+    public static class Result
+    {
+        private final String name;
+        private final int count;
+        private final int errors;
+        private final long elapsedMillis;
+
+
+        Result( String name, int count, int errors, long elapsedMillis )
+        {
+            this.name = name;
+            this.count = count;
+            this.errors = errors;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+
+        /**
+         * @return name of the phase.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+
+        /**
+         * @return number of entities processed by the phase.
+         */
+        public int getCount()
+        {
+            return count;
+        }
+
+
+        /**
+         * @return number of entities that failed to load.
+         */
+        public int getErrors()
+        {
+            return errors;
+        }
+
+
+        /**
+         * @return time taken by the phase.
+         */
+        public long getElapsedMillis()
+        {
+            return elapsedMillis;
+        }
+
+
+        /**
+         * @return number of entities processed per second.
+         */
+        public double getThroughput()
+        {
+            return elapsedMillis == 0 ? count : count * 1000.0 / elapsedMillis;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            return String.format( "%s count=%d errors=%d elapsed=%dms throughput=%.1f/s", name, count, errors,
+                elapsedMillis, getThroughput() );
+        }
+    }
+
+
+    /**
+     * Create a loader that uses the given number of worker threads.
+     *
+     * @param workers number of threads used per phase, 1 loads the entities serially on the calling thread.
+     */
+    public BulkLoader( int workers )
+    {
+        this.workers = Math.max( 1, workers );
+        if ( this.workers > 1 )
+        {
+            executor = Executors.newFixedThreadPool( this.workers, new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger();
+
+
+                @Override
+                public Thread newThread( Runnable runnable )
+                {
+                    Thread thread = new Thread( runnable, "fortress-bulk-" + count.incrementAndGet() );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            } );
+        }
+        else
+        {
+            executor = null;
+        }
+    }
+
+
+    /**
+     * Load every entity of the phase and wait for all of them to finish.
+     *
+     * @param name     used to identify the phase in the log and in its {@link Result}.
+     * @param entities contains the entities of the phase.
+     * @param loader   called once for every entity.
+     * @param <T>      type of entity loaded by the phase.
+     * @return outcome of the phase.
+     * @throws BuildException in the event the phase is interrupted or a worker fails with an unexpected error.
+     */
+    public <T> Result load( String name, List<T> entities, Loader<T> loader ) throws BuildException
+    {
+        return load( name, entities, loader, null );
+    }
+
+
+    /**
+     * Load every entity of the phase and wait for all of them to finish.  The entities that share a key are loaded in order by
+     * a single worker.
+     *
+     * @param name      used to identify the phase in the log and in its {@link Result}.
+     * @param entities  contains the entities of the phase.
+     * @param loader    called once for every entity.
+     * @param partition returns the key of every entity, null if the entities do not depend on each other.
+     * @param <T>       type of entity loaded by the phase.
+     * @return outcome of the phase.
+     * @throws BuildException in the event the phase is interrupted or a worker fails with an unexpected error.
+     */
+    public <T> Result load( final String name, List<T> entities, final Loader<T> loader, Partition<T> partition )
+        throws BuildException
+    {
+        long start = System.currentTimeMillis();
+        final AtomicInteger errors = new AtomicInteger();
+        if ( executor == null )
+        {
+            for ( T entity : entities )
+            {
+                load( name, entity, loader, errors );
+            }
+        }
+        else
+        {
+            List<List<T>> groups = getGroups( entities, partition );
+            List<Future<?>> futures = new ArrayList<>( groups.size() );
+            for ( final List<T> group : groups )
+            {
+                futures.add( executor.submit( new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        for ( T entity : group )
+                        {
+                            load( name, entity, loader, errors );
+                        }
+                    }
+                } ) );
+            }
+            try
+            {
+                for ( Future<?> future : futures )
+                {
+                    future.get();
+                }
+            }
+            catch ( InterruptedException ie )
+            {
+                Thread.currentThread().interrupt();
+                throw new BuildException( name + " interrupted", ie );
+            }
+            catch ( ExecutionException ee )
+            {
+                throw new BuildException( name + " caught ExecutionException=" + ee.getMessage(), ee.getCause() );
+            }
+        }
+
+        Result result = new Result( name, entities.size(), errors.get(), System.currentTimeMillis() - start );
+        results.add( result );
+        if ( !entities.isEmpty() )
+        {
+            LOG.info( "{} workers={}", result, workers );
+        }
+        return result;
+    }
+
+
+    /**
+     * @return outcome of every phase that has been loaded so far.
+     */
+    public List<Result> getResults()
+    {
+        synchronized ( results )
+        {
+            return new ArrayList<>( results );
+        }
+    }
+
+
+    /**
+     * Stop the worker threads.  The loader can't be used after this call.
+     */
+    public void shutdown()
+    {
+        if ( executor != null )
+        {
+            executor.shutdown();
+        }
+    }
+
+
+    /**
+     * Split the entities into the groups that are handed to the workers, keeping the order of the xml file within each group.
+     *
+     * @param entities  contains the entities of the phase.
+     * @param partition returns the key of every entity, if null every entity is put in a group of its own.
+     * @param <T>       type of entity loaded by the phase.
+     * @return list of groups.
+     */
+    private static <T> List<List<T>> getGroups( List<T> entities, Partition<T> partition )
+    {
+        List<List<T>> groups = new ArrayList<>( entities.size() );
+        if ( partition == null )
+        {
+            for ( T entity : entities )
+            {
+                groups.add( Collections.singletonList( entity ) );
+            }
+        }
+        else
+        {
+            Map<Object, List<T>> keyed = new LinkedHashMap<>();
+            for ( T entity : entities )
+            {
+                Object key = partition.getKey( entity );
+                List<T> group = keyed.get( key );
+                if ( group == null )
+                {
+                    group = new ArrayList<>();
+                    keyed.put( key, group );
+                    groups.add( group );
+                }
+                group.add( entity );
+            }
+        }
+        return groups;
+    }
+
+
+    private <T> void load( String name, T entity, Loader<T> loader, AtomicInteger errors )
+    {
+        try
+        {
+            loader.load( entity );
+        }
+        catch ( SecurityException se )
+        {
+            errors.incrementAndGet();
+            LOG.warn( "{} entity [{}] caught SecurityException={}", name, entity, se );
+        }
+    }
+}
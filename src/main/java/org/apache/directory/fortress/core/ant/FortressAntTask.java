@@ -28,6 +28,7 @@ import java.util.StringTokenizer;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.directory.fortress.core.AdminMgr;
 import org.apache.directory.fortress.core.AdminMgrFactory;
 import org.apache.directory.fortress.core.CfgException;
@@ -254,6 +255,16 @@ import org.slf4j.LoggerFactory;
  *     org.apache.directory.fortress.core.model.UserRole)}
  *   </li>
  * </ol>
+ * <h3>Bulk Load</h3>
+ * The users, roles, permission objects, operations and grants, and user role assignments are loaded by a {@link BulkLoader}.
+ * By default it uses a single worker and loads them serially.  Setting the task attribute <code>workers</code>, or system
+ * property <code>bulk.workers</code>, to a value greater than one loads the entities of each of these phases concurrently.  Each
+ * entity is still added through the manager apis, with the same reads and validation as a serial load, so the gain comes from
+ * overlapping those calls rather than from making fewer of them.  The user role assignments of a user are loaded in order by a
+ * single worker so each one is checked against the static separation of duty sets together with the roles assigned before it.
+ * The outcome of every phase is logged and returned by
+ * {@link #process()}, which may be called by programs that need to load the xml without the <code>System.exit</code> done by
+ * {@link #execute()}.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -317,12 +328,27 @@ public class FortressAntTask extends Task implements InputHandler
     // This system property can be used to set the default tenant id:
     private static final String TENANT = System.getProperty( "tenant" );
     private String tenant;
+    // This system property can be used to set the number of bulk load workers:
+    private static final String WORKERS = System.getProperty( "bulk.workers" );
+    private int workers = NumberUtils.toInt( WORKERS, 1 );
+    private BulkLoader bulkLoader;
 
     public String getTenant()
     {
         return tenant;
     }
 
+    /**
+     * Set the number of threads used to load the entities of each bulk load phase.  This is the <code>workers</code> attribute
+     * of the task.
+     *
+     * @param workers number of threads, 1 loads the entities serially.
+     */
+    public void setWorkers( int workers )
+    {
+        this.workers = workers;
+    }
+
     /**
      * Load the entity with data.
      *
@@ -875,12 +901,45 @@ public class FortressAntTask extends Task implements InputHandler
 
 
     /**
+     * Process the xml, then exit the JVM.
+     *
      * @throws BuildException An error occurred while building
      */
     public void execute() throws BuildException
+    {
+        process();
+        System.exit( 0 );
+    }
+
+
+    /**
+     * Process the xml in the order of precedence documented on this class.  Unlike {@link #execute()} this method returns to
+     * its caller.
+     *
+     * @return outcome of every bulk load phase.
+     * @throws BuildException An error occurred while building
+     */
+    public List<BulkLoader.Result> process() throws BuildException
     {
         LOG.info( "FORTRESS ANT TASK NAME : {}", getTaskName() );
+        bulkLoader = new BulkLoader( workers );
+        try
+        {
+            processAll();
+            return bulkLoader.getResults();
+        }
+        finally
+        {
+            bulkLoader.shutdown();
+        }
+    }
 
+
+    /**
+     * @throws BuildException An error occurred while building
+     */
+    private void processAll() throws BuildException
+    {
         if ( isListNotNull( addcontexts ) )
         {
             setContext( addcontexts.get( 0 ).getContexts().get( 0 ) );
@@ -930,10 +989,41 @@ public class FortressAntTask extends Task implements InputHandler
         addUserRoles();
 
         testResults();
+    }
 
-        System.exit( 0 );
+
+    /**
+     * Hand the entities of a phase to the {@link BulkLoader}.
+     *
+     * @param name     used to identify the phase.
+     * @param entities contains the entities of the phase.
+     * @param loader   called once for every entity.
+     * @param <T>      type of entity loaded by the phase.
+     * @throws BuildException An error occurred while building
+     */
+    private <T> void load( String name, List<T> entities, BulkLoader.Loader<T> loader ) throws BuildException
+    {
+        bulkLoader.load( name, entities, loader );
     }
 
+
+    /**
+     * Hand the entities of a phase to the {@link BulkLoader}, the entities that share a key are loaded in order by one worker.
+     *
+     * @param name      used to identify the phase.
+     * @param entities  contains the entities of the phase.
+     * @param loader    called once for every entity.
+     * @param partition returns the key of every entity.
+     * @param <T>       type of entity loaded by the phase.
+     * @throws BuildException An error occurred while building
+     */
+    private <T> void load( String name, List<T> entities, BulkLoader.Loader<T> loader, BulkLoader.Partition<T> partition )
+        throws BuildException
+    {
+        bulkLoader.load( name, entities, loader, partition );
+    }
+
+
     /**
      * @throws BuildException An error occurred while building
      */
@@ -973,24 +1063,21 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        List<UserAnt> users = new ArrayList<>();
         for ( Adduser adduser : addusers )
         {
-            List<UserAnt> users = adduser.getUsers();
-            for ( UserAnt user : users )
+            users.addAll( adduser.getUsers() );
+        }
+        load( "addUsers", users, new BulkLoader.Loader<UserAnt>()
+        {
+            @Override
+            public void load( UserAnt user ) throws SecurityException
             {
                 LOG.info( "addUsers tenant={} userid={} description={} orgUnit={}",
                     getTenant(), user.getUserId(), user.getDescription(), user.getOu() );
-                try
-                {
-                    addUser( user );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addUsers userId [{}] caught SecurityException={}", user.getUserId(), se );
-                }
+                addUser( user );
             }
-        }
+        } );
     }
 
     /**
@@ -1318,24 +1405,28 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        List<UserRole> userRoles = new ArrayList<>();
         for ( Adduserrole adduserrole : adduserroles )
         {
-            List<UserRole> userroles = adduserrole.getUserRoles();
-            for ( UserRole userRole : userroles )
+            userRoles.addAll( adduserrole.getUserRoles() );
+        }
+        load( "addUserRoles", userRoles, new BulkLoader.Loader<UserRole>()
+        {
+            @Override
+            public void load( UserRole userRole ) throws SecurityException
             {
                 LOG.info( "addUserRoles tenant={} userid={} role name={}", getTenant(), userRole.getUserId(), userRole.getName() );
-                try
-                {
-                    //Role role = new Role(userRole);
-                    adminMgr.assignUser( userRole );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addUserRoles tenant={} userId={} roleName={} caught SecurityException={}", getTenant(), userRole.getUserId(), userRole.getName(), se );
-                }
+                adminMgr.assignUser( userRole );
             }
-        }
+        }, new BulkLoader.Partition<UserRole>()
+        {
+            // A user's assignments are loaded in order so that each is checked against the static sod sets with the ones before it:
+            @Override
+            public Object getKey( UserRole userRole )
+            {
+                return StringUtils.lowerCase( userRole.getUserId() );
+            }
+        } );
     }
 
 
@@ -1379,23 +1470,20 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        List<Role> roles = new ArrayList<>();
         for ( Addrole addrole : addroles )
         {
-            List<Role> roles = addrole.getRoles();
-            for ( Role role : roles )
+            roles.addAll( addrole.getRoles() );
+        }
+        load( "addRoles", roles, new BulkLoader.Loader<Role>()
+        {
+            @Override
+            public void load( Role role ) throws SecurityException
             {
                 LOG.info( "addRoles tenant={} name={} description={}", getTenant(), role.getName(), role.getDescription() );
-                try
-                {
-                    adminMgr.addRole( role );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addRoles tenant={} name [{}] caught SecurityException={}", getTenant(), role.getName(), se );
-                }
+                adminMgr.addRole( role );
             }
-        }
+        } );
     }
 
 
@@ -1579,42 +1667,38 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        List<PermObj> permObjs = new ArrayList<>();
         for ( AddpermObj addpermObj : addpermObjs )
         {
-            List<PermObj> permObjs = addpermObj.getPermObjs();
-            for ( PermObj permObj : permObjs )
+            permObjs.addAll( addpermObj.getPermObjs() );
+        }
+        load( "addPermObjs", permObjs, new BulkLoader.Loader<PermObj>()
+        {
+            @Override
+            public void load( PermObj permObj ) throws SecurityException
             {
                 LOG.info( "addPermObjs tenant={} objName={} description={} orgUnit={} type={}",
                     getTenant(), permObj.getObjName(), permObj.getDescription(), permObj.getOu(), permObj.getType() );
                 try
                 {
-                    try
+                    adminMgr.addPermObj( permObj );
+                }
+                catch ( SecurityException se )
+                {
+                    // If Perm Object entity already there then call the udpate method.
+                    if ( se.getErrorId() == GlobalErrIds.PERM_DUPLICATE )
                     {
-                        adminMgr.addPermObj( permObj );
+                        adminMgr.updatePermObj( permObj );
+                        LOG.info( "addPermObjs tenant={} update entity objName={} description={} orgUnit={} type={}", getTenant(), permObj.getObjName(), permObj
+                            .getDescription(), permObj.getOu(), permObj.getType() );
                     }
-                    catch ( SecurityException se )
+                    else
                     {
-                        // If Perm Object entity already there then call the udpate method.
-                        if ( se.getErrorId() == GlobalErrIds.PERM_DUPLICATE )
-                        {
-                            adminMgr.updatePermObj( permObj );
-                            LOG.info( "addPermObjs tenant={} update entity objName={} description={} orgUnit={} type={}", getTenant(), permObj.getObjName(), permObj
-                                .getDescription(), permObj.getOu(), permObj.getType() );
-                        }
-                        else
-                        {
-                            throw se;
-                        }
+                        throw se;
                     }
                 }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addPermObjs tenant={} objName [{}] caught SecurityException={}",
-                        getTenant(), permObj.getObjName(), se );
-                }
             }
-        }
+        } );
     }
 
 
@@ -1659,41 +1743,37 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        List<PermAnt> permissions = new ArrayList<>();
         for ( AddpermOp addpermOp : addpermOps )
         {
-            List<PermAnt> permissions = addpermOp.getPermOps();
-            for ( PermAnt permission : permissions )
+            permissions.addAll( addpermOp.getPermOps() );
+        }
+        load( "addPermOps", permissions, new BulkLoader.Loader<PermAnt>()
+        {
+            @Override
+            public void load( PermAnt permission ) throws SecurityException
             {
                 LOG.info( "addPermOps tenant={} name={} objName={}", getTenant(), permission.getOpName(), permission.getObjName() );
                 try
                 {
-                    try
+                    adminMgr.addPermission( permission );
+                }
+                catch ( SecurityException se )
+                {
+                    // If Perm Object entity already there then call the udpate method.
+                    if ( se.getErrorId() == GlobalErrIds.PERM_DUPLICATE )
                     {
-                        adminMgr.addPermission( permission );
+                        adminMgr.updatePermission( permission );
+                        LOG.info( "addPermOps tenant={} - update entity - name={} objName={}",
+                            getTenant(), permission.getOpName(), permission.getObjName() );
                     }
-                    catch ( SecurityException se )
+                    else
                     {
-                        // If Perm Object entity already there then call the udpate method.
-                        if ( se.getErrorId() == GlobalErrIds.PERM_DUPLICATE )
-                        {
-                            adminMgr.updatePermission( permission );
-                            LOG.info( "addPermOps tenant={} - update entity - name={} objName={}",
-                                getTenant(), permission.getOpName(), permission.getObjName() );
-                        }
-                        else
-                        {
-                            throw se;
-                        }
+                        throw se;
                     }
                 }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addPermOps tenant={} name [{}] objName [{}] caught SecurityException={}",
-                        getTenant(), permission.getOpName(), permission.getObjName(), se );
-                }
             }
-        }
+        } );
     }
 
 
@@ -1738,40 +1818,37 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        List<PermGrant> permGrants = new ArrayList<>();
         for ( AddpermGrant addpermGrant : addpermGrants )
         {
-            List<PermGrant> permGrants = addpermGrant.getPermGrants();
-            for ( PermGrant permGrant : permGrants )
+            permGrants.addAll( addpermGrant.getPermGrants() );
+        }
+        load( "addPermGrants", permGrants, new BulkLoader.Loader<PermGrant>()
+        {
+            @Override
+            public void load( PermGrant permGrant ) throws SecurityException
             {
-                try
+                Permission perm = new Permission( permGrant.getObjName(), permGrant.getOpName(),
+                    permGrant.isAdmin() );
+                perm.setOpName( permGrant.getOpName() );
+                perm.setObjId( permGrant.getObjId() );
+                if ( permGrant.getRoleNm() != null && permGrant.getRoleNm().length() > 0 )
                 {
-                    Permission perm = new Permission( permGrant.getObjName(), permGrant.getOpName(),
-                        permGrant.isAdmin() );
-                    perm.setOpName( permGrant.getOpName() );
-                    perm.setObjId( permGrant.getObjId() );
-                    if ( permGrant.getRoleNm() != null && permGrant.getRoleNm().length() > 0 )
-                    {
-                        LOG.info( "addPermGrants tenant={} roleName={} objName={} opName={} objId={}", getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
-                        adminMgr.grantPermission( perm, new Role( permGrant.getRoleNm() ) );
-                    }
-                    else if ( permGrant.getUserId() != null && permGrant.getUserId().length() > 0 )
-                    {
-                        LOG.info( "addPermGrants tenant={} userId={} objName={} opName={} objId={}", getTenant(), permGrant.getUserId(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
-                        adminMgr.grantPermission( perm, new User( permGrant.getUserId() ) );
-                    }
-                    else
-                    {
-                        String warning = "addPermGrants called without user or role set in xml";
-                        LOG.warn( warning );
-                    }
+                    LOG.info( "addPermGrants tenant={} roleName={} objName={} opName={} objId={}", getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
+                    adminMgr.grantPermission( perm, new Role( permGrant.getRoleNm() ) );
                 }
-                catch ( SecurityException se )
+                else if ( permGrant.getUserId() != null && permGrant.getUserId().length() > 0 )
+                {
+                    LOG.info( "addPermGrants tenant={} userId={} objName={} opName={} objId={}", getTenant(), permGrant.getUserId(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId() );
+                    adminMgr.grantPermission( perm, new User( permGrant.getUserId() ) );
+                }
+                else
                 {
-                    LOG.warn( "addPermGrants tenant={} roleName={} objName={} opName={} objId={} caught SecurityException={}" , getTenant(), permGrant.getRoleNm(), permGrant.getObjName(), permGrant.getOpName(), permGrant.getObjId(), se );
+                    String warning = "addPermGrants called without user or role set in xml";
+                    LOG.warn( warning );
                 }
             }
-        }
+        } );
     }
 
 
@@ -2349,25 +2426,20 @@ public class FortressAntTask extends Task implements InputHandler
             return;
         }
 
-        // Loop through the entityclass elements
+        List<UserAdminRole> userRoles = new ArrayList<>();
         for ( Adduseradminrole adduserrole : adduseradminroles )
         {
-            List<UserAdminRole> userroles = adduserrole.getUserRoles();
-            for ( UserAdminRole userRole : userroles )
+            userRoles.addAll( adduserrole.getUserRoles() );
+        }
+        load( "addUserAdminRoles", userRoles, new BulkLoader.Loader<UserAdminRole>()
+        {
+            @Override
+            public void load( UserAdminRole userRole ) throws SecurityException
             {
                 LOG.info( "addUserAdminRoles tenant={} userid={} role name={}", getTenant(), userRole.getUserId(), userRole.getName() );
-                try
-                {
-                    //AdminRole role = new AdminRole(userRole);
-                    dAdminMgr.assignUser( userRole );
-                }
-                catch ( SecurityException se )
-                {
-                    LOG.warn( "addUserAdminRoles tenant={} userId={} role name={} caught SecurityException={}",
-                        getTenant(), userRole.getUserId(), userRole.getName(), se );
-                }
+                dAdminMgr.assignUser( userRole );
             }
-        }
+        } );
     }
 
 
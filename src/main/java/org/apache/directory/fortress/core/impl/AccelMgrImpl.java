@@ -21,7 +21,11 @@ package org.apache.directory.fortress.core.impl;
 
 
 import java.io.Serializable;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.directory.fortress.core.AccelMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
@@ -30,6 +34,7 @@ import org.apache.directory.fortress.core.model.Permission;
 import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.model.User;
 import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.VUtil;
 
 
@@ -77,7 +82,9 @@ import org.apache.directory.fortress.core.util.VUtil;
 public class AccelMgrImpl extends Manageable implements AccelMgr, Serializable
 {
     private static final String CLS_NM = AccessMgrImpl.class.getName();
+    private static final String PIPELINE_BATCH = "accel.pipeline.batch";
     private AcceleratorDAO aDao;
+    private boolean isPipelineBatch;
 
 
     /**
@@ -86,6 +93,7 @@ public class AccelMgrImpl extends Manageable implements AccelMgr, Serializable
     public AccelMgrImpl()
     {
     	aDao = new org.apache.directory.fortress.core.impl.AcceleratorDAO();
+        isPipelineBatch = Config.getInstance().getBoolean( PIPELINE_BATCH, false );
     }
 
 
@@ -145,6 +153,83 @@ public class AccelMgrImpl extends Manageable implements AccelMgr, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The accelerator evaluates one permission per request so each is sent in turn, after all of the permissions have been
+     * validated.
+     */
+    @Override
+    public Map<Permission, Boolean> checkAccess( Session session, List<Permission> perms )
+        throws SecurityException
+    {
+        String methodName = "checkAccess";
+        assertContext( CLS_NM, methodName, session, GlobalErrIds.USER_SESS_NULL );
+        VUtil.assertNotNull( perms, GlobalErrIds.PERM_NULL, getFullMethodName( CLS_NM, methodName ) );
+        for ( Permission perm : perms )
+        {
+            assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_NULL );
+            VUtil.assertNotNullOrEmpty( perm.getOpName(), GlobalErrIds.PERM_OPERATION_NULL, getFullMethodName( CLS_NM,
+                methodName ) );
+            VUtil.assertNotNullOrEmpty( perm.getObjName(), GlobalErrIds.PERM_OBJECT_NULL, getFullMethodName( CLS_NM,
+                methodName ) );
+        }
+        Map<Permission, Boolean> results = new LinkedHashMap<>();
+        if ( isPipelineBatch )
+        {
+            // send them all before waiting for any of the replies:
+            Map<Permission, Future<Boolean>> pending = new LinkedHashMap<>();
+            for ( Permission perm : perms )
+            {
+                pending.put( perm, aDao.checkAccessAsync( session, perm ) );
+            }
+            for ( Map.Entry<Permission, Future<Boolean>> entry : pending.entrySet() )
+            {
+                results.put( entry.getKey(), getResult( entry.getValue(), methodName ) );
+            }
+            return results;
+        }
+        for ( Permission perm : perms )
+        {
+            results.put( perm, aDao.checkAccess( session, perm ) );
+        }
+        return results;
+    }
+
+
+    /**
+     * Wait for the result of a request sent on the {@link AccelPipeline}.
+     *
+     * @param future     of the request.
+     * @param methodName of the caller, used in the error of a failed wait.
+     * @return the result.
+     * @throws SecurityException the request failed with, or if the wait was interrupted.
+     */
+    private <T> T getResult( Future<T> future, String methodName ) throws SecurityException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof SecurityException )
+            {
+                throw ( SecurityException ) e.getCause();
+            }
+            throw new SecurityException( GlobalErrIds.ACEL_CHECK_ACCESS_ERR, getFullMethodName( CLS_NM, methodName )
+                + " caught " + e.getMessage(), e );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            future.cancel( true );
+            throw new SecurityException( GlobalErrIds.ACEL_CHECK_ACCESS_ERR, getFullMethodName( CLS_NM, methodName )
+                + " interrupted", e );
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
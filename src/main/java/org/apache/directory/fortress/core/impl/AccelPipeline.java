@@ -0,0 +1,474 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.ExtendedRequest;
+import org.apache.directory.api.ldap.model.message.ExtendedResponse;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.ldap.LdapConnectionProvider;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.metrics.Gauge;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
+import org.apache.directory.ldap.client.api.LdapAsyncConnection;
+import org.apache.directory.ldap.client.api.future.ExtendedFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class sends RBAC Accelerator extended operations over a few long-lived admin connections without waiting for each reply,
+ * so that many requests are outstanding on a connection at once.  The ldap client matches the replies to their requests by message
+ * id, see {@link LdapAsyncConnection#extendedAsync(ExtendedRequest)}.  It is used by {@link AcceleratorDAO} for
+ * {@link org.apache.directory.fortress.core.AsyncAccelMgr}.
+ * <p>
+ * There are 'accel.pipeline.connections' connections, default 2, opened on first use with
+ * {@link LdapConnectionProvider#openAdminConnection()} and reopened when found closed.  A request is sent on the connection with
+ * the fewest outstanding, and each connection carries at most 'accel.pipeline.max.inflight' of them, default 128.  Callers that
+ * would exceed it wait for a reply to arrive.
+ * <p>
+ * A daemon thread per connection takes the replies in the order their requests were sent, converts them and frees their slot.  A
+ * request without a reply within 'accel.pipeline.timeout' milliseconds of being sent, default 30000, is abandoned and fails.  The
+ * deadline is fixed when the request is sent so a slow reply does not extend the wait of the requests queued behind it.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class AccelPipeline
+{
+    private static final String CLS_NM = AccelPipeline.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String CONNECTIONS = "accel.pipeline.connections";
+    private static final String MAX_INFLIGHT = "accel.pipeline.max.inflight";
+    private static final String TIMEOUT = "accel.pipeline.timeout";
+
+    private final Channel[] channels;
+    private final int maxInflight;
+    private final long timeout;
+    private final Connector connector;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private static volatile AccelPipeline INSTANCE = null;
+
+    static AccelPipeline getInstance()
+    {
+        if ( INSTANCE == null )
+        {
+            synchronized ( AccelPipeline.class )
+            {
+                if ( INSTANCE == null )
+                {
+                    INSTANCE = new AccelPipeline();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     */
+    private AccelPipeline()
+    {
+        this( Config.getInstance().getInt( CONNECTIONS, 2 ), Config.getInstance().getInt( MAX_INFLIGHT, 128 ),
+            Config.getInstance().getInt( TIMEOUT, 30000 ), new Connector()
+            {
+                @Override
+                public LdapAsyncConnection open() throws LdapException
+                {
+                    return LdapConnectionProvider.getInstance().openAdminConnection();
+                }
+            } );
+        Metrics.getInstance().register( "accel.pipeline.inflight", new Gauge()
+        {
+            @Override
+            public long getValue()
+            {
+                long inflight = 0;
+                for ( Channel channel : channels )
+                {
+                    inflight += channel.getInflight();
+                }
+                return inflight;
+            }
+        } );
+        LOG.info( "AccelPipeline connections [{}] max inflight [{}] timeout [{}] ms", channels.length, maxInflight, timeout );
+    }
+
+
+    /**
+     * Package private constructor, used by the unit test to supply its own connections.
+     *
+     * @param size        number of connections.
+     * @param maxInflight maximum number of requests outstanding on a connection.
+     * @param timeout     milliseconds a request waits for its reply after being sent.
+     * @param connector   opens the connections.
+     */
+    AccelPipeline( int size, int maxInflight, long timeout, Connector connector )
+    {
+        this.maxInflight = Math.max( 1, maxInflight );
+        this.timeout = timeout;
+        this.connector = connector;
+        channels = new Channel[Math.max( 1, size )];
+        for ( int i = 0; i < channels.length; i++ )
+        {
+            channels[i] = new Channel( "fortress-accel-pipeline-" + i );
+        }
+    }
+
+
+    /**
+     * Send a request and return the future of its result.
+     *
+     * @param request contains the extended operation.
+     * @param reply   converts the response into the result.
+     * @param errorId error id of the exception the request fails with if no response is received.
+     * @param <T>     the type of the result.
+     * @return future of the result.  Its get method throws an ExecutionException whose cause is the {@link SecurityException} the
+     * request failed with.
+     * @throws SecurityException if the request could not be sent.
+     */
+    <T> Future<T> send( ExtendedRequest request, Reply<T> reply, int errorId ) throws SecurityException
+    {
+        Call<T> call = new Call<>( reply, errorId );
+        choose().send( request, call );
+        return call;
+    }
+
+
+    /**
+     * @return the connection with the fewest requests outstanding, starting from the next one in turn to spread ties.
+     */
+    private Channel choose()
+    {
+        int start = ( next.getAndIncrement() & Integer.MAX_VALUE ) % channels.length;
+        Channel best = channels[start];
+        for ( int i = 1; i < channels.length; i++ )
+        {
+            Channel channel = channels[( start + i ) % channels.length];
+            if ( channel.getInflight() < best.getInflight() )
+            {
+                best = channel;
+            }
+        }
+        return best;
+    }
+
+
+    /**
+     * Converts the response of an extended operation into the result of the request.
+     *
+     * @param <T> the type of the result.
+     */
+    interface Reply<T>
+    {
+        /**
+         * @param response contains the response of the extended operation.
+         * @return the result.
+         * @throws SecurityException if the response reports the operation failed.
+         */
+        T unload( ExtendedResponse response ) throws SecurityException;
+    }
+
+
+    /**
+     * Opens the connections of the pipeline.
+     */
+    interface Connector
+    {
+        /**
+         * @return a bound connection, closed by the pipeline when it is found disconnected.
+         * @throws LdapException if the connection could not be opened or bound.
+         */
+        LdapAsyncConnection open() throws LdapException;
+    }
+
+
+    /**
+     * A connection, its in-flight limit and the requests outstanding on it.
+     */
+    private final class Channel implements Runnable
+    {
+        private final String name;
+        private final Semaphore permits;
+        private final BlockingQueue<Call<?>> pending = new LinkedBlockingQueue<>();
+        // guarded by this:
+        private LdapAsyncConnection connection;
+        private Thread completer;
+
+
+        private Channel( String name )
+        {
+            this.name = name;
+            this.permits = new Semaphore( maxInflight );
+        }
+
+
+        private int getInflight()
+        {
+            return maxInflight - permits.availablePermits();
+        }
+
+
+        private void send( ExtendedRequest request, Call<?> call ) throws SecurityException
+        {
+            try
+            {
+                permits.acquire();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new SecurityException( call.errorId, "send interrupted waiting on [" + name + "]", e );
+            }
+            try
+            {
+                synchronized ( this )
+                {
+                    call.future = getConnection().extendedAsync( request );
+                    call.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( timeout );
+                    // queued under the lock so the replies are taken in the order the requests were sent:
+                    pending.add( call );
+                }
+            }
+            catch ( LdapException e )
+            {
+                permits.release();
+                String error = "send [" + name + "] caught LDAPException=" + e.getMessage();
+                throw new SecurityException( call.errorId, error, e );
+            }
+        }
+
+
+        /**
+         * Return the connection, reopening it if it has been closed.  Must be called holding the lock.
+         */
+        private LdapAsyncConnection getConnection() throws LdapException
+        {
+            if ( connection == null || !connection.isConnected() )
+            {
+                if ( connection != null )
+                {
+                    LOG.warn( "getConnection [{}] closed, reopening", name );
+                    try
+                    {
+                        connection.close();
+                    }
+                    catch ( IOException e )
+                    {
+                        LOG.debug( "getConnection [{}] close failed: {}", name, e.getMessage() );
+                    }
+                    connection = null;
+                }
+                connection = connector.open();
+            }
+            if ( completer == null )
+            {
+                completer = new Thread( this, name );
+                completer.setDaemon( true );
+                completer.start();
+            }
+            return connection;
+        }
+
+
+        /**
+         * Complete the outstanding requests in the order they were sent.
+         */
+        @Override
+        public void run()
+        {
+            while ( true )
+            {
+                Call<?> call;
+                try
+                {
+                    call = pending.take();
+                }
+                catch ( InterruptedException e )
+                {
+                    return;
+                }
+                try
+                {
+                    call.complete( timeout );
+                }
+                finally
+                {
+                    permits.release();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The future of a request, completed by the thread of its connection.
+     *
+     * @param <T> the type of the result.
+     */
+    private static final class Call<T> implements Future<T>
+    {
+        private final Reply<T> reply;
+        private final int errorId;
+        private final CountDownLatch done = new CountDownLatch( 1 );
+        private volatile ExtendedFuture future;
+        private volatile long deadline;
+        private T value;
+        private SecurityException error;
+        private boolean cancelled;
+
+
+        private Call( Reply<T> reply, int errorId )
+        {
+            this.reply = reply;
+            this.errorId = errorId;
+        }
+
+
+        private void complete( long timeout )
+        {
+            try
+            {
+                // the wait is what is left of the timeout since the request was sent, none if already past:
+                ExtendedResponse response = future.get( Math.max( 0, deadline - System.nanoTime() ), TimeUnit.NANOSECONDS );
+                if ( response == null )
+                {
+                    future.cancel( true );
+                    finish( null, new SecurityException( errorId, "complete no response within [" + timeout + "] ms" ),
+                        false );
+                }
+                else
+                {
+                    finish( reply.unload( response ), null, false );
+                }
+            }
+            catch ( SecurityException se )
+            {
+                finish( null, se, false );
+            }
+            catch ( TimeoutException e )
+            {
+                future.cancel( true );
+                finish( null, new SecurityException( errorId, "complete no response within [" + timeout + "] ms", e ),
+                    false );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                finish( null, new SecurityException( errorId, "complete interrupted", e ), false );
+            }
+            catch ( ExecutionException | RuntimeException e )
+            {
+                finish( null, new SecurityException( errorId, "complete caught exception=" + e.getMessage(), e ),
+                    false );
+            }
+        }
+
+
+        private synchronized boolean finish( T value, SecurityException error, boolean cancelled )
+        {
+            if ( done.getCount() == 0 )
+            {
+                return false;
+            }
+            this.value = value;
+            this.error = error;
+            this.cancelled = cancelled;
+            done.countDown();
+            return true;
+        }
+
+
+        private synchronized T report() throws ExecutionException
+        {
+            if ( cancelled )
+            {
+                throw new CancellationException();
+            }
+            if ( error != null )
+            {
+                throw new ExecutionException( error.getMessage(), error );
+            }
+            return value;
+        }
+
+
+        @Override
+        public boolean cancel( boolean mayInterruptIfRunning )
+        {
+            if ( !finish( null, null, true ) )
+            {
+                return false;
+            }
+            // abandon the request, its slot is freed once the thread of the connection reaches it:
+            future.cancel( true );
+            return true;
+        }
+
+
+        @Override
+        public synchronized boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+
+        @Override
+        public boolean isDone()
+        {
+            return done.getCount() == 0;
+        }
+
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException
+        {
+            done.await();
+            return report();
+        }
+
+
+        @Override
+        public T get( long timeout, TimeUnit unit ) throws InterruptedException, ExecutionException, TimeoutException
+        {
+            if ( !done.await( timeout, unit ) )
+            {
+                throw new TimeoutException();
+            }
+            return report();
+        }
+    }
+}
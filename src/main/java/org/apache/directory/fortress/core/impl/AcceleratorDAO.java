@@ -22,10 +22,12 @@ package org.apache.directory.fortress.core.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.ExtendedResponse;
 import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.SecurityException;
@@ -91,48 +93,14 @@ final class AcceleratorDAO extends LdapDataProvider
      */
     Session createSession( User user ) throws SecurityException
     {
-        Session session = null;
         LdapConnection ld = null;
 
         try
         {
             ld = getAdminConnection();
             ld.setTimeOut( 0 );
-            // Create a new RBAC session
-            RbacCreateSessionRequest rbacCreateSessionRequest = new RbacCreateSessionRequestImpl();
-            //rbacCreateSessionRequest.setTenantId( "jts" );
-            rbacCreateSessionRequest.setTenantId( user.getContextId() );
-            rbacCreateSessionRequest.setUserIdentity( user.getUserId() );
-            rbacCreateSessionRequest.setPassword( new String( user.getPassword() ) );
-
-            if ( CollectionUtils.isNotEmpty( user.getRoles() ) )
-            {
-                for ( UserRole userRole : user.getRoles() )
-                {
-                    rbacCreateSessionRequest.addRole( userRole.getName() );
-                }
-            }
-
             // Send the request
-            RbacCreateSessionResponse rbacCreateSessionResponse = ( RbacCreateSessionResponse ) ld.extended(
-                rbacCreateSessionRequest );
-            LOG.debug( "createSession userId: {}, sessionId: {}, resultCode: {}",
-                user.getUserId(), rbacCreateSessionResponse.getSessionId(),
-                rbacCreateSessionResponse.getLdapResult().getResultCode() );
-            session = new Session( user, rbacCreateSessionResponse.getSessionId() );
-
-            if ( rbacCreateSessionResponse.getLdapResult().getResultCode() == ResultCodeEnum.SUCCESS )
-            {
-                session.setAuthenticated( true );
-            }
-            else
-            {
-                session.setAuthenticated( false );
-                String info = "createSession UserId [" + user.getUserId() + "] failed: "
-                    + rbacCreateSessionResponse.getLdapResult() + " , resultCode: "
-                    + rbacCreateSessionResponse.getLdapResult().getResultCode().getResultCode();
-                throw new SecurityException( GlobalErrIds.USER_PW_INVLD, info );
-            }
+            return unloadCreateSession( user, ld.extended( newCreateSessionRequest( user ) ) );
         }
         catch ( LdapException e )
         {
@@ -144,6 +112,69 @@ final class AcceleratorDAO extends LdapDataProvider
         {
             closeAdminConnection( ld );
         }
+    }
+
+
+    /**
+     * Send a createSession request on the {@link AccelPipeline} without waiting for the response, see {@link #createSession(User)}.
+     *
+     * @param user contains the userId, password and optional roles to activate.
+     * @return future of the session, which contains the sessionId captured from the accelerator.
+     * @throws SecurityException if the request could not be sent.
+     */
+    Future<Session> createSessionAsync( final User user ) throws SecurityException
+    {
+        return AccelPipeline.getInstance().send( newCreateSessionRequest( user ), new AccelPipeline.Reply<Session>()
+        {
+            @Override
+            public Session unload( ExtendedResponse response ) throws SecurityException
+            {
+                return unloadCreateSession( user, response );
+            }
+        }, GlobalErrIds.ACEL_CREATE_SESSION_ERR );
+    }
+
+
+    private RbacCreateSessionRequest newCreateSessionRequest( User user )
+    {
+        // Create a new RBAC session
+        RbacCreateSessionRequest rbacCreateSessionRequest = new RbacCreateSessionRequestImpl();
+        //rbacCreateSessionRequest.setTenantId( "jts" );
+        rbacCreateSessionRequest.setTenantId( user.getContextId() );
+        rbacCreateSessionRequest.setUserIdentity( user.getUserId() );
+        rbacCreateSessionRequest.setPassword( new String( user.getPassword() ) );
+
+        if ( CollectionUtils.isNotEmpty( user.getRoles() ) )
+        {
+            for ( UserRole userRole : user.getRoles() )
+            {
+                rbacCreateSessionRequest.addRole( userRole.getName() );
+            }
+        }
+        return rbacCreateSessionRequest;
+    }
+
+
+    private Session unloadCreateSession( User user, ExtendedResponse response ) throws SecurityException
+    {
+        RbacCreateSessionResponse rbacCreateSessionResponse = ( RbacCreateSessionResponse ) response;
+        LOG.debug( "createSession userId: {}, sessionId: {}, resultCode: {}",
+            user.getUserId(), rbacCreateSessionResponse.getSessionId(),
+            rbacCreateSessionResponse.getLdapResult().getResultCode() );
+        Session session = new Session( user, rbacCreateSessionResponse.getSessionId() );
+
+        if ( rbacCreateSessionResponse.getLdapResult().getResultCode() == ResultCodeEnum.SUCCESS )
+        {
+            session.setAuthenticated( true );
+        }
+        else
+        {
+            session.setAuthenticated( false );
+            String info = "createSession UserId [" + user.getUserId() + "] failed: "
+                + rbacCreateSessionResponse.getLdapResult() + " , resultCode: "
+                + rbacCreateSessionResponse.getLdapResult().getResultCode().getResultCode();
+            throw new SecurityException( GlobalErrIds.USER_PW_INVLD, info );
+        }
 
         return session;
     }
@@ -166,29 +197,13 @@ final class AcceleratorDAO extends LdapDataProvider
      */
     boolean checkAccess( Session session, Permission perm ) throws SecurityException
     {
-        boolean result = false;
         LdapConnection ld = null;
 
         try
         {
             ld = getAdminConnection();
-            RbacCheckAccessRequest rbacCheckAccessRequest = new RbacCheckAccessRequestImpl();
-            rbacCheckAccessRequest.setSessionId( session.getSessionId() );
-            rbacCheckAccessRequest.setObject( perm.getObjName() );
-
-            // objectId is optional
-            if ( StringUtils.isNotEmpty( perm.getObjId() ) )
-            {
-                rbacCheckAccessRequest.setObjectId( perm.getObjId() );
-            }
-
-            rbacCheckAccessRequest.setOperation( perm.getOpName() );
             // Send the request
-            RbacCheckAccessResponse rbacCheckAccessResponse = ( RbacCheckAccessResponse ) ld.extended(
-                rbacCheckAccessRequest );
-            LOG.debug( "checkAccess result: {}", rbacCheckAccessResponse.getLdapResult().getResultCode() );
-
-            result = rbacCheckAccessResponse.getLdapResult().getResultCode() == ResultCodeEnum.SUCCESS;
+            return unloadCheckAccess( ld.extended( newCheckAccessRequest( session, perm ) ) );
         }
         catch ( LdapException e )
         {
@@ -201,8 +216,54 @@ final class AcceleratorDAO extends LdapDataProvider
         {
             closeAdminConnection( ld );
         }
+    }
 
-        return result;
+
+    /**
+     * Send a checkAccess request on the {@link AccelPipeline} without waiting for the response, see
+     * {@link #checkAccess(Session, Permission)}.
+     *
+     * @param session contains a valid sessionId captured from accelerator createSession method.
+     * @param perm    must contain the object and operation name of the permission.
+     * @return future of the decision, true if the user has access.
+     * @throws SecurityException if the request could not be sent.
+     */
+    Future<Boolean> checkAccessAsync( Session session, Permission perm ) throws SecurityException
+    {
+        return AccelPipeline.getInstance().send( newCheckAccessRequest( session, perm ), new AccelPipeline.Reply<Boolean>()
+        {
+            @Override
+            public Boolean unload( ExtendedResponse response )
+            {
+                return unloadCheckAccess( response );
+            }
+        }, GlobalErrIds.ACEL_CHECK_ACCESS_ERR );
+    }
+
+
+    private RbacCheckAccessRequest newCheckAccessRequest( Session session, Permission perm )
+    {
+        RbacCheckAccessRequest rbacCheckAccessRequest = new RbacCheckAccessRequestImpl();
+        rbacCheckAccessRequest.setSessionId( session.getSessionId() );
+        rbacCheckAccessRequest.setObject( perm.getObjName() );
+
+        // objectId is optional
+        if ( StringUtils.isNotEmpty( perm.getObjId() ) )
+        {
+            rbacCheckAccessRequest.setObjectId( perm.getObjId() );
+        }
+
+        rbacCheckAccessRequest.setOperation( perm.getOpName() );
+        return rbacCheckAccessRequest;
+    }
+
+
+    private boolean unloadCheckAccess( ExtendedResponse response )
+    {
+        RbacCheckAccessResponse rbacCheckAccessResponse = ( RbacCheckAccessResponse ) response;
+        LOG.debug( "checkAccess result: {}", rbacCheckAccessResponse.getLdapResult().getResultCode() );
+
+        return rbacCheckAccessResponse.getLdapResult().getResultCode() == ResultCodeEnum.SUCCESS;
     }
 
 
@@ -223,21 +284,8 @@ final class AcceleratorDAO extends LdapDataProvider
         try
         {
             ld = getAdminConnection();
-            RbacDropRoleRequest dropRoleRequest = new RbacDropRoleRequestImpl();
-            dropRoleRequest.setSessionId( session.getSessionId() );
-            dropRoleRequest.setRole( userRole.getName() );
-            dropRoleRequest.setUserIdentity( userRole.getUserId() );
             // Send the request
-            RbacDropRoleResponse rbacDropRoleResponse = ( RbacDropRoleResponse ) ld.extended(
-                dropRoleRequest );
-            LOG.debug( "dropActiveRole result: {}", rbacDropRoleResponse.getLdapResult().getResultCode() );
-
-            if ( rbacDropRoleResponse.getLdapResult().getResultCode() != ResultCodeEnum.SUCCESS )
-            {
-                String info = "dropActiveRole Role [" + userRole.getName() + "] User ["
-                    + session.getUserId() + "], not previously activated.";
-                throw new SecurityException( GlobalErrIds.URLE_NOT_ACTIVE, info );
-            }
+            unloadDropActiveRole( session, userRole, ld.extended( newDropRoleRequest( session, userRole ) ) );
         }
         catch ( LdapException e )
         {
@@ -252,6 +300,54 @@ final class AcceleratorDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Send a dropActiveRole request on the {@link AccelPipeline} without waiting for the response, see
+     * {@link #dropActiveRole(Session, UserRole)}.
+     *
+     * @param session  contains a valid sessionId captured from accelerator createSession method.
+     * @param userRole both the userId and name fields must be set before invoking.
+     * @return future that completes once the role has been deactivated.
+     * @throws SecurityException if the request could not be sent.
+     */
+    Future<Void> dropActiveRoleAsync( final Session session, final UserRole userRole ) throws SecurityException
+    {
+        return AccelPipeline.getInstance().send( newDropRoleRequest( session, userRole ), new AccelPipeline.Reply<Void>()
+        {
+            @Override
+            public Void unload( ExtendedResponse response ) throws SecurityException
+            {
+                unloadDropActiveRole( session, userRole, response );
+                return null;
+            }
+        }, GlobalErrIds.ACEL_DROP_ROLE_ERR );
+    }
+
+
+    private RbacDropRoleRequest newDropRoleRequest( Session session, UserRole userRole )
+    {
+        RbacDropRoleRequest dropRoleRequest = new RbacDropRoleRequestImpl();
+        dropRoleRequest.setSessionId( session.getSessionId() );
+        dropRoleRequest.setRole( userRole.getName() );
+        dropRoleRequest.setUserIdentity( userRole.getUserId() );
+        return dropRoleRequest;
+    }
+
+
+    private void unloadDropActiveRole( Session session, UserRole userRole, ExtendedResponse response )
+        throws SecurityException
+    {
+        RbacDropRoleResponse rbacDropRoleResponse = ( RbacDropRoleResponse ) response;
+        LOG.debug( "dropActiveRole result: {}", rbacDropRoleResponse.getLdapResult().getResultCode() );
+
+        if ( rbacDropRoleResponse.getLdapResult().getResultCode() != ResultCodeEnum.SUCCESS )
+        {
+            String info = "dropActiveRole Role [" + userRole.getName() + "] User ["
+                + session.getUserId() + "], not previously activated.";
+            throw new SecurityException( GlobalErrIds.URLE_NOT_ACTIVE, info );
+        }
+    }
+
+
     /**
      * Activate user role into impl session
      * This function follows the pattern from: {@link org.apache.directory.fortress.core.AccessMgr#addActiveRole(org.apache.directory.fortress.core.model.Session, org.apache.directory.fortress.core.model.UserRole)}.
@@ -269,35 +365,8 @@ final class AcceleratorDAO extends LdapDataProvider
         try
         {
             ld = getAdminConnection();
-            RbacAddRoleRequest addRoleRequest = new RbacAddRoleRequestImpl();
-            addRoleRequest.setSessionId( session.getSessionId() );
-            addRoleRequest.setRole( userRole.getName() );
-            addRoleRequest.setUserIdentity( userRole.getUserId() );
             // Send the request
-            RbacAddRoleResponse rbacAddRoleResponse = ( RbacAddRoleResponse ) ld.extended(
-                addRoleRequest );
-            LOG.debug( "addActiveRole result: {}", rbacAddRoleResponse.getLdapResult().getResultCode() );
-
-            if ( rbacAddRoleResponse.getLdapResult().getResultCode() != ResultCodeEnum.SUCCESS )
-            {
-                String info;
-                int rc;
-
-                if ( rbacAddRoleResponse.getLdapResult().getResultCode() == ResultCodeEnum.ATTRIBUTE_OR_VALUE_EXISTS )
-                {
-                    info = "addActiveRole Role [" + userRole.getName() + "] User ["
-                        + session.getUserId() + "], already activated.";
-                    rc = GlobalErrIds.URLE_ALREADY_ACTIVE;
-                }
-                else
-                {
-                    info = "addActiveRole Role [" + userRole.getName() + "] User ["
-                        + session.getUserId() + "], not authorized for user.";
-                    rc = GlobalErrIds.URLE_ACTIVATE_FAILED;
-                }
-
-                throw new SecurityException( rc, info );
-            }
+            unloadAddActiveRole( session, userRole, ld.extended( newAddRoleRequest( session, userRole ) ) );
         }
         catch ( LdapException e )
         {
@@ -312,6 +381,68 @@ final class AcceleratorDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Send an addActiveRole request on the {@link AccelPipeline} without waiting for the response, see
+     * {@link #addActiveRole(Session, UserRole)}.
+     *
+     * @param session  contains a valid sessionId captured from accelerator createSession method.
+     * @param userRole both the userId and name fields must be set before invoking.
+     * @return future that completes once the role has been activated.
+     * @throws SecurityException if the request could not be sent.
+     */
+    Future<Void> addActiveRoleAsync( final Session session, final UserRole userRole ) throws SecurityException
+    {
+        return AccelPipeline.getInstance().send( newAddRoleRequest( session, userRole ), new AccelPipeline.Reply<Void>()
+        {
+            @Override
+            public Void unload( ExtendedResponse response ) throws SecurityException
+            {
+                unloadAddActiveRole( session, userRole, response );
+                return null;
+            }
+        }, GlobalErrIds.ACEL_ADD_ROLE_ERR );
+    }
+
+
+    private RbacAddRoleRequest newAddRoleRequest( Session session, UserRole userRole )
+    {
+        RbacAddRoleRequest addRoleRequest = new RbacAddRoleRequestImpl();
+        addRoleRequest.setSessionId( session.getSessionId() );
+        addRoleRequest.setRole( userRole.getName() );
+        addRoleRequest.setUserIdentity( userRole.getUserId() );
+        return addRoleRequest;
+    }
+
+
+    private void unloadAddActiveRole( Session session, UserRole userRole, ExtendedResponse response )
+        throws SecurityException
+    {
+        RbacAddRoleResponse rbacAddRoleResponse = ( RbacAddRoleResponse ) response;
+        LOG.debug( "addActiveRole result: {}", rbacAddRoleResponse.getLdapResult().getResultCode() );
+
+        if ( rbacAddRoleResponse.getLdapResult().getResultCode() != ResultCodeEnum.SUCCESS )
+        {
+            String info;
+            int rc;
+
+            if ( rbacAddRoleResponse.getLdapResult().getResultCode() == ResultCodeEnum.ATTRIBUTE_OR_VALUE_EXISTS )
+            {
+                info = "addActiveRole Role [" + userRole.getName() + "] User ["
+                    + session.getUserId() + "], already activated.";
+                rc = GlobalErrIds.URLE_ALREADY_ACTIVE;
+            }
+            else
+            {
+                info = "addActiveRole Role [" + userRole.getName() + "] User ["
+                    + session.getUserId() + "], not authorized for user.";
+                rc = GlobalErrIds.URLE_ACTIVATE_FAILED;
+            }
+
+            throw new SecurityException( rc, info );
+        }
+    }
+
+
     /**
      * Delete the stored session on impl accelerator server.
      * It uses the {@link RbacDeleteSessionRequest} and {@link RbacDeleteSessionResponse} accelerator APIs.
@@ -326,13 +457,8 @@ final class AcceleratorDAO extends LdapDataProvider
         try
         {
             ld = getAdminConnection();
-            RbacDeleteSessionRequest deleteSessionRequest = new RbacDeleteSessionRequestImpl();
-            deleteSessionRequest.setSessionId( session.getSessionId() );
-            deleteSessionRequest.setUserIdentity( session.getUserId() );
             // Send the request
-            RbacDeleteSessionResponse deleteSessionResponse = ( RbacDeleteSessionResponse ) ld.extended(
-                deleteSessionRequest );
-            LOG.debug( "deleteSession result: {}", deleteSessionResponse.getLdapResult().getResultCode() );
+            unloadDeleteSession( ld.extended( newDeleteSessionRequest( session ) ) );
         }
         catch ( LdapException e )
         {
@@ -347,6 +473,43 @@ final class AcceleratorDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Send a deleteSession request on the {@link AccelPipeline} without waiting for the response, see {@link #deleteSession(Session)}.
+     *
+     * @param session contains a valid sessionId captured from accelerator createSession method.
+     * @return future that completes once the session has been deleted.
+     * @throws SecurityException if the request could not be sent.
+     */
+    Future<Void> deleteSessionAsync( Session session ) throws SecurityException
+    {
+        return AccelPipeline.getInstance().send( newDeleteSessionRequest( session ), new AccelPipeline.Reply<Void>()
+        {
+            @Override
+            public Void unload( ExtendedResponse response )
+            {
+                unloadDeleteSession( response );
+                return null;
+            }
+        }, GlobalErrIds.ACEL_DELETE_SESSION_ERR );
+    }
+
+
+    private RbacDeleteSessionRequest newDeleteSessionRequest( Session session )
+    {
+        RbacDeleteSessionRequest deleteSessionRequest = new RbacDeleteSessionRequestImpl();
+        deleteSessionRequest.setSessionId( session.getSessionId() );
+        deleteSessionRequest.setUserIdentity( session.getUserId() );
+        return deleteSessionRequest;
+    }
+
+
+    private void unloadDeleteSession( ExtendedResponse response )
+    {
+        RbacDeleteSessionResponse deleteSessionResponse = ( RbacDeleteSessionResponse ) response;
+        LOG.debug( "deleteSession result: {}", deleteSessionResponse.getLdapResult().getResultCode() );
+    }
+
+
     /**
      * SessionRoles returns a list of UserRole's activated for user on impl server.
      * It uses the {@link RbacSessionRolesRequest} and {@link RbacSessionRolesResponse} accelerator APIs.
@@ -360,29 +523,12 @@ final class AcceleratorDAO extends LdapDataProvider
     List<UserRole> sessionRoles( Session session ) throws SecurityException
     {
         LdapConnection ld = null;
-        List<UserRole> userRoleList = null;
 
         try
         {
             ld = getAdminConnection();
-            RbacSessionRolesRequest sessionRolesRequest = new RbacSessionRolesRequestImpl();
-            sessionRolesRequest.setSessionId( session.getSessionId() );
-            sessionRolesRequest.setUserIdentity( session.getUserId() );
             // Send the request
-            RbacSessionRolesResponse sessionRolesResponse = ( RbacSessionRolesResponse ) ld.extended(
-                sessionRolesRequest );
-            LOG.debug( "sessionRoles result: {}", sessionRolesResponse.getLdapResult().getResultCode().getResultCode() );
-
-            if ( CollectionUtils.isNotEmpty( sessionRolesResponse.getRoles() ) )
-            {
-                userRoleList = new ArrayList<UserRole>();
-
-                for ( String roleNm : sessionRolesResponse.getRoles() )
-                {
-                    userRoleList.add( new UserRole( session.getUserId(), roleNm ) );
-                    // todo: add temporal constraints here
-                }
-            }
+            return unloadSessionRoles( session, ld.extended( newSessionRolesRequest( session ) ) );
         }
         catch ( LdapException e )
         {
@@ -394,6 +540,55 @@ final class AcceleratorDAO extends LdapDataProvider
         {
             closeAdminConnection( ld );
         }
+    }
+
+
+    /**
+     * Send a sessionRoles request on the {@link AccelPipeline} without waiting for the response, see {@link #sessionRoles(Session)}.
+     *
+     * @param session contains a valid sessionId captured from accelerator createSession method.
+     * @return future of the List of type UserRole.  It may complete with null if user has no roles activated in session.
+     * @throws SecurityException if the request could not be sent.
+     */
+    Future<List<UserRole>> sessionRolesAsync( final Session session ) throws SecurityException
+    {
+        return AccelPipeline.getInstance().send( newSessionRolesRequest( session ),
+            new AccelPipeline.Reply<List<UserRole>>()
+            {
+                @Override
+                public List<UserRole> unload( ExtendedResponse response )
+                {
+                    return unloadSessionRoles( session, response );
+                }
+            }, GlobalErrIds.ACEL_SESSION_ROLES_ERR );
+    }
+
+
+    private RbacSessionRolesRequest newSessionRolesRequest( Session session )
+    {
+        RbacSessionRolesRequest sessionRolesRequest = new RbacSessionRolesRequestImpl();
+        sessionRolesRequest.setSessionId( session.getSessionId() );
+        sessionRolesRequest.setUserIdentity( session.getUserId() );
+        return sessionRolesRequest;
+    }
+
+
+    private List<UserRole> unloadSessionRoles( Session session, ExtendedResponse response )
+    {
+        RbacSessionRolesResponse sessionRolesResponse = ( RbacSessionRolesResponse ) response;
+        LOG.debug( "sessionRoles result: {}", sessionRolesResponse.getLdapResult().getResultCode().getResultCode() );
+        List<UserRole> userRoleList = null;
+
+        if ( CollectionUtils.isNotEmpty( sessionRolesResponse.getRoles() ) )
+        {
+            userRoleList = new ArrayList<UserRole>();
+
+            for ( String roleNm : sessionRolesResponse.getRoles() )
+            {
+                userRoleList.add( new UserRole( session.getUserId(), roleNm ) );
+                // todo: add temporal constraints here
+            }
+        }
 
         return userRoleList;
     }
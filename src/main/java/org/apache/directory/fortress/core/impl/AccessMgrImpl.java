@@ -22,9 +22,12 @@ package org.apache.directory.fortress.core.impl;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.AccessMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.SecurityException;
@@ -96,7 +99,7 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
         inUser.setContextId( contextId );
 
         // Determine if user valid.
-        User user = userP.read( inUser, false );
+        User user = userP.readCached( inUser, false );
         user.setPassword( password );
         user.setContextId( contextId );
         Session ftSess = userP.authenticate( user );
@@ -115,7 +118,10 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
         String methodName = "createSession";
         assertContext( CLS_NM, methodName, user, GlobalErrIds.USER_NULL );
 
-        return userP.createSession( user, isTrusted );
+        Session session = userP.createSession( user, isTrusted );
+        session.setContextId( this.contextId );
+        SnapshotUtil.load( session, permP );
+        return session;
     }
 
 
@@ -141,6 +147,31 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Permission, Boolean> checkAccess( Session session, List<Permission> perms )
+        throws SecurityException
+    {
+        String methodName = "checkAccess";
+        assertContext( CLS_NM, methodName, session, GlobalErrIds.USER_SESS_NULL );
+        VUtil.assertNotNull( perms, GlobalErrIds.PERM_NULL, getFullMethodName( CLS_NM, methodName ) );
+        for ( Permission perm : perms )
+        {
+            assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_NULL );
+            VUtil.getInstance().assertNotNullOrEmpty( perm.getOpName(), GlobalErrIds.PERM_OPERATION_NULL,
+                getFullMethodName( CLS_NM, methodName ) );
+            VUtil.getInstance().assertNotNullOrEmpty( perm.getObjName(), GlobalErrIds.PERM_OBJECT_NULL,
+                getFullMethodName( CLS_NM, methodName ) );
+        }
+        VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.USER, false );
+        VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.ROLE, false );
+        setEntitySession(CLS_NM, methodName, session);
+        return permP.checkPermissions( session, perms );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -186,6 +217,14 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
         VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.USER, false );
         VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.ROLE, false );
         setEntitySession(CLS_NM, methodName, session);
+        AuthZSnapshot snapshot = SnapshotUtil.get( session, permP );
+        if ( snapshot != null && StringUtils.equals( snapshot.getContextId(), this.contextId ) )
+        {
+            Set<String> roles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+            roles.addAll( snapshot.getInheritedRoles() );
+            return roles;
+        }
+
         return RoleUtil.getInstance().getInheritedRoles( session.getRoles(), this.contextId );
     }
 
@@ -213,7 +252,7 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
 
         User inUser = new User( session.getUserId() );
         inUser.setContextId( this.contextId );
-        User ue = userP.read( inUser, true );
+        User ue = userP.readCached( inUser, true );
         uRoles = ue.getRoles();
         int indx;
         // Is the role activation target valid for this user?
@@ -232,6 +271,9 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
 
         // Check role temporal constraints & DSD:
         VUtil.getInstance().validateConstraints( session, VUtil.ConstraintType.ROLE, false );
+
+        // The session's snapshot must include the permissions of the new role:
+        SnapshotUtil.load( session, permP );
     }
 
 
@@ -260,6 +302,9 @@ public class AccessMgrImpl extends Manageable implements AccessMgr, Serializable
                 + session.getUserId() + "], not previously activated";
             throw new SecurityException( GlobalErrIds.URLE_NOT_ACTIVE, info );
         }
+
+        // The session's snapshot must no longer include the permissions of the dropped role:
+        SnapshotUtil.load( session, permP );
     }
 
 
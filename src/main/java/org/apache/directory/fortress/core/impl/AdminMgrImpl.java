@@ -21,11 +21,18 @@ package org.apache.directory.fortress.core.impl;
 
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.AdminMgr;
+import org.apache.directory.fortress.core.BatchException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.SecurityException;
@@ -105,7 +112,71 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         setEntitySession( CLS_NM, methodName, user );
 
         // Add the User record to ldap.
-        return userP.add( user );
+        User newUser = userP.add( user );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().addUser( user );
+        }
+        return newUser;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<User> addUsers( List<User> users ) throws SecurityException
+    {
+        String methodName = "addUser";
+        VUtil.assertNotNull( users, GlobalErrIds.USER_NULL, getFullMethodName( CLS_NM, "addUsers" ) );
+        Map<Integer, SecurityException> failures = new HashMap<>();
+        List<User> validUsers = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for ( int i = 0; i < users.size(); i++ )
+        {
+            try
+            {
+                assertContext( CLS_NM, methodName, users.get( i ), GlobalErrIds.USER_NULL );
+                setEntitySession( CLS_NM, methodName, users.get( i ) );
+                validUsers.add( users.get( i ) );
+                validIndexes.add( i );
+            }
+            catch ( SecurityException se )
+            {
+                failures.put( i, se );
+            }
+        }
+
+        // Add the User records to ldap over one connection:
+        if ( !validUsers.isEmpty() )
+        {
+            try
+            {
+                userP.add( validUsers );
+            }
+            catch ( BatchException be )
+            {
+                for ( Map.Entry<Integer, SecurityException> failure : be.getFailures().entrySet() )
+                {
+                    failures.put( validIndexes.get( failure.getKey() ), failure.getValue() );
+                }
+            }
+        }
+
+        List<User> newUsers = new ArrayList<>( validUsers.size() );
+        for ( int indx : validIndexes )
+        {
+            if ( !failures.containsKey( indx ) )
+            {
+                newUsers.add( users.get( indx ) );
+                if ( AssignmentIndex.isEnabled() )
+                {
+                    AssignmentIndex.getInstance().addUser( users.get( indx ) );
+                }
+            }
+        }
+        throwBatchException( "addUsers", users.size(), failures );
+        return newUsers;
     }
 
 
@@ -128,6 +199,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         roleP.removeOccupant( userDn, this.contextId );
         // remove the user dn occupant attribute from assigned ldap adminRole entities.
         adminP.removeOccupant( userDn, user.getContextId() );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().disableUser( user.getUserId(), this.contextId );
+        }
     }
 
 
@@ -148,6 +223,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         roleP.removeOccupant( userDn, this.contextId );
         // remove the user dn occupant attribute from assigned ldap adminRole entities.
         adminP.removeOccupant( userDn, user.getContextId() );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().deleteUser( user.getUserId(), this.contextId );
+        }
     }
 
 
@@ -285,6 +364,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
             }
         }
         roleP.delete( role );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().deleteRole( role.getName(), this.contextId );
+        }
     }
 
 
@@ -325,6 +408,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
 
         // Assign the Role data to User:
         String dn = userP.assign( uRole );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().assign( uRole.getUserId(), uRole.getName(), this.contextId );
+        }
         setAdminData( CLS_NM, methodName, role );
         // Assign user dn attribute to the role, this will add a single, standard attribute value,
         // called "roleOccupant", directly onto the role node:
@@ -332,6 +419,196 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void assignUsers( List<UserRole> uRoles ) throws SecurityException
+    {
+        String methodName = "assignUser";
+        VUtil.assertNotNull( uRoles, GlobalErrIds.URLE_NULL, getFullMethodName( CLS_NM, "assignUsers" ) );
+        Map<Integer, SecurityException> failures = new HashMap<>();
+        Map<String, Role> validRoles = new HashMap<>();
+        Map<String, SecurityException> invalidRoles = new HashMap<>();
+        // Group the assignments by user, keeping their position in the list:
+        Map<String, List<Integer>> userAssignments = new LinkedHashMap<>();
+        for ( int i = 0; i < uRoles.size(); i++ )
+        {
+            UserRole uRole = uRoles.get( i );
+            try
+            {
+                assertContext( CLS_NM, methodName, uRole, GlobalErrIds.URLE_NULL );
+                setEntitySession( CLS_NM, methodName, uRole );
+                // Check the administrator may assign the role before anything is read, as assignUser does:
+                Role role = new Role( uRole.getName() );
+                role.setContextId( contextId );
+                User user = new User( uRole.getUserId() );
+                user.setContextId( contextId );
+                AdminUtil.canAssign( uRole.getAdminSession(), user, role, contextId );
+                // Get the default constraints from role, reading each role once:
+                readRole( uRole.getName(), validRoles, invalidRoles );
+                String userKey = StringUtils.lowerCase( uRole.getUserId() );
+                if ( !userAssignments.containsKey( userKey ) )
+                {
+                    userAssignments.put( userKey, new ArrayList<Integer>() );
+                }
+                userAssignments.get( userKey ).add( i );
+            }
+            catch ( SecurityException se )
+            {
+                failures.put( i, se );
+            }
+        }
+
+        // Validate and assign the roles of each user with one update of the user node:
+        Map<String, List<Integer>> roleAssignments = new LinkedHashMap<>();
+        Map<Integer, String> userDns = new HashMap<>();
+        for ( List<Integer> indexes : userAssignments.values() )
+        {
+            User user = new User( uRoles.get( indexes.get( 0 ) ).getUserId() );
+            user.setContextId( contextId );
+            List<UserRole> assigned;
+            Set<String> authorized;
+            try
+            {
+                // Read the authorized roles once for all of the user's assignments:
+                User ue = userP.read( user, true );
+                assigned = ue.getRoles() != null ? new ArrayList<>( ue.getRoles() ) : new ArrayList<UserRole>();
+                authorized = RoleUtil.getInstance().getInheritedRoles( assigned, this.contextId );
+            }
+            catch ( SecurityException se )
+            {
+                for ( int indx : indexes )
+                {
+                    failures.put( indx, se );
+                }
+                continue;
+            }
+
+            List<UserRole> validAssignments = new ArrayList<>();
+            List<Integer> validIndexes = new ArrayList<>();
+            for ( int indx : indexes )
+            {
+                UserRole uRole = uRoles.get( indx );
+                try
+                {
+                    Role role = new Role( uRole.getName() );
+                    role.setContextId( contextId );
+                    if ( assigned.contains( uRole ) )
+                    {
+                        String warning = "assignUsers userId [" + uRole.getUserId() + "] name [" + uRole.getName()
+                            + "] assignment already exists.";
+                        throw new SecurityException( GlobalErrIds.URLE_ASSIGN_EXIST, warning );
+                    }
+                    // The roles assigned earlier in the list count toward the SSD constraints:
+                    SDUtil.getInstance().validateSSD( user, role, authorized );
+                    // if the input role entity attribute doesn't have temporal constraints set, copy from the role declaration:
+                    ConstraintUtil.validateOrCopy( validRoles.get( StringUtils.lowerCase( uRole.getName() ) ), uRole );
+                    assigned.add( uRole );
+                    authorized.addAll( RoleUtil.getInstance().getInheritedRoles( Collections.singletonList( uRole ),
+                        this.contextId ) );
+                    validAssignments.add( uRole );
+                    validIndexes.add( indx );
+                }
+                catch ( SecurityException se )
+                {
+                    failures.put( indx, se );
+                }
+            }
+            if ( validAssignments.isEmpty() )
+            {
+                continue;
+            }
+
+            try
+            {
+                // Assign the Role data to User:
+                String dn = userP.assign( validAssignments );
+                for ( int indx : validIndexes )
+                {
+                    userDns.put( indx, dn );
+                    if ( AssignmentIndex.isEnabled() )
+                    {
+                        AssignmentIndex.getInstance().assign( uRoles.get( indx ).getUserId(), uRoles.get( indx ).getName(),
+                            this.contextId );
+                    }
+                    String roleKey = StringUtils.lowerCase( uRoles.get( indx ).getName() );
+                    if ( !roleAssignments.containsKey( roleKey ) )
+                    {
+                        roleAssignments.put( roleKey, new ArrayList<Integer>() );
+                    }
+                    roleAssignments.get( roleKey ).add( indx );
+                }
+            }
+            catch ( SecurityException se )
+            {
+                for ( int indx : validIndexes )
+                {
+                    failures.put( indx, se );
+                }
+            }
+        }
+
+        // Add the user dns as occupants of each role with one update of the role node:
+        for ( List<Integer> indexes : roleAssignments.values() )
+        {
+            Role role = new Role( uRoles.get( indexes.get( 0 ) ).getName() );
+            role.setContextId( this.contextId );
+            setAdminData( CLS_NM, methodName, role );
+            List<String> dns = new ArrayList<>();
+            for ( int indx : indexes )
+            {
+                dns.add( userDns.get( indx ) );
+            }
+            try
+            {
+                roleP.assign( role, dns );
+            }
+            catch ( SecurityException se )
+            {
+                for ( int indx : indexes )
+                {
+                    failures.put( indx, se );
+                }
+            }
+        }
+        throwBatchException( "assignUsers", uRoles.size(), failures );
+    }
+
+
+    /**
+     * Read the role if it hasn't been read already, remembering the outcome.
+     *
+     * @param name         contains the name of the role.
+     * @param validRoles   contains the roles that were found keyed by lower case name.
+     * @param invalidRoles contains the errors of the roles that were not found keyed by lower case name.
+     * @throws SecurityException if the role was not found.
+     */
+    private void readRole( String name, Map<String, Role> validRoles, Map<String, SecurityException> invalidRoles )
+        throws SecurityException
+    {
+        String key = StringUtils.lowerCase( name );
+        if ( invalidRoles.containsKey( key ) )
+        {
+            throw invalidRoles.get( key );
+        }
+        else if ( !validRoles.containsKey( key ) )
+        {
+            Role role = new Role( name );
+            role.setContextId( this.contextId );
+            try
+            {
+                validRoles.put( key, roleP.read( role ) );
+            }
+            catch ( SecurityException se )
+            {
+                invalidRoles.put( key, se );
+                throw se;
+            }
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -346,6 +623,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         setEntitySession( CLS_NM, methodName, uRole );
         AdminUtil.canDeassign( user.getAdminSession(), user, role, contextId );
         String dn = userP.deassign( uRole );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().deassign( uRole.getUserId(), uRole.getName(), this.contextId );
+        }
         setAdminData( CLS_NM, methodName, role );
         // Now "deassign" user dn attribute, this will remove a single, standard attribute value,
         // called "roleOccupant", from the node:
@@ -362,7 +643,12 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         String methodName = "addPermission";
         assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL );
         setEntitySession( CLS_NM, methodName, perm );
-        return permP.add( perm );
+        Permission newPerm = permP.add( perm );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().addPermission( perm );
+        }
+        return newPerm;
     }
 
 
@@ -375,7 +661,12 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         String methodName = "updatePermission";
         assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL );
         setEntitySession( CLS_NM, methodName, perm );
-        return permP.update( perm );
+        Permission updPerm = permP.update( perm );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().refreshPermission( perm );
+        }
+        return updPerm;
     }
 
 
@@ -389,6 +680,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL );
         setEntitySession( CLS_NM, methodName, perm );
         permP.delete( perm );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().deletePermission( perm );
+        }
     }
 
 
@@ -428,6 +723,13 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         assertContext( CLS_NM, methodName, pObj, GlobalErrIds.PERM_OBJECT_NULL );
         setEntitySession( CLS_NM, methodName, pObj );
         permP.delete( pObj );
+        if ( !pObj.isAdmin() )
+        {
+            if ( AssignmentIndex.isEnabled() )
+            {
+                AssignmentIndex.getInstance().deletePermObj( pObj.getObjName(), this.contextId );
+            }
+        }
     }
 
 
@@ -455,6 +757,109 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
             roleP.read( role );
         }
         permP.grant( perm, role );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().grantRole( perm, role.getName(), true );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void grantPermissions( List<Permission> perms, Role role ) throws SecurityException
+    {
+        String methodName = "grantPermission";
+        VUtil.assertNotNull( perms, GlobalErrIds.PERM_OPERATION_NULL, getFullMethodName( CLS_NM, "grantPermissions" ) );
+        assertContext( CLS_NM, methodName, role, GlobalErrIds.ROLE_NULL );
+        Map<Integer, SecurityException> failures = new HashMap<>();
+        // The outcome of validating the role for RBAC and for ARBAC permissions:
+        Map<Boolean, SecurityException> roleChecks = new HashMap<>();
+        for ( int i = 0; i < perms.size(); i++ )
+        {
+            Permission perm = perms.get( i );
+            try
+            {
+                assertContext( CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL );
+                setEntitySession( CLS_NM, methodName, perm );
+                // Check the administrator may grant before the role is read, as grantPermission does:
+                if ( !perm.isAdmin() )
+                {
+                    AdminUtil.canGrant( perm.getAdminSession(), role, perm, contextId );
+                }
+
+                // validate role once:
+                if ( !roleChecks.containsKey( perm.isAdmin() ) )
+                {
+                    roleChecks.put( perm.isAdmin(), validateRole( role, perm.isAdmin() ) );
+                }
+                SecurityException roleError = roleChecks.get( perm.isAdmin() );
+                if ( roleError != null )
+                {
+                    throw roleError;
+                }
+                permP.grant( perm, role );
+                if ( AssignmentIndex.isEnabled() )
+                {
+                    AssignmentIndex.getInstance().grantRole( perm, role.getName(), true );
+                }
+            }
+            catch ( SecurityException se )
+            {
+                failures.put( i, se );
+            }
+        }
+        throwBatchException( "grantPermissions", perms.size(), failures );
+    }
+
+
+    /**
+     * Throw the failures of a batch api, if there were any, once all of its items have been processed.
+     *
+     * @param methodName contains the name of the batch api.
+     * @param size       contains the number of items passed to it.
+     * @param failures   contains the exception of each item that failed keyed by its position in the list.
+     * @throws BatchException if any item failed.
+     */
+    private void throwBatchException( String methodName, int size, Map<Integer, SecurityException> failures )
+        throws BatchException
+    {
+        if ( !failures.isEmpty() )
+        {
+            String error = getFullMethodName( CLS_NM, methodName ) + " failed [" + failures.size() + "] of [" + size + "]";
+            throw new BatchException( GlobalErrIds.FT_BATCH_FAILED, error, failures );
+        }
+    }
+
+
+    /**
+     * Read the role, or the admin role of the same name, that permissions are to be granted to.
+     *
+     * @param role    contains the name of the role.
+     * @param isAdmin if true the role is read as an admin role.
+     * @return null if the role is valid, otherwise the exception the read failed with.
+     */
+    private SecurityException validateRole( Role role, boolean isAdmin )
+    {
+        try
+        {
+            if ( isAdmin )
+            {
+                AdminRole adminRole = new AdminRole( role.getName() );
+                adminRole.setContextId( this.contextId );
+                adminP.read( adminRole );
+            }
+            else
+            {
+                roleP.read( role );
+            }
+            return null;
+        }
+        catch ( SecurityException se )
+        {
+            return se;
+        }
     }
 
 
@@ -473,6 +878,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
             AdminUtil.canRevoke( perm.getAdminSession(), role, perm, contextId );
         }
         permP.revoke( perm, role );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().grantRole( perm, role.getName(), false );
+        }
     }
 
 
@@ -489,6 +898,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         // Ensure the user entity exists:
         userP.read( user, false );
         permP.grant( perm, user );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().grantUser( perm, user.getUserId(), true );
+        }
     }
 
 
@@ -503,6 +916,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         setEntitySession( CLS_NM, methodName, perm );
         assertContext( CLS_NM, methodName, user, GlobalErrIds.USER_NULL );
         permP.revoke( perm, user );
+        if ( AssignmentIndex.isEnabled() )
+        {
+            AssignmentIndex.getInstance().grantUser( perm, user.getUserId(), false );
+        }
     }
 
 
@@ -785,7 +1202,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
             // default cardinality == 2
             dsdSet.setCardinality( 2 );
         }
-        return sdP.add( dsdSet );
+        SDSet dsdOut = sdP.add( dsdSet );
+        // the new DSD must be added to the cache:
+        clearDSDCache( dsdSet );
+        return dsdOut;
     }
 
 
@@ -798,7 +1218,10 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
         assertContext( CLS_NM, methodName, dsdSet, GlobalErrIds.DSD_NULL );
         setEntitySession( CLS_NM, methodName, dsdSet );
         dsdSet.setType( SDSet.SDType.DYNAMIC );
-        return sdP.update( dsdSet );
+        SDSet dsdOut = sdP.update( dsdSet );
+        // remove any references to the old DSD from cache:
+        clearDSDCache( dsdSet );
+        return dsdOut;
     }
 
 
@@ -885,13 +1308,12 @@ public final class AdminMgrImpl extends Manageable implements AdminMgr, Serializ
 
 
     /**
-     * Clear the DSD cache entries that correspond to this DSD
+     * Clear the DSD cache for this tenant.  It will be reloaded, including latest changes to this DSD, on next use.
      *
      * @param dsdSet
-     * @throws SecurityException
      */
     private void clearDSDCache( SDSet dsdSet )
     {
-        SDUtil.getInstance().clearDsdCacheEntry( dsdSet.getName(), contextId );
+        SDUtil.getInstance().clearDsdCache( contextId );
     }
 }
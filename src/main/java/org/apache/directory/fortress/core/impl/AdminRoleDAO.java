@@ -614,7 +614,7 @@ final class AdminRoleDAO extends LdapDataProvider
         {
             filter = GlobalIds.FILTER_PREFIX + GlobalIds.ROLE_OBJECT_CLASS_NM + ")("
                 + GlobalIds.PARENT_NODES + "=*))";
-            ld = getAdminConnection();
+            ld = getReadConnection();
             SearchCursor searchResults = search( ld, roleRoot,
                 SearchScope.ONELEVEL, filter, DESC_ATRS, false, GlobalIds.BATCH_SIZE );
             long sequence = 0;
@@ -636,7 +636,7 @@ final class AdminRoleDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            closeReadConnection( ld );
         }
 
         return descendants;
@@ -20,9 +20,11 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -35,6 +37,7 @@ import org.apache.directory.fortress.core.model.Hier;
 import org.apache.directory.fortress.core.model.Relationship;
 import org.apache.directory.fortress.core.model.UserAdminRole;
 import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheLoader;
 import org.apache.directory.fortress.core.util.cache.CacheMgr;
 import org.jgrapht.graph.SimpleDirectedGraph;
 import org.slf4j.Logger;
@@ -88,7 +91,7 @@ final class AdminRoleUtil
 
     /**
      * Used to determine if one {@link org.apache.directory.fortress.core.model.AdminRole} is the parent of another.  This method
-     * will call recursive routine {@link #getAscendants(String, String)} to walk the {@code org.jgrapht.graph.SimpleDirectedGraph} data structure
+     * will look up the child in the {@link HierIndex} that was built from the {@code org.jgrapht.graph.SimpleDirectedGraph} data structure
      * returning flag indicating if parent-child relationship is valid.
      *
      * @param child maps to logical {@link org.apache.directory.fortress.core.model.AdminRole#name} on 'ftRls' object class.
@@ -98,13 +101,7 @@ final class AdminRoleUtil
      */
     static boolean isParent( String child, String parent, String contextId )
     {
-        boolean result = false;
-        Set<String> parents = getAscendants( child, contextId );
-        if ( parents != null && parents.size() > 0 )
-        {
-            result = parents.contains( parent.toUpperCase() );
-        }
-        return result;
+        return getIndex( contextId ).isAscendant( child, parent );
     }
 
 
@@ -116,7 +113,7 @@ final class AdminRoleUtil
      */
     static Set<String> getDescendants( String roleName, String contextId )
     {
-        return HierUtil.getDescendants( roleName, getGraph( contextId ) );
+        return getIndex( contextId ).getDescendants( roleName );
     }
 
 
@@ -128,7 +125,7 @@ final class AdminRoleUtil
      */
     public static Set<String> getAscendants( String roleName, String contextId )
     {
-        return HierUtil.getAscendants( roleName, getGraph( contextId ) );
+        return getIndex( contextId ).getAscendants( roleName );
     }
 
 
@@ -179,20 +176,17 @@ final class AdminRoleUtil
     {
         // create Set with case insensitive comparator:
         Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
-
         if ( CollectionUtils.isNotEmpty( uRoles ) )
         {
+            HierIndex index = getIndex( contextId );
+            BitSet row = index.getRow();
             for ( UserAdminRole uRole : uRoles )
             {
                 String rleName = uRole.getName();
                 iRoles.add( rleName );
-                Set<String> parents = HierUtil.getAscendants( rleName, getGraph( contextId ) );
-
-                if ( CollectionUtils.isNotEmpty( parents ) )
-                {
-                    iRoles.addAll( parents );
-                }
+                index.addAscendants( rleName, row );
             }
+            index.addNames( row, iRoles );
         }
         return iRoles;
     }
@@ -223,8 +217,8 @@ final class AdminRoleUtil
 
 
     /**
-     * This api allows synchronized access to allow updates to hierarchical relationships.
-     * Method will update the hierarchical data set and reload the JGraphT simple digraph with latest.
+     * This api allows updates to hierarchical relationships without blocking readers.
+     * Method will apply the change to a copy of the JGraphT simple digraph and swap it in with latest.
      *
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
      * @param relationship contains parent-child relationship targeted for addition.
@@ -233,7 +227,32 @@ final class AdminRoleUtil
      */
     static void updateHier( String contextId, Relationship relationship, Hier.Op op ) throws SecurityException
     {
-        HierUtil.updateHier( getGraph( contextId ), relationship, op );
+        HierUtil.updateHier( getReference( contextId ), relationship, op );
+    }
+
+
+    /**
+     * Load this tenant's adminRole hierarchy into the cache if it isn't already there.  This may be called during startup so that
+     * the first requests do not incur the directory reads, see {@link WarmUp}.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    static void load( String contextId )
+    {
+        getReference( contextId );
+    }
+
+
+    /**
+     * Remove this tenant's adminRole hierarchy from the cache.  It will be reloaded from ldap on next use.  This is called by
+     * {@link ChangeListener} when another node has changed the hierarchy.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    static void clear( String contextId )
+    {
+        LOG.debug( "clear contextId [{}]", contextId );
+        adminRoleCache.clear( getKey( contextId ) );
     }
 
 
@@ -242,9 +261,9 @@ final class AdminRoleUtil
      * using 3rd party lib, <a href="http://www.jgrapht.org/">JGraphT</a>.
      *
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
-     * @return handle to simple digraph containing adminRole hierarchies.
+     * @return reference to the current version of the adminRole hierarchies.
      */
-    private static synchronized SimpleDirectedGraph<String, Relationship> loadGraph( String contextId )
+    private static AtomicReference<HierIndex> loadGraph( String contextId )
     {
         Hier inHier = new Hier( Hier.Type.ROLE );
         inHier.setContextId( contextId );
@@ -264,9 +283,10 @@ final class AdminRoleUtil
         SimpleDirectedGraph<String, Relationship> graph;
 
         graph = HierUtil.buildGraph( hier );
-        adminRoleCache.put( getKey( contextId ), graph );
+        AtomicReference<HierIndex> ref = new AtomicReference<>( new HierIndex( graph ) );
+        ChangeListener.getInstance().watch( contextId );
 
-        return graph;
+        return ref;
     }
 
 
@@ -279,20 +299,53 @@ final class AdminRoleUtil
      */
     private static SimpleDirectedGraph<String, Relationship> getGraph( String contextId )
     {
-        String key = getKey( contextId );        
-        LOG.debug("Getting graph for key " + contextId);
-         
-        SimpleDirectedGraph<String, Relationship> graph = ( SimpleDirectedGraph<String, Relationship> ) adminRoleCache
-                 .get( key );
-             
-        if(graph == null){
-            LOG.debug("Graph was null, creating... " + contextId);
-            return loadGraph( contextId );
-        }
-        else{
-            LOG.debug("Graph found in cache, returning...");
-            return graph;
-        }
+        return getIndex( contextId ).getGraph();
+    }
+
+
+    /**
+     * Return the closure index for this tenant's hierarchy, loading it from ldap on first use.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return handle to the index containing ascendants and descendants of every vertex.
+     */
+    private static HierIndex getIndex( String contextId )
+    {
+        return getReference( contextId ).get();
+    }
+
+
+    /**
+     * Return the closure index for this tenant's hierarchy if it has already been loaded.  Unlike {@link #getIndex(String)} this
+     * never reads the hierarchy from ldap.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return handle to the index or null if the tenant's hierarchy isn't cached.
+     */
+    static HierIndex peekIndex( String contextId )
+    {
+        return HierUtil.peekIndex( adminRoleCache, getKey( contextId ) );
+    }
+
+
+    /**
+     * Return the reference that publishes this tenant's hierarchy, loading it from ldap on first use.  Concurrent
+     * callers of the same tenant wait for a single load, callers of other tenants are not affected.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return reference to the current version of the index.
+     */
+    private static AtomicReference<HierIndex> getReference( final String contextId )
+    {
+        return HierUtil.getReference( adminRoleCache, getKey( contextId ), new CacheLoader()
+        {
+            @Override
+            public Object load( Object key )
+            {
+                LOG.debug( "getReference was null, creating... {}", contextId );
+                return loadGraph( contextId );
+            }
+        } );
     }
 
 
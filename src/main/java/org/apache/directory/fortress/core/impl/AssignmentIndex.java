@@ -0,0 +1,1107 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ResultCursor;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.AdminRole;
+import org.apache.directory.fortress.core.model.ObjectFactory;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.Role;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class contains an in-memory index of the RBAC assignments of each tenant, used by {@link ReviewMgrImpl} to answer review
+ * functions without a search across the user or permission trees:
+ * <ol>
+ * <li>role to assigned users and user to assigned roles, from the 'ftRA' attribute of the users</li>
+ * <li>role to granted permissions, and the permissions themselves, from the 'ftRoles' attribute of the permission operations</li>
+ * </ol>
+ * It is enabled with 'enable.assignment.index', default false.  A tenant's index is built from paged scans, see
+ * {@link UserP#iterateRoleAssignments(String)} and {@link PermP#iterate(Permission)}, on a background thread the first time it is
+ * queried.  Until the build has finished, or when it failed, queries are answered from ldap as before.
+ * <p>
+ * {@link AdminMgrImpl} applies its writes to the index once they have succeeded in ldap, without reading them back.  Writes made while
+ * a build is in progress are journaled and replayed onto the new index before it is published.  Changes made by other processes are
+ * only seen by a rebuild, so an index is used for at most 'assignment.index.max.age' seconds, default 900, after it was built.  An
+ * older index is ignored, and queries go to ldap, until its rebuild has been published.  Every 'assignment.index.reconcile.interval'
+ * seconds, default 600, each index is rebuilt ahead of that.
+ * <p>
+ * Administrative permissions and admin roles are not indexed.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class AssignmentIndex
+{
+    private static final String CLS_NM = AssignmentIndex.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String ENABLED = "enable.assignment.index";
+    private static final String RECONCILE_INTERVAL = "assignment.index.reconcile.interval";
+    private static final String MAX_AGE = "assignment.index.max.age";
+    private static final char KEY_SEP = '\u0000';
+
+    private final boolean enabled;
+    private final long maxAge;
+    private final ConcurrentMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final UserP userP = new UserP();
+    private final PermP permP = new PermP();
+    private ScheduledExecutorService builder;
+
+    private static volatile AssignmentIndex INSTANCE = null;
+
+    static AssignmentIndex getInstance()
+    {
+        if ( INSTANCE == null )
+        {
+            synchronized ( AssignmentIndex.class )
+            {
+                if ( INSTANCE == null )
+                {
+                    INSTANCE = new AssignmentIndex();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     */
+    private AssignmentIndex()
+    {
+        this( isEnabled(), Config.getInstance().getInt( MAX_AGE, 900 ) * 1000L );
+    }
+
+
+    /**
+     * Package private constructor for tests.
+     *
+     * @param enabled if false the index is never built and every query goes to ldap.
+     * @param maxAge  the time in ms an index is used for after it was built.
+     */
+    AssignmentIndex( boolean enabled, long maxAge )
+    {
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        if ( !enabled )
+        {
+            return;
+        }
+        builder = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+        {
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, "fortress-assignment-index" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+        int interval = Config.getInstance().getInt( RECONCILE_INTERVAL, 600 );
+        if ( interval > 0 )
+        {
+            builder.scheduleWithFixedDelay( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    reconcile();
+                }
+            }, interval, interval, TimeUnit.SECONDS );
+        }
+        LOG.info( "AssignmentIndex enabled, reconcile interval [{}] seconds max age [{}] ms", interval, maxAge );
+    }
+
+
+    /**
+     * Callers check this before {@link #getInstance()} so the index is never created while it is switched off.
+     *
+     * @return boolean value.  true indicates 'enable.assignment.index' is set.
+     */
+    static boolean isEnabled()
+    {
+        return Config.getInstance().getBoolean( ENABLED, false );
+    }
+
+
+    /**
+     * Return the names of the roles assigned to a user.
+     *
+     * @param user contains the userId and contextId.
+     * @return List of role names, null if the user has none.
+     * @throws SecurityException if the user is not found or in the event of a system error.
+     */
+    List<String> getAssignedRoles( User user ) throws SecurityException
+    {
+        Index index = getIndex( user.getContextId() );
+        if ( index != null && user.getUserId() != null )
+        {
+            List<String> roles = index.userRoles.get( user.getUserId().toLowerCase() );
+            if ( roles != null )
+            {
+                return roles.isEmpty() ? null : new ArrayList<>( roles );
+            }
+        }
+        return userP.getAssignedRoles( user );
+    }
+
+
+    /**
+     * Return the userIds of the users assigned to any of the roles.
+     *
+     * @param roles     contains the role names.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return Set of userIds.
+     * @throws SecurityException in the event of a system error.
+     */
+    Set<String> getAssignedUsers( Set<String> roles, String contextId ) throws SecurityException
+    {
+        Index index = getIndex( contextId );
+        if ( index == null )
+        {
+            return userP.getAssignedUsers( roles, contextId );
+        }
+        Set<String> users = new HashSet<>();
+        for ( String role : roles )
+        {
+            Map<String, String> occupants = index.roleUsers.get( role.toUpperCase() );
+            if ( occupants != null )
+            {
+                users.addAll( occupants.values() );
+            }
+        }
+        return users;
+    }
+
+
+    /**
+     * Return a copy of a permission operation, including the roles and users it is granted to.
+     *
+     * @param perm contains the object name, operation name and optional object id.
+     * @return Permission entity.
+     * @throws SecurityException if the permission is not found or in the event of a system error.
+     */
+    Permission readPermission( Permission perm ) throws SecurityException
+    {
+        if ( !perm.isAdmin() )
+        {
+            Index index = getIndex( perm.getContextId() );
+            if ( index != null )
+            {
+                Permission pe = index.perms.get( getKey( perm ) );
+                if ( pe != null )
+                {
+                    return copy( pe );
+                }
+            }
+        }
+        return permP.read( perm );
+    }
+
+
+    /**
+     * Return copies of the permissions granted to a role and, unless noInheritance, to its ascendants.
+     *
+     * @param role          contains the role name and contextId.
+     * @param noInheritance if true the permissions of the ascendants of the role are not included.
+     * @return List of Permission entities.
+     * @throws SecurityException in the event of a system error.
+     */
+    List<Permission> getPermissions( Role role, boolean noInheritance ) throws SecurityException
+    {
+        Index index = role instanceof AdminRole ? null : getIndex( role.getContextId() );
+        if ( index == null )
+        {
+            return permP.search( role, noInheritance );
+        }
+        Set<String> roles = new HashSet<>();
+        roles.add( role.getName().toUpperCase() );
+        if ( !noInheritance )
+        {
+            Set<String> ascendants = RoleUtil.getInstance().getAscendants( role.getName(), role.getContextId() );
+            if ( ascendants != null )
+            {
+                for ( String ascendant : ascendants )
+                {
+                    roles.add( ascendant.toUpperCase() );
+                }
+            }
+        }
+        Set<String> keys = new HashSet<>();
+        List<Permission> perms = new ArrayList<>();
+        for ( String name : roles )
+        {
+            Set<String> granted = index.rolePerms.get( name );
+            if ( granted == null )
+            {
+                continue;
+            }
+            for ( String key : granted )
+            {
+                Permission pe = index.perms.get( key );
+                if ( pe != null && keys.add( key ) )
+                {
+                    Permission copy = copy( pe );
+                    copy.setSequenceId( perms.size() );
+                    perms.add( copy );
+                }
+            }
+        }
+        return perms;
+    }
+
+
+    /**
+     * Record a new user along with the roles it was created with.
+     *
+     * @param user contains the userId, contextId and optional role assignments.
+     */
+    void addUser( User user )
+    {
+        final String userId = user.getUserId();
+        final List<String> roles = new ArrayList<>();
+        if ( user.getRoles() != null )
+        {
+            for ( UserRole uRole : user.getRoles() )
+            {
+                roles.add( uRole.getName() );
+            }
+        }
+        apply( user.getContextId(), new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.putUser( userId, roles );
+            }
+        } );
+    }
+
+
+    /**
+     * Remove a user and its role assignments.  The user is removed from the permissions it was granted as well.
+     *
+     * @param userId    contains the userId.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void deleteUser( final String userId, String contextId )
+    {
+        apply( contextId, new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.removeUser( userId );
+                index.revokeUser( userId );
+            }
+        } );
+    }
+
+
+    /**
+     * Remove a user from the permissions it was granted.  Its role assignments are kept, as they are on a disabled user.
+     *
+     * @param userId    contains the userId.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void disableUser( final String userId, String contextId )
+    {
+        apply( contextId, new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.revokeUser( userId );
+            }
+        } );
+    }
+
+
+    /**
+     * Record a role assignment.
+     *
+     * @param userId    contains the userId.
+     * @param roleName  contains the role name.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void assign( final String userId, final String roleName, String contextId )
+    {
+        apply( contextId, new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.assign( userId, roleName );
+            }
+        } );
+    }
+
+
+    /**
+     * Remove a role assignment.
+     *
+     * @param userId    contains the userId.
+     * @param roleName  contains the role name.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void deassign( final String userId, final String roleName, String contextId )
+    {
+        apply( contextId, new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.deassign( userId, roleName );
+            }
+        } );
+    }
+
+
+    /**
+     * Remove a role, its assignments and its grants.
+     *
+     * @param roleName  contains the role name.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void deleteRole( final String roleName, String contextId )
+    {
+        apply( contextId, new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.removeRole( roleName );
+            }
+        } );
+    }
+
+
+    /**
+     * Record a new permission operation, with the roles and users it was created with.
+     *
+     * @param perm contains the permission operation that was added.
+     */
+    void addPermission( Permission perm )
+    {
+        if ( perm.isAdmin() )
+        {
+            return;
+        }
+        final Permission pe = copy( perm );
+        apply( perm.getContextId(), new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.putPermission( pe );
+            }
+        } );
+    }
+
+
+    /**
+     * Record the grant of a permission operation to a role, or its revocation.  A permission that isn't in the index is left to the
+     * next rebuild.
+     *
+     * @param perm     contains the object name, operation name, optional object id and contextId.
+     * @param roleName contains the role name.
+     * @param isGrant  true if the role was granted the permission, false if it was revoked.
+     */
+    void grantRole( Permission perm, final String roleName, final boolean isGrant )
+    {
+        if ( perm.isAdmin() )
+        {
+            return;
+        }
+        final String key = getKey( perm );
+        apply( perm.getContextId(), new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.grantRole( key, roleName, isGrant );
+            }
+        } );
+    }
+
+
+    /**
+     * Record the grant of a permission operation directly to a user, or its revocation.  A permission that isn't in the index is
+     * left to the next rebuild.
+     *
+     * @param perm    contains the object name, operation name, optional object id and contextId.
+     * @param userId  contains the userId.
+     * @param isGrant true if the user was granted the permission, false if it was revoked.
+     */
+    void grantUser( Permission perm, final String userId, final boolean isGrant )
+    {
+        if ( perm.isAdmin() )
+        {
+            return;
+        }
+        final String key = getKey( perm );
+        apply( perm.getContextId(), new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.grantUser( key, userId, isGrant );
+            }
+        } );
+    }
+
+
+    /**
+     * Reread a permission operation that was updated, and record it.  The permission is dropped from the
+     * index if it can't be read, so it is read from ldap until the next rebuild.
+     *
+     * @param perm contains the object name, operation name, optional object id and contextId.
+     */
+    void refreshPermission( Permission perm )
+    {
+        // no need to read it unless the tenant is indexed or being indexed:
+        if ( perm.isAdmin() || !enabled || !tenants.containsKey( getContextId( perm.getContextId() ) ) )
+        {
+            return;
+        }
+        final String key = getKey( perm );
+        Permission pe = null;
+        try
+        {
+            Permission target = new Permission( perm.getObjName(), perm.getOpName() );
+            target.setObjId( perm.getObjId() );
+            target.setContextId( perm.getContextId() );
+            pe = permP.read( target );
+        }
+        catch ( SecurityException se )
+        {
+            LOG.warn( "refreshPermission [{}] read failed: {}", key, se.getMessage() );
+        }
+        final Permission read = pe;
+        apply( perm.getContextId(), new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                if ( read != null )
+                {
+                    index.putPermission( read );
+                }
+                else
+                {
+                    index.removePermission( key );
+                }
+            }
+        } );
+    }
+
+
+    /**
+     * Remove a permission operation.
+     *
+     * @param perm contains the object name, operation name, optional object id and contextId.
+     */
+    void deletePermission( Permission perm )
+    {
+        if ( perm.isAdmin() )
+        {
+            return;
+        }
+        final String key = getKey( perm );
+        apply( perm.getContextId(), new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.removePermission( key );
+            }
+        } );
+    }
+
+
+    /**
+     * Remove every operation of a permission object.
+     *
+     * @param objName   contains the object name.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void deletePermObj( final String objName, String contextId )
+    {
+        apply( contextId, new Op()
+        {
+            @Override
+            public void apply( Index index )
+            {
+                index.removePermObj( objName );
+            }
+        } );
+    }
+
+
+    /**
+     * Return the published index of a tenant, starting its build the first time.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return the index, null if it is disabled or not built yet.
+     */
+    private Index getIndex( String contextId )
+    {
+        if ( !enabled )
+        {
+            return null;
+        }
+        String key = getContextId( contextId );
+        Tenant tenant = tenants.get( key );
+        if ( tenant == null )
+        {
+            tenant = new Tenant( key );
+            if ( tenants.putIfAbsent( key, tenant ) == null )
+            {
+                submit( tenant );
+            }
+            return null;
+        }
+        Index index = tenant.index;
+        if ( index != null && System.currentTimeMillis() - index.built > maxAge )
+        {
+            // too old to answer from, ldap is used until the rebuild is published:
+            submit( tenant );
+            return null;
+        }
+        return index;
+    }
+
+
+    /**
+     * Apply a write to the published index of a tenant and journal it for the build in progress, if there is one.
+     */
+    private void apply( String contextId, Op op )
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        Tenant tenant = tenants.get( getContextId( contextId ) );
+        if ( tenant == null )
+        {
+            return;
+        }
+        synchronized ( tenant )
+        {
+            if ( tenant.index != null )
+            {
+                op.apply( tenant.index );
+            }
+            if ( tenant.journal != null )
+            {
+                tenant.journal.add( op );
+            }
+        }
+    }
+
+
+    /**
+     * Queue a build of the tenant's index unless one is queued already.
+     */
+    private void submit( final Tenant tenant )
+    {
+        if ( !tenant.queued.compareAndSet( false, true ) )
+        {
+            return;
+        }
+        builder.execute( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                build( tenant, null );
+            }
+        } );
+    }
+
+
+    private void reconcile()
+    {
+        for ( Tenant tenant : tenants.values() )
+        {
+            build( tenant, null );
+        }
+    }
+
+
+    /**
+     * Build a tenant's index on the calling thread.  Package private for tests, which wait for the index to be published this way
+     * and use scanned to make writes while the build is in progress.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @param scanned   if not null, run once the scan has finished and before the journal is replayed.
+     */
+    void build( String contextId, Runnable scanned )
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        String key = getContextId( contextId );
+        tenants.putIfAbsent( key, new Tenant( key ) );
+        build( tenants.get( key ), scanned );
+    }
+
+
+    /**
+     * Scan a tenant's users and permissions into a new index, replay the writes made in the meantime and publish it.  The previous
+     * index, if any, is kept when the scan fails.
+     */
+    private void build( Tenant tenant, Runnable scanned )
+    {
+        synchronized ( tenant )
+        {
+            tenant.journal = new ArrayList<>();
+        }
+        // a build requested from now on must scan again:
+        tenant.queued.set( false );
+        long start = System.currentTimeMillis();
+        Index index = new Index();
+        try
+        {
+            try ( ResultCursor<User> cursor = userP.iterateRoleAssignments( tenant.contextId ) )
+            {
+                while ( cursor.next() )
+                {
+                    User user = cursor.get();
+                    List<String> roles = new ArrayList<>();
+                    if ( user.getRoles() != null )
+                    {
+                        for ( UserRole uRole : user.getRoles() )
+                        {
+                            roles.add( uRole.getName() );
+                        }
+                    }
+                    index.putUser( user.getUserId(), roles );
+                }
+            }
+            Permission all = new Permission( "", "" );
+            all.setContextId( tenant.contextId );
+            try ( ResultCursor<Permission> cursor = permP.iterate( all ) )
+            {
+                while ( cursor.next() )
+                {
+                    index.putPermission( cursor.get() );
+                }
+            }
+        }
+        catch ( SecurityException se )
+        {
+            LOG.warn( "build contextId [{}] failed, index not updated: {}", tenant.contextId, se.getMessage() );
+            synchronized ( tenant )
+            {
+                tenant.journal = null;
+            }
+            return;
+        }
+        if ( scanned != null )
+        {
+            scanned.run();
+        }
+        int replayed;
+        synchronized ( tenant )
+        {
+            replayed = tenant.journal.size();
+            for ( Op op : tenant.journal )
+            {
+                op.apply( index );
+            }
+            tenant.journal = null;
+            index.built = System.currentTimeMillis();
+            tenant.index = index;
+        }
+        LOG.info( "build contextId [{}] users [{}] permissions [{}] replayed [{}] in [{}] ms", tenant.contextId,
+            index.userRoles.size(), index.perms.size(), replayed, System.currentTimeMillis() - start );
+    }
+
+
+    private static String getContextId( String contextId )
+    {
+        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equalsIgnoreCase( GlobalIds.NULL ) )
+        {
+            return contextId;
+        }
+        return GlobalIds.HOME;
+    }
+
+
+    /**
+     * The key of a permission operation, its object name, operation name and object id ignoring case.
+     */
+    private static String getKey( Permission perm )
+    {
+        StringBuilder key = new StringBuilder();
+        key.append( StringUtils.upperCase( perm.getObjName() ) );
+        key.append( KEY_SEP );
+        key.append( StringUtils.upperCase( perm.getOpName() ) );
+        key.append( KEY_SEP );
+        key.append( StringUtils.defaultString( StringUtils.upperCase( perm.getObjId() ) ) );
+        return key.toString();
+    }
+
+
+    /**
+     * Copy a permission so the one held by the index is never handed to, or changed by, a caller.
+     */
+    private static Permission copy( Permission pe )
+    {
+        Permission copy = new ObjectFactory().createPermission();
+        copy.setSequenceId( pe.getSequenceId() );
+        copy.setAbstractName( pe.getAbstractName() );
+        copy.setObjName( pe.getObjName() );
+        copy.setObjId( pe.getObjId() );
+        copy.setOpName( pe.getOpName() );
+        copy.setInternalId( pe.getInternalId() );
+        copy.setRoles( copySet( pe.getRoles() ) );
+        copy.setUsers( copySet( pe.getUsers() ) );
+        copy.setType( pe.getType() );
+        copy.setDescription( pe.getDescription() );
+        copy.addProperties( pe.getProperties() );
+        copy.setAdmin( pe.isAdmin() );
+        copy.setDn( pe.getDn() );
+        return copy;
+    }
+
+
+    private static Set<String> copySet( Set<String> values )
+    {
+        // create Set with case insensitive comparator:
+        Set<String> copy = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        if ( values != null )
+        {
+            copy.addAll( values );
+        }
+        return copy;
+    }
+
+
+    /**
+     * A write to the index, kept so it can be replayed onto an index that was being built when it was made.
+     */
+    private interface Op
+    {
+        void apply( Index index );
+    }
+
+
+    /**
+     * The index of a tenant and the journal of the build in progress.  Both are guarded by the tenant.
+     */
+    private static final class Tenant
+    {
+        private final String contextId;
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile Index index;
+        private List<Op> journal;
+
+
+        private Tenant( String contextId )
+        {
+            this.contextId = contextId;
+        }
+    }
+
+
+    /**
+     * The assignments of a tenant.  Lookups run concurrently with writes, which are serialized by the {@link Tenant}.  Permissions and
+     * role lists are replaced rather than changed so a lookup never sees one half way through a write.
+     */
+    private static final class Index
+    {
+        // upper case role name to the userIds assigned to it, keyed by lower case userId:
+        private final Map<String, Map<String, String>> roleUsers = new ConcurrentHashMap<>();
+        // lower case userId to the names of its assigned roles:
+        private final Map<String, List<String>> userRoles = new ConcurrentHashMap<>();
+        // permission key to permission:
+        private final Map<String, Permission> perms = new ConcurrentHashMap<>();
+        // upper case role name to the keys of the permissions granted to it:
+        private final Map<String, Set<String>> rolePerms = new ConcurrentHashMap<>();
+        // time the index was published, written before the tenant publishes it:
+        private long built;
+
+
+        private void putUser( String userId, List<String> roles )
+        {
+            removeUser( userId );
+            userRoles.put( userId.toLowerCase(), Collections.unmodifiableList( new ArrayList<>( roles ) ) );
+            for ( String role : roles )
+            {
+                addOccupant( role, userId );
+            }
+        }
+
+
+        private void removeUser( String userId )
+        {
+            List<String> roles = userRoles.remove( userId.toLowerCase() );
+            if ( roles != null )
+            {
+                for ( String role : roles )
+                {
+                    removeOccupant( role, userId );
+                }
+            }
+        }
+
+
+        private void assign( String userId, String role )
+        {
+            List<String> roles = userRoles.get( userId.toLowerCase() );
+            List<String> updated = roles == null ? new ArrayList<String>() : new ArrayList<>( roles );
+            if ( indexOf( updated, role ) == -1 )
+            {
+                updated.add( role );
+            }
+            userRoles.put( userId.toLowerCase(), Collections.unmodifiableList( updated ) );
+            addOccupant( role, userId );
+        }
+
+
+        private void deassign( String userId, String role )
+        {
+            List<String> roles = userRoles.get( userId.toLowerCase() );
+            if ( roles != null )
+            {
+                List<String> updated = new ArrayList<>( roles );
+                int indx = indexOf( updated, role );
+                if ( indx != -1 )
+                {
+                    updated.remove( indx );
+                    userRoles.put( userId.toLowerCase(), Collections.unmodifiableList( updated ) );
+                }
+            }
+            removeOccupant( role, userId );
+        }
+
+
+        private void removeRole( String role )
+        {
+            Map<String, String> occupants = roleUsers.remove( role.toUpperCase() );
+            if ( occupants != null )
+            {
+                for ( String userId : occupants.values() )
+                {
+                    deassign( userId, role );
+                }
+            }
+            Set<String> keys = rolePerms.remove( role.toUpperCase() );
+            if ( keys != null )
+            {
+                for ( String key : keys )
+                {
+                    Permission pe = perms.get( key );
+                    if ( pe != null && pe.getRoles() != null )
+                    {
+                        Permission copy = copy( pe );
+                        copy.getRoles().remove( role );
+                        perms.put( key, copy );
+                    }
+                }
+            }
+        }
+
+
+        private void revokeUser( String userId )
+        {
+            for ( Map.Entry<String, Permission> entry : perms.entrySet() )
+            {
+                Permission pe = entry.getValue();
+                if ( pe.getUsers() != null && pe.getUsers().contains( userId ) )
+                {
+                    Permission copy = copy( pe );
+                    copy.getUsers().remove( userId );
+                    perms.put( entry.getKey(), copy );
+                }
+            }
+        }
+
+
+        private void putPermission( Permission pe )
+        {
+            String key = getKey( pe );
+            removePermission( key );
+            Permission copy = copy( pe );
+            perms.put( key, copy );
+            for ( String role : copy.getRoles() )
+            {
+                addGrant( role, key );
+            }
+        }
+
+
+        private void grantRole( String key, String role, boolean isGrant )
+        {
+            Permission pe = perms.get( key );
+            if ( pe == null )
+            {
+                return;
+            }
+            Permission copy = copy( pe );
+            if ( isGrant )
+            {
+                copy.getRoles().add( role );
+                perms.put( key, copy );
+                addGrant( role, key );
+            }
+            else
+            {
+                copy.getRoles().remove( role );
+                perms.put( key, copy );
+                Set<String> keys = rolePerms.get( role.toUpperCase() );
+                if ( keys != null )
+                {
+                    keys.remove( key );
+                }
+            }
+        }
+
+
+        private void grantUser( String key, String userId, boolean isGrant )
+        {
+            Permission pe = perms.get( key );
+            if ( pe == null )
+            {
+                return;
+            }
+            Permission copy = copy( pe );
+            if ( isGrant )
+            {
+                copy.getUsers().add( userId );
+            }
+            else
+            {
+                copy.getUsers().remove( userId );
+            }
+            perms.put( key, copy );
+        }
+
+
+        private void addGrant( String role, String key )
+        {
+            Set<String> keys = rolePerms.get( role.toUpperCase() );
+            if ( keys == null )
+            {
+                keys = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+                rolePerms.put( role.toUpperCase(), keys );
+            }
+            keys.add( key );
+        }
+
+
+        private void removePermission( String key )
+        {
+            Permission pe = perms.remove( key );
+            if ( pe != null && pe.getRoles() != null )
+            {
+                for ( String role : pe.getRoles() )
+                {
+                    Set<String> keys = rolePerms.get( role.toUpperCase() );
+                    if ( keys != null )
+                    {
+                        keys.remove( key );
+                    }
+                }
+            }
+        }
+
+
+        private void removePermObj( String objName )
+        {
+            List<String> keys = new ArrayList<>();
+            for ( Map.Entry<String, Permission> entry : perms.entrySet() )
+            {
+                if ( entry.getValue().getObjName().equalsIgnoreCase( objName ) )
+                {
+                    keys.add( entry.getKey() );
+                }
+            }
+            for ( String key : keys )
+            {
+                removePermission( key );
+            }
+        }
+
+
+        private void addOccupant( String role, String userId )
+        {
+            Map<String, String> occupants = roleUsers.get( role.toUpperCase() );
+            if ( occupants == null )
+            {
+                occupants = new ConcurrentHashMap<>();
+                roleUsers.put( role.toUpperCase(), occupants );
+            }
+            occupants.put( userId.toLowerCase(), userId );
+        }
+
+
+        private void removeOccupant( String role, String userId )
+        {
+            Map<String, String> occupants = roleUsers.get( role.toUpperCase() );
+            if ( occupants != null )
+            {
+                occupants.remove( userId.toLowerCase() );
+            }
+        }
+
+
+        private static int indexOf( List<String> names, String name )
+        {
+            for ( int i = 0; i < names.size(); i++ )
+            {
+                if ( names.get( i ).equalsIgnoreCase( name ) )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
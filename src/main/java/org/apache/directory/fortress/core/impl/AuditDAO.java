@@ -34,7 +34,9 @@ import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.ldap.LdapDataProvider;
+import org.apache.directory.fortress.core.ldap.PagedSearchCursor;
 import org.apache.directory.fortress.core.model.AuthZ;
 import org.apache.directory.fortress.core.model.Bind;
 import org.apache.directory.fortress.core.model.Mod;
@@ -323,26 +325,7 @@ final class AuditDAO extends LdapDataProvider
 
         try
         {
-            String reqDn = PermDAO.getOpRdn( audit.getOpName(), audit.getObjId() ) + "," + GlobalIds.POBJ_NAME + "="
-                + audit.getObjName() + "," + permRoot;
-            String filter = GlobalIds.FILTER_PREFIX + ACCESS_AUTHZ_CLASS_NM + ")(" + REQDN + "=" +
-                reqDn + ")(" + REQUAUTHZID + "=" + SchemaConstants.UID_AT + "=" + audit.getUserId() + "," + userRoot
-                + ")";
-
-            if ( audit.isFailedOnly() )
-            {
-                filter += "(" + REQRESULT + "=" + GlobalIds.AUTHZ_COMPARE_FAILURE_FLAG + ")";
-            }
-
-            if ( audit.getBeginDate() != null )
-            {
-                String szTime = TUtil.encodeGeneralizedTime( audit.getBeginDate() );
-                filter += "(" + REQEND + ">=" + szTime + ")";
-            }
-
-            filter += ")";
-
-            //System.out.println("filter=" + filter);
+            String filter = getAuthZFilter( audit, permRoot, userRoot );
             ld = getLogConnection();
             SearchCursor searchResults = search( ld, auditRoot,
                 SearchScope.ONELEVEL, filter, AUDIT_AUTHZ_ATRS, false, GlobalIds.BATCH_SIZE );
@@ -372,6 +355,89 @@ final class AuditDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Open a cursor over the authorization events that match the search criteria.  The entries are read a page at a time,
+     * see {@link PagedSearchCursor}, and the log connection is held by the cursor until it is closed.
+     *
+     * @param audit contains the userId, permission and optional begin date and failed only flag.
+     * @return cursor over the matching authorization events.
+     * @throws FinderException in the event of a system error.
+     */
+    ResultCursor<AuthZ> iterateAuthZs( UserAudit audit ) throws FinderException
+    {
+        LdapConnection ld = null;
+        String auditRoot = Config.getInstance().getProperty( AUDIT_ROOT );
+        String permRoot = getRootDn( audit.isAdmin(), audit.getContextId() );
+        String userRoot = getRootDn( audit.getContextId(), GlobalIds.USER_ROOT );
+
+        try
+        {
+            String filter = getAuthZFilter( audit, permRoot, userRoot );
+            ld = getLogConnection();
+            ResultCursor<AuthZ> cursor = new PagedSearchCursor<AuthZ>( ld, auditRoot, SearchScope.ONELEVEL, filter,
+                AUDIT_AUTHZ_ATRS, GlobalErrIds.AUDT_AUTHZ_SEARCH_FAILED )
+            {
+                @Override
+                protected AuthZ unload( Entry entry, long sequence ) throws LdapException
+                {
+                    return getAuthzEntityFromLdapEntry( entry, sequence );
+                }
+
+
+                @Override
+                protected void release( LdapConnection connection )
+                {
+                    closeLogConnection( connection );
+                }
+            };
+            // the cursor owns the connection now:
+            ld = null;
+            return cursor;
+        }
+        catch ( LdapException e )
+        {
+            String error = "LdapException in AuditDAO.iterateAuthZs id=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.AUDT_AUTHZ_SEARCH_FAILED, error, e );
+        }
+        finally
+        {
+            closeLogConnection( ld );
+        }
+    }
+
+
+    /**
+     * Build the search filter used by {@link #searchAuthZs(UserAudit)} and {@link #iterateAuthZs(UserAudit)}.
+     *
+     * @param audit    contains the userId, permission and optional begin date and failed only flag.
+     * @param permRoot contains the dn of the permission container.
+     * @param userRoot contains the dn of the user container.
+     * @return String containing the ldap filter.
+     */
+    private String getAuthZFilter( UserAudit audit, String permRoot, String userRoot )
+    {
+        String reqDn = PermDAO.getOpRdn( audit.getOpName(), audit.getObjId() ) + "," + GlobalIds.POBJ_NAME + "="
+            + audit.getObjName() + "," + permRoot;
+        String filter = GlobalIds.FILTER_PREFIX + ACCESS_AUTHZ_CLASS_NM + ")(" + REQDN + "=" +
+            reqDn + ")(" + REQUAUTHZID + "=" + SchemaConstants.UID_AT + "=" + audit.getUserId() + "," + userRoot
+            + ")";
+
+        if ( audit.isFailedOnly() )
+        {
+            filter += "(" + REQRESULT + "=" + GlobalIds.AUTHZ_COMPARE_FAILURE_FLAG + ")";
+        }
+
+        if ( audit.getBeginDate() != null )
+        {
+            String szTime = TUtil.encodeGeneralizedTime( audit.getBeginDate() );
+            filter += "(" + REQEND + ">=" + szTime + ")";
+        }
+
+        filter += ")";
+        return filter;
+    }
+
+
     private String getRootDn( boolean isAdmin, String contextId )
     {
         String dn;
@@ -27,6 +27,7 @@ import org.apache.directory.fortress.core.AuditMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.ReviewMgr;
 import org.apache.directory.fortress.core.ReviewMgrFactory;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.AuthZ;
 import org.apache.directory.fortress.core.model.Bind;
@@ -139,6 +140,21 @@ public class AuditMgrImpl extends Manageable implements AuditMgr, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultCursor<AuthZ> iterateAuthZs(UserAudit uAudit)
+        throws SecurityException
+    {
+        String methodName = "iterateAuthZs";
+        assertContext(CLS_NM, methodName, uAudit, GlobalErrIds.AUDT_INPUT_NULL);
+        // authorized by the same permission as searchAuthZs:
+        checkAccess(CLS_NM, "searchAuthZs");
+        return auditP.iterateAuthZs(uAudit);
+    }
+
+
     /**
      * {@inheritDoc}
      */
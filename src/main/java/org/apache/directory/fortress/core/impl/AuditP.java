@@ -22,6 +22,7 @@ package org.apache.directory.fortress.core.impl;
 
 import java.util.List;
 
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.AuthZ;
 import org.apache.directory.fortress.core.model.Bind;
@@ -92,6 +93,19 @@ public final class AuditP
     }
 
 
+    /**
+     * Open a cursor over the authorization events that {@link #searchAuthZs(UserAudit)} would return.
+     *
+     * @param uAudit This entity is instantiated and populated before invocation.
+     * @return cursor over objects of type AuthZ.  It must be closed by the caller.
+     * @throws SecurityException if a runtime system error occurs.
+     */
+    ResultCursor<AuthZ> iterateAuthZs( UserAudit uAudit ) throws SecurityException
+    {
+        return aDao.iterateAuthZs( uAudit );
+    }
+
+
     /**
      * This method returns a list of authentication audit events for a particular user {@link UserAudit#userId},
      * and given timestamp field {@link UserAudit#beginDate}.<BR>
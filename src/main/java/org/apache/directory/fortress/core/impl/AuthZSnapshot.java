@@ -0,0 +1,219 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.model.UserRole;
+
+
+/**
+ * This class contains an immutable copy of the authorization data of a {@link Session}: the roles that were activated, the roles
+ * they inherit and the permissions granted to them or directly to the user.  It is kept for the Session by {@link SnapshotUtil}
+ * when fortress config param 'enable.session.snapshot' is 'true' and allows grants to be decided without reading the permission from
+ * the directory.  The snapshot is stamped with the policy version of its tenant that was current when it was built and is not used
+ * once that policy has changed.
+ * <p>
+ * The snapshot is held outside of the Session so it is never marshaled with it.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class AuthZSnapshot
+{
+    private static final String SEP = ":";
+    private final long version;
+    private final long createTime;
+    private final String contextId;
+    private final Set<String> activeRoles;
+    private final Set<String> inheritedRoles;
+    private final Set<String> grants;
+    private final List<Permission> permissions;
+
+
+    /**
+     * Build the snapshot.
+     *
+     * @param version        of the policy the data was read from.
+     * @param contextId      of the tenant the data was read from.
+     * @param activeRoles    contains the roles activated in the session.
+     * @param inheritedRoles contains the activated roles and all of their ascendants.
+     * @param permissions    contains the permissions granted to the session.
+     */
+    AuthZSnapshot( long version, String contextId, List<UserRole> activeRoles, Set<String> inheritedRoles,
+        List<Permission> permissions )
+    {
+        this.version = version;
+        this.createTime = System.currentTimeMillis();
+        this.contextId = contextId;
+        Set<String> roleNames = new HashSet<>();
+
+        if ( activeRoles != null )
+        {
+            for ( UserRole role : activeRoles )
+            {
+                roleNames.add( StringUtils.upperCase( role.getName() ) );
+            }
+        }
+
+        this.activeRoles = roleNames;
+        Set<String> roles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+
+        if ( inheritedRoles != null )
+        {
+            roles.addAll( inheritedRoles );
+        }
+
+        this.inheritedRoles = Collections.unmodifiableSet( roles );
+        Set<String> keys = new HashSet<>();
+
+        if ( permissions != null )
+        {
+            for ( Permission permission : permissions )
+            {
+                keys.add( getKey( permission ) );
+            }
+            this.permissions = Collections.unmodifiableList( permissions );
+        }
+        else
+        {
+            this.permissions = Collections.emptyList();
+        }
+
+        this.grants = keys;
+    }
+
+
+    /**
+     * Return true if the permission has been granted to the session.
+     *
+     * @param permission contains {@link Permission#getObjName()}, {@link Permission#getOpName()} and optional {@link Permission#getObjId()}.
+     * @return boolean value.  false means the permission wasn't granted or doesn't exist.
+     */
+    boolean isGranted( Permission permission )
+    {
+        return grants.contains( getKey( permission ) );
+    }
+
+
+    /**
+     * Return true if the roles are the same that were active when this snapshot was built.  Roles may have been dropped from the
+     * session since, for example when their temporal constraints no longer pass.
+     *
+     * @param roles contains the roles currently active in the session.
+     * @return boolean value.
+     */
+    boolean isActive( List<UserRole> roles )
+    {
+        int size = roles != null ? roles.size() : 0;
+        if ( size != activeRoles.size() )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( !activeRoles.contains( StringUtils.upperCase( roles.get( i ).getName() ) ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Return the version of the policy this snapshot was built from.
+     *
+     * @return long value.
+     */
+    long getVersion()
+    {
+        return version;
+    }
+
+
+    /**
+     * Return the time this snapshot was built.
+     *
+     * @return long value containing milliseconds since the epoch.
+     */
+    long getCreateTime()
+    {
+        return createTime;
+    }
+
+
+    /**
+     * Return the tenant this snapshot was built from.
+     *
+     * @return contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    String getContextId()
+    {
+        return contextId;
+    }
+
+
+    /**
+     * Return the activated roles and all of their ascendants.  The set is case insensitive and may not be modified by caller.
+     *
+     * @return Set of role names.
+     */
+    Set<String> getInheritedRoles()
+    {
+        return inheritedRoles;
+    }
+
+
+    /**
+     * Return the permissions that are granted to the session.  The list may not be modified by caller.
+     *
+     * @return List of permissions.
+     */
+    List<Permission> getPermissions()
+    {
+        return permissions;
+    }
+
+
+    /**
+     * Build the key of a permission from its names.  Names are case insensitive in the directory so are folded here.
+     *
+     * @param permission contains the names.
+     * @return String containing the key.
+     */
+    private static String getKey( Permission permission )
+    {
+        return StringUtils.lowerCase( permission.getObjName() ) + SEP
+            + StringUtils.lowerCase( StringUtils.defaultString( permission.getObjId() ) ) + SEP
+            + StringUtils.lowerCase( permission.getOpName() );
+    }
+}
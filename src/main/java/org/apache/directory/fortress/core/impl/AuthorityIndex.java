@@ -0,0 +1,373 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class contains the ARBAC authority of admin roles, precompiled for the can assign and can grant checks performed by
+ * {@link DelAccessMgrImpl}.  The authority of an admin role is the combination of:
+ * <ol>
+ * <li>its OS-U or OS-P organizational units together with all of their descendants in {@link UsoUtil} or {@link PsoUtil}</li>
+ * <li>its role range, the ascendants in {@link RoleUtil} between the begin and end range, or the begin range alone</li>
+ * </ol>
+ * Each is compiled once into an upper case hash set so a check is two lookups rather than a hierarchy traversal into new sets.
+ * <p>
+ * Authorities are cached in 'fortress.authorities', keyed by tenant and the admin role's scope rather than its name as the scope is
+ * copied onto every user assignment and may differ between them.  Every authority records the version of the hierarchies it was
+ * compiled from, that is the {@link HierIndex} instances published by the utilities, and is recompiled when a hierarchy has since
+ * changed or been reloaded.  The cache is bounded by its entry in ehcache.xml and is flushed when an admin role is updated or
+ * deleted.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class AuthorityIndex
+{
+    private static final String CLS_NM = AuthorityIndex.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String FORTRESS_AUTHORITIES = "fortress.authorities";
+
+    private final Cache authorityCache;
+
+    private static volatile AuthorityIndex INSTANCE = null;
+
+    static AuthorityIndex getInstance()
+    {
+        if ( INSTANCE == null )
+        {
+            synchronized ( AuthorityIndex.class )
+            {
+                if ( INSTANCE == null )
+                {
+                    INSTANCE = new AuthorityIndex();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     */
+    private AuthorityIndex()
+    {
+        this( CacheMgr.getInstance().getCache( FORTRESS_AUTHORITIES ) );
+    }
+
+
+    /**
+     * Package private constructor for tests.
+     *
+     * @param authorityCache contains the compiled authorities.
+     */
+    AuthorityIndex( Cache authorityCache )
+    {
+        this.authorityCache = authorityCache;
+    }
+
+
+    /**
+     * Determine if the admin role has authority to assign a role to, or deassign it from, a user.
+     *
+     * @param uaRole    contains the admin role's OS-U's and role range.
+     * @param userOu    contains the ou of the user.
+     * @param roleName  contains the name of the role.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return boolean value.  true indicates the user is within the admin role's OS-U's and the role within its range.
+     */
+    boolean isUserAuthority( UserAdminRole uaRole, String userOu, String roleName, String contextId )
+    {
+        Set<String> osUs = uaRole.getOsUSet();
+        if ( CollectionUtils.isEmpty( osUs ) )
+        {
+            return false;
+        }
+        return isAuthority( true, uaRole, userOu, roleName, contextId, UsoUtil.getInstance().getIndex( contextId ),
+            getRoleVersion( uaRole, contextId ) );
+    }
+
+
+    /**
+     * Determine if the admin role has authority to grant a permission to, or revoke it from, a role.
+     *
+     * @param uaRole    contains the admin role's OS-P's and role range.
+     * @param permOu    contains the ou of the permission object.
+     * @param roleName  contains the name of the role.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return boolean value.  true indicates the permission is within the admin role's OS-P's and the role within its range.
+     */
+    boolean isPermAuthority( UserAdminRole uaRole, String permOu, String roleName, String contextId )
+    {
+        Set<String> osPs = uaRole.getOsPSet();
+        if ( CollectionUtils.isEmpty( osPs ) )
+        {
+            return false;
+        }
+        return isAuthority( false, uaRole, permOu, roleName, contextId, PsoUtil.getInstance().getIndex( contextId ),
+            getRoleVersion( uaRole, contextId ) );
+    }
+
+
+    /**
+     * Determine if the admin role has authority over an ou and role, given the versions of the hierarchies to compile against.
+     * The checks above pass the versions currently published by the utilities, tests pass their own.
+     *
+     * @param isUser      true for the admin role's OS-U's, false for its OS-P's.
+     * @param uaRole      contains the admin role's ou's and role range.
+     * @param ou          contains the ou of the user or permission object.
+     * @param roleName    contains the name of the role.
+     * @param contextId   maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @param ouVersion   contains the user or perm ou hierarchy.
+     * @param roleVersion contains the role hierarchy, only used when the admin role has a range.
+     * @return boolean value.  true indicates the ou is within the admin role's ou's and the role within its range.
+     */
+    boolean isAuthority( boolean isUser, UserAdminRole uaRole, String ou, String roleName, String contextId,
+        HierIndex ouVersion, HierIndex roleVersion )
+    {
+        Set<String> ous = isUser ? uaRole.getOsUSet() : uaRole.getOsPSet();
+        if ( CollectionUtils.isEmpty( ous ) )
+        {
+            return false;
+        }
+        Scope scope = new Scope( contextId, isUser, ous, uaRole );
+        return getAuthority( scope, ouVersion, scope.isRange() ? roleVersion : null ).isAuthority( ou, roleName );
+    }
+
+
+    /**
+     * Return the role hierarchy if the admin role has a range to compile, otherwise null so it isn't loaded needlessly.
+     */
+    private static HierIndex getRoleVersion( UserAdminRole uaRole, String contextId )
+    {
+        if ( isRange( uaRole.getBeginRange(), uaRole.getEndRange() ) )
+        {
+            return RoleUtil.getInstance().getIndex( contextId );
+        }
+        return null;
+    }
+
+
+    /**
+     * A range spans the ascendants from begin to end, otherwise the begin range is the only role.
+     */
+    private static boolean isRange( String beginRange, String endRange )
+    {
+        return beginRange != null && endRange != null && !beginRange.equalsIgnoreCase( endRange );
+    }
+
+
+    /**
+     * Drop the compiled authorities.  This is called when an admin role is updated or deleted.  The cache isn't partitioned by
+     * tenant so those of every tenant are dropped, which is cheap as they are recompiled on next use.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void clear( String contextId )
+    {
+        LOG.debug( "clear contextId [{}]", contextId );
+        authorityCache.flush();
+    }
+
+
+    /**
+     * Return the compiled authority for an admin role's scope, compiling it if not found or if a hierarchy it depends on has changed.
+     */
+    private Authority getAuthority( Scope scope, HierIndex ouVersion, HierIndex roleVersion )
+    {
+        Authority authority = ( Authority ) authorityCache.get( scope );
+        if ( authority == null || authority.ouVersion != ouVersion || authority.roleVersion != roleVersion )
+        {
+            authority = new Authority( scope, ouVersion, roleVersion );
+            // The key keeps a copy of the ou's since the admin role may be changed by its caller:
+            authorityCache.put( scope.copy(), authority );
+        }
+        return authority;
+    }
+
+
+    private static String getContextId( String contextId )
+    {
+        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equalsIgnoreCase( GlobalIds.NULL ) )
+        {
+            return contextId;
+        }
+        return GlobalIds.HOME;
+    }
+
+
+    /**
+     * The tenant, ou's and role range of an admin role, as given on its user assignment.
+     */
+    private static final class Scope
+    {
+        private final String contextId;
+        private final boolean isUser;
+        private final Set<String> ous;
+        private final String beginRange;
+        private final String endRange;
+        private final boolean isBeginInclusive;
+        private final boolean isEndInclusive;
+
+
+        private Scope( String contextId, boolean isUser, Set<String> ous, UserAdminRole uaRole )
+        {
+            this( getContextId( contextId ), isUser, ous, uaRole.getBeginRange(), uaRole.getEndRange(),
+                uaRole.isBeginInclusive(), uaRole.isEndInclusive() );
+        }
+
+
+        private Scope( String contextId, boolean isUser, Set<String> ous, String beginRange, String endRange,
+            boolean isBeginInclusive, boolean isEndInclusive )
+        {
+            this.contextId = contextId;
+            this.isUser = isUser;
+            this.ous = ous;
+            this.beginRange = beginRange;
+            this.endRange = endRange;
+            this.isBeginInclusive = isBeginInclusive;
+            this.isEndInclusive = isEndInclusive;
+        }
+
+
+        private Scope copy()
+        {
+            return new Scope( contextId, isUser, new HashSet<>( ous ), beginRange, endRange, isBeginInclusive,
+                isEndInclusive );
+        }
+
+
+        private boolean isRange()
+        {
+            return AuthorityIndex.isRange( beginRange, endRange );
+        }
+
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o )
+            {
+                return true;
+            }
+            if ( !( o instanceof Scope ) )
+            {
+                return false;
+            }
+            Scope that = ( Scope ) o;
+            return isUser == that.isUser && isBeginInclusive == that.isBeginInclusive
+                && isEndInclusive == that.isEndInclusive && StringUtils.equals( beginRange, that.beginRange )
+                && StringUtils.equals( endRange, that.endRange ) && contextId.equals( that.contextId )
+                && ous.equals( that.ous );
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            int result = ous.hashCode();
+            result = 31 * result + contextId.hashCode();
+            result = 31 * result + ( beginRange != null ? beginRange.hashCode() : 0 );
+            result = 31 * result + ( endRange != null ? endRange.hashCode() : 0 );
+            result = 31 * result + ( isUser ? 1 : 0 );
+            result = 31 * result + ( isBeginInclusive ? 1 : 0 );
+            result = 31 * result + ( isEndInclusive ? 1 : 0 );
+            return result;
+        }
+    }
+
+
+    /**
+     * The compiled authority of a scope.
+     */
+    private static final class Authority
+    {
+        private final HierIndex ouVersion;
+        private final HierIndex roleVersion;
+        private final Set<String> ous;
+        private final Set<String> roles;
+
+
+        private Authority( Scope scope, HierIndex ouVersion, HierIndex roleVersion )
+        {
+            this.ouVersion = ouVersion;
+            this.roleVersion = roleVersion;
+            Set<String> compiledOus = new HashSet<>();
+            for ( String ou : scope.ous )
+            {
+                compiledOus.add( ou.toUpperCase() );
+                addAll( compiledOus, ouVersion.getDescendants( ou ) );
+            }
+            this.ous = Collections.unmodifiableSet( compiledOus );
+            Set<String> compiledRoles = new HashSet<>();
+            if ( scope.isRange() )
+            {
+                addAll( compiledRoles, HierUtil.getAscendants( scope.beginRange, scope.endRange, scope.isEndInclusive,
+                    roleVersion.getGraph() ) );
+                if ( scope.isBeginInclusive )
+                {
+                    compiledRoles.add( scope.beginRange.toUpperCase() );
+                }
+            }
+            else if ( scope.beginRange != null )
+            {
+                compiledRoles.add( scope.beginRange.toUpperCase() );
+            }
+            this.roles = Collections.unmodifiableSet( compiledRoles );
+        }
+
+
+        private static void addAll( Set<String> compiled, Set<String> names )
+        {
+            if ( names != null )
+            {
+                for ( String name : names )
+                {
+                    compiled.add( name.toUpperCase() );
+                }
+            }
+        }
+
+
+        /**
+         * Determine if the ou is within the scope and the role within the range.
+         */
+        private boolean isAuthority( String ou, String roleName )
+        {
+            return ou != null && roleName != null && ous.contains( ou.toUpperCase() )
+                && roles.contains( roleName.toUpperCase() );
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.cursor.CursorException;
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.fortress.core.FinderException;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ldap.LdapDataProvider;
+import org.apache.directory.ldap.client.api.LdapConnection;
+
+
+/**
+ * This class finds the entries of a container that were added or modified since a given time, along with the names of all
+ * the entries that remain in it.  It is used by {@link ChangeListener} to learn of changes made by other nodes to data that
+ * is cached locally.
+ * <p>
+ * The search for changes relies on the operational attributes {@code modifyTimestamp} and {@code createTimestamp}, which are
+ * maintained by both OpenLDAP and ApacheDS.  Entries that have been deleted are not returned by it, so are found by comparing
+ * the names that remain with those that are cached.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class ChangeDAO extends LdapDataProvider
+{
+    /** Length of a generalized time truncated to seconds, i.e. yyyyMMddHHmmss */
+    static final int TIME_LENGTH = 14;
+
+
+    /**
+     * Return the entries of a tenant's container whose modify or create timestamp is at or after the given time.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @param root      contains the config key of the container, e.g. {@link GlobalIds#ROLE_ROOT}.
+     * @param nameAttr  contains the attribute name that holds the entry's logical name.
+     * @param since     generalized time truncated to seconds, in UTC.
+     * @param errorId   error id to use if the search fails.
+     * @return List of changes, never null.
+     * @throws FinderException in the event of ldap system error.
+     */
+    List<Change> findChanges( String contextId, String root, String nameAttr, String since, int errorId )
+        throws FinderException
+    {
+        String[] changeAtrs =
+            { nameAttr, GlobalIds.PARENT_NODES, SchemaConstants.MODIFY_TIMESTAMP_AT,
+                SchemaConstants.CREATE_TIMESTAMP_AT };
+        List<Change> changes = new ArrayList<>();
+        LdapConnection ld = null;
+        String containerDn = getRootDn( contextId, root );
+        String filter = "(|(" + SchemaConstants.MODIFY_TIMESTAMP_AT + ">=" + since + "Z)("
+            + SchemaConstants.CREATE_TIMESTAMP_AT + ">=" + since + "Z))";
+
+        try
+        {
+            ld = getAdminConnection();
+            SearchCursor searchResults = search( ld, containerDn, SearchScope.ONELEVEL, filter, changeAtrs, false,
+                GlobalIds.BATCH_SIZE );
+
+            while ( searchResults.next() )
+            {
+                changes.add( unloadLdapEntry( searchResults.getEntry(), nameAttr ) );
+            }
+        }
+        catch ( LdapException e )
+        {
+            String error = "findChanges root [" + containerDn + "] filter [" + filter + "] caught LdapException="
+                + e.getMessage();
+            throw new FinderException( errorId, error, e );
+        }
+        catch ( CursorException e )
+        {
+            String error = "findChanges root [" + containerDn + "] filter [" + filter + "] caught CursorException="
+                + e.getMessage();
+            throw new FinderException( errorId, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return changes;
+    }
+
+
+    /**
+     * Return the logical names of every entry in a tenant's container.  Only the name attribute is read.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @param root      contains the config key of the container, e.g. {@link GlobalIds#ROLE_ROOT}.
+     * @param nameAttr  contains the attribute name that holds the entry's logical name.
+     * @param errorId   error id to use if the search fails.
+     * @return Set of names, in a case insensitive set, never null.
+     * @throws FinderException in the event of ldap system error.
+     */
+    Set<String> findNames( String contextId, String root, String nameAttr, int errorId ) throws FinderException
+    {
+        String[] nameAtrs =
+            { nameAttr };
+        Set<String> names = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        LdapConnection ld = null;
+        String containerDn = getRootDn( contextId, root );
+        String filter = "(" + nameAttr + "=*)";
+
+        try
+        {
+            ld = getAdminConnection();
+            // Not limited to a batch, a missing name would be taken for a delete:
+            SearchCursor searchResults = search( ld, containerDn, SearchScope.ONELEVEL, filter, nameAtrs, false );
+
+            while ( searchResults.next() )
+            {
+                String name = getAttribute( searchResults.getEntry(), nameAttr );
+                if ( name != null )
+                {
+                    names.add( name );
+                }
+            }
+        }
+        catch ( LdapException e )
+        {
+            String error = "findNames root [" + containerDn + "] caught LdapException=" + e.getMessage();
+            throw new FinderException( errorId, error, e );
+        }
+        catch ( CursorException e )
+        {
+            String error = "findNames root [" + containerDn + "] caught CursorException=" + e.getMessage();
+            throw new FinderException( errorId, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return names;
+    }
+
+
+    /**
+     * @param le       contains the changed entry.
+     * @param nameAttr contains the attribute name that holds the entry's logical name.
+     * @return the change.
+     * @throws LdapException if the entry could not be read.
+     */
+    private Change unloadLdapEntry( Entry le, String nameAttr ) throws LdapException
+    {
+        String modified = truncate( getAttribute( le, SchemaConstants.MODIFY_TIMESTAMP_AT ) );
+        String created = truncate( getAttribute( le, SchemaConstants.CREATE_TIMESTAMP_AT ) );
+        String time = modified;
+
+        if ( time == null || ( created != null && created.compareTo( time ) > 0 ) )
+        {
+            time = created;
+        }
+
+        return new Change( le.getDn().getNormName(), time, getAttribute( le, nameAttr ),
+            getAttributeSet( le, GlobalIds.PARENT_NODES ) );
+    }
+
+
+    /**
+     * Drop the fraction and time zone from a generalized time so values from different servers compare as strings.
+     *
+     * @param time generalized time in UTC, may be null.
+     * @return the time truncated to seconds, or null.
+     */
+    private static String truncate( String time )
+    {
+        if ( time == null || time.length() < TIME_LENGTH )
+        {
+            return null;
+        }
+
+        return time.substring( 0, TIME_LENGTH );
+    }
+
+
+    /**
+     * An entry that was found to have been added or modified.
+     */
+    static final class Change
+    {
+        private final String dn;
+        private final String time;
+        private final String name;
+        private final Set<String> parents;
+
+
+        private Change( String dn, String time, String name, Set<String> parents )
+        {
+            this.dn = dn;
+            this.time = time;
+            this.name = name;
+            this.parents = parents;
+        }
+
+
+        /**
+         * @return normalized dn of the entry.
+         */
+        String getDn()
+        {
+            return dn;
+        }
+
+
+        /**
+         * @return the later of the modify and create timestamps, truncated to seconds, may be null.
+         */
+        String getTime()
+        {
+            return time;
+        }
+
+
+        /**
+         * @return logical name of the entry, may be null.
+         */
+        String getName()
+        {
+            return name;
+        }
+
+
+        /**
+         * @return the entry's ftParents values, in a case insensitive set.
+         */
+        Set<String> getParents()
+        {
+            return parents;
+        }
+    }
+}
@@ -0,0 +1,527 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.util.Config;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Keeps the hierarchy and SoD caches of this process in step with changes made by other processes that share the directory.
+ * <p>
+ * Each process of a cluster holds its own copy of the role, admin role, user ou and perm ou hierarchies along with the SSD
+ * and DSD sets.  A change made through one process updates that process' caches only; the others would otherwise serve stale
+ * policy until their cache entries expire.  When fortress config param: 'enable.change.listener' is 'true', a daemon thread
+ * polls the containers of every tenant whose data has been cached, every 'change.listener.interval' seconds, for entries
+ * whose modify or create timestamp has moved since the last poll:
+ * <ul>
+ * <li>A changed role, admin role or ou entry clears the tenant's hierarchy from the corresponding cache, but only when its
+ * ftParents differ from the cached graph.  Entries of this process' own changes, and those whose other attributes changed,
+ * e.g. role occupants, leave the cache intact.</li>
+ * <li>A changed SSD or DSD set clears the tenant's DSD index along with its SSD cache entries.</li>
+ * </ul>
+ * Deletes don't leave a timestamp behind, so every 'change.listener.scan.polls' polls the names of the entries that remain in
+ * the container are read as well.  A vertex of the cached graph, or an SSD or DSD set seen by the previous scan, that is no
+ * longer found clears the cache as above.  Reading every name is far more work than the search for timestamps so deletes are
+ * seen later than other changes.
+ * <p>
+ * A hierarchy that isn't cached has nothing to keep in step, so its container isn't searched.  The hierarchy is never loaded
+ * by the polling thread.
+ * <p>
+ * Polling is used rather than persistent search because the latter isn't supported by every server fortress runs on.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class ChangeListener
+{
+    private static final String CLS_NM = ChangeListener.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String ENABLE_CHANGE_LISTENER = "enable.change.listener";
+    private static final String CHANGE_LISTENER_INTERVAL = "change.listener.interval";
+    private static final int DEFAULT_INTERVAL = 10;
+    private static final String CHANGE_LISTENER_SCAN_POLLS = "change.listener.scan.polls";
+    private static final int DEFAULT_SCAN_POLLS = 6;
+    // Margin, in seconds, subtracted from the local clock for a tenant's first poll to allow for skew with the server:
+    private static final int CLOCK_SKEW = 60;
+    private static final String ROLE_NM = "ftRoleName";
+
+    private static volatile ChangeListener INSTANCE = null;
+
+    private final ChangeDAO cDao = new ChangeDAO();
+    private final Set<String> tenants = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+    // Only accessed by the polling thread:
+    private final Map<String, Mark> marks = new HashMap<>();
+    private final boolean enabled;
+    private final int interval;
+    private final int scanPolls;
+    private ScheduledExecutorService pollService;
+
+
+    /**
+     * The containers that are watched and what to do when one of their entries has changed.
+     */
+    private enum Container
+    {
+        ROLE( GlobalIds.ROLE_ROOT, ROLE_NM, GlobalErrIds.ROLE_SEARCH_FAILED )
+        {
+            @Override
+            HierIndex peek( String contextId )
+            {
+                return RoleUtil.getInstance().peekIndex( contextId );
+            }
+
+
+            @Override
+            void clear( String contextId )
+            {
+                RoleUtil.getInstance().clear( contextId );
+            }
+        },
+        ADMIN_ROLE( GlobalIds.ADMIN_ROLE_ROOT, ROLE_NM, GlobalErrIds.ARLE_SEARCH_FAILED )
+        {
+            @Override
+            HierIndex peek( String contextId )
+            {
+                return AdminRoleUtil.peekIndex( contextId );
+            }
+
+
+            @Override
+            void clear( String contextId )
+            {
+                AdminRoleUtil.clear( contextId );
+            }
+        },
+        USER_OU( GlobalIds.OSU_ROOT, SchemaConstants.OU_AT, GlobalErrIds.ORG_SEARCH_FAILED_USER )
+        {
+            @Override
+            HierIndex peek( String contextId )
+            {
+                return UsoUtil.getInstance().peekIndex( contextId );
+            }
+
+
+            @Override
+            void clear( String contextId )
+            {
+                UsoUtil.getInstance().clear( contextId );
+            }
+        },
+        PERM_OU( GlobalIds.PSU_ROOT, SchemaConstants.OU_AT, GlobalErrIds.ORG_SEARCH_FAILED_PERM )
+        {
+            @Override
+            HierIndex peek( String contextId )
+            {
+                return PsoUtil.getInstance().peekIndex( contextId );
+            }
+
+
+            @Override
+            void clear( String contextId )
+            {
+                PsoUtil.getInstance().clear( contextId );
+            }
+        },
+        SD( GlobalIds.SD_ROOT, SchemaConstants.CN_AT, GlobalErrIds.SSD_SEARCH_FAILED )
+        {
+            @Override
+            boolean isHierarchy()
+            {
+                return false;
+            }
+
+
+            @Override
+            HierIndex peek( String contextId )
+            {
+                return null;
+            }
+
+
+            @Override
+            void clear( String contextId )
+            {
+                SDUtil sdUtil = SDUtil.getInstance();
+                sdUtil.clearDsdCache( contextId );
+                sdUtil.clearSsdCache( contextId );
+            }
+        };
+
+        private final String root;
+        private final String nameAttr;
+        private final int errorId;
+
+
+        Container( String root, String nameAttr, int errorId )
+        {
+            this.root = root;
+            this.nameAttr = nameAttr;
+            this.errorId = errorId;
+        }
+
+
+        /**
+         * @return true if the entries of this container are vertices of a cached hierarchy.
+         */
+        boolean isHierarchy()
+        {
+            return true;
+        }
+
+
+        /**
+         * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+         * @return the tenant's cached hierarchy or null if it hasn't been loaded.  The hierarchy is never read from ldap.
+         */
+        abstract HierIndex peek( String contextId );
+
+
+        /**
+         * Remove the tenant's entries for this container from the cache.
+         *
+         * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+         */
+        abstract void clear( String contextId );
+    }
+
+
+    /**
+     * The latest timestamp seen in a tenant's container along with the entries seen at that time.  Timestamps only have a
+     * resolution of seconds so the next poll starts at the same second and skips entries it has already processed.  The names
+     * of the entries found by the last scan of a container that isn't a hierarchy are kept to detect deletes.
+     */
+    private static final class Mark
+    {
+        private String time;
+        private Set<String> dns = new HashSet<>();
+        private Set<String> names;
+        // Number of polls since the names were last read:
+        private int polls;
+
+
+        private Mark( String time )
+        {
+            this.time = time;
+        }
+    }
+
+
+    /**
+     * Return the listener of this process.
+     *
+     * @return the singleton.
+     */
+    static ChangeListener getInstance()
+    {
+        if ( INSTANCE == null )
+        {
+            synchronized ( ChangeListener.class )
+            {
+                if ( INSTANCE == null )
+                {
+                    INSTANCE = new ChangeListener();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+
+    private ChangeListener()
+    {
+        enabled = Config.getInstance().getBoolean( ENABLE_CHANGE_LISTENER, false );
+        interval = Config.getInstance().getInt( CHANGE_LISTENER_INTERVAL, DEFAULT_INTERVAL );
+        scanPolls = Math.max( 1, Config.getInstance().getInt( CHANGE_LISTENER_SCAN_POLLS, DEFAULT_SCAN_POLLS ) );
+    }
+
+
+    /**
+     * Begin watching a tenant's containers.  This is called whenever a tenant's data has been loaded into one of the caches.
+     * Starts the polling thread on first use if the listener has been enabled, otherwise it does nothing.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void watch( String contextId )
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        if ( StringUtils.isEmpty( contextId ) )
+        {
+            contextId = GlobalIds.NULL;
+        }
+        if ( tenants.add( contextId ) )
+        {
+            LOG.info( "watch contextId [{}]", contextId );
+            start();
+        }
+    }
+
+
+    /**
+     * Start the daemon thread that polls the directory, if it isn't already running.
+     */
+    private synchronized void start()
+    {
+        if ( pollService != null )
+        {
+            return;
+        }
+        pollService = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+        {
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, "fortress-change-listener" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+        pollService.scheduleWithFixedDelay( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    poll();
+                }
+                catch ( RuntimeException e )
+                {
+                    LOG.warn( "poll caught RuntimeException={}", e.getMessage(), e );
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS );
+        LOG.info( "start interval [{}] seconds", interval );
+    }
+
+
+    /**
+     * Check every container of every watched tenant for changes.
+     */
+    private void poll()
+    {
+        for ( String contextId : tenants )
+        {
+            for ( Container container : Container.values() )
+            {
+                try
+                {
+                    poll( contextId, container );
+                }
+                catch ( SecurityException e )
+                {
+                    LOG.warn( "poll contextId [{}] container [{}] caught SecurityException={}", contextId, container,
+                        e.getMessage() );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Check one of a tenant's containers for changes and clear its cache entries if needed.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @param container the container to check.
+     * @throws SecurityException in the event of ldap system error.
+     */
+    private void poll( String contextId, Container container ) throws SecurityException
+    {
+        String markKey = container + ":" + contextId;
+        HierIndex index = null;
+        if ( container.isHierarchy() )
+        {
+            index = container.peek( contextId );
+            if ( index == null )
+            {
+                // Not cached so nothing to clear, and the next load reads the current hierarchy anyway:
+                marks.remove( markKey );
+                return;
+            }
+        }
+        Mark mark = marks.get( markKey );
+        if ( mark == null )
+        {
+            mark = new Mark( format( System.currentTimeMillis() - TimeUnit.SECONDS.toMillis( CLOCK_SKEW ) ) );
+            marks.put( markKey, mark );
+        }
+
+        List<ChangeDAO.Change> changes = cDao.findChanges( contextId, container.root, container.nameAttr, mark.time,
+            container.errorId );
+        String latest = mark.time;
+        Set<String> latestDns = new HashSet<>();
+        boolean isChanged = false;
+
+        for ( ChangeDAO.Change change : changes )
+        {
+            String time = change.getTime();
+            if ( time == null || ( time.equals( mark.time ) && mark.dns.contains( change.getDn() ) ) )
+            {
+                continue;
+            }
+            if ( time.compareTo( latest ) > 0 )
+            {
+                latest = time;
+                latestDns.clear();
+            }
+            if ( time.equals( latest ) )
+            {
+                latestDns.add( change.getDn() );
+            }
+            if ( !isChanged )
+            {
+                isChanged = isChanged( index, change );
+            }
+        }
+
+        // The first poll of a container that isn't a hierarchy reads the names the later scans are compared with:
+        if ( ++mark.polls >= scanPolls || ( !container.isHierarchy() && mark.names == null ) )
+        {
+            mark.polls = 0;
+            Set<String> names = cDao.findNames( contextId, container.root, container.nameAttr, container.errorId );
+            if ( !isChanged )
+            {
+                isChanged = isDeleted( index, mark, names );
+            }
+            if ( !container.isHierarchy() )
+            {
+                mark.names = names;
+            }
+        }
+
+        if ( latest.equals( mark.time ) )
+        {
+            mark.dns.addAll( latestDns );
+        }
+        else
+        {
+            mark.time = latest;
+            mark.dns = latestDns;
+        }
+
+        if ( isChanged )
+        {
+            LOG.info( "poll contextId [{}] container [{}] changed by another process, clearing cache", contextId, container );
+            container.clear( contextId );
+        }
+    }
+
+
+    /**
+     * Determine if a changed entry invalidates this process' cache.
+     *
+     * @param index  the tenant's cached hierarchy, or null if the container isn't a hierarchy.
+     * @param change the changed entry.
+     * @return true if the tenant's cache entries for the container must be cleared.
+     */
+    private static boolean isChanged( HierIndex index, ChangeDAO.Change change )
+    {
+        if ( index == null )
+        {
+            return true;
+        }
+        if ( StringUtils.isEmpty( change.getName() ) )
+        {
+            return false;
+        }
+
+        Set<String> cached = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        Set<String> parents = HierUtil.getParents( change.getName().toUpperCase(), index.getGraph() );
+        if ( parents != null )
+        {
+            cached.addAll( parents );
+        }
+        Set<String> current = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        if ( change.getParents() != null )
+        {
+            current.addAll( change.getParents() );
+        }
+
+        return !cached.equals( current );
+    }
+
+
+    /**
+     * Determine if an entry that this process has cached has been deleted.
+     *
+     * @param index the tenant's cached hierarchy, or null if the container isn't a hierarchy.
+     * @param mark  holds the names found by the previous scan of a container that isn't a hierarchy.
+     * @param names the names of the entries that remain in the container, in a case insensitive set.
+     * @return true if the tenant's cache entries for the container must be cleared.
+     */
+    private static boolean isDeleted( HierIndex index, Mark mark, Set<String> names )
+    {
+        if ( index == null )
+        {
+            return mark.names != null && !names.containsAll( mark.names );
+        }
+        SimpleDirectedGraph<String, Relationship> graph = index.getGraph();
+        for ( String vertex : graph.vertexSet() )
+        {
+            // Removing a relationship leaves its vertices behind, those without edges have no bearing on the hierarchy:
+            if ( !names.contains( vertex ) && !graph.edgesOf( vertex ).isEmpty() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @param millis time in milliseconds since the epoch.
+     * @return the time as a generalized time truncated to seconds, in UTC.
+     */
+    private static String format( long millis )
+    {
+        SimpleDateFormat formatter = new SimpleDateFormat( "yyyyMMddHHmmss" );
+        formatter.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
+        return formatter.format( new Date( millis ) );
+    }
+}
@@ -21,8 +21,8 @@ package org.apache.directory.fortress.core.impl;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.directory.fortress.core.DelAccessMgr;
@@ -150,6 +150,25 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Permission, Boolean> checkAccess(Session session, List<Permission> perms)
+        throws SecurityException
+    {
+        String methodName =  "checkAccess";
+        VUtil.assertNotNull(perms, GlobalErrIds.PERM_NULL, methodName);
+        for (Permission perm : perms)
+        {
+            assertContext(CLS_NM, methodName, perm, GlobalErrIds.PERM_NULL);
+            // This flag set will check administrative permission data set.
+            perm.setAdmin(true);
+        }
+        return super.checkAccess(session, perms);
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -267,7 +286,7 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
         if(CollectionUtils.isNotEmpty( uaRoles ))
         {
             // validate user and retrieve user' ou:
-            User ue = userP.read(user, false);
+            User ue = userP.readCached(user, false);
             for(UserAdminRole uaRole : uaRoles)
             {
                 if(uaRole.getName().equalsIgnoreCase(SUPER_ADMIN))
@@ -275,48 +294,11 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
                     result = true;
                     break;
                 }
-                Set<String> osUs = uaRole.getOsUSet();
-                if(CollectionUtils.isNotEmpty( osUs ))
+                // does the admin role have authority over the user object and a role contained within the allowable role range?
+                if(AuthorityIndex.getInstance().isUserAuthority(uaRole, ue.getOu(), role.getName(), this.contextId))
                 {
-                    // create Set with case insensitive comparator:
-                    Set<String> osUsFinal = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-                    for(String osU : osUs)
-                    {
-                        // Add osU children to the set:
-                        osUsFinal.add(osU);
-                        Set<String> children = UsoUtil.getInstance().getDescendants( osU, this.contextId );
-                        osUsFinal.addAll(children);
-                    }
-                    // does the admin role have authority over the user object?
-                    if(osUsFinal.contains(ue.getOu()))
-                    {
-                        // Get the Role range for admin role:
-                        Set<String> range;
-                        if(uaRole.getBeginRange() != null && uaRole.getEndRange() != null && !uaRole.getBeginRange().equalsIgnoreCase(uaRole.getEndRange()))
-                        {
-                            range = RoleUtil.getInstance().getAscendants( uaRole.getBeginRange(), uaRole.getEndRange(),
-                                uaRole.isEndInclusive(), this.contextId );
-                            if(uaRole.isBeginInclusive())
-                            {
-                                range.add(uaRole.getBeginRange());
-                            }
-                            if(CollectionUtils.isNotEmpty( range ))
-                            {
-                                // Does admin role have authority over a role contained with the allowable role range?
-                                if(range.contains(role.getName()))
-                                {
-                                    result = true;
-                                    break;
-                                }
-                            }
-                        }
-                        // Does admin role have authority over the role?
-                        else if(uaRole.getBeginRange() != null && uaRole.getBeginRange().equalsIgnoreCase(role.getName()))
-                        {
-                            result = true;
-                            break;
-                        }
-                    }
+                    result = true;
+                    break;
                 }
             }
         }
@@ -349,47 +331,11 @@ public class DelAccessMgrImpl extends AccessMgrImpl implements DelAccessMgr, Ser
                     result = true;
                     break;
                 }
-                Set<String> osPs = uaRole.getOsPSet();
-                if(CollectionUtils.isNotEmpty( osPs ))
+                // does the admin role have authority over the perm object and a role contained within the allowable role range?
+                if(AuthorityIndex.getInstance().isPermAuthority(uaRole, pObj.getOu(), role.getName(), this.contextId))
                 {
-                    // create Set with case insensitive comparator:
-                    Set<String> osPsFinal = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-                    for(String osP : osPs)
-                    {
-                        // Add osU children to the set:
-                        osPsFinal.add(osP);
-                        Set<String> children = PsoUtil.getInstance().getDescendants( osP, this.contextId );
-                        osPsFinal.addAll(children);
-                    }
-                    // does the admin role have authority over the perm object?
-                    if(osPsFinal.contains(pObj.getOu()))
-                    {
-                        // Get the Role range for admin role:
-                        Set<String> range;
-                        if(uaRole.getBeginRange() != null && uaRole.getEndRange() != null && !uaRole.getBeginRange().equalsIgnoreCase(uaRole.getEndRange()))
-                        {
-                            range = RoleUtil.getInstance().getAscendants(uaRole.getBeginRange(), uaRole.getEndRange(), uaRole.isEndInclusive(), this.contextId);
-                            if(uaRole.isBeginInclusive())
-                            {
-                                range.add(uaRole.getBeginRange());
-                            }
-                            if( CollectionUtils.isNotEmpty( range ))
-                            {
-                                // Does admin role have authority over a role contained with the allowable role range?
-                                if(range.contains(role.getName()))
-                                {
-                                    result = true;
-                                    break;
-                                }
-                            }
-                        }
-                        // Does admin role have authority over the role?
-                        else if(uaRole.getBeginRange() != null && uaRole.getBeginRange().equalsIgnoreCase(role.getName()))
-                        {
-                            result = true;
-                            break;
-                        }
-                    }
+                    result = true;
+                    break;
                 }
             }
         }
@@ -128,6 +128,7 @@ public final class DelAdminMgrImpl extends Manageable implements DelAdminMgr, Se
             }
         }
         admRP.delete(role);
+        AuthorityIndex.getInstance().clear(this.contextId);
     }
 
     /**
@@ -164,6 +165,7 @@ public final class DelAdminMgrImpl extends Manageable implements DelAdminMgr, Se
                 aMgr.updateUser(upUe);
             }
         }
+        AuthorityIndex.getInstance().clear(this.contextId);
         return re;
     }
 
@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.apache.directory.fortress.core.DelReviewMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.AdminRole;
 import org.apache.directory.fortress.core.model.OrgUnit;
@@ -156,6 +157,24 @@ public class DelReviewMgrImpl extends Manageable implements DelReviewMgr, Serial
         return ouP.search(orgUnit);
     }
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultCursor<OrgUnit> iterateOrgs(OrgUnit.Type type, String searchVal)
+        throws SecurityException
+    {
+        String methodName = "iterateOrgs";
+        VUtil.assertNotNull(type, GlobalErrIds.ORG_TYPE_NULL, CLS_NM + "." + methodName);
+        // authorized by the same permission as search:
+        checkAccess(CLS_NM, "searchOU");
+        OrgUnit orgUnit = new OrgUnit(searchVal);
+        orgUnit.setType(type);
+        orgUnit.setContextId(this.contextId);
+        return ouP.iterate(orgUnit);
+    }
+
     
     /**
      * {@inheritDoc}
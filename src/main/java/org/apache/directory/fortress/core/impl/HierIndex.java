@@ -0,0 +1,456 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.directory.fortress.core.model.Relationship;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class contains the transitive closure of a hierarchical graph that is managed by {@link HierUtil}.  It is built once every time
+ * a graph is loaded or updated and replaces the recursive traversals that were done on every call to the ascendant and descendant apis.
+ * <p>
+ * Every vertex of the graph is interned to an int id.  The ascendants and descendants of each vertex are stored as sorted int arrays
+ * of those ids, so the memory used is proportional to the size of the closure rather than to the square of the number of vertices.
+ * Membership tests are a binary search and the inherited set of many vertices is merged into a per thread scratch {@link java.util.BitSet}
+ * that is reused across calls.  The name sets returned by {@link #getAscendants(String)} and {@link #getDescendants(String)} are
+ * materialized on first use and shared thereafter.
+ * <p>
+ * It is used by the following data sets:
+ * <ol>
+ * <li>RBAC Role hierarchies cached in {@link RoleUtil}</li>
+ * <li>ARBAC Admin Role hierarchies cached in {@link AdminRoleUtil}</li>
+ * <li>User Organizational Unit hierarchies cached in {@link UsoUtil}</li>
+ * <li>Permission Organizational Unit hierarchies cached in {@link PsoUtil}</li>
+ * </ol>
+ * The index and the graph it was built from are never modified after they have been built.  A tenant's current version is published
+ * through an {@link java.util.concurrent.atomic.AtomicReference} so readers never lock.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class HierIndex
+{
+    private static final String CLS_NM = HierIndex.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final Set<String> EMPTY = Collections.unmodifiableSet( new TreeSet<String>(
+        String.CASE_INSENSITIVE_ORDER ) );
+    private static final int[] NONE = new int[0];
+    // Unsized so it only grows to the highest id that was set by the calling thread:
+    private static final ThreadLocal<BitSet> SCRATCH = new ThreadLocal<BitSet>()
+    {
+        @Override
+        protected BitSet initialValue()
+        {
+            return new BitSet();
+        }
+    };
+
+    private final SimpleDirectedGraph<String, Relationship> graph;
+    private final Map<String, Integer> ids;
+    private final String[] names;
+    private final int[][] ascendants;
+    private final int[][] descendants;
+    private final AtomicReferenceArray<Set<String>> ascendantSets;
+    private final AtomicReferenceArray<Set<String>> descendantSets;
+
+
+    /**
+     * Build the closure index for the given graph.  The graph must not be modified afterwards, updates are applied to a copy by
+     * {@link HierUtil#updateHier(java.util.concurrent.atomic.AtomicReference, Relationship, org.apache.directory.fortress.core.model.Hier.Op)}.
+     *
+     * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     */
+    HierIndex( SimpleDirectedGraph<String, Relationship> graph )
+    {
+        this.graph = graph;
+        this.ids = new HashMap<>();
+
+        if ( graph == null )
+        {
+            this.names = new String[0];
+            this.ascendants = new int[0][];
+            this.descendants = new int[0][];
+        }
+        else
+        {
+            Set<String> vertices = graph.vertexSet();
+            int size = vertices.size();
+            this.names = new String[size];
+            this.ascendants = new int[size][];
+            this.descendants = new int[size][];
+            int id = 0;
+
+            for ( String vertex : vertices )
+            {
+                names[id] = vertex;
+                ids.put( vertex.toUpperCase(), id );
+                id++;
+            }
+
+            int[][] parents = new int[size][];
+
+            for ( int i = 0; i < size; i++ )
+            {
+                Set<Relationship> edges = graph.outgoingEdgesOf( names[i] );
+                int[] row = new int[edges.size()];
+                int j = 0;
+
+                for ( Relationship edge : edges )
+                {
+                    row[j++] = ids.get( edge.getParent().toUpperCase() );
+                }
+                parents[i] = row;
+            }
+
+            loadAscendants( parents );
+            loadDescendants();
+        }
+
+        this.ascendantSets = new AtomicReferenceArray<>( names.length );
+        this.descendantSets = new AtomicReferenceArray<>( names.length );
+        LOG.debug( "HierIndex loaded [{}] vertices", names.length );
+    }
+
+
+    /**
+     * Compute the ascendant row of every vertex from the rows of its parents.  The graph is walked depth first with an explicit stack,
+     * rather than by recursion, so deep hierarchies can't overflow the thread's stack, and each vertex is visited once.
+     *
+     * @param parents contains the ids of the immediate parents of each vertex.
+     */
+    private void loadAscendants( int[][] parents )
+    {
+        int size = names.length;
+        // 0 is unvisited, 1 is in progress, 2 is done:
+        byte[] state = new byte[size];
+        int[] stack = new int[size];
+        int[] next = new int[size];
+        BitSet merge = new BitSet( size );
+
+        for ( int root = 0; root < size; root++ )
+        {
+            if ( state[root] != 0 )
+            {
+                continue;
+            }
+
+            int top = 0;
+            stack[0] = root;
+            next[0] = 0;
+            state[root] = 1;
+
+            while ( top >= 0 )
+            {
+                int id = stack[top];
+                int[] edges = parents[id];
+
+                if ( next[top] < edges.length )
+                {
+                    int parent = edges[next[top]++];
+
+                    if ( state[parent] == 0 )
+                    {
+                        top++;
+                        stack[top] = parent;
+                        next[top] = 0;
+                        state[parent] = 1;
+                    }
+                    else if ( state[parent] == 1 )
+                    {
+                        // A cycle was found, this can't happen in a hierarchy that was validated by HierUtil.validateRelationship.
+                        LOG.warn( "HierIndex detected cycle on vertex [{}]", names[parent] );
+                    }
+                }
+                else
+                {
+                    // Every parent is done, so the row is the union of the parents and their rows:
+                    for ( int parent : edges )
+                    {
+                        merge.set( parent );
+                        int[] row = ascendants[parent];
+
+                        if ( row != null )
+                        {
+                            for ( int ascendant : row )
+                            {
+                                merge.set( ascendant );
+                            }
+                        }
+                    }
+
+                    ascendants[id] = toRow( merge );
+                    state[id] = 2;
+                    top--;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The descendants are the transpose of the ascendants.  Rows are sized exactly by counting first and, because the ascendants are
+     * walked in id order, each descendant row is filled in sorted order.
+     */
+    private void loadDescendants()
+    {
+        int size = names.length;
+        int[] counts = new int[size];
+
+        for ( int[] row : ascendants )
+        {
+            for ( int j : row )
+            {
+                counts[j]++;
+            }
+        }
+
+        for ( int j = 0; j < size; j++ )
+        {
+            descendants[j] = counts[j] == 0 ? NONE : new int[counts[j]];
+            counts[j] = 0;
+        }
+
+        for ( int i = 0; i < size; i++ )
+        {
+            for ( int j : ascendants[i] )
+            {
+                descendants[j][counts[j]++] = i;
+            }
+        }
+    }
+
+
+    /**
+     * Copy the bits of the merge row into a sorted int array and clear them, leaving the merge row empty for reuse.
+     *
+     * @param merge contains the ids.
+     * @return sorted array of ids.
+     */
+    private static int[] toRow( BitSet merge )
+    {
+        int count = merge.cardinality();
+        if ( count == 0 )
+        {
+            return NONE;
+        }
+
+        int[] row = new int[count];
+        int j = 0;
+
+        for ( int i = merge.nextSetBit( 0 ); i >= 0; i = merge.nextSetBit( i + 1 ) )
+        {
+            row[j++] = i;
+        }
+
+        for ( int i : row )
+        {
+            merge.clear( i );
+        }
+        return row;
+    }
+
+
+    /**
+     * Return the graph that this index was built from.
+     *
+     * @return handle to simple digraph.
+     */
+    SimpleDirectedGraph<String, Relationship> getGraph()
+    {
+        return graph;
+    }
+
+
+    /**
+     * Return all of the ascendants of a given vertex.  The set is case insensitive and may not be modified by caller.
+     *
+     * @param name of the vertex.
+     * @return Set of names that are ascendants of given vertex, empty if none were found.
+     */
+    Set<String> getAscendants( String name )
+    {
+        return getNames( name, ascendants, ascendantSets );
+    }
+
+
+    /**
+     * Return all of the descendants of a given vertex.  The set is case insensitive and may not be modified by caller.
+     *
+     * @param name of the vertex.
+     * @return Set of names that are descendants of given vertex, empty if none were found.
+     */
+    Set<String> getDescendants( String name )
+    {
+        return getNames( name, descendants, descendantSets );
+    }
+
+
+    /**
+     * Determine if a given vertex is an ascendant of another.
+     *
+     * @param child  name of the descendant vertex.
+     * @param parent name of the ascendant vertex.
+     * @return boolean value.  true indicates child inherits from parent.
+     */
+    boolean isAscendant( String child, String parent )
+    {
+        Integer childId = getId( child );
+        Integer parentId = getId( parent );
+        return childId != null && parentId != null && Arrays.binarySearch( ascendants[childId], parentId ) >= 0;
+    }
+
+
+    /**
+     * Return the calling thread's scratch row, cleared, to be used with {@link #addAscendants(String, java.util.BitSet)},
+     * {@link #addDescendants(String, java.util.BitSet)} and {@link #addNames(java.util.BitSet, java.util.Set)}.  The row is shared by
+     * every index so it must not be held past the call to addNames.
+     *
+     * @return empty row owned by the calling thread.
+     */
+    BitSet getRow()
+    {
+        BitSet row = SCRATCH.get();
+        row.clear();
+        return row;
+    }
+
+
+    /**
+     * Merge the ascendants of a given vertex into the row.
+     *
+     * @param name of the vertex.
+     * @param row  contains the result of the merge.
+     */
+    void addAscendants( String name, BitSet row )
+    {
+        Integer id = getId( name );
+        if ( id != null )
+        {
+            setAll( ascendants[id], row );
+        }
+    }
+
+
+    /**
+     * Merge the descendants of a given vertex into the row.
+     *
+     * @param name of the vertex.
+     * @param row  contains the result of the merge.
+     */
+    void addDescendants( String name, BitSet row )
+    {
+        Integer id = getId( name );
+        if ( id != null )
+        {
+            setAll( descendants[id], row );
+        }
+    }
+
+
+    /**
+     * Add the names of every vertex contained within the row to the set.  The row is cleared afterwards.
+     *
+     * @param row   contains ids of vertices.
+     * @param names contains the result set of names.
+     */
+    void addNames( BitSet row, Set<String> names )
+    {
+        for ( int i = row.nextSetBit( 0 ); i >= 0; i = row.nextSetBit( i + 1 ) )
+        {
+            names.add( this.names[i] );
+        }
+        row.clear();
+    }
+
+
+    /**
+     *
+     * @param ids contains the sorted ids of a closure row.
+     * @param row contains the result of the merge.
+     */
+    private static void setAll( int[] ids, BitSet row )
+    {
+        for ( int id : ids )
+        {
+            row.set( id );
+        }
+    }
+
+
+    /**
+     *
+     * @param name of the vertex.
+     * @return id of vertex or null if it's not in the graph.
+     */
+    private Integer getId( String name )
+    {
+        if ( name == null )
+        {
+            return null;
+        }
+        return ids.get( name.toUpperCase() );
+    }
+
+
+    /**
+     *
+     * @param name  of the vertex.
+     * @param rows  contains the closure rows.
+     * @param cache contains the name sets that have been materialized.
+     * @return the set of names.
+     */
+    private Set<String> getNames( String name, int[][] rows, AtomicReferenceArray<Set<String>> cache )
+    {
+        Integer id = getId( name );
+        if ( id == null )
+        {
+            return EMPTY;
+        }
+
+        Set<String> result = cache.get( id );
+        if ( result == null )
+        {
+            // create Set with case insensitive comparator:
+            Set<String> set = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+            for ( int i : rows[id] )
+            {
+                set.add( names[i] );
+            }
+            result = Collections.unmodifiableSet( set );
+            // Concurrent callers may both build the set, they are equal so either is fine:
+            cache.compareAndSet( id, null, result );
+        }
+        return result;
+    }
+}
@@ -26,16 +26,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.directory.fortress.core.model.Graphable;
 import org.apache.directory.fortress.core.model.Hier;
 import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheLoader;
+import org.jgrapht.Graphs;
 import org.jgrapht.graph.SimpleDirectedGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.directory.fortress.core.CfgRuntimeException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.ValidationException;
@@ -60,6 +63,9 @@ import org.apache.directory.fortress.core.ValidationException;
  * </ol>
  * Static methods on this class are intended for use by other Fortress classes, and cannot be directly invoked by outside programs.
  * <p>
+ * A graph is never modified once it has been published to readers.  Updates are applied to a copy that is swapped in atomically, see
+ * {@link #updateHier(AtomicReference, Relationship, Hier.Op)}, so traversals never lock and never see a partial update.
+ * <p>
  * This class is thread safe.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
@@ -84,9 +90,6 @@ final class HierUtil
         PSO
     }
 
-    private static final Map<String, ReadWriteLock> synchMap = new HashMap<String, ReadWriteLock>();
-
-
     /**
      * Private constructor
      *
@@ -184,38 +187,32 @@ final class HierUtil
 
 
     /**
-     * This method is synchronized and adds an edge and its associated vertices to simple directed graph stored in static memory of this process.
+     * This method adds an edge and its associated vertices to simple directed graph.  It must only be called on a graph that has not
+     * yet been published to readers.
      *
-     * @param graph synchronized parameter contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
      * @param relation contains parent-child relationship targeted for addition.
-     * @return {@code org.jgrapht.graph.SimpleDirectedGraph} containing the vertices of {@code String}, and edges, as {@link Relationship}s that correspond to relational data.
      */
     private static void addEdge( SimpleDirectedGraph<String, Relationship> graph, Relationship relation )
     {
         LOG.debug( "addEdge" );
-        synchronized ( graph )
-        {
-            graph.addVertex( relation.getChild().toUpperCase() );
-            graph.addVertex( relation.getParent().toUpperCase() );
-            graph.addEdge( relation.getChild().toUpperCase(), relation.getParent().toUpperCase(), relation );
-        }
+        graph.addVertex( relation.getChild().toUpperCase() );
+        graph.addVertex( relation.getParent().toUpperCase() );
+        graph.addEdge( relation.getChild().toUpperCase(), relation.getParent().toUpperCase(), relation );
     }
 
 
     /**
-     * This method is synchronized and removes an edge from a simple directed graph stored in static memory of this process.
+     * This method removes an edge from a simple directed graph.  It must only be called on a graph that has not yet been published
+     * to readers.
      *
-     * @param graph synchronized parameter contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
      * @param relation contains parent-child relationship targeted for removal.
-     * @return {@code org.jgrapht.graph.SimpleDirectedGraph} containing the vertices of {@code String}, and edges, as {@link Relationship}s that correspond to relational data.
      */
     private static void removeEdge( SimpleDirectedGraph<String, Relationship> graph, Relationship relation )
     {
         LOG.debug( "removeEdge" );
-        synchronized ( graph )
-        {
-            graph.removeEdge( relation );
-        }
+        graph.removeEdge( relation );
     }
 
 
@@ -629,24 +626,96 @@ final class HierUtil
 
 
     /**
-     * This api allows synchronized access to allow updates to hierarchical relationships.
-     * Method will update the hierarchical data set and reload the JGraphT simple digraph with latest.
+     * Return the reference that publishes a tenant's hierarchy from the cache, loading it on a miss.  Concurrent callers that miss on
+     * the same tenant wait for a single load, whichever cache provider is in use, so {@link #updateHier(AtomicReference, Relationship, Hier.Op)}
+     * is always applied to the reference that is stored in the cache.
      *
-     * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param cache  contains the hierarchies of every tenant.
+     * @param key    of the tenant's entry.
+     * @param loader reads the hierarchy from ldap and returns a new reference to it.
+     * @return reference to the current version of the index.
+     */
+    @SuppressWarnings("unchecked")
+    static AtomicReference<HierIndex> getReference( Cache cache, String key, CacheLoader loader )
+    {
+        try
+        {
+            return ( AtomicReference<HierIndex> ) cache.get( key, loader );
+        }
+        catch ( SecurityException se )
+        {
+            // The loaders log and recover from their own read failures so this isn't expected:
+            String error = "getReference key [" + key + "] caught SecurityException=" + se.getMessage();
+            throw new CfgRuntimeException( GlobalErrIds.HIER_READ_FAILED, error, se );
+        }
+    }
+
+
+    /**
+     * Return the tenant's index if it is already in the cache.  Unlike {@link #getReference(Cache, String, CacheLoader)} this never
+     * reads the hierarchy from ldap, nor waits on another thread that is loading it.
+     *
+     * @param cache contains the hierarchies of every tenant.
+     * @param key   of the tenant's entry.
+     * @return the current version of the index or null if the tenant's hierarchy isn't cached.
+     */
+    @SuppressWarnings("unchecked")
+    static HierIndex peekIndex( Cache cache, String key )
+    {
+        AtomicReference<HierIndex> ref = ( AtomicReference<HierIndex> ) cache.peek( key );
+        return ref != null ? ref.get() : null;
+    }
+
+
+    /**
+     * This api allows updates to hierarchical relationships without blocking readers.  The published {@link HierIndex} is never
+     * modified.  Instead its graph is copied, the edge is added to or removed from the copy, a new index is built over the copy and then
+     * swapped into the reference.  If another writer swapped in a newer version first, the update is applied again to that version.
+     *
+     * @param ref contains the current version of the hierarchy for a tenant.
      * @param relationship contains parent-child relationship targeted for addition.
      * @param op   used to pass the ldap op {@link Hier.Op#ADD}, {@link Hier.Op#MOD}, {@link org.apache.directory.fortress.core.model.Hier.Op#REM}
      * @throws org.apache.directory.fortress.core.SecurityException in the event of a system error.
      */
-    static void updateHier( SimpleDirectedGraph<String, Relationship> graph, Relationship relationship, Hier.Op op )
+    static void updateHier( AtomicReference<HierIndex> ref, Relationship relationship, Hier.Op op )
         throws SecurityException
     {
+        HierIndex current;
+        HierIndex next;
+        do
+        {
+            current = ref.get();
+            next = new HierIndex( updateHier( current.getGraph(), relationship, op ) );
+        }
+        while ( !ref.compareAndSet( current, next ) );
+    }
+
+
+    /**
+     * Return a copy of the graph with the hierarchical relationship added or removed.  The graph that is passed in is not modified.
+     *
+     * @param graph contains a reference to simple digraph {@code org.jgrapht.graph.SimpleDirectedGraph}.
+     * @param relationship contains parent-child relationship targeted for addition.
+     * @param op   used to pass the ldap op {@link Hier.Op#ADD}, {@link Hier.Op#MOD}, {@link org.apache.directory.fortress.core.model.Hier.Op#REM}
+     * @return new simple digraph containing the change.
+     * @throws org.apache.directory.fortress.core.SecurityException in the event of a system error.
+     */
+    static SimpleDirectedGraph<String, Relationship> updateHier( SimpleDirectedGraph<String, Relationship> graph,
+        Relationship relationship, Hier.Op op ) throws SecurityException
+    {
+        SimpleDirectedGraph<String, Relationship> copy = new SimpleDirectedGraph<>( Relationship.class );
+        if ( graph != null )
+        {
+            Graphs.addGraph( copy, graph );
+        }
         if ( op == Hier.Op.ADD )
-            HierUtil.addEdge( graph, relationship );
+            HierUtil.addEdge( copy, relationship );
         else if ( op == Hier.Op.REM )
-            HierUtil.removeEdge( graph, relationship );
+            HierUtil.removeEdge( copy, relationship );
         else
             throw new SecurityException( GlobalErrIds.HIER_CANNOT_PERFORM, CLS_NM
                 + "updateHier Cannot perform hierarchical operation" );
+        return copy;
     }
 
 
@@ -46,8 +46,10 @@ import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.RemoveException;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.UpdateException;
 import org.apache.directory.fortress.core.ldap.LdapDataProvider;
+import org.apache.directory.fortress.core.ldap.PagedSearchCursor;
 import org.apache.directory.fortress.core.model.Graphable;
 import org.apache.directory.fortress.core.model.ObjectFactory;
 import org.apache.directory.fortress.core.model.OrgUnit;
@@ -420,9 +422,7 @@ final class OrgUnitDAO extends LdapDataProvider
 
         try
         {
-            String searchVal = encodeSafeText( orgUnit.getName(), GlobalIds.ROLE_LEN );
-            String filter = GlobalIds.FILTER_PREFIX + ORGUNIT_OBJECT_CLASS_NM + ")("
-                + SchemaConstants.OU_AT + "=" + searchVal + "*))";
+            String filter = getOrgFilter( orgUnit );
             ld = getAdminConnection();
             SearchCursor searchResults = search( ld, orgUnitRoot,
                 SearchScope.ONELEVEL, filter, ORGUNIT_ATRS, false, GlobalIds.BATCH_SIZE );
@@ -477,6 +477,81 @@ final class OrgUnitDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Open a cursor over the org units that match the search criteria.  The entries are read a page at a time, see
+     * {@link PagedSearchCursor}, and the connection is held by the cursor until it is closed.
+     *
+     * @param orgUnit contains all or partial org unit name and its type.
+     * @return cursor over the matching org units.
+     * @throws FinderException in the event of a system error.
+     */
+    ResultCursor<OrgUnit> iterateOrgs( final OrgUnit orgUnit ) throws FinderException
+    {
+        LdapConnection ld = null;
+        String orgUnitRoot = getOrgRoot( orgUnit );
+        int errCode;
+
+        if ( orgUnit.getType() == OrgUnit.Type.PERM )
+        {
+            errCode = GlobalErrIds.ORG_SEARCH_FAILED_PERM;
+        }
+        else
+        {
+            errCode = GlobalErrIds.ORG_SEARCH_FAILED_USER;
+        }
+
+        try
+        {
+            String filter = getOrgFilter( orgUnit );
+            ld = getAdminConnection();
+            ResultCursor<OrgUnit> cursor = new PagedSearchCursor<OrgUnit>( ld, orgUnitRoot, SearchScope.ONELEVEL, filter,
+                ORGUNIT_ATRS, errCode )
+            {
+                @Override
+                protected OrgUnit unload( Entry entry, long sequence ) throws LdapException
+                {
+                    return getEntityFromLdapEntry( entry, sequence, orgUnit.getContextId() );
+                }
+
+
+                @Override
+                protected void release( LdapConnection connection )
+                {
+                    closeAdminConnection( connection );
+                }
+            };
+            // the cursor owns the connection now:
+            ld = null;
+            return cursor;
+        }
+        catch ( LdapException e )
+        {
+            String error = "iterateOrgs search val [" + orgUnit.getName() + "] type [" + orgUnit.getType()
+                + "] root [" + orgUnitRoot + "] caught LdapException=" + e;
+            throw new FinderException( errCode, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * Build the search filter used by {@link #findOrgs(OrgUnit)} and {@link #iterateOrgs(OrgUnit)}.
+     *
+     * @param orgUnit contains all or partial org unit name.
+     * @return String containing the ldap filter.
+     * @throws LdapException if the search value can't be encoded.
+     */
+    private String getOrgFilter( OrgUnit orgUnit ) throws LdapException
+    {
+        String searchVal = encodeSafeText( orgUnit.getName(), GlobalIds.ROLE_LEN );
+        return GlobalIds.FILTER_PREFIX + ORGUNIT_OBJECT_CLASS_NM + ")("
+            + SchemaConstants.OU_AT + "=" + searchVal + "*))";
+    }
+
+
     /**
      *
      * @param orgUnit
@@ -582,7 +657,7 @@ final class OrgUnitDAO extends LdapDataProvider
         {
             filter = GlobalIds.FILTER_PREFIX + ORGUNIT_OBJECT_CLASS_NM + ")("
                 + GlobalIds.PARENT_NODES + "=*))";
-            ld = getAdminConnection();
+            ld = getReadConnection();
             SearchCursor searchResults = search( ld, orgUnitRoot,
                 SearchScope.ONELEVEL, filter, DESC_ATRS, false, GlobalIds.BATCH_SIZE );
             long sequence = 0;
@@ -606,7 +681,7 @@ final class OrgUnitDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            closeReadConnection( ld );
         }
 
         return descendants;
@@ -28,6 +28,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.Graphable;
 import org.apache.directory.fortress.core.model.OrgUnit;
@@ -260,6 +261,19 @@ public final class OrgUnitP
     }
 
 
+    /**
+     * Open a cursor over either the User or Perm OrgUnit data set depending on which type is passed.
+     *
+     * @param orgUnit contains full or partial OU name.
+     * @return cursor over the fully populated matching OU entities.  It must be closed by the caller.
+     * @throws SecurityException in the event of DAO search error.
+     */
+    ResultCursor<OrgUnit> iterate( OrgUnit orgUnit ) throws SecurityException
+    {
+        return oDao.iterateOrgs( orgUnit );
+    }
+
+
     /**
      * Adds a new OrgUnit to directory. The OrgUnit type enum will determine which data set insertion will
      * occur - User or Perm.  The OrgUnit entity input will be validated to ensure that:
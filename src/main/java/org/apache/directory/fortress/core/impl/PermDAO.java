@@ -22,7 +22,10 @@ package org.apache.directory.fortress.core.impl;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -30,7 +33,6 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.cursor.CursorException;
 import org.apache.directory.api.ldap.model.cursor.SearchCursor;
-import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
 import org.apache.directory.api.ldap.model.entry.DefaultEntry;
 import org.apache.directory.api.ldap.model.entry.DefaultModification;
 import org.apache.directory.api.ldap.model.entry.Entry;
@@ -47,8 +49,11 @@ import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.RemoveException;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.UpdateException;
+import org.apache.directory.fortress.core.ldap.AuthZAuditWriter;
 import org.apache.directory.fortress.core.ldap.LdapDataProvider;
+import org.apache.directory.fortress.core.ldap.PagedSearchCursor;
 import org.apache.directory.fortress.core.model.AdminRole;
 import org.apache.directory.fortress.core.model.ObjectFactory;
 import org.apache.directory.fortress.core.model.OrgUnit;
@@ -750,7 +755,7 @@ final class PermDAO extends LdapDataProvider
 
         try
         {
-            ld = getAdminConnection();
+            ld = getReadConnection();
             Entry findEntry = read( ld, dn, PERMISSION_OP_ATRS );
             if ( findEntry == null )
             {
@@ -771,7 +776,7 @@ final class PermDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            closeReadConnection( ld );
         }
         return entity;
     }
@@ -836,31 +841,42 @@ final class PermDAO extends LdapDataProvider
     {
         boolean isAuthZd = false;
         LdapConnection ld = null;
-        String dn = getOpRdn( inPerm.getOpName(), inPerm.getObjId() ) + "," + GlobalIds.POBJ_NAME + "="
-            + inPerm.getObjName() + "," + getRootDn( inPerm.isAdmin(), inPerm.getContextId() );
+        // A synchronous audit compare must go to the provider, otherwise the read may be served by a replica:
+        boolean isReplica = isReplicaRead();
+        // The dn is only built when the permission must be read or audited:
+        String dn = null;
 
         try
         {
-            ld = getAdminConnection();
-
-            // LDAP Operation #1: Read the targeted permission from ldap server
-            Entry entry = read( ld, dn, PERMISSION_OP_ATRS );
-            if ( entry == null )
+            // The permission may have already been read by a previous check:
+            Permission outPerm = PermUtil.getInstance().get( inPerm );
+            if ( outPerm == null )
             {
-                // if permission not found, cannot continue.
-                String error = "checkPermission DOES NOT EXIST : obj name [" + inPerm.getObjName() + "], obj id ["
-                    + inPerm.getObjId() + "], op name [" + inPerm.getOpName() + "], idAdmin [" + inPerm.isAdmin() + "]";
-                throw new FinderException( GlobalErrIds.PERM_NOT_EXIST, error );
-            }
+                ld = isReplica ? getReadConnection() : getAdminConnection();
+                dn = getOpDn( inPerm );
+
+                // LDAP Operation #1: Read the targeted permission from ldap server
+                Entry entry = read( ld, dn, PERMISSION_OP_ATRS );
+                if ( entry == null )
+                {
+                    // if permission not found, cannot continue.
+                    String error = "checkPermission DOES NOT EXIST : obj name [" + inPerm.getObjName() + "], obj id ["
+                        + inPerm.getObjId() + "], op name [" + inPerm.getOpName() + "], idAdmin [" + inPerm.isAdmin() + "]";
+                    throw new FinderException( GlobalErrIds.PERM_NOT_EXIST, error );
+                }
 
-            // load the permission entity with data retrieved from the permission node:
-            Permission outPerm = unloadPopLdapEntry( entry, 0, inPerm.isAdmin() );
+                // load the permission entity with data retrieved from the permission node:
+                outPerm = unloadPopLdapEntry( entry, 0, inPerm.isAdmin() );
 
-            // The admin flag will be set to 'true' if this is an administrative permission:
-            outPerm.setAdmin( inPerm.isAdmin() );
+                // The admin flag will be set to 'true' if this is an administrative permission:
+                outPerm.setAdmin( inPerm.isAdmin() );
 
-            // Pass the tenant id along:
-            outPerm.setContextId( inPerm.getContextId() );
+                // Pass the tenant id along:
+                outPerm.setContextId( inPerm.getContextId() );
+
+                // Save for next time:
+                PermUtil.getInstance().put( inPerm, outPerm );
+            }
 
             // The objective of these next steps is to evaluate the outcome of authorization attempt and trigger a write to slapd access logger containing the result.
             // The objectClass triggered by slapd access log write for upcoming ldap op is 'auditCompare'.
@@ -885,7 +901,19 @@ final class PermDAO extends LdapDataProvider
             // There is a switch in fortress config to disable audit ops like this one.
             // But if used the compare method will use OpenLDAP's Proxy Authorization Control to assert identity of end user onto connection.
             // LDAP Operation #2: Compare.
-            addAuthZAudit( ld, dn, session.getUser().getDn(), attributeValue );
+            if ( isAuthZAudit() )
+            {
+                // The asynchronous audit writer uses its own connections:
+                if ( ld == null && !AuthZAuditWriter.getInstance().isAsync() )
+                {
+                    ld = getAdminConnection();
+                }
+                if ( dn == null )
+                {
+                    dn = getOpDn( inPerm );
+                }
+                addAuthZAudit( ld, dn, session.getUser().getDn(), attributeValue );
+            }
         }
         catch ( LdapException e )
         {
@@ -900,7 +928,11 @@ final class PermDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            // A connection is not needed when the permission was found in cache and audit is disabled:
+            if ( ld != null )
+            {
+                closeConnection( ld, isReplica );
+            }
         }
 
         return isAuthZd;
@@ -908,9 +940,273 @@ final class PermDAO extends LdapDataProvider
 
 
     /**
-     * Perform LDAP compare operation here to associate audit record with user authorization event.
+     * This method performs fortress authorization for a list of permissions using data passed in (session) and stored on ldap server (permissions).
+     * The permissions that are not in the cache are read with a single search, filtered on all of their names, rather than one read per permission.
+     * The inherited roles of the session are computed once for the whole list.  The audit compare is performed for each permission as with
+     * {@link #checkPermission(Session, Permission)}.
+     *
+     * @param session contains {@link Session#getUserId()}, for impl check {@link org.apache.directory.fortress.core.model.Session#getRoles()}, for arbac check: {@link org.apache.directory.fortress.core.model.Session#getAdminRoles()}.
+     * @param inPerms each must contain required attributes {@link Permission#objName} and {@link Permission#opName}.  {@link org.apache.directory.fortress.core.model.Permission#objId} is optional.
+     * @return Map containing the result of check for every permission in the order passed in.  Permissions that do not exist are mapped to false.
+     * @throws org.apache.directory.fortress.core.FinderException
+     *          In the event system error occurs looking up data on ldap server.
+     */
+    Map<Permission, Boolean> checkPermissions( Session session, List<Permission> inPerms ) throws FinderException
+    {
+        Map<Permission, Boolean> results = new LinkedHashMap<>();
+        Map<String, Permission> outPerms = new HashMap<>();
+        List<Permission> missedPerms = new ArrayList<>();
+        Map<String, Set<String>> activatedRoles = new HashMap<>();
+        LdapConnection ld = null;
+        boolean isReplica = isReplicaRead();
+
+        // Some permissions may have already been read by a previous check:
+        for ( Permission inPerm : inPerms )
+        {
+            Permission outPerm = PermUtil.getInstance().get( inPerm );
+            if ( outPerm != null )
+            {
+                outPerms.put( PermUtil.getKey( inPerm ), outPerm );
+            }
+            else
+            {
+                missedPerms.add( inPerm );
+            }
+        }
+
+        try
+        {
+            if ( !missedPerms.isEmpty() )
+            {
+                ld = isReplica ? getReadConnection() : getAdminConnection();
+
+                // LDAP Operation #1: Read all of the missing permissions from ldap server
+                findOperations( ld, missedPerms, outPerms );
+            }
+
+            for ( Permission inPerm : inPerms )
+            {
+                boolean isAuthZd = false;
+                String attributeValue;
+                Permission outPerm = outPerms.get( PermUtil.getKey( inPerm ) );
+                if ( outPerm == null )
+                {
+                    // Permission not found, nothing to authorize.
+                    attributeValue = "AuthZ Invalid";
+                }
+                else
+                {
+                    isAuthZd = isAuthorized( session, outPerm, activatedRoles );
+                    attributeValue = isAuthZd ? outPerm.getOpName() : outPerm.getOpName()
+                        + GlobalIds.FAILED_AUTHZ_INDICATOR;
+                }
+                results.put( inPerm, isAuthZd );
+
+                // LDAP Operation #2: Compare.
+                if ( isAuthZAudit() )
+                {
+                    if ( ld == null && !AuthZAuditWriter.getInstance().isAsync() )
+                    {
+                        ld = getAdminConnection();
+                    }
+                    addAuthZAudit( ld, getOpDn( inPerm ), session.getUser().getDn(), attributeValue );
+                }
+            }
+        }
+        catch ( LdapException e )
+        {
+            String error = "checkPermissions caught LdapException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_READ_OP_FAILED, error, e );
+        }
+        catch ( CursorException e )
+        {
+            String error = "checkPermissions caught CursorException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_READ_OP_FAILED, error, e );
+        }
+        finally
+        {
+            if ( ld != null )
+            {
+                closeConnection( ld, isReplica );
+            }
+        }
+
+        return results;
+    }
+
+
+    /**
+     * @param perm contains {@link Permission#objName}, {@link Permission#opName} and optionally {@link Permission#objId}.
+     * @return the dn of the permission operation.
+     */
+    private String getOpDn( Permission perm )
+    {
+        return getOpRdn( perm.getOpName(), perm.getObjId() ) + "," + GlobalIds.POBJ_NAME + "=" + perm.getObjName() + ","
+            + getRootDn( perm.isAdmin(), perm.getContextId() );
+    }
+
+
+    /**
+     * The permission reads of checkPermission may be served by a replica unless the audit compare is written synchronously on the
+     * same connection, in which case it must go to the provider.
+     *
+     * @return true if the read connection may be used.
+     */
+    private boolean isReplicaRead()
+    {
+        return !isAuthZAudit() || AuthZAuditWriter.getInstance().isAsync();
+    }
+
+
+    /**
+     * @param ld        handle to ldap connection object.
+     * @param isReplica true if the connection was borrowed with {@link #getReadConnection()}.
+     */
+    private void closeConnection( LdapConnection ld, boolean isReplica )
+    {
+        if ( isReplica )
+        {
+            closeReadConnection( ld );
+        }
+        else
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * Leave the audit trail of a permission that has been granted by the session's {@link AuthZSnapshot}
+     * rather than by {@link #checkPermission(Session, Permission)}.  This is only done if the compare can be queued for {@link AuthZAuditWriter},
+     * so that the check stays free of ldap operations.
+     *
+     * @param session contains {@link Session#getUser()} whose dn is asserted onto the compare.
+     * @param inPerm  must contain required attributes {@link Permission#objName} and {@link Permission#opName}.  {@link org.apache.directory.fortress.core.model.Permission#objId} is optional.
+     * @return true if the audit has been taken care of, false if the caller must perform the check against the directory.
+     * @throws org.apache.directory.fortress.core.FinderException
+     *          In the event system error occurs queuing the audit record.
+     */
+    boolean auditGranted( Session session, Permission inPerm ) throws FinderException
+    {
+        if ( !isAuthZAudit() )
+        {
+            return true;
+        }
+        else if ( !AuthZAuditWriter.getInstance().isAsync() )
+        {
+            return false;
+        }
+
+        String dn = getOpRdn( inPerm.getOpName(), inPerm.getObjId() ) + "," + GlobalIds.POBJ_NAME + "="
+            + inPerm.getObjName() + "," + getRootDn( inPerm.isAdmin(), inPerm.getContextId() );
+        addAuthZAudit( null, dn, session.getUser().getDn(), inPerm.getOpName() );
+        return true;
+    }
+
+
+    /**
+     * Read the given permission operations using one search per tenant and permission type, with a filter that OR's together the names of
+     * every operation.  Every operation found is added to the permission cache and to the map of results.
+     *
+     * @param ld       contains a handle to the ldap connection.
+     * @param inPerms  contains the names of the operations to find.
+     * @param outPerms contains the operations that were found keyed by {@link PermUtil#getKey(Permission)}.
+     * @throws LdapException   in the event ldap system error occurs.
+     * @throws CursorException in the event ldap system error occurs.
+     */
+    private void findOperations( LdapConnection ld, List<Permission> inPerms, Map<String, Permission> outPerms )
+        throws LdapException, CursorException
+    {
+        // Operations are stored beneath separate trees for each tenant and for the admin perms:
+        Map<String, List<Permission>> permsByRoot = new LinkedHashMap<>();
+        for ( Permission inPerm : inPerms )
+        {
+            String permRoot = getRootDn( inPerm.isAdmin(), inPerm.getContextId() );
+            List<Permission> perms = permsByRoot.get( permRoot );
+            if ( perms == null )
+            {
+                perms = new ArrayList<>();
+                permsByRoot.put( permRoot, perms );
+            }
+            perms.add( inPerm );
+        }
+
+        for ( Map.Entry<String, List<Permission>> entry : permsByRoot.entrySet() )
+        {
+            List<Permission> perms = entry.getValue();
+            boolean isAdmin = perms.get( 0 ).isAdmin();
+            String contextId = perms.get( 0 ).getContextId();
+
+            for ( int i = 0; i < perms.size(); i += GlobalIds.BATCH_SIZE )
+            {
+                StringBuilder filterbuf = new StringBuilder();
+                filterbuf.append( GlobalIds.FILTER_PREFIX );
+                filterbuf.append( PERM_OP_OBJECT_CLASS_NAME );
+                filterbuf.append( ")(|" );
+                for ( Permission inPerm : perms.subList( i, Math.min( i + GlobalIds.BATCH_SIZE, perms.size() ) ) )
+                {
+                    filterbuf.append( "(&(" );
+                    filterbuf.append( GlobalIds.POBJ_NAME );
+                    filterbuf.append( "=" );
+                    filterbuf.append( encodeSafeText( inPerm.getObjName(), GlobalIds.PERM_LEN ) );
+                    filterbuf.append( ")(" );
+                    filterbuf.append( GlobalIds.POP_NAME );
+                    filterbuf.append( "=" );
+                    filterbuf.append( encodeSafeText( inPerm.getOpName(), GlobalIds.PERM_LEN ) );
+                    filterbuf.append( ")" );
+                    if ( StringUtils.isNotEmpty( inPerm.getObjId() ) )
+                    {
+                        filterbuf.append( "(" );
+                        filterbuf.append( GlobalIds.POBJ_ID );
+                        filterbuf.append( "=" );
+                        filterbuf.append( encodeSafeText( inPerm.getObjId(), GlobalIds.PERM_LEN ) );
+                        filterbuf.append( ")" );
+                    }
+                    else
+                    {
+                        // Only match the operation that isn't bound to an object id:
+                        filterbuf.append( "(!(" );
+                        filterbuf.append( GlobalIds.POBJ_ID );
+                        filterbuf.append( "=*))" );
+                    }
+                    filterbuf.append( ")" );
+                }
+                filterbuf.append( "))" );
+
+                SearchCursor searchResults = search( ld, entry.getKey(), SearchScope.SUBTREE, filterbuf.toString(),
+                    PERMISSION_OP_ATRS, false, GlobalIds.BATCH_SIZE );
+                long sequence = 0;
+
+                while ( searchResults.next() )
+                {
+                    Permission outPerm = unloadPopLdapEntry( searchResults.getEntry(), sequence++, isAdmin );
+                    outPerm.setContextId( contextId );
+                    // Save for next time:
+                    PermUtil.getInstance().put( outPerm, outPerm );
+                    outPerms.put( PermUtil.getKey( outPerm ), outPerm );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Return true if the authorization audit compare is to be performed.  Audit can be turned off with fortress config param: 'disable.audit=true'
+     * and is only supported on OpenLDAP.
      *
-     * @param ld this method expects the ldap connection to be good
+     * @return boolean value.
+     */
+    private boolean isAuthZAudit()
+    {
+        return Config.getInstance().isOpenldap() && ! Config.getInstance().isAuditDisabled();
+    }
+
+
+    /**
+     * Perform LDAP compare operation here to associate audit record with user authorization event.  When 'audit.authz.async=true' the
+     * compare is queued for {@link AuthZAuditWriter} and performed later on another connection.
+     *
+     * @param ld this method expects the ldap connection to be good, may be null if the audit writer is asynchronous
      * @param permDn contains distinguished name of the permission object.
      * @param userDn contains the distinguished name of the user object.
      * @param attributeValue string value will be associated with the 'audit' record stored in ldap.
@@ -920,13 +1216,13 @@ final class PermDAO extends LdapDataProvider
         throws FinderException
     {
         // Audit can be turned off here with fortress config param: 'disable.audit=true'
-        if ( Config.getInstance().isOpenldap() && ! Config.getInstance().isAuditDisabled() )
+        if ( isAuthZAudit() )
         {
             try
             {
                 // The compare method uses OpenLDAP's Proxy Authorization Control to assert identity of end user onto connection:
                 // LDAP Operation #2: Compare:
-                compareNode( ld, permDn, userDn, new DefaultAttribute( GlobalIds.POP_NAME, attributeValue ) );
+                AuthZAuditWriter.getInstance().write( ld, permDn, userDn, attributeValue );
             }
             catch ( UnsupportedEncodingException ee )
             {
@@ -955,6 +1251,21 @@ final class PermDAO extends LdapDataProvider
      * @return binary result.
      */
     private boolean isAuthorized( Session session, Permission permission )
+    {
+        return isAuthorized( session, permission, null );
+    }
+
+
+    /**
+     * Same as {@link #isAuthorized(Session, Permission)} but the inherited roles of the session are saved in the map so they're only
+     * computed once when many permissions are checked.
+     *
+     * @param session contains the {@link org.apache.directory.fortress.core.model.Session#getUserId()},{@link Session#getRoles()} or {@link org.apache.directory.fortress.core.model.Session#getAdminRoles()}.
+     * @param permission contains {@link org.apache.directory.fortress.core.model.Permission#getUsers()} and {@link Permission#getRoles()}.
+     * @param activatedRoles contains the inherited roles already computed, keyed by tenant and permission type, may be null.
+     * @return binary result.
+     */
+    private boolean isAuthorized( Session session, Permission permission, Map<String, Set<String>> activatedRoles )
     {
         boolean result = false;
         Set<String> userIds = permission.getUsers();
@@ -969,35 +1280,16 @@ final class PermDAO extends LdapDataProvider
 
         if ( CollectionUtils.isNotEmpty( roles ) )
         {
-            if ( permission.isAdmin() )
-            {
-                // ARBAC Permission check include's User's inherited admin roles:
-                Set<String> activatedRoles = AdminRoleUtil.getInheritedRoles( session.getAdminRoles(),
-                    permission.getContextId() );
+            // RBAC Permission check include's User's inherited roles, ARBAC check include's User's inherited admin roles:
+            Set<String> inheritedRoles = getInheritedRoles( session, permission, activatedRoles );
 
-                for ( String role : roles )
-                {
-                    // This is case insensitive op determines if user has matching admin role to the admin permission::
-                    if ( activatedRoles.contains( role ) )
-                    {
-                        result = true;
-                        break;
-                    }
-                }
-            }
-            else
+            for ( String role : roles )
             {
-                // RBAC Permission check include's User's inherited roles:
-                Set<String> activatedRoles = RoleUtil.getInstance().getInheritedRoles( session.getRoles(), permission.getContextId() );
-
-                for ( String role : roles )
+                // This is case insensitive op determines if user has matching role:
+                if ( inheritedRoles.contains( role ) )
                 {
-                    // This is case insensitive op determines if user has matching role:
-                    if ( activatedRoles.contains( role ) )
-                    {
-                        result = true;
-                        break;
-                    }
+                    result = true;
+                    break;
                 }
             }
         }
@@ -1006,6 +1298,37 @@ final class PermDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Return the inherited roles of the session's activated roles, or admin roles for administrative permissions.
+     *
+     * @param session contains {@link Session#getRoles()} or {@link Session#getAdminRoles()}.
+     * @param permission contains {@link Permission#isAdmin()} and {@link Permission#getContextId()}.
+     * @param activatedRoles contains the inherited roles already computed, keyed by tenant and permission type, may be null.
+     * @return Set of role names, case insensitive.
+     */
+    private Set<String> getInheritedRoles( Session session, Permission permission, Map<String, Set<String>> activatedRoles )
+    {
+        String key = permission.isAdmin() + ":" + permission.getContextId();
+        Set<String> inheritedRoles = activatedRoles != null ? activatedRoles.get( key ) : null;
+        if ( inheritedRoles == null )
+        {
+            if ( permission.isAdmin() )
+            {
+                inheritedRoles = AdminRoleUtil.getInheritedRoles( session.getAdminRoles(), permission.getContextId() );
+            }
+            else
+            {
+                inheritedRoles = RoleUtil.getInstance().getInheritedRoles( session.getRoles(), permission.getContextId() );
+            }
+            if ( activatedRoles != null )
+            {
+                activatedRoles.put( key, inheritedRoles );
+            }
+        }
+        return inheritedRoles;
+    }
+
+
     /**
      * @param le
      * @param sequence
@@ -1077,23 +1400,10 @@ final class PermDAO extends LdapDataProvider
 
         try
         {
-            String permObjVal = encodeSafeText( permission.getObjName(), GlobalIds.PERM_LEN );
-            String permOpVal = encodeSafeText( permission.getOpName(), GlobalIds.PERM_LEN );
-            StringBuilder filterbuf = new StringBuilder();
-            filterbuf.append( GlobalIds.FILTER_PREFIX );
-            filterbuf.append( PERM_OP_OBJECT_CLASS_NAME );
-            filterbuf.append( ")(" );
-            filterbuf.append( GlobalIds.POBJ_NAME );
-            filterbuf.append( "=" );
-            filterbuf.append( permObjVal );
-            filterbuf.append( "*)(" );
-            filterbuf.append( GlobalIds.POP_NAME );
-            filterbuf.append( "=" );
-            filterbuf.append( permOpVal );
-            filterbuf.append(  "*))" );
+            String filter = getPermissionFilter( permission );
             ld = getAdminConnection();
             SearchCursor searchResults = search( ld, permRoot,
-                SearchScope.SUBTREE, filterbuf.toString(), PERMISSION_OP_ATRS, false, GlobalIds.BATCH_SIZE );
+                SearchScope.SUBTREE, filter, PERMISSION_OP_ATRS, false, GlobalIds.BATCH_SIZE );
             long sequence = 0;
 
             while ( searchResults.next() )
@@ -1118,6 +1428,83 @@ final class PermDAO extends LdapDataProvider
         return permList;
     }
 
+
+    /**
+     * Open a cursor over the permission operations that match the search criteria.  The entries are read a page at a time,
+     * see {@link PagedSearchCursor}, and the connection is held by the cursor until it is closed.
+     *
+     * @param permission contains all or partial object and operation names.
+     * @return cursor over the matching permission operations.
+     * @throws FinderException in the event of a system error.
+     */
+    ResultCursor<Permission> iteratePermissions( final Permission permission )
+        throws FinderException
+    {
+        LdapConnection ld = null;
+        String permRoot = getRootDn( permission.isAdmin(), permission.getContextId() );
+
+        try
+        {
+            String filter = getPermissionFilter( permission );
+            ld = getAdminConnection();
+            ResultCursor<Permission> cursor = new PagedSearchCursor<Permission>( ld, permRoot, SearchScope.SUBTREE, filter,
+                PERMISSION_OP_ATRS, GlobalErrIds.PERM_SEARCH_FAILED )
+            {
+                @Override
+                protected Permission unload( Entry entry, long sequence ) throws LdapException
+                {
+                    return unloadPopLdapEntry( entry, sequence, permission.isAdmin() );
+                }
+
+
+                @Override
+                protected void release( LdapConnection connection )
+                {
+                    closeAdminConnection( connection );
+                }
+            };
+            // the cursor owns the connection now:
+            ld = null;
+            return cursor;
+        }
+        catch ( LdapException e )
+        {
+            String error = "iteratePermissions caught LdapException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.PERM_SEARCH_FAILED, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * Build the search filter used by {@link #findPermissions(Permission)} and {@link #iteratePermissions(Permission)}.
+     *
+     * @param permission contains all or partial object and operation names.
+     * @return String containing the ldap filter.
+     * @throws LdapException if the search values can't be encoded.
+     */
+    private String getPermissionFilter( Permission permission ) throws LdapException
+    {
+        String permObjVal = encodeSafeText( permission.getObjName(), GlobalIds.PERM_LEN );
+        String permOpVal = encodeSafeText( permission.getOpName(), GlobalIds.PERM_LEN );
+        StringBuilder filterbuf = new StringBuilder();
+        filterbuf.append( GlobalIds.FILTER_PREFIX );
+        filterbuf.append( PERM_OP_OBJECT_CLASS_NAME );
+        filterbuf.append( ")(" );
+        filterbuf.append( GlobalIds.POBJ_NAME );
+        filterbuf.append( "=" );
+        filterbuf.append( permObjVal );
+        filterbuf.append( "*)(" );
+        filterbuf.append( GlobalIds.POP_NAME );
+        filterbuf.append( "=" );
+        filterbuf.append( permOpVal );
+        filterbuf.append(  "*))" );
+        return filterbuf.toString();
+    }
+
     List<Permission> findPermissionOperations( PermObj permObj )
             throws FinderException
         {
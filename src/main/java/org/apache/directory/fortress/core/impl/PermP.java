@@ -20,13 +20,17 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.ValidationException;
 import org.apache.directory.fortress.core.model.AdminRole;
@@ -93,10 +97,54 @@ final class PermP
      */
     boolean checkPermission( Session session, Permission permission ) throws SecurityException
     {
+        // Only grants are decided by the session's snapshot, a denial is always confirmed against the directory:
+        AuthZSnapshot snapshot = SnapshotUtil.get( session, permission, this );
+        if ( snapshot != null && snapshot.isGranted( permission ) && pDao.auditGranted( session, permission ) )
+        {
+            return true;
+        }
+
         return pDao.checkPermission( session, permission );
     }
 
 
+    /**
+     * This function returns the result of {@link #checkPermission(Session, Permission)} for each permission in the list.  The
+     * permissions not found in cache are read from the directory with a single search.
+     *
+     * @param session     This object must be instantiated by calling {@link AccessMgrImpl#createSession} method before passing into the method.  No variables need to be set by client after returned from createSession.
+     * @param permissions each contains the object and operation names of a permission the user is trying to access.
+     * @return Map containing each permission mapped to true if user has access, false otherwise.
+     * @throws SecurityException in the event of data validation failure, security policy violation or DAO error.
+     */
+    Map<Permission, Boolean> checkPermissions( Session session, List<Permission> permissions ) throws SecurityException
+    {
+        Map<Permission, Boolean> results = new LinkedHashMap<>();
+        List<Permission> missedPerms = new ArrayList<>();
+        for ( Permission permission : permissions )
+        {
+            // Insert every key now to keep the order passed in:
+            results.put( permission, Boolean.FALSE );
+            AuthZSnapshot snapshot = SnapshotUtil.get( session, permission, this );
+            if ( snapshot != null && snapshot.isGranted( permission ) && pDao.auditGranted( session, permission ) )
+            {
+                results.put( permission, Boolean.TRUE );
+            }
+            else
+            {
+                missedPerms.add( permission );
+            }
+        }
+
+        if ( !missedPerms.isEmpty() )
+        {
+            results.putAll( pDao.checkPermissions( session, missedPerms ) );
+        }
+
+        return results;
+    }
+
+
     /**
      * Takes a Permission entity that contains full or partial object name and/or full or partial operation name for search.
      *
@@ -108,6 +156,19 @@ final class PermP
     {
         return pDao.findPermissions( permission );
     }
+
+
+    /**
+     * Open a cursor over the Permissions that match the full or partial object name and/or full or partial operation name.
+     *
+     * @param permission contains all or partial object name and/or all or partial operation name.
+     * @return cursor over the fully populated matching Permission entities.  It must be closed by the caller.
+     * @throws SecurityException in the event of DAO search error.
+     */
+    ResultCursor<Permission> iterate( Permission permission ) throws SecurityException
+    {
+        return pDao.iteratePermissions( permission );
+    }
     
     /**
      * Takes a permission object that contains an object name and returns permisison operations for that object
@@ -219,6 +280,8 @@ final class PermP
             list = pDao.findUserPermissions( user );
             for ( Permission perm : list )
             {
+                // The perms come back from the directory without a tenant so set it here to clear the right cache entry:
+                perm.setContextId( user.getContextId() );
                 revoke( perm, user );
             }
         }
@@ -245,6 +308,7 @@ final class PermP
             list = search( role );
             for ( Permission perm : list )
             {
+                perm.setContextId( role.getContextId() );
                 revoke( perm, role );
             }
         }
@@ -272,6 +336,7 @@ final class PermP
             for ( Permission perm : list )
             {
                 perm.setAdmin( true );
+                perm.setContextId( role.getContextId() );
                 revoke( perm, role );
             }
         }
@@ -293,6 +358,12 @@ final class PermP
      */
     List<Permission> search( Session session ) throws SecurityException
     {
+        AuthZSnapshot snapshot = SnapshotUtil.get( session, this );
+        if ( snapshot != null )
+        {
+            return new ArrayList<>( snapshot.getPermissions() );
+        }
+
         return search( session, false );
     }
 
@@ -440,7 +511,9 @@ final class PermP
         {
             validate( entity, true );
         }
-        return pDao.updateOperation( entity );
+        Permission outPerm = pDao.updateOperation( entity );
+        PermUtil.getInstance().clear( entity );
+        return outPerm;
     }
 
 
@@ -454,7 +527,15 @@ final class PermP
      */
     void delete( PermObj entity ) throws SecurityException
     {
+        // The operations of this object are removed also so find them first in order to clear them from the cache:
+        List<Permission> ops = pDao.findPermissionOperations( entity );
         pDao.deleteObj( entity );
+        for ( Permission op : ops )
+        {
+            op.setAdmin( entity.isAdmin() );
+            op.setContextId( entity.getContextId() );
+            PermUtil.getInstance().clear( op );
+        }
     }
 
 
@@ -468,6 +549,7 @@ final class PermP
     void delete( Permission entity ) throws SecurityException
     {
         pDao.deleteOperation( entity );
+        PermUtil.getInstance().clear( entity );
     }
 
 
@@ -486,6 +568,7 @@ final class PermP
     {
         // Now assign it to the perm op:
         pDao.grant( pOp, role );
+        PermUtil.getInstance().clear( pOp );
     }
 
 
@@ -503,6 +586,7 @@ final class PermP
     void revoke( Permission pOp, Role role ) throws SecurityException
     {
         pDao.revoke( pOp, role );
+        PermUtil.getInstance().clear( pOp );
     }
 
 
@@ -517,6 +601,7 @@ final class PermP
     {
         // call dao to grant userId access to the perm op:
         pDao.grant( pOp, user );
+        PermUtil.getInstance().clear( pOp );
     }
 
 
@@ -530,6 +615,7 @@ final class PermP
     void revoke( Permission pOp, User user ) throws SecurityException
     {
         pDao.revoke( pOp, user );
+        PermUtil.getInstance().clear( pOp );
     }
 
 
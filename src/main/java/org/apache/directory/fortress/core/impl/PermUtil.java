@@ -0,0 +1,193 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.Collections;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This utility maintains the cache of permission operations used by {@link PermDAO#checkPermission}.  Each element contains
+ * the {@link Permission#getRoles()} and {@link Permission#getUsers()} sets that were read off the ldap operation node and is keyed by
+ * tenant (contextId), admin flag, object name, object id and operation name.  The cache is bounded and expires its elements
+ * according to the 'fortress.perms' entry in ehcache.xml.  Entries are cleared by {@link PermP} whenever a permission is granted,
+ * revoked, updated or deleted.
+ * <p>
+ * The cached elements are shared by every thread that checks the permission so they must be treated as read-only.  Their
+ * role and user sets are wrapped as unmodifiable when they are added to the cache.
+ * <p>
+ * The cache may be switched off with fortress config param: 'disable.perm.cache=true'.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class PermUtil
+{
+    private static final String CLS_NM = PermUtil.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String FORTRESS_PERMS = "fortress.perms";
+    private static final String IS_PERM_CACHE_DISABLED_PARM = "disable.perm.cache";
+    private static final String SEP = ":";
+    private Cache permCache;
+
+    private static volatile PermUtil INSTANCE = null;
+
+    static PermUtil getInstance()
+    {
+        if ( INSTANCE == null )
+        {
+            synchronized ( PermUtil.class )
+            {
+                if ( INSTANCE == null )
+                {
+                    INSTANCE = new PermUtil();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+
+    private void init()
+    {
+        // Get a reference to the CacheManager Singleton object:
+        CacheMgr cacheMgr = CacheMgr.getInstance();
+        // This cache contains the permission operations keyed by tenant and permission name:
+        permCache = cacheMgr.getCache( FORTRESS_PERMS );
+    }
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private PermUtil()
+    {
+        init();
+    }
+
+
+    /**
+     * Return true if the permission cache is in use.
+     *
+     * @return boolean value which is false if 'disable.perm.cache' has been set.
+     */
+    boolean isEnabled()
+    {
+        return !Config.getInstance().getBoolean( IS_PERM_CACHE_DISABLED_PARM, false );
+    }
+
+
+    /**
+     * Look in cache for the permission operation that matches the given key.
+     *
+     * @param perm contains {@link Permission#getObjName()}, {@link Permission#getOpName()}, optional {@link Permission#getObjId()}, {@link Permission#isAdmin()} and {@link Permission#getContextId()}.
+     * @return Permission containing the roles and users that were cached or null if not found.  The instance is shared and must not be modified.
+     */
+    Permission get( Permission perm )
+    {
+        if ( !isEnabled() )
+        {
+            return null;
+        }
+        return ( Permission ) permCache.get( getKey( perm ) );
+    }
+
+
+    /**
+     * Add the permission operation to the cache.
+     *
+     * @param perm contains the key attributes of permission that was requested.
+     * @param entity contains the permission operation read from the directory.  Its role and user sets are made unmodifiable.
+     */
+    void put( Permission perm, Permission entity )
+    {
+        if ( isEnabled() )
+        {
+            if ( entity.getRoles() != null )
+            {
+                entity.setRoles( Collections.unmodifiableSet( entity.getRoles() ) );
+            }
+            if ( entity.getUsers() != null )
+            {
+                entity.setUsers( Collections.unmodifiableSet( entity.getUsers() ) );
+            }
+            permCache.put( getKey( perm ), entity );
+        }
+    }
+
+
+    /**
+     * Clear the cached permission operation that matches the given key.
+     *
+     * @param perm contains the key attributes of permission to be cleared.
+     */
+    void clear( Permission perm )
+    {
+        String key = getKey( perm );
+        LOG.debug( "{}.clear key [{}]", CLS_NM, key );
+        permCache.clear( key );
+        SnapshotUtil.invalidate( perm.getContextId() );
+    }
+
+
+    /**
+     * Build the cache key from tenant, admin flag, and permission name.  Names are case insensitive in the directory so are folded here.
+     *
+     * @param perm contains the key attributes.
+     * @return String containing the key.
+     */
+    static String getKey( Permission perm )
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( getContextId( perm.getContextId() ) ).append( SEP );
+        sb.append( perm.isAdmin() ).append( SEP );
+        sb.append( StringUtils.lowerCase( perm.getObjName() ) ).append( SEP );
+        sb.append( StringUtils.lowerCase( StringUtils.defaultString( perm.getObjId() ) ) ).append( SEP );
+        sb.append( StringUtils.lowerCase( perm.getOpName() ) );
+        return sb.toString();
+    }
+
+
+    /**
+     *
+     * @param contextId
+     * @return
+     */
+    private static String getContextId( String contextId )
+    {
+        String szContextId = GlobalIds.HOME;
+        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equals( GlobalIds.NULL ) )
+        {
+            szContextId = contextId;
+        }
+        return szContextId;
+    }
+}
@@ -368,6 +368,18 @@ final class PolicyP
     }
 
 
+    /**
+     * Load this tenant's policy names into the cache if they aren't already there.  This may be called during startup so that
+     * the first requests do not incur the directory reads, see {@link WarmUp}.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void load( String contextId )
+    {
+        getPolicySet( contextId );
+    }
+
+
     /**
      * Load the cache with read only list of valid openldap policy names.
      *
@@ -20,9 +20,11 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -34,6 +36,7 @@ import org.apache.directory.fortress.core.model.Hier;
 import org.apache.directory.fortress.core.model.OrgUnit;
 import org.apache.directory.fortress.core.model.Relationship;
 import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheLoader;
 import org.apache.directory.fortress.core.util.cache.CacheMgr;
 import org.jgrapht.graph.SimpleDirectedGraph;
 import org.slf4j.Logger;
@@ -107,7 +110,7 @@ final class PsoUtil
      */
     Set<String> getDescendants( String name, String contextId )
     {
-        return HierUtil.getDescendants( name, getGraph( contextId ) );
+        return getIndex( contextId ).getDescendants( name );
     }
 
 
@@ -120,7 +123,7 @@ final class PsoUtil
      */
     Set<String> getAscendants( String name, String contextId )
     {
-        return HierUtil.getAscendants( name, getGraph( contextId ) );
+        return getIndex( contextId ).getAscendants( name );
     }
 
 
@@ -176,17 +179,15 @@ final class PsoUtil
         Set<String> iOUs = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
         if ( CollectionUtils.isNotEmpty( ous ) )
         {
+            HierIndex index = getIndex( contextId );
+            BitSet row = index.getRow();
             for ( OrgUnit ou : ous )
             {
                 String name = ou.getName();
                 iOUs.add( name );
-                Set<String> parents = HierUtil.getAscendants( name, getGraph( contextId ) );
-
-                if ( CollectionUtils.isNotEmpty( parents ) )
-                {
-                    iOUs.addAll( parents );
-                }
+                index.addAscendants( name, row );
             }
+            index.addNames( row, iOUs );
         }
         return iOUs;
     }
@@ -217,8 +218,8 @@ final class PsoUtil
 
 
     /**
-     * This api allows synchronized access to allow updates to hierarchical relationships.
-     * Method will update the hierarchical data set and reload the JGraphT simple digraph with latest.
+     * This api allows updates to hierarchical relationships without blocking readers.
+     * Method will apply the change to a copy of the JGraphT simple digraph and swap it in with latest.
      *
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
      * @param relationship contains parent-child relationship targeted for addition.
@@ -227,7 +228,32 @@ final class PsoUtil
      */
     void updateHier( String contextId, Relationship relationship, Hier.Op op ) throws SecurityException
     {
-        HierUtil.updateHier( getGraph( contextId ), relationship, op );
+        HierUtil.updateHier( getReference( contextId ), relationship, op );
+    }
+
+
+    /**
+     * Load this tenant's perm ou hierarchy into the cache if it isn't already there.  This may be called during startup so that
+     * the first requests do not incur the directory reads, see {@link WarmUp}.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void load( String contextId )
+    {
+        getReference( contextId );
+    }
+
+
+    /**
+     * Remove this tenant's perm ou hierarchy from the cache.  It will be reloaded from ldap on next use.  This is called by
+     * {@link ChangeListener} when another node has changed the hierarchy.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void clear( String contextId )
+    {
+        LOG.debug( "clear contextId [{}]", contextId );
+        psoCache.clear( getKey( contextId ) );
     }
 
 
@@ -236,9 +262,9 @@ final class PsoUtil
      * using 3rd party lib, <a href="http://www.jgrapht.org/">JGraphT</a>.
      *
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
-     * @return handle to simple digraph containing perm ou hierarchies.
+     * @return reference to the current version of the perm ou hierarchies.
      */
-    private synchronized SimpleDirectedGraph<String, Relationship> loadGraph( String contextId )
+    private AtomicReference<HierIndex> loadGraph( String contextId )
     {
         Hier inHier = new Hier( Hier.Type.ROLE );
         inHier.setContextId( contextId );
@@ -261,9 +287,10 @@ final class PsoUtil
         SimpleDirectedGraph<String, Relationship> graph;
 
         graph = HierUtil.buildGraph( hier );
-        psoCache.put( getKey( contextId ), graph );
+        AtomicReference<HierIndex> ref = new AtomicReference<>( new HierIndex( graph ) );
+        ChangeListener.getInstance().watch( contextId );
 
-        return graph;
+        return ref;
     }
 
 
@@ -273,20 +300,54 @@ final class PsoUtil
      */
     private SimpleDirectedGraph<String, Relationship> getGraph( String contextId )
     {
-        String key = getKey( contextId );        
-        LOG.debug("Getting graph for key " + contextId);
-         
-        SimpleDirectedGraph<String, Relationship> graph = ( SimpleDirectedGraph<String, Relationship> ) psoCache
-                 .get( key );
-             
-        if(graph == null){
-            LOG.debug("Graph was null, creating... " + contextId);
-            return loadGraph( contextId );
-        }
-        else{
-            LOG.debug("Graph found in cache, returning...");
-            return graph;
-        }
+        return getIndex( contextId ).getGraph();
+    }
+
+
+    /**
+     * Return the closure index for this tenant's hierarchy, loading it from ldap on first use.  A new index is published every time
+     * the hierarchy changes, so {@link AuthorityIndex} also uses it as the version of the hierarchy.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return handle to the index containing ascendants and descendants of every vertex.
+     */
+    HierIndex getIndex( String contextId )
+    {
+        return getReference( contextId ).get();
+    }
+
+
+    /**
+     * Return the closure index for this tenant's hierarchy if it has already been loaded.  Unlike {@link #getIndex(String)} this
+     * never reads the hierarchy from ldap.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return handle to the index or null if the tenant's hierarchy isn't cached.
+     */
+    HierIndex peekIndex( String contextId )
+    {
+        return HierUtil.peekIndex( psoCache, getKey( contextId ) );
+    }
+
+
+    /**
+     * Return the reference that publishes this tenant's hierarchy, loading it from ldap on first use.  Concurrent
+     * callers of the same tenant wait for a single load, callers of other tenants are not affected.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return reference to the current version of the index.
+     */
+    private AtomicReference<HierIndex> getReference( final String contextId )
+    {
+        return HierUtil.getReference( psoCache, getKey( contextId ), new CacheLoader()
+        {
+            @Override
+            public Object load( Object key )
+            {
+                LOG.debug( "getReference was null, creating... {}", contextId );
+                return loadGraph( contextId );
+            }
+        } );
     }
 
 
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.ReviewMgr;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.model.OrgUnit;
 import org.apache.directory.fortress.core.model.PermObj;
@@ -127,6 +128,20 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         return permP.search( permission );
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultCursor<Permission> iteratePermissions(Permission permission)
+        throws SecurityException
+    {
+        String methodName = "iteratePermissions";
+        assertContext( CLS_NM, methodName, permission, GlobalErrIds.PERM_OPERATION_NULL );
+        // authorized by the same permission as findPermissions:
+        checkAccess(CLS_NM, "findPermissions");
+        return permP.iterate( permission );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -209,6 +224,22 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         return roleP.search( role );
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultCursor<Role> iterateRoles(String searchVal)
+        throws SecurityException
+    {
+        String methodName = "iterateRoles";
+        VUtil.assertNotNull( searchVal, GlobalErrIds.ROLE_NM_NULL, CLS_NM + "." + methodName );
+        // authorized by the same permission as findRoles:
+        checkAccess( CLS_NM, "findRoles" );
+        Role role = new Role(searchVal);
+        role.setContextId( this.contextId );
+        return roleP.iterate( role );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -251,6 +282,20 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         return userP.search( user );
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultCursor<User> iterateUsers(User user)
+        throws SecurityException
+    {
+        String methodName = "iterateUsers";
+        assertContext( CLS_NM, methodName, user, GlobalErrIds.USER_NULL );
+        // authorized by the same permission as findUsers:
+        checkAccess(CLS_NM, "findUsers");
+        return userP.iterate( user );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -345,6 +390,10 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         checkAccess(CLS_NM, methodName);
         User user = new User(userId);
         user.setContextId(this.contextId);
+        if ( AssignmentIndex.isEnabled() )
+        {
+            return AssignmentIndex.getInstance().getAssignedRoles( user );
+        }
         return userP.getAssignedRoles( user );
     }
 
@@ -401,6 +450,10 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         String methodName = "rolePermissions";
         assertContext(CLS_NM, methodName, role, GlobalErrIds.ROLE_NULL);
         checkAccess(CLS_NM, methodName);
+        if ( AssignmentIndex.isEnabled() )
+        {
+            return AssignmentIndex.getInstance().getPermissions( role, noInheritance );
+        }
         return permP.search( role, noInheritance );
     }
 
@@ -429,7 +482,7 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         String methodName = "permissionRoles";
         assertContext(CLS_NM, methodName, perm, GlobalErrIds.PERM_OBJECT_NULL);
         checkAccess(CLS_NM, methodName);
-        Permission pe = permP.read(perm);
+        Permission pe = AssignmentIndex.isEnabled() ? AssignmentIndex.getInstance().readPermission( perm ) : permP.read( perm );
         List<String> retVals;
         if(pe != null && CollectionUtils.isNotEmpty( pe.getRoles() ))
         {
@@ -454,7 +507,7 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         assertContext(CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL);
         checkAccess(CLS_NM, methodName);
         // Pull the permission from ldap:
-        Permission pe = permP.read(perm);
+        Permission pe = AssignmentIndex.isEnabled() ? AssignmentIndex.getInstance().readPermission( perm ) : permP.read( perm );
 
         // Get all roles that this permission is authorized for:
         authorizedRoles = authorizeRoles(pe.getRoles());
@@ -471,7 +524,7 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         String methodName = "permissionUsers";
         assertContext(CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL);
         checkAccess(CLS_NM, methodName);
-        Permission pe = permP.read(perm);
+        Permission pe = AssignmentIndex.isEnabled() ? AssignmentIndex.getInstance().readPermission( perm ) : permP.read( perm );
         List<String> retVals;
         if(pe != null && CollectionUtils.isNotEmpty( pe.getUsers() ))
         {
@@ -496,14 +549,16 @@ public class ReviewMgrImpl extends Manageable implements ReviewMgr, Serializable
         assertContext(CLS_NM, methodName, perm, GlobalErrIds.PERM_OPERATION_NULL);
         checkAccess(CLS_NM, methodName);
         // Pull the permission from ldap:
-        Permission pe = permP.read(perm);
+        Permission pe = AssignmentIndex.isEnabled() ? AssignmentIndex.getInstance().readPermission( perm ) : permP.read( perm );
 
         // Get all roles that this permission is authorized for:
         Set<String> authorizedRoles = authorizeRoles(pe.getRoles());
         if (authorizedRoles != null)
         {
             // Pull the set of users assigned to descendant or assigned roles from ldap:
-            authorizedUsers = userP.getAssignedUsers(authorizedRoles, this.contextId);
+            authorizedUsers = AssignmentIndex.isEnabled()
+                ? AssignmentIndex.getInstance().getAssignedUsers( authorizedRoles, this.contextId )
+                : userP.getAssignedUsers( authorizedRoles, this.contextId );
         }
         // Now add any users who have been directly assigned to this permission entity:
         Set<String> assignedUsers = pe.getUsers();
@@ -0,0 +1,307 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.model.ObjectFactory;
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.LruMap;
+
+
+/**
+ * This class decodes the raw 'ftRC' and 'ftARC' attribute values, that hold the temporal and ARBAC constraints of a user's
+ * role assignments, into {@link UserRole} and {@link UserAdminRole} entities.  It reads the same format as
+ * {@link UserRole#load(String, String, org.apache.directory.fortress.core.model.ParentUtil)} and
+ * {@link UserAdminRole#load(String, String, org.apache.directory.fortress.core.model.ParentUtil)} but is intended for the
+ * user read path, where every value of every user entry is decoded:
+ * <ol>
+ * <li>Fields are located by scanning for the delimiter instead of splitting the value into a token array.</li>
+ * <li>The timeout is parsed in place and boxed through {@link Integer#valueOf(int)}.</li>
+ * <li>Role names, which repeat across the user population, are interned so decoded entities share them.</li>
+ * <li>Each constraint value, i.e. the times, dates, day mask and ARBAC ou's, is compared in place with the last one decoded for its
+ * field and that copy is reused when they match, so the common case of a value shared by most assignments costs neither a
+ * substring nor a lock.</li>
+ * <li>The parents of a role are not looked up until {@link UserRole#getParents()} is called, and then from the {@link RoleUtil}
+ * singleton rather than a new instance per value.</li>
+ * </ol>
+ * The number of interned role names is bounded by the 'role.constraint.intern.size' property, default 10000.  Once the pool
+ * is full the least recently used names are evicted.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class RoleConstraintCodec
+{
+    private static final String INTERN_SIZE = "role.constraint.intern.size";
+    private static final LruMap<String, String> INTERNED = new LruMap<>( Math.max( 1, Config.getInstance().getInt(
+        INTERN_SIZE, 10000 ) ) );
+    private static final String OS_P = "P" + GlobalIds.PROP_SEP;
+    private static final String OS_U = "U" + GlobalIds.PROP_SEP;
+    private static final String RANGE = "R" + GlobalIds.PROP_SEP;
+
+    private static final int NAME = 0;
+    private static final int TIMEOUT = 1;
+    private static final int BEGIN_TIME = 2;
+    private static final int END_TIME = 3;
+    private static final int BEGIN_DATE = 4;
+    private static final int END_DATE = 5;
+    private static final int BEGIN_LOCK_DATE = 6;
+    private static final int END_LOCK_DATE = 7;
+    private static final int DAY_MASK = 8;
+    private static final int OS_P_FIELD = 9;
+    private static final int OS_U_FIELD = 10;
+
+    // the last value decoded of each constraint field, indexed by field:
+    private static final AtomicReferenceArray<String> LAST = new AtomicReferenceArray<>( OS_U_FIELD + 1 );
+
+
+    /**
+     * Private constructor
+     */
+    private RoleConstraintCodec()
+    {
+    }
+
+
+    /**
+     * Decode a raw 'ftRC' value into a new {@link UserRole}.
+     *
+     * @param raw       contains a raw formatted String that maps to 'ftRC' attribute on 'ftUserAttrs' object class.
+     * @param delimiter separates the fields of the raw value, see {@link Config#getDelimiter()}.
+     * @param contextId contains the tenant id.
+     * @return UserRole containing the role name and its temporal constraints.
+     */
+    static UserRole decodeUserRole( String raw, String delimiter, String contextId )
+    {
+        UserRole uRole = new ObjectFactory().createUserRole();
+        decode( uRole, raw, delimiter, contextId );
+        return uRole;
+    }
+
+
+    /**
+     * Decode a raw 'ftARC' value into a new {@link UserAdminRole}.
+     *
+     * @param raw       contains a raw formatted String that maps to 'ftARC' attribute on 'ftUserAttrs' object class.
+     * @param delimiter separates the fields of the raw value, see {@link Config#getDelimiter()}.
+     * @param contextId contains the tenant id.
+     * @return UserAdminRole containing the admin role name, its temporal constraints and ARBAC ranges.
+     */
+    static UserAdminRole decodeUserAdminRole( String raw, String delimiter, String contextId )
+    {
+        UserAdminRole uAdminRole = new ObjectFactory().createUserAdminRole();
+        decode( uAdminRole, raw, delimiter, contextId );
+        return uAdminRole;
+    }
+
+
+    /**
+     * Walk the fields of the raw value and load them into the entity.  Empty fields are skipped as they are by the load methods.
+     *
+     * @param uRole     entity to load, if it is a {@link UserAdminRole} the trailing ARBAC fields are also loaded.
+     * @param raw       contains the raw formatted value.
+     * @param delimiter separates the fields of the raw value.
+     * @param contextId contains the tenant id.
+     */
+    private static void decode( UserRole uRole, String raw, String delimiter, String contextId )
+    {
+        if ( raw == null || raw.length() == 0 )
+        {
+            return;
+        }
+
+        int length = raw.length();
+        int start = 0;
+        int field = 0;
+        while ( start <= length )
+        {
+            int end = raw.indexOf( delimiter, start );
+            if ( end < 0 )
+            {
+                end = length;
+            }
+            if ( end > start )
+            {
+                load( uRole, field, raw, start, end, contextId );
+            }
+            start = end + delimiter.length();
+            field++;
+        }
+    }
+
+
+    /**
+     * Load a single field of the raw value into the entity.
+     */
+    private static void load( UserRole uRole, int field, String raw, int start, int end, String contextId )
+    {
+        switch ( field )
+        {
+            case NAME:
+                uRole.setName( intern( raw.substring( start, end ) ) );
+                uRole.setParents( RoleUtil.getInstance(), contextId );
+                break;
+
+            case TIMEOUT:
+                uRole.setTimeout( Integer.valueOf( parseInt( raw, start, end ) ) );
+                break;
+
+            case BEGIN_TIME:
+                uRole.setBeginTime( share( field, raw, start, end ) );
+                break;
+
+            case END_TIME:
+                uRole.setEndTime( share( field, raw, start, end ) );
+                break;
+
+            case BEGIN_DATE:
+                uRole.setBeginDate( share( field, raw, start, end ) );
+                break;
+
+            case END_DATE:
+                uRole.setEndDate( share( field, raw, start, end ) );
+                break;
+
+            case BEGIN_LOCK_DATE:
+                uRole.setBeginLockDate( share( field, raw, start, end ) );
+                break;
+
+            case END_LOCK_DATE:
+                uRole.setEndLockDate( share( field, raw, start, end ) );
+                break;
+
+            case DAY_MASK:
+                uRole.setDayMask( share( field, raw, start, end ) );
+                break;
+
+            default:
+                if ( uRole instanceof UserAdminRole )
+                {
+                    loadAdmin( ( UserAdminRole ) uRole, raw, start, end );
+                }
+                break;
+        }
+    }
+
+
+    /**
+     * Load one of the trailing ARBAC fields, i.e. a permission ou, user ou or role range, into the admin role.
+     */
+    private static void loadAdmin( UserAdminRole uAdminRole, String raw, int start, int end )
+    {
+        int indx = indexOf( raw, OS_P, start, end );
+        if ( indx >= 0 )
+        {
+            uAdminRole.setOsP( share( OS_P_FIELD, raw, indx + OS_P.length(), end ) );
+        }
+        indx = indexOf( raw, OS_U, start, end );
+        if ( indx >= 0 )
+        {
+            uAdminRole.setOsU( share( OS_U_FIELD, raw, indx + OS_U.length(), end ) );
+        }
+        indx = indexOf( raw, RANGE, start, end );
+        if ( indx >= 0 )
+        {
+            uAdminRole.setRoleRangeRaw( raw.substring( indx + RANGE.length(), end ) );
+        }
+    }
+
+
+    /**
+     * Return the position of the prefix within a region of the raw value, or -1 if the region doesn't contain it.
+     */
+    private static int indexOf( String raw, String prefix, int start, int end )
+    {
+        int indx = raw.indexOf( prefix, start );
+        return indx >= 0 && indx + prefix.length() <= end ? indx : -1;
+    }
+
+
+    /**
+     * Parse a decimal int from a region of the raw value without copying it.
+     *
+     * @throws NumberFormatException if the region does not contain a valid int, as {@link Integer#parseInt(String)} would.
+     */
+    private static int parseInt( String raw, int start, int end )
+    {
+        boolean negative = false;
+        int i = start;
+        char first = raw.charAt( i );
+        if ( first == '-' || first == '+' )
+        {
+            negative = first == '-';
+            i++;
+        }
+        if ( i == end || end - i > 10 )
+        {
+            return Integer.parseInt( raw.substring( start, end ) );
+        }
+        long value = 0;
+        for ( ; i < end; i++ )
+        {
+            int digit = Character.digit( raw.charAt( i ), 10 );
+            if ( digit < 0 )
+            {
+                return Integer.parseInt( raw.substring( start, end ) );
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if ( value < Integer.MIN_VALUE || value > Integer.MAX_VALUE )
+        {
+            return Integer.parseInt( raw.substring( start, end ) );
+        }
+        return ( int ) value;
+    }
+
+
+    /**
+     * Return the last value decoded for the field if it has the same text as the region of the raw value, otherwise a copy of the
+     * region, which becomes the last value of the field.  Races between threads only cost a copy.
+     */
+    private static String share( int field, String raw, int start, int end )
+    {
+        int length = end - start;
+        String last = LAST.get( field );
+        if ( last != null && last.length() == length && raw.regionMatches( start, last, 0, length ) )
+        {
+            return last;
+        }
+        String value = raw.substring( start, end );
+        LAST.lazySet( field, value );
+        return value;
+    }
+
+
+    /**
+     * Return the shared copy of the role name, adding it to the pool if it isn't there yet.
+     */
+    private static String intern( String value )
+    {
+        String shared = INTERNED.putIfAbsent( value, value );
+        return shared != null ? shared : value;
+    }
+}
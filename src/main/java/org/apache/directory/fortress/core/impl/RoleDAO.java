@@ -41,8 +41,10 @@ import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.RemoveException;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.UpdateException;
 import org.apache.directory.fortress.core.ldap.LdapDataProvider;
+import org.apache.directory.fortress.core.ldap.PagedSearchCursor;
 import org.apache.directory.fortress.core.model.ConstraintUtil;
 import org.apache.directory.fortress.core.model.Graphable;
 import org.apache.directory.fortress.core.model.ObjectFactory;
@@ -314,6 +316,43 @@ final class RoleDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Add a list of users as occupants of the role with a single modify.
+     *
+     * @param entity  contains the role name targeted.
+     * @param userDns contains the dn for each user entry that is being assigned the role.
+     * @return Role containing copy of input data.
+     * @throws org.apache.directory.fortress.core.UpdateException
+     *
+     */
+    Role assign( Role entity, List<String> userDns ) throws UpdateException
+    {
+        LdapConnection ld = null;
+        String dn = getDn( entity.getName(), entity.getContextId() );
+
+        try
+        {
+            List<Modification> mods = new ArrayList<Modification>();
+            mods.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, SchemaConstants.ROLE_OCCUPANT_AT,
+                userDns.toArray( new String[userDns.size()] ) ) );
+            ld = getAdminConnection();
+            modify( ld, dn, mods, entity );
+        }
+        catch ( LdapException e )
+        {
+            String error = "assign role name [" + entity.getName() + "] users [" + userDns.size()
+                + "] caught LdapException=" + e.getMessage();
+            throw new UpdateException( GlobalErrIds.ROLE_USER_ASSIGN_FAILED, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return entity;
+    }
+
+
     /**
      * @param entity
      * @param userDn
@@ -437,9 +476,7 @@ final class RoleDAO extends LdapDataProvider
 
         try
         {
-            String searchVal = encodeSafeText( role.getName(), GlobalIds.ROLE_LEN );
-            filter = GlobalIds.FILTER_PREFIX + GlobalIds.ROLE_OBJECT_CLASS_NM + ")("
-                + ROLE_NM + "=" + searchVal + "*))";
+            filter = getRoleFilter( role );
             ld = getAdminConnection();
             SearchCursor searchResults = search( ld, roleRoot,
                 SearchScope.ONELEVEL, filter, ROLE_ATRS, false, GlobalIds.BATCH_SIZE );
@@ -469,6 +506,72 @@ final class RoleDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Open a cursor over the roles that match the search criteria.  The entries are read a page at a time, see
+     * {@link PagedSearchCursor}, and the connection is held by the cursor until it is closed.
+     *
+     * @param role contains all or partial role name.
+     * @return cursor over the matching roles.
+     * @throws FinderException in the event of a system error.
+     */
+    ResultCursor<Role> iterateRoles( final Role role )
+        throws FinderException
+    {
+        LdapConnection ld = null;
+        String roleRoot = getRootDn( role.getContextId(), GlobalIds.ROLE_ROOT );
+        String filter = null;
+
+        try
+        {
+            filter = getRoleFilter( role );
+            ld = getAdminConnection();
+            ResultCursor<Role> cursor = new PagedSearchCursor<Role>( ld, roleRoot, SearchScope.ONELEVEL, filter,
+                ROLE_ATRS, GlobalErrIds.ROLE_SEARCH_FAILED )
+            {
+                @Override
+                protected Role unload( Entry entry, long sequence ) throws LdapException
+                {
+                    return unloadLdapEntry( entry, sequence, role.getContextId() );
+                }
+
+
+                @Override
+                protected void release( LdapConnection connection )
+                {
+                    closeAdminConnection( connection );
+                }
+            };
+            // the cursor owns the connection now:
+            ld = null;
+            return cursor;
+        }
+        catch ( LdapException e )
+        {
+            String error = "iterateRoles filter [" + filter + "] caught LdapException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.ROLE_SEARCH_FAILED, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * Build the search filter used by {@link #findRoles(Role)} and {@link #iterateRoles(Role)}.
+     *
+     * @param role contains all or partial role name.
+     * @return String containing the ldap filter.
+     * @throws LdapException if the search value can't be encoded.
+     */
+    private String getRoleFilter( Role role ) throws LdapException
+    {
+        String searchVal = encodeSafeText( role.getName(), GlobalIds.ROLE_LEN );
+        return GlobalIds.FILTER_PREFIX + GlobalIds.ROLE_OBJECT_CLASS_NM + ")("
+            + ROLE_NM + "=" + searchVal + "*))";
+    }
+
+
     /**
      * @param role
      * @param limit
@@ -584,7 +687,7 @@ final class RoleDAO extends LdapDataProvider
         {
             filter = GlobalIds.FILTER_PREFIX + GlobalIds.ROLE_OBJECT_CLASS_NM + ")("
                 + GlobalIds.PARENT_NODES + "=*))";
-            ld = getAdminConnection();
+            ld = getReadConnection();
             SearchCursor searchResults = search( ld, roleRoot,
                 SearchScope.ONELEVEL, filter, DESC_ATRS, false, GlobalIds.BATCH_SIZE );
             long sequence = 0;
@@ -606,7 +709,7 @@ final class RoleDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            closeReadConnection( ld );
         }
 
         return descendants;
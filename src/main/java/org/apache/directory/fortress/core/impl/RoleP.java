@@ -27,6 +27,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.ValidationException;
 import org.apache.directory.fortress.core.model.ConstraintValidator;
@@ -96,6 +97,19 @@ final class RoleP
     }
 
 
+    /**
+     * Open a cursor over the Roles that match the full or partial role name.
+     *
+     * @param role contains full or partial role name.
+     * @return cursor over the fully populated matching Role entities.  It must be closed by the caller.
+     * @throws SecurityException in the event of DAO search error.
+     */
+    ResultCursor<Role> iterate( Role role ) throws SecurityException
+    {
+        return rDao.iterateRoles( role );
+    }
+
+
     /**
      * Takes a search string that contains full or partial RBAC Role name in directory.
      * This search is used by RealmMgr for Websphere.
@@ -182,6 +196,20 @@ final class RoleP
     }
 
 
+    /**
+     * Method will add the "roleOccupant" attribute values for a list of users with a single update of the RBAC Role entry.
+     *
+     * @param entity  contains the role name targeted.
+     * @param userDns contains the dn for each user entry that is being assigned the RBAC Role.
+     * @return Role containing copy of input data.
+     * @throws SecurityException in the event of data validation or DAO system error.
+     */
+    Role assign( Role entity, List<String> userDns ) throws SecurityException
+    {
+        return rDao.assign( entity, userDns );
+    }
+
+
     /**
      * Method will remove the "roleOccupant" attribute on OpenLDAP entry which represents an RBAC Role assignment in Fortress.
      *
@@ -20,9 +20,11 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -36,6 +38,7 @@ import org.apache.directory.fortress.core.model.Relationship;
 import org.apache.directory.fortress.core.model.Role;
 import org.apache.directory.fortress.core.model.UserRole;
 import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheLoader;
 import org.apache.directory.fortress.core.util.cache.CacheMgr;
 import org.jgrapht.graph.SimpleDirectedGraph;
 import org.slf4j.Logger;
@@ -108,7 +111,7 @@ final class RoleUtil implements ParentUtil
 
     /**
      * Used to determine if one {@link org.apache.directory.fortress.core.model.Role} is the parent of another.  This method
-     * will call recursive routine {@link #getAscendants(String, String)} to walk the {@code org.jgrapht.graph.SimpleDirectedGraph} data structure
+     * will look up the child in the {@link HierIndex} that was built from the {@code org.jgrapht.graph.SimpleDirectedGraph} data structure
      * returning flag indicating if parent-child relationship is valid.
      *
      * @param child  maps to logical {@link org.apache.directory.fortress.core.model.Role#name} on 'ftRls' object class.
@@ -118,13 +121,7 @@ final class RoleUtil implements ParentUtil
      */
     boolean isParent( String child, String parent, String contextId )
     {
-        boolean result = false;
-        Set<String> parents = getAscendants( child, contextId );
-        if ( parents != null && parents.size() > 0 )
-        {
-            result = parents.contains( parent.toUpperCase() );
-        }
-        return result;
+        return getIndex( contextId ).isAscendant( child, parent );
     }
 
 
@@ -137,7 +134,7 @@ final class RoleUtil implements ParentUtil
      */
     Set<String> getDescendants( String roleName, String contextId )
     {
-        return HierUtil.getDescendants( roleName.toUpperCase(), getGraph( contextId ) );
+        return getIndex( contextId ).getDescendants( roleName );
     }
 
 
@@ -163,7 +160,7 @@ final class RoleUtil implements ParentUtil
      */
     Set<String> getAscendants( String roleName, String contextId )
     {
-        return HierUtil.getAscendants( roleName.toUpperCase(), getGraph( contextId ) );
+        return getIndex( contextId ).getAscendants( roleName );
     }
 
 
@@ -220,16 +217,15 @@ final class RoleUtil implements ParentUtil
         Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
         if ( CollectionUtils.isNotEmpty( uRoles ) )
         {
+            HierIndex index = getIndex( contextId );
+            BitSet row = index.getRow();
             for ( UserRole uRole : uRoles )
             {
                 String rleName = uRole.getName();
                 iRoles.add( rleName );
-                Set<String> parents = HierUtil.getAscendants( rleName, getGraph( contextId ) );
-                if ( CollectionUtils.isNotEmpty( parents ) )
-                {
-                    iRoles.addAll( parents );
-                }
+                index.addAscendants( rleName, row );
             }
+            index.addNames( row, iRoles );
         }
         return iRoles;
     }
@@ -247,15 +243,14 @@ final class RoleUtil implements ParentUtil
         Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
         if ( CollectionUtils.isNotEmpty( roles ) )
         {
+            HierIndex index = getIndex( contextId );
+            BitSet row = index.getRow();
             for ( String role : roles )
             {
                 iRoles.add( role );
-                Set<String> parents = HierUtil.getAscendants( role, getGraph( contextId ) );
-                if ( CollectionUtils.isNotEmpty( parents ) )
-                {
-                    iRoles.addAll( parents );
-                }
+                index.addAscendants( role, row );
             }
+            index.addNames( row, iRoles );
         }
         return iRoles;
     }
@@ -273,15 +268,14 @@ final class RoleUtil implements ParentUtil
         Set<String> iRoles = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
         if ( CollectionUtils.isNotEmpty( roles ) )
         {
+            HierIndex index = getIndex( contextId );
+            BitSet row = index.getRow();
             for ( String role : roles )
             {
                 iRoles.add( role );
-                Set<String> children = HierUtil.getDescendants( role, getGraph( contextId ) );
-                if ( CollectionUtils.isNotEmpty( children ) )
-                {
-                    iRoles.addAll( children );
-                }
+                index.addDescendants( role, row );
             }
+            index.addNames( row, iRoles );
         }
         return iRoles;
     }
@@ -328,8 +322,8 @@ final class RoleUtil implements ParentUtil
 
 
     /**
-     * This api allows synchronized access to allow updates to hierarchical relationships.
-     * Method will update the hierarchical data set and reload the JGraphT simple digraph with latest.
+     * This api allows updates to hierarchical relationships without blocking readers.
+     * Method will apply the change to a copy of the JGraphT simple digraph and swap it in with latest.
      *
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
      * @param relationship contains parent-child relationship targeted for addition.
@@ -338,7 +332,34 @@ final class RoleUtil implements ParentUtil
      */
     void updateHier( String contextId, Relationship relationship, Hier.Op op ) throws SecurityException
     {
-        HierUtil.updateHier( getGraph( contextId ), relationship, op );
+        HierUtil.updateHier( getReference( contextId ), relationship, op );
+        SnapshotUtil.invalidate( contextId );
+    }
+
+
+    /**
+     * Load this tenant's role hierarchy into the cache if it isn't already there.  This may be called during startup so that
+     * the first requests do not incur the directory reads, see {@link WarmUp}.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void load( String contextId )
+    {
+        getReference( contextId );
+    }
+
+
+    /**
+     * Remove this tenant's role hierarchy from the cache.  It will be reloaded from ldap on next use.  This is called by
+     * {@link ChangeListener} when another node has changed the hierarchy.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void clear( String contextId )
+    {
+        LOG.debug( "clear contextId [{}]", contextId );
+        roleCache.clear( getKey( contextId ) );
+        SnapshotUtil.invalidate( contextId );
     }
 
 
@@ -347,9 +368,9 @@ final class RoleUtil implements ParentUtil
      * using 3rd party lib, <a href="http://www.jgrapht.org/">JGraphT</a>.
      *
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
-     * @return handle to simple digraph containing role hierarchies.
+     * @return reference to the current version of the role hierarchies.
      */
-    private synchronized SimpleDirectedGraph<String, Relationship> loadGraph( String contextId )
+    private AtomicReference<HierIndex> loadGraph( String contextId )
     {
         Hier inHier = new Hier( Hier.Type.ROLE );
         inHier.setContextId( contextId );
@@ -369,9 +390,10 @@ final class RoleUtil implements ParentUtil
         SimpleDirectedGraph<String, Relationship> graph;
 
         graph = HierUtil.buildGraph( hier );
-        roleCache.put( getKey( contextId ), graph );
+        AtomicReference<HierIndex> ref = new AtomicReference<>( new HierIndex( graph ) );
+        ChangeListener.getInstance().watch( contextId );
 
-        return graph;
+        return ref;
     }
 
 
@@ -400,19 +422,53 @@ final class RoleUtil implements ParentUtil
      */
     private SimpleDirectedGraph<String, Relationship> getGraph( String contextId )
     {
-        String key = getKey( contextId );        
-        LOG.debug("Getting graph for key " + contextId);
-         
-        SimpleDirectedGraph<String, Relationship> graph = ( SimpleDirectedGraph<String, Relationship> ) roleCache
-                 .get( key );
-             
-        if(graph == null){
-            LOG.debug("Graph was null, creating... " + contextId);
-            return loadGraph( contextId );
-        }
-        else{
-            LOG.debug("Graph found in cache, returning...");
-            return graph;
-        }
+        return getIndex( contextId ).getGraph();
+    }
+
+
+    /**
+     * Return the closure index for this tenant's hierarchy, loading it from ldap on first use.  A new index is published every time
+     * the hierarchy changes, so {@link AuthorityIndex} also uses it as the version of the hierarchy.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return handle to the index containing ascendants and descendants of every vertex.
+     */
+    HierIndex getIndex( String contextId )
+    {
+        return getReference( contextId ).get();
+    }
+
+
+    /**
+     * Return the closure index for this tenant's hierarchy if it has already been loaded.  Unlike {@link #getIndex(String)} this
+     * never reads the hierarchy from ldap.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return handle to the index or null if the tenant's hierarchy isn't cached.
+     */
+    HierIndex peekIndex( String contextId )
+    {
+        return HierUtil.peekIndex( roleCache, getKey( contextId ) );
+    }
+
+
+    /**
+     * Return the reference that publishes this tenant's hierarchy, loading it from ldap on first use.  Concurrent
+     * callers of the same tenant wait for a single load, callers of other tenants are not affected.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return reference to the current version of the index.
+     */
+    private AtomicReference<HierIndex> getReference( final String contextId )
+    {
+        return HierUtil.getReference( roleCache, getKey( contextId ), new CacheLoader()
+        {
+            @Override
+            public Object load( Object key )
+            {
+                LOG.debug( "getReference was null, creating... {}", contextId );
+                return loadGraph( contextId );
+            }
+        } );
     }
 }
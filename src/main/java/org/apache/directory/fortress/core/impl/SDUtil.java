@@ -19,18 +19,20 @@
  */
 package org.apache.directory.fortress.core.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-
-import net.sf.ehcache.search.Attribute;
-import net.sf.ehcache.search.Query;
-import net.sf.ehcache.search.Result;
-import net.sf.ehcache.search.Results;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.ReviewMgr;
@@ -44,12 +46,16 @@ import org.apache.directory.fortress.core.model.User;
 import org.apache.directory.fortress.core.model.UserRole;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheLoader;
 import org.apache.directory.fortress.core.util.cache.CacheMgr;
-import org.apache.directory.fortress.core.util.cache.DsdCacheEntry;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This utilty provides functionality necessary for SSD and DSD processing and cannot be called by components outside fortress.
- * This class also contains utility functions for maintaining the SSD and DSD cache.
+ * This class also contains utility functions for maintaining the SSD and DSD cache.  The DSD cache contains, for every tenant,
+ * an index of Role name to the DSD sets that contain it and is loaded with a single search of all DSD sets.
  * <p>
  * This class is thread safe.
  *
@@ -58,15 +64,22 @@ import org.apache.directory.fortress.core.util.cache.DsdCacheEntry;
  */
 final class SDUtil
 {
+    private static final String CLS_NM = SDUtil.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
     private Cache m_dsdCache;
     private static final String FORTRESS_DSDS = "fortress.dsd";
     private Cache m_ssdCache;
     private static final String FORTRESS_SSDS = "fortress.ssd";
+    // Part of the SSD cache key, incremented to drop every SSD entry of a tenant at once:
+    private final ConcurrentMap<String, AtomicInteger> ssdVersions = new ConcurrentHashMap<>();
     private SdP sp;
-    private static final String IS_DSD_CACHE_DISABLED_PARM = "enable.dsd.cache";
-    private static final String DSD_NAME = "name";
-    private static final String EMPTY_ELEMENT = "empty";
-    private static final String CONTEXT_ID = "contextId";
+    private static final String IS_DSD_CACHE_DISABLED_PARM = "disable.dsd.cache";
+    // Earlier releases read the disable flag from this key:
+    private static final String IS_DSD_CACHE_DISABLED_LEGACY_PARM = "enable.dsd.cache";
+    // Role names are stored upper case so this key can't collide with one:
+    private static final String COMPLETE = "complete";
+    private final AtomicLong dsdHits = Metrics.getInstance().getCounter( "cache." + FORTRESS_DSDS + ".role.hit" );
+    private final AtomicLong dsdMisses = Metrics.getInstance().getCounter( "cache." + FORTRESS_DSDS + ".role.miss" );
 
     private static volatile SDUtil INSTANCE = null; 
 
@@ -87,7 +100,7 @@ final class SDUtil
     	
         // Get a reference to the CacheManager Singleton object:
         CacheMgr cacheMgr = CacheMgr.getInstance();
-        // This cache contains a wrapper entry for DSD and is searchable by both DSD and Role name:
+        // This cache contains an index of Role name to DSD's, one per tenant:
         m_dsdCache = cacheMgr.getCache(FORTRESS_DSDS);
         // This cache is not searchable and contains Lists of SSD objects by Role:
         m_ssdCache = cacheMgr.getCache(FORTRESS_SSDS);
@@ -128,10 +141,26 @@ final class SDUtil
     void validateSSD(User user, Role role)
         throws SecurityException
     {
-        int matchCount;
         // get all authorized roles for user
         ReviewMgr rMgr = ReviewMgrFactory.createInstance(user.getContextId());
         Set<String> rls = rMgr.authorizedRoles(user);
+        validateSSD(user, role, rls);
+    }
+
+    /**
+     * This method is called by AdminMgr.assignUsers, which reads the authorized roles of each user once for all of its
+     * assignments, and is used to validate Static Separation of Duty constraints when assigning a role to user.
+     *
+     * @param user
+     * @param role
+     * @param rls contains the authorized roles of the user, may be null if the user has none.
+     * @throws org.apache.directory.fortress.core.SecurityException
+     *
+     */
+    void validateSSD(User user, Role role, Set<String> rls)
+        throws SecurityException
+    {
+        int matchCount;
         // Need to proceed?
         if (!CollectionUtils.isNotEmpty( rls ))
         {
@@ -238,27 +267,118 @@ final class SDUtil
     }
 
     /**
-     * Given DSD entry name, clear its corresponding object values from the cache.
+     * Clear the DSD index for a tenant.  This is called whenever a DSD set or its membership has changed.  The index will be
+     * reloaded from the directory on next use.
      *
-     * @param name contains the name of object to be cleared.
-     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void clearDsdCache( String contextId )
+    {
+        contextId = getContextId( contextId );
+        LOG.debug( "clearDsdCache contextId [{}]", contextId );
+        m_dsdCache.clear( getKey( FORTRESS_DSDS, contextId ) );
+    }
+
+
+    /**
+     * Load every DSD set for a tenant into the cache.  This may be called during startup so that the first sessions do not
+     * incur the directory reads.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
      * @throws SecurityException in the event of system or rule violation.
      */
-    void clearDsdCacheEntry(String name, String contextId)
+    void loadDsdCache( String contextId )
+        throws SecurityException
     {
-        Attribute<String> context = m_dsdCache.getSearchAttribute(CONTEXT_ID);
-        Attribute<String> dsdName = m_dsdCache.getSearchAttribute(DSD_NAME);
-        Query query = m_dsdCache.createQuery();
-        query.includeKeys();
-        query.includeValues();
-        query.addCriteria(dsdName.eq(name).and(context.eq(contextId)));
-        Results results = query.execute();
-        for (Result result : results.all())
+        getDsdIndex( getContextId( contextId ) );
+    }
+
+
+    /**
+     * Load every SSD set for a tenant into the cache, under each of its member roles.  This may be called during startup so
+     * that the first role assignments do not incur the directory reads.  Roles that aren't a member of any set are still
+     * searched for on first use.  Nothing is loaded if the number of SSD's reaches the search size limit.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @throws SecurityException in the event of system or rule violation.
+     */
+    void loadSsdCache( String contextId )
+        throws SecurityException
+    {
+        contextId = getContextId( contextId );
+        SDSet sdSet = new SDSet();
+        sdSet.setType( SDSet.SDType.STATIC );
+        sdSet.setName( "" );
+        sdSet.setContextId( contextId );
+        List<SDSet> ssdList = sp.search( sdSet );
+        if ( ssdList.size() >= GlobalIds.BATCH_SIZE )
         {
-            m_dsdCache.clear(result.getKey());
+            LOG.warn( "loadSsdCache contextId [{}] found [{}] SSD's, cache will be loaded by role", contextId, ssdList.size() );
+            return;
         }
+        Map<String, List<SDSet>> members = new HashMap<>();
+        for ( SDSet ssd : ssdList )
+        {
+            ssd.setContextId( contextId );
+            if ( ssd.getMembers() != null )
+            {
+                for ( String member : ssd.getMembers() )
+                {
+                    List<SDSet> ssdSets = members.get( member );
+                    if ( ssdSets == null )
+                    {
+                        ssdSets = new ArrayList<>();
+                        members.put( member, ssdSets );
+                    }
+                    ssdSets.add( ssd );
+                }
+            }
+        }
+        for ( Map.Entry<String, List<SDSet>> entry : members.entrySet() )
+        {
+            m_ssdCache.put( getSsdKey( entry.getKey(), contextId ), entry.getValue() );
+        }
+        LOG.info( "loadSsdCache contextId [{}] loaded [{}] SSD's for [{}] roles", contextId, ssdList.size(), members.size() );
     }
 
+
+    /**
+     * Return true if the DSD cache has been switched off with 'disable.dsd.cache=true'.  The 'enable.dsd.cache' key that earlier
+     * releases read is still honoured, a value of 'true' there switches the cache off too.
+     *
+     * @return boolean value.
+     */
+    private static boolean isDsdCacheDisabled()
+    {
+        return Config.getInstance().getBoolean( IS_DSD_CACHE_DISABLED_PARM, false )
+            || Config.getInstance().getBoolean( IS_DSD_CACHE_DISABLED_LEGACY_PARM, false );
+    }
+
+
+    /**
+     * Return the number of role lookups that were satisfied by the DSD cache.  They are also published by {@link Metrics} as
+     * 'cache.fortress.dsd.role.hit'.
+     *
+     * @return long containing hits.
+     */
+    long getDsdCacheHits()
+    {
+        return dsdHits.get();
+    }
+
+
+    /**
+     * Return the number of role lookups that required a directory search.  They are also published by {@link Metrics} as
+     * 'cache.fortress.dsd.role.miss'.
+     *
+     * @return long containing misses.
+     */
+    long getDsdCacheMisses()
+    {
+        return dsdMisses.get();
+    }
+
+
     /**
      * Given a role name, return the set of DSD's that have a matching member.
      *
@@ -267,41 +387,26 @@ final class SDUtil
      * @return un-ordered set of matching DSD's.
      * @throws SecurityException in the event of system or rule violation.
      */
-    private Set<SDSet> getDsdCache(String name, String contextId)
+    private Set<SDSet> getDsdCache( String name, String contextId )
         throws SecurityException
     {
-        contextId = getContextId(contextId);
+        contextId = getContextId( contextId );
         Set<SDSet> finalSet = new HashSet<>();
-        Attribute<String> context = m_dsdCache.getSearchAttribute(CONTEXT_ID);
-        Attribute<String> member = m_dsdCache.getSearchAttribute(SchemaConstants.MEMBER_AT);
-        Query query = m_dsdCache.createQuery();
-        query.includeKeys();
-        query.includeValues();
-        query.addCriteria(member.eq(name).and(context.eq(contextId)));
-        Results results = query.execute();
-        boolean empty = false;
-        for (Result result : results.all())
+        // Was the DSD Cache switched off?
+        if ( isDsdCacheDisabled() )
         {
-            DsdCacheEntry entry = (DsdCacheEntry) result.getValue();
-            if (!entry.isEmpty())
-            {
-                finalSet.add(entry.getSdSet());
-                finalSet = putDsdCache(name, contextId);
-            }
-            else
-            {
-                empty = true;
-            }
-            finalSet.add(entry.getSdSet());
+            Role role = new Role( name );
+            role.setContextId( contextId );
+            finalSet.addAll( sp.search( role, SDSet.SDType.DYNAMIC ) );
         }
-        // If nothing was found in the cache, determine if it needs to be seeded:
-        if (finalSet.size() == 0 && !empty)
+        else
         {
-            finalSet = putDsdCache(name, contextId);
+            finalSet.addAll( getDsdSets( getDsdIndex( contextId ), name, contextId ) );
         }
         return finalSet;
     }
 
+
     /**
      * Given a Set of authorized Roles, return the set of DSD's that have matching members.
      *
@@ -310,170 +415,160 @@ final class SDUtil
      * @return un-ordered set of matching DSD's.
      * @throws SecurityException in the event of system or rule violation.
      */
-    Set<SDSet> getDsdCache(Set<String> authorizedRoleSet, String contextId)
+    Set<SDSet> getDsdCache( Set<String> authorizedRoleSet, String contextId )
         throws SecurityException
     {
-        contextId = getContextId(contextId);
+        contextId = getContextId( contextId );
         Set<SDSet> dsdRetSets = new HashSet<>();
         // Need to proceed?
-        if (!CollectionUtils.isNotEmpty( authorizedRoleSet ))
+        if ( !CollectionUtils.isNotEmpty( authorizedRoleSet ) )
         {
             return dsdRetSets;
         }
         // Was the DSD Cache switched off?
-        boolean isCacheDisabled = Config.getInstance().getBoolean(IS_DSD_CACHE_DISABLED_PARM, false);
+        boolean isCacheDisabled = isDsdCacheDisabled();
         // If so, get DSD's from LDAP:
-        if (isCacheDisabled)
+        if ( isCacheDisabled )
         {
             SDSet sdSet = new SDSet();
-            sdSet.setType(SDSet.SDType.DYNAMIC);
-            sdSet.setContextId(contextId);
-            dsdRetSets = sp.search(authorizedRoleSet, sdSet);
+            sdSet.setType( SDSet.SDType.DYNAMIC );
+            sdSet.setContextId( contextId );
+            dsdRetSets = sp.search( authorizedRoleSet, sdSet );
         }
-        // Search the DSD cache for matching Role members:
+        // Look up each authorized Role in the tenant's DSD index:
         else
         {
-            // Search on roleName attribute which maps to 'member' attr on the cache record:
-            Attribute<String> member = m_dsdCache.getSearchAttribute(SchemaConstants.MEMBER_AT);
-            Attribute<String> context = m_dsdCache.getSearchAttribute(CONTEXT_ID);
-            Query query = m_dsdCache.createQuery();
-            query.includeKeys();
-            query.includeValues();
-            // Add the passed in authorized Role names to this cache query:
-            Set<String> roles = new HashSet<>(authorizedRoleSet);
-            query.addCriteria(member.in(roles).and(context.eq(contextId)));
-            // Return all DSD cache entries that match roleName to the 'member' attribute in cache entry:
-            Results results = query.execute();
-            for (Result result : results.all())
-            {
-                DsdCacheEntry entry = (DsdCacheEntry) result.getValue();
-                // Do not add dummy DSD sets to the final list:
-                if (!entry.isEmpty())
-                {
-                    dsdRetSets.add(entry.getSdSet());
-                }
-                // Remove role member from authorizedRoleSet to preclude from upcoming DSD search:
-                //authorizedRoleSet.remove(entry.getMember());
-            }
-            // Authorized roles remaining in this set correspond to missed cache hits from above:
-            if (authorizedRoleSet.size() > 0)
+            Map<String, Set<SDSet>> index = getDsdIndex( contextId );
+            for ( String roleName : authorizedRoleSet )
             {
-                dsdRetSets = putDsdCache(authorizedRoleSet, contextId);
+                dsdRetSets.addAll( getDsdSets( index, roleName, contextId ) );
             }
         }
         return dsdRetSets;
     }
 
+
     /**
-     * Get the matching DSD's from directory and add to the cache (if found).  If matching DSD not found,
-     * add dummy entry to cache to prevent repeated searches.
+     * Return the DSD's that contain a given role.  If the index for this tenant was only partially loaded and the role isn't
+     * found, the directory will be searched and the result, empty or not, added to the index to prevent repeated searches.
      *
-     * @param authorizedRoleSet contains set of Roles used to search directory for matching DSD's.
+     * @param index contains the role to DSD mappings for the tenant.
+     * @param roleName contains the name of role.
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
-     * @return List of DSD's who have matching Role members.
+     * @return Set of DSD's who have matching Role member.
      * @throws SecurityException in the event of system or rule violation.
      */
-    private Set<SDSet> putDsdCache(Set<String> authorizedRoleSet, String contextId)
+    private Set<SDSet> getDsdSets( Map<String, Set<SDSet>> index, String roleName, String contextId )
         throws SecurityException
     {
-        contextId = getContextId(contextId);
-        Set<SDSet> dsdSets = new HashSet<>();
-        // Search the DSD's iteratively to seed the DSD cache by Role name:
-        for (String roleName : authorizedRoleSet)
+        String key = roleName.toUpperCase();
+        Set<SDSet> dsdSets = index.get( key );
+        if ( dsdSets != null )
         {
-            Role role = new Role(roleName);
-            role.setContextId(contextId);
-            List<SDSet> dsdList = sp.search(role, SDSet.SDType.DYNAMIC);
-            if (CollectionUtils.isNotEmpty( dsdList ))
-            {
-                for (SDSet dsd : dsdList)
-                {
-                    dsd.setContextId(contextId);
-                    Set<String> members = dsd.getMembers();
-                    if (members != null)
-                    {
-                        // Seed the cache with DSD objects mapped to role name:
-                        for (String member : members)
-                        {
-                            String key = buildKey(dsd.getName(), member);
-                            DsdCacheEntry entry = new DsdCacheEntry(member, dsd, false);
-                            entry.setName(dsd.getName());
-                            m_dsdCache.put(getKey(key, contextId), entry);
-                        }
-                    }
-                }
-                // Maintain the set of DSD's to be returned to the caller:
-                dsdSets.addAll(dsdList);
-            }
-            else
+            dsdHits.incrementAndGet();
+        }
+        else if ( index.containsKey( COMPLETE ) )
+        {
+            // Every DSD for the tenant was loaded so this role doesn't have any:
+            dsdHits.incrementAndGet();
+            dsdSets = Collections.emptySet();
+        }
+        else
+        {
+            dsdMisses.incrementAndGet();
+            Role role = new Role( roleName );
+            role.setContextId( contextId );
+            List<SDSet> dsdList = sp.search( role, SDSet.SDType.DYNAMIC );
+            for ( SDSet dsd : dsdList )
             {
-                // Seed the cache with dummy entry for a Role that is not referenced by DSD:
-                String key = buildKey(EMPTY_ELEMENT, roleName);
-                SDSet sdSet = new SDSet();
-                sdSet.setType(SDSet.SDType.DYNAMIC);
-                sdSet.setName(key);
-                sdSet.setMember(roleName);
-                sdSet.setContextId(contextId);
-                DsdCacheEntry entry = new DsdCacheEntry(roleName, sdSet, true);
-                entry.setName(key);
-                m_dsdCache.put(getKey(sdSet.getName(), contextId), entry);
+                dsd.setContextId( contextId );
             }
+            // An empty set is stored for a role that is not referenced by any DSD:
+            dsdSets = Collections.unmodifiableSet( new HashSet<>( dsdList ) );
+            index.put( key, dsdSets );
         }
+        LOG.debug( "getDsdSets role [{}] hits [{}] misses [{}]", roleName, dsdHits, dsdMisses );
         return dsdSets;
     }
 
+
     /**
-     * Get the matching DSD's from directory and add to the cache (if found).  If matching DSD not found,
-     * add dummy entry to cache to prevent repeated searches.
+     * Get the DSD index for a tenant from the cache, loading it from the directory if not there.
      *
-     * @param roleName of Role is used to search directory for matching DSD's.
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
-     * @return Set of DSD's who have matching Role member.
+     * @return Map of upper case role names to the DSD's that contain them.
      * @throws SecurityException in the event of system or rule violation.
      */
-    private Set<SDSet> putDsdCache(String roleName, String contextId)
+    private Map<String, Set<SDSet>> getDsdIndex( final String contextId )
         throws SecurityException
     {
-        contextId = getContextId(contextId);
-        Role role = new Role(roleName);
-        role.setContextId(contextId);
-        List<SDSet> dsdList = sp.search(role, SDSet.SDType.DYNAMIC);
-        Set<SDSet> finalSet = new HashSet<>(dsdList);
-        if ( CollectionUtils.isNotEmpty( dsdList ))
+        // Concurrent misses for a tenant wait on a single load:
+        return ( Map<String, Set<SDSet>> ) m_dsdCache.get( getKey( FORTRESS_DSDS, contextId ), new CacheLoader()
+        {
+            @Override
+            public Object load( Object key ) throws SecurityException
+            {
+                return loadDsdIndex( contextId );
+            }
+        } );
+    }
+
+
+    /**
+     * Get all of the DSD's for a tenant from directory and build an index of role name to the DSD's that contain it, for the
+     * cache.  If the number of DSD's reaches the search size limit, the index is marked partial and roles not found within are
+     * searched for individually.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return Map of upper case role names to the DSD's that contain them.
+     * @throws SecurityException in the event of system or rule violation.
+     */
+    private Map<String, Set<SDSet>> loadDsdIndex( String contextId )
+        throws SecurityException
+    {
+        SDSet sdSet = new SDSet();
+        sdSet.setType( SDSet.SDType.DYNAMIC );
+        sdSet.setName( "" );
+        sdSet.setContextId( contextId );
+        List<SDSet> dsdList = sp.search( sdSet );
+        Map<String, Set<SDSet>> members = new HashMap<>();
+        for ( SDSet dsd : dsdList )
         {
-            for (SDSet dsd : dsdList)
+            dsd.setContextId( contextId );
+            if ( dsd.getMembers() != null )
             {
-                dsd.setContextId(contextId);
-                Set<String> members = dsd.getMembers();
-                if (members != null)
+                for ( String member : dsd.getMembers() )
                 {
-                    // Seed the cache with DSD objects mapped to role name:
-                    for (String member : members)
+                    String key = member.toUpperCase();
+                    Set<SDSet> dsdSets = members.get( key );
+                    if ( dsdSets == null )
                     {
-                        String key = buildKey(dsd.getName(), member);
-                        DsdCacheEntry entry = new DsdCacheEntry(member, dsd, false);
-                        entry.setName(dsd.getName());
-                        m_dsdCache.put(getKey(key, contextId), entry);
+                        dsdSets = new HashSet<>();
+                        members.put( key, dsdSets );
                     }
+                    dsdSets.add( dsd );
                 }
             }
         }
+        Map<String, Set<SDSet>> index = new ConcurrentHashMap<>();
+        for ( Map.Entry<String, Set<SDSet>> entry : members.entrySet() )
+        {
+            index.put( entry.getKey(), Collections.unmodifiableSet( entry.getValue() ) );
+        }
+        if ( dsdList.size() < GlobalIds.BATCH_SIZE )
+        {
+            index.put( COMPLETE, Collections.<SDSet>emptySet() );
+        }
         else
         {
-            // Seed the cache with dummy entry for Role that does not have DSD:
-            String key = buildKey(EMPTY_ELEMENT, roleName);
-            SDSet sdSet = new SDSet();
-            sdSet.setType(SDSet.SDType.DYNAMIC);
-            sdSet.setName(key);
-            sdSet.setMember(roleName);
-            sdSet.setContextId(contextId);
-            DsdCacheEntry entry = new DsdCacheEntry(roleName, sdSet, true);
-            entry.setName(key);
-            m_dsdCache.put(getKey(sdSet.getName(), contextId), entry);
+            LOG.warn( "loadDsdIndex contextId [{}] found [{}] DSD's, index will be loaded by role", contextId, dsdList.size() );
         }
-        return finalSet;
+        LOG.info( "loadDsdIndex contextId [{}] loaded [{}] DSD's for [{}] roles", contextId, dsdList.size(), members.size() );
+        ChangeListener.getInstance().watch( contextId );
+        return index;
     }
 
+
     /**
      * Given entry name, clear its corresponding object value from the cache.
      *
@@ -484,25 +579,47 @@ final class SDUtil
     void clearSsdCacheEntry(String name, String contextId)
     {
         contextId = getContextId(contextId);
-        m_ssdCache.clear(getKey(name, contextId));
+        m_ssdCache.clear(getSsdKey(name, contextId));
     }
 
     /**
-     * Get the matching SSD's from directory and add to the cache (if found).
+     * Remove every SSD entry of a tenant from the cache.  SSD's are cached by role so a change to any set may affect many
+     * entries.  Rather than search for them, the tenant's part of the key is changed so that they are no longer found, and
+     * they age out of the cache.  This is called by {@link ChangeListener} when another node has changed an SSD set.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void clearSsdCache( String contextId )
+    {
+        contextId = getContextId( contextId );
+        LOG.debug( "clearSsdCache contextId [{}]", contextId );
+        AtomicInteger version = ssdVersions.get( contextId );
+        if ( version == null )
+        {
+            version = new AtomicInteger();
+            AtomicInteger existing = ssdVersions.putIfAbsent( contextId, version );
+            if ( existing != null )
+            {
+                version = existing;
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Get the matching SSD's from directory for the cache.
      *
      * @param name of Role is used to search directory for matching SSD's.
      * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
      * @return List of SSD's who have matching Role member.
      * @throws SecurityException in the event of system or rule violation.
      */
-    private List<SDSet> putSsdCache(String name, String contextId)
+    private List<SDSet> loadSsdSets(String name, String contextId)
         throws SecurityException
     {
         Role role = new Role(name);
         role.setContextId(contextId);
-        List<SDSet> ssdSets = sp.search(role, SDSet.SDType.STATIC);
-        m_ssdCache.put(getKey(name, contextId), ssdSets);
-        return ssdSets;
+        return sp.search(role, SDSet.SDType.STATIC);
     }
 
     /**
@@ -513,38 +630,47 @@ final class SDUtil
      * @return List of SSD's who have matching Role member.
      * @throws SecurityException in the event of system or rule violation.
      */
-    private List<SDSet> getSsdCache(String name, String contextId)
+    private List<SDSet> getSsdCache(final String name, final String contextId)
         throws SecurityException
     {
-        List<SDSet> ssdSets = (List<SDSet>) m_ssdCache.get(getKey(name, contextId));
-        if (ssdSets == null)
+        return (List<SDSet>) m_ssdCache.get(getSsdKey(name, contextId), new CacheLoader()
         {
-            ssdSets = putSsdCache(name, contextId);
-        }
-        return ssdSets;
+            @Override
+            public Object load( Object key ) throws SecurityException
+            {
+                return loadSsdSets(name, contextId);
+            }
+        });
     }
 
     /**
      *
-     * @param parm1
-     * @param parm2
+     * @param name
+     * @param contextId
      * @return
      */
-    private static String buildKey(String parm1, String parm2)
+    private static String getKey(String name, String contextId)
     {
-        return parm1 + ":" + parm2;
+        contextId = getContextId(contextId);
+        return name += ":" + contextId;
     }
 
     /**
+     * Return the key of a role's SSD entry, which includes the number of times the tenant's SSD entries have been cleared.
      *
-     * @param name
-     * @param contextId
-     * @return
+     * @param name of Role.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return key of the entry.
      */
-    private static String getKey(String name, String contextId)
+    private String getSsdKey( String name, String contextId )
     {
-        contextId = getContextId(contextId);
-        return name += ":" + contextId;
+        String key = getKey( name, contextId );
+        AtomicInteger version = ssdVersions.get( getContextId( contextId ) );
+        if ( version != null )
+        {
+            key += ":" + version.get();
+        }
+        return key;
     }
 
     /**
@@ -482,7 +482,7 @@ final class SdDAO extends LdapDataProvider
             }
 
             filterbuf.append( ")" );
-            ld = getAdminConnection();
+            ld = getReadConnection();
             SearchCursor searchResults = search( ld, ssdRoot,
                 SearchScope.SUBTREE, filterbuf.toString(), SD_SET_ATRS, false, GlobalIds.BATCH_SIZE );
 
@@ -528,7 +528,7 @@ final class SdDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            closeReadConnection( ld );
         }
 
         return sdList;
@@ -571,7 +571,7 @@ final class SdDAO extends LdapDataProvider
                     filterbuf.append( ")" );
                 }
                 filterbuf.append( "))" );
-                ld = getAdminConnection();
+                ld = getReadConnection();
                 SearchCursor searchResults = search( ld, ssdRoot,
                     SearchScope.SUBTREE, filterbuf.toString(), SD_SET_ATRS, false, GlobalIds.BATCH_SIZE );
                 long sequence = 0;
@@ -614,7 +614,7 @@ final class SdDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            closeReadConnection( ld );
         }
 
         return sdList;
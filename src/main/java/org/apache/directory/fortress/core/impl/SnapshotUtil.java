@@ -0,0 +1,273 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.Permission;
+import org.apache.directory.fortress.core.model.Session;
+import org.apache.directory.fortress.core.util.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This utility builds the {@link AuthZSnapshot} of a {@link Session} and decides whether it may still be used.  Snapshots are
+ * only built when fortress config param: 'enable.session.snapshot' is 'true'.  They are held by this class, weakly keyed by the
+ * Session instance, so that they are neither exposed by the model nor marshaled with the Session.  The map is split into stripes,
+ * each with its own lock, so that sessions used on different threads seldom wait on each other.
+ * <p>
+ * Every snapshot is stamped with the policy version of its tenant in this process.  The version is incremented whenever a permission
+ * of the tenant is granted, revoked, updated or deleted, see {@link PermUtil}, and whenever its role hierarchy is changed, see
+ * {@link RoleUtil}.  A change to one tenant leaves the snapshots of the others current.  A snapshot whose version is stale is
+ * rebuilt on its next use.  Changes made by other processes aren't seen by these counters, so snapshots are also rebuilt once they
+ * are older than 'session.snapshot.max.age' seconds, which defaults to the time to live of the permission cache.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class SnapshotUtil
+{
+    private static final String CLS_NM = SnapshotUtil.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String IS_SNAPSHOT_ENABLED_PARM = "enable.session.snapshot";
+    private static final String MAX_AGE_PARM = "session.snapshot.max.age";
+    private static final int DEFAULT_MAX_AGE = 600;
+    private static final ConcurrentMap<String, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+    private static final SnapshotMap SNAPSHOTS = new SnapshotMap();
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private SnapshotUtil()
+    {
+    }
+
+
+    /**
+     * Return true if sessions are to carry an authorization snapshot.
+     *
+     * @return boolean value which is true if 'enable.session.snapshot' has been set.
+     */
+    static boolean isEnabled()
+    {
+        return Config.getInstance().getBoolean( IS_SNAPSHOT_ENABLED_PARM, false );
+    }
+
+
+    /**
+     * Increment the policy version of the tenant, which marks every snapshot of the tenant that has been built so far as stale.
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    static void invalidate( String contextId )
+    {
+        getVersion( contextId ).incrementAndGet();
+    }
+
+
+    /**
+     * Build the snapshot for the roles that are active in the session and attach it.  Nothing is done if snapshots are not enabled.
+     * The session must have its contextId set.
+     *
+     * @param session contains the user and its activated roles.
+     * @param permP   used to search the permissions granted to the session.
+     * @throws SecurityException in the event of DAO search error.
+     */
+    static void load( Session session, PermP permP ) throws SecurityException
+    {
+        if ( !isEnabled() )
+        {
+            return;
+        }
+
+        // Read the version first so a change made while loading leaves the snapshot stale:
+        long version = getVersion( session.getContextId() ).get();
+        Set<String> roles = RoleUtil.getInstance().getInheritedRoles( session.getRoles(), session.getContextId() );
+        List<Permission> permissions = permP.search( session, false );
+        SNAPSHOTS.put( session, new AuthZSnapshot( version, session.getContextId(), session.getRoles(), roles,
+            permissions ) );
+        LOG.debug( "load user [{}] version [{}] permissions [{}]", session.getUserId(), version, permissions.size() );
+    }
+
+
+    /**
+     * Return the session's snapshot if it is still current, rebuilding it if the policy has changed since it was built.
+     *
+     * @param session the snapshot was built for.
+     * @param permP   used to search the permissions granted to the session if the snapshot is rebuilt.
+     * @return snapshot or null if one wasn't built for the session.
+     * @throws SecurityException in the event of DAO search error.
+     */
+    static AuthZSnapshot get( Session session, PermP permP ) throws SecurityException
+    {
+        if ( !isEnabled() )
+        {
+            return null;
+        }
+
+        AuthZSnapshot snapshot = SNAPSHOTS.get( session );
+        if ( snapshot == null )
+        {
+            return null;
+        }
+
+        if ( !isCurrent( session, snapshot ) )
+        {
+            load( session, permP );
+            snapshot = SNAPSHOTS.get( session );
+        }
+
+        return snapshot;
+    }
+
+
+    /**
+     * Return the session's snapshot if it may be used to decide the permission.  Only non-administrative permissions of the
+     * session's tenant are contained by the snapshot.
+     *
+     * @param session    contains the snapshot.
+     * @param permission contains the object and operation names.
+     * @param permP      used to search the permissions granted to the session if the snapshot is rebuilt.
+     * @return snapshot or null if the directory must be used.
+     * @throws SecurityException in the event of DAO search error.
+     */
+    static AuthZSnapshot get( Session session, Permission permission, PermP permP ) throws SecurityException
+    {
+        if ( permission.isAdmin() )
+        {
+            return null;
+        }
+
+        AuthZSnapshot snapshot = get( session, permP );
+        if ( snapshot == null || !StringUtils.equals( snapshot.getContextId(), permission.getContextId() ) )
+        {
+            return null;
+        }
+
+        return snapshot;
+    }
+
+
+    /**
+     *
+     * @param session  contains the roles that are active now.
+     * @param snapshot contains the roles that were active when it was built.
+     * @return true if the snapshot may be used.
+     */
+    private static boolean isCurrent( Session session, AuthZSnapshot snapshot )
+    {
+        long maxAge = Config.getInstance().getInt( MAX_AGE_PARM, DEFAULT_MAX_AGE ) * 1000L;
+        return snapshot.getVersion() == getVersion( snapshot.getContextId() ).get()
+            && System.currentTimeMillis() - snapshot.getCreateTime() < maxAge
+            && StringUtils.equals( snapshot.getContextId(), session.getContextId() )
+            && snapshot.isActive( session.getRoles() );
+    }
+
+
+    /**
+     *
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @return the policy version of the tenant.
+     */
+    private static AtomicLong getVersion( String contextId )
+    {
+        String szContextId = GlobalIds.HOME;
+        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equals( GlobalIds.NULL ) )
+        {
+            szContextId = contextId;
+        }
+        AtomicLong version = VERSIONS.get( szContextId );
+        if ( version == null )
+        {
+            AtomicLong newVersion = new AtomicLong();
+            version = VERSIONS.putIfAbsent( szContextId, newVersion );
+            if ( version == null )
+            {
+                version = newVersion;
+            }
+        }
+        return version;
+    }
+
+
+    /**
+     * Holds the snapshots weakly keyed by Session.  Sessions are spread by identity over stripes that are each a
+     * {@link WeakHashMap} guarded by its own lock, so lookups of different sessions, and the purge of collected ones, rarely
+     * contend.
+     */
+    private static final class SnapshotMap
+    {
+        private static final int STRIPES = 64;
+        private final Map<Session, AuthZSnapshot>[] stripes;
+
+
+        @SuppressWarnings("unchecked")
+        private SnapshotMap()
+        {
+            stripes = new Map[STRIPES];
+            for ( int i = 0; i < STRIPES; i++ )
+            {
+                stripes[i] = new WeakHashMap<>();
+            }
+        }
+
+
+        private AuthZSnapshot get( Session session )
+        {
+            Map<Session, AuthZSnapshot> stripe = getStripe( session );
+            synchronized ( stripe )
+            {
+                return stripe.get( session );
+            }
+        }
+
+
+        private void put( Session session, AuthZSnapshot snapshot )
+        {
+            Map<Session, AuthZSnapshot> stripe = getStripe( session );
+            synchronized ( stripe )
+            {
+                stripe.put( session, snapshot );
+            }
+        }
+
+
+        private Map<Session, AuthZSnapshot> getStripe( Session session )
+        {
+            int h = System.identityHashCode( session );
+            h ^= h >>> 16;
+            return stripes[h & ( STRIPES - 1 )];
+        }
+    }
+}
@@ -21,8 +21,10 @@ package org.apache.directory.fortress.core.impl;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -49,15 +51,18 @@ import org.apache.directory.api.ldap.model.exception.LdapNoSuchObjectException;
 import org.apache.directory.api.ldap.model.message.BindResponse;
 import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
 import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.fortress.core.BatchException;
 import org.apache.directory.fortress.core.CreateException;
 import org.apache.directory.fortress.core.FinderException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.PasswordException;
 import org.apache.directory.fortress.core.RemoveException;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.UpdateException;
 import org.apache.directory.fortress.core.ldap.LdapDataProvider;
+import org.apache.directory.fortress.core.ldap.PagedSearchCursor;
 import org.apache.directory.fortress.core.model.Address;
 import org.apache.directory.fortress.core.model.AdminRole;
 import org.apache.directory.fortress.core.model.ConstraintUtil;
@@ -212,6 +217,8 @@ final class UserDAO extends LdapDataProvider
 
     private static final String[] USERID_ATRS =
         { SchemaConstants.UID_AT };
+    private static final String[] ROLE_ASSIGN_ATRS =
+        { SchemaConstants.UID_AT, GlobalIds.USER_ROLE_ASSIGN };
 
     // These will be loaded in static initializer that follows:
     private static String[] authnAtrs = null;
@@ -417,139 +424,204 @@ final class UserDAO extends LdapDataProvider
 
         try
         {
-            entity.setInternalId();
-
             String dn = getDn( entity.getUserId(), entity.getContextId() );
+            Entry myEntry = getEntry( entity );
+            ld = getAdminConnection();
+            add( ld, myEntry, entity );
+            entity.setDn( dn );
+        }
+        catch ( LdapException e )
+        {
+            String error = "create userId [" + entity.getUserId() + "] caught LDAPException=" + e.getMessage();
+            throw new CreateException( GlobalErrIds.USER_ADD_FAILED, error, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return entity;
+    }
 
-            Entry myEntry = new DefaultEntry( dn );
 
-            myEntry.add( SchemaConstants.OBJECT_CLASS_AT, USER_OBJ_CLASS );
-            myEntry.add( GlobalIds.FT_IID, entity.getInternalId() );
-            myEntry.add( SchemaConstants.UID_AT, entity.getUserId() );
+    /**
+     * Add a list of users to the directory over a single admin connection.  A user that fails doesn't stop the others from
+     * being added.
+     *
+     * @param entities contains the users to add.
+     * @throws BatchException once every user has been tried, containing a {@link CreateException} for each that failed.
+     */
+    void create( List<User> entities ) throws BatchException
+    {
+        Map<Integer, SecurityException> failures = new HashMap<>();
+        LdapConnection ld = null;
 
-            // CN is required on inetOrgPerson object class, if caller did not set, use the userId:
-            if ( StringUtils.isEmpty( entity.getCn() ) )
+        try
+        {
+            ld = getAdminConnection();
+            for ( int i = 0; i < entities.size(); i++ )
             {
-                entity.setCn( entity.getUserId() );
+                User entity = entities.get( i );
+                try
+                {
+                    String dn = getDn( entity.getUserId(), entity.getContextId() );
+                    add( ld, getEntry( entity ), entity );
+                    entity.setDn( dn );
+                }
+                catch ( LdapException e )
+                {
+                    String error = "create userId [" + entity.getUserId() + "] caught LDAPException=" + e.getMessage();
+                    failures.put( i, new CreateException( GlobalErrIds.USER_ADD_FAILED, error, e ) );
+                }
             }
-
-            myEntry.add( SchemaConstants.CN_AT, entity.getCn() );
-
-            // SN is required on inetOrgPerson object class, if caller did not set, use the userId:
-            if ( StringUtils.isEmpty( entity.getSn() ) )
+        }
+        catch ( LdapException e )
+        {
+            String error = "create users [" + entities.size() + "] caught LDAPException=" + e.getMessage();
+            for ( int i = 0; i < entities.size(); i++ )
             {
-                entity.setSn( entity.getUserId() );
+                failures.put( i, new CreateException( GlobalErrIds.USER_ADD_FAILED, error, e ) );
             }
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
 
-            myEntry.add( SchemaConstants.SN_AT, entity.getSn() );
+        if ( !failures.isEmpty() )
+        {
+            String error = "create users failed [" + failures.size() + "] of [" + entities.size() + "]";
+            throw new BatchException( GlobalErrIds.FT_BATCH_FAILED, error, failures );
+        }
+    }
 
-            if( ArrayUtils.isNotEmpty( entity.getPassword() ))
-            {
-                myEntry.add( SchemaConstants.USER_PASSWORD_AT, new String( entity.getPassword() ) );
-            }
-            else if( !Config.getInstance().getBoolean( GlobalIds.USER_CREATION_PASSWORD_FIELD, false ) )
-            {
-	            myEntry.add( SchemaConstants.USER_PASSWORD_AT, new String( new char[]{} ) );
-            }
-            
-            myEntry.add( SchemaConstants.DISPLAY_NAME_AT, entity.getCn() );
 
-            if ( StringUtils.isNotEmpty( entity.getTitle() ) )
-            {
-                myEntry.add( SchemaConstants.TITLE_AT, entity.getTitle() );
-            }
+    /**
+     * Build the ldap entry of a new user, loading the generated attributes, and the defaults of required ones, into the entity.
+     *
+     * @param entity contains the user to add.
+     * @return Entry containing the user's attributes.
+     * @throws LdapException in the event an attribute cannot be added to the entry.
+     */
+    private Entry getEntry( User entity ) throws LdapException
+    {
+        entity.setInternalId();
 
-            if ( StringUtils.isNotEmpty( entity.getEmployeeType() ) )
-            {
-                myEntry.add( EMPLOYEE_TYPE, entity.getEmployeeType() );
-            }
+        Entry myEntry = new DefaultEntry( getDn( entity.getUserId(), entity.getContextId() ) );
 
-            /*
-                        TODO: add RFC2307BIS
-                        if ( StringUtils.isNotEmpty( entity.getUidNumber() ) )
-                        {
-                            myEntry.add( UID_NUMBER, entity.getUidNumber() );
-                        }
+        myEntry.add( SchemaConstants.OBJECT_CLASS_AT, USER_OBJ_CLASS );
+        myEntry.add( GlobalIds.FT_IID, entity.getInternalId() );
+        myEntry.add( SchemaConstants.UID_AT, entity.getUserId() );
 
-                        if ( StringUtils.isNotEmpty( entity.getGidNumber() ) )
-                        {
-                            myEntry.add( GID_NUMBER, entity.getGidNumber() );
-                        }
+        // CN is required on inetOrgPerson object class, if caller did not set, use the userId:
+        if ( StringUtils.isEmpty( entity.getCn() ) )
+        {
+            entity.setCn( entity.getUserId() );
+        }
 
-                        if ( StringUtils.isNotEmpty( entity.getHomeDirectory() ) )
-                        {
-                            myEntry.add( HOME_DIRECTORY, entity.getHomeDirectory() );
-                        }
+        myEntry.add( SchemaConstants.CN_AT, entity.getCn() );
 
-                        if ( StringUtils.isNotEmpty( entity.getLoginShell() ) )
-                        {
-                            myEntry.add( LOGIN_SHELL, entity.getLoginShell() );
-                        }
+        // SN is required on inetOrgPerson object class, if caller did not set, use the userId:
+        if ( StringUtils.isEmpty( entity.getSn() ) )
+        {
+            entity.setSn( entity.getUserId() );
+        }
 
-                        if ( StringUtils.isNotEmpty( entity.getGecos() ) )
-                        {
-                            myEntry.add( GECOS, entity.getGecos() );
-                        }
-            */
+        myEntry.add( SchemaConstants.SN_AT, entity.getSn() );
 
-            // These are multi-valued attributes, use the util function to load.
-            // These items are optional.  The utility function will return quietly if item list is empty:
-            loadAttrs( entity.getPhones(), myEntry, SchemaConstants.TELEPHONE_NUMBER_AT );
-            loadAttrs( entity.getMobiles(), myEntry, MOBILE );
-            loadAttrs( entity.getEmails(), myEntry, SchemaConstants.MAIL_AT );
+        if( ArrayUtils.isNotEmpty( entity.getPassword() ))
+        {
+            myEntry.add( SchemaConstants.USER_PASSWORD_AT, new String( entity.getPassword() ) );
+        }
+        else if( !Config.getInstance().getBoolean( GlobalIds.USER_CREATION_PASSWORD_FIELD, false ) )
+        {
+            myEntry.add( SchemaConstants.USER_PASSWORD_AT, new String( new char[]{} ) );
+        }
+        
+        myEntry.add( SchemaConstants.DISPLAY_NAME_AT, entity.getCn() );
 
-            // The following attributes are optional:
-            if ( entity.isSystem() != null )
-            {
-                myEntry.add( SYSTEM_USER, entity.isSystem().toString().toUpperCase() );
-            }
+        if ( StringUtils.isNotEmpty( entity.getTitle() ) )
+        {
+            myEntry.add( SchemaConstants.TITLE_AT, entity.getTitle() );
+        }
 
-            if ( Config.getInstance().isOpenldap() && StringUtils.isNotEmpty( entity.getPwPolicy() ) )
-            {
-                String pwdPolicyDn = GlobalIds.POLICY_NODE_TYPE + "=" + entity.getPwPolicy() + "," + getRootDn(
-                    entity.getContextId(), GlobalIds.PPOLICY_ROOT );
-                myEntry.add( OPENLDAP_POLICY_SUBENTRY, pwdPolicyDn );
-            }
+        if ( StringUtils.isNotEmpty( entity.getEmployeeType() ) )
+        {
+            myEntry.add( EMPLOYEE_TYPE, entity.getEmployeeType() );
+        }
 
-            if ( StringUtils.isNotEmpty( entity.getOu() ) )
-            {
-                myEntry.add( SchemaConstants.OU_AT, entity.getOu() );
-            }
+        /*
+                    TODO: add RFC2307BIS
+                    if ( StringUtils.isNotEmpty( entity.getUidNumber() ) )
+                    {
+                        myEntry.add( UID_NUMBER, entity.getUidNumber() );
+                    }
 
-            if ( StringUtils.isNotEmpty( entity.getDescription() ) )
-            {
-                myEntry.add( SchemaConstants.DESCRIPTION_AT, entity.getDescription() );
-            }
+                    if ( StringUtils.isNotEmpty( entity.getGidNumber() ) )
+                    {
+                        myEntry.add( GID_NUMBER, entity.getGidNumber() );
+                    }
 
-            // props are optional as well:
-            // Add "initial" property here.
-            entity.addProperty( "init", "" );
-            loadProperties( entity.getProperties(), myEntry, GlobalIds.PROPS );
-            // map the userid to the name field in constraint:
-            entity.setName( entity.getUserId() );
-            myEntry.add( GlobalIds.CONSTRAINT, ConstraintUtil.setConstraint( entity ) );
-            loadAddress( entity.getAddress(), myEntry );
+                    if ( StringUtils.isNotEmpty( entity.getHomeDirectory() ) )
+                    {
+                        myEntry.add( HOME_DIRECTORY, entity.getHomeDirectory() );
+                    }
 
-            if ( ArrayUtils.isNotEmpty( entity.getJpegPhoto() ) )
-            {
-                myEntry.add( JPEGPHOTO, entity.getJpegPhoto() );
-            }
+                    if ( StringUtils.isNotEmpty( entity.getLoginShell() ) )
+                    {
+                        myEntry.add( LOGIN_SHELL, entity.getLoginShell() );
+                    }
 
-            ld = getAdminConnection();
-            add( ld, myEntry, entity );
-            entity.setDn( dn );
+                    if ( StringUtils.isNotEmpty( entity.getGecos() ) )
+                    {
+                        myEntry.add( GECOS, entity.getGecos() );
+                    }
+        */
+
+        // These are multi-valued attributes, use the util function to load.
+        // These items are optional.  The utility function will return quietly if item list is empty:
+        loadAttrs( entity.getPhones(), myEntry, SchemaConstants.TELEPHONE_NUMBER_AT );
+        loadAttrs( entity.getMobiles(), myEntry, MOBILE );
+        loadAttrs( entity.getEmails(), myEntry, SchemaConstants.MAIL_AT );
+
+        // The following attributes are optional:
+        if ( entity.isSystem() != null )
+        {
+            myEntry.add( SYSTEM_USER, entity.isSystem().toString().toUpperCase() );
         }
-        catch ( LdapException e )
+
+        if ( Config.getInstance().isOpenldap() && StringUtils.isNotEmpty( entity.getPwPolicy() ) )
         {
-            String error = "create userId [" + entity.getUserId() + "] caught LDAPException=" + e.getMessage();
-            throw new CreateException( GlobalErrIds.USER_ADD_FAILED, error, e );
+            String pwdPolicyDn = GlobalIds.POLICY_NODE_TYPE + "=" + entity.getPwPolicy() + "," + getRootDn(
+                entity.getContextId(), GlobalIds.PPOLICY_ROOT );
+            myEntry.add( OPENLDAP_POLICY_SUBENTRY, pwdPolicyDn );
         }
-        finally
+
+        if ( StringUtils.isNotEmpty( entity.getOu() ) )
         {
-            closeAdminConnection( ld );
+            myEntry.add( SchemaConstants.OU_AT, entity.getOu() );
         }
 
-        return entity;
+        if ( StringUtils.isNotEmpty( entity.getDescription() ) )
+        {
+            myEntry.add( SchemaConstants.DESCRIPTION_AT, entity.getDescription() );
+        }
+
+        // props are optional as well:
+        // Add "initial" property here.
+        entity.addProperty( "init", "" );
+        loadProperties( entity.getProperties(), myEntry, GlobalIds.PROPS );
+        // map the userid to the name field in constraint:
+        entity.setName( entity.getUserId() );
+        myEntry.add( GlobalIds.CONSTRAINT, ConstraintUtil.setConstraint( entity ) );
+        loadAddress( entity.getAddress(), myEntry );
+
+        if ( ArrayUtils.isNotEmpty( entity.getJpegPhoto() ) )
+        {
+            myEntry.add( JPEGPHOTO, entity.getJpegPhoto() );
+        }
+
+        return myEntry;
     }
 
 
@@ -842,7 +914,7 @@ final class UserDAO extends LdapDataProvider
 
         try
         {
-            ld = getAdminConnection();
+            ld = getReadConnection();
             findEntry = read( ld, userDn, uATTRS );
         }
         catch ( LdapNoSuchObjectException e )
@@ -857,7 +929,7 @@ final class UserDAO extends LdapDataProvider
         }
         finally
         {
-            closeAdminConnection( ld );
+            closeReadConnection( ld );
         }
 
         try
@@ -1151,43 +1223,9 @@ final class UserDAO extends LdapDataProvider
 
         try
         {
-            //String filter;
-            StringBuilder filterbuf = new StringBuilder();
-            if ( StringUtils.isNotEmpty( user.getUserId() ) )
-            {
-                // place a wild card after the input userId:
-                String searchVal = encodeSafeText( user.getUserId(), GlobalIds.USERID_LEN );
-                filterbuf.append( GlobalIds.FILTER_PREFIX );
-                filterbuf.append( objectClassImpl );
-                filterbuf.append( ")(" );
-                filterbuf.append( SchemaConstants.UID_AT );
-                filterbuf.append( "=" );
-                filterbuf.append( searchVal );
-                filterbuf.append( "*))" );
-            }
-            else if ( StringUtils.isNotEmpty( user.getInternalId() ) )
-            {
-                // internalUserId search
-                String searchVal = encodeSafeText( user.getInternalId(), GlobalIds.USERID_LEN );
-                // this is not a wildcard search. Must be exact match.
-                filterbuf.append( GlobalIds.FILTER_PREFIX );
-                filterbuf.append( objectClassImpl );
-                filterbuf.append( ")(" );
-                filterbuf.append( GlobalIds.FT_IID );
-                filterbuf.append( "=" );
-                filterbuf.append( searchVal );
-                filterbuf.append( "))" );
-            }
-            else
-            {
-                // Beware - returns ALL users!!:"
-                filterbuf.append( "(objectclass=" );
-                filterbuf.append( objectClassImpl );
-                filterbuf.append( ")" );
-            }
-
+            String filter = getUserFilter( user );
             ld = getAdminConnection();
-            SearchCursor searchResults = search( ld, userRoot, SearchScope.ONELEVEL, filterbuf.toString(), defaultAtrs, false,
+            SearchCursor searchResults = search( ld, userRoot, SearchScope.ONELEVEL, filter, defaultAtrs, false,
                 GlobalIds.BATCH_SIZE );
             long sequence = 0;
 
@@ -1215,6 +1253,161 @@ final class UserDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Open a cursor over the users that match the search criteria.  The entries are read a page at a time, see
+     * {@link PagedSearchCursor}, and the connection is held by the cursor until it is closed.
+     *
+     * @param user contains all or partial userId or full internal userId.
+     * @return cursor over the matching users.
+     * @throws FinderException in the event of a system error.
+     */
+    ResultCursor<User> iterateUsers( final User user ) throws FinderException
+    {
+        LdapConnection ld = null;
+        String userRoot = getRootDn( user.getContextId(), GlobalIds.USER_ROOT );
+
+        try
+        {
+            String filter = getUserFilter( user );
+            ld = getAdminConnection();
+            ResultCursor<User> cursor = new PagedSearchCursor<User>( ld, userRoot, SearchScope.ONELEVEL, filter,
+                defaultAtrs, GlobalErrIds.USER_SEARCH_FAILED )
+            {
+                @Override
+                protected User unload( Entry entry, long sequence ) throws LdapException
+                {
+                    return unloadLdapEntry( entry, sequence, user.getContextId() );
+                }
+
+
+                @Override
+                protected void release( LdapConnection connection )
+                {
+                    closeAdminConnection( connection );
+                }
+            };
+            // the cursor owns the connection now:
+            ld = null;
+            return cursor;
+        }
+        catch ( LdapException e )
+        {
+            String warning = "iterateUsers userRoot [" + userRoot + "] caught LDAPException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.USER_SEARCH_FAILED, warning, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * Open a cursor over the role assignments of every user in the tenant.  Only the userId and the names of the assigned
+     * roles are read, which keeps a full scan of the user tree cheap enough to build the {@link AssignmentIndex} with.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return cursor over User entities that contain only the userId and the role names.
+     * @throws FinderException in the event of a system error.
+     */
+    ResultCursor<User> iterateRoleAssignments( String contextId ) throws FinderException
+    {
+        LdapConnection ld = null;
+        String userRoot = getRootDn( contextId, GlobalIds.USER_ROOT );
+
+        try
+        {
+            String filter = "(objectclass=" + objectClassImpl + ")";
+            ld = getAdminConnection();
+            ResultCursor<User> cursor = new PagedSearchCursor<User>( ld, userRoot, SearchScope.ONELEVEL, filter,
+                ROLE_ASSIGN_ATRS, GlobalErrIds.USER_SEARCH_FAILED )
+            {
+                @Override
+                protected User unload( Entry entry, long sequence ) throws LdapException
+                {
+                    User user = new User( getAttribute( entry, SchemaConstants.UID_AT ) );
+                    user.setSequenceId( sequence );
+                    List<String> roles = getAttributes( entry, GlobalIds.USER_ROLE_ASSIGN );
+                    if ( roles != null )
+                    {
+                        for ( String role : roles )
+                        {
+                            user.setRoleName( role );
+                        }
+                    }
+                    return user;
+                }
+
+
+                @Override
+                protected void release( LdapConnection connection )
+                {
+                    closeAdminConnection( connection );
+                }
+            };
+            // the cursor owns the connection now:
+            ld = null;
+            return cursor;
+        }
+        catch ( LdapException e )
+        {
+            String warning = "iterateRoleAssignments userRoot [" + userRoot + "] caught LDAPException=" + e.getMessage();
+            throw new FinderException( GlobalErrIds.USER_SEARCH_FAILED, warning, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+    }
+
+
+    /**
+     * Build the search filter used by {@link #findUsers(User)} and {@link #iterateUsers(User)}.
+     *
+     * @param user contains all or partial userId or full internal userId.
+     * @return String containing the ldap filter.
+     * @throws LdapException if the search value can't be encoded.
+     */
+    private String getUserFilter( User user ) throws LdapException
+    {
+        StringBuilder filterbuf = new StringBuilder();
+        if ( StringUtils.isNotEmpty( user.getUserId() ) )
+        {
+            // place a wild card after the input userId:
+            String searchVal = encodeSafeText( user.getUserId(), GlobalIds.USERID_LEN );
+            filterbuf.append( GlobalIds.FILTER_PREFIX );
+            filterbuf.append( objectClassImpl );
+            filterbuf.append( ")(" );
+            filterbuf.append( SchemaConstants.UID_AT );
+            filterbuf.append( "=" );
+            filterbuf.append( searchVal );
+            filterbuf.append( "*))" );
+        }
+        else if ( StringUtils.isNotEmpty( user.getInternalId() ) )
+        {
+            // internalUserId search
+            String searchVal = encodeSafeText( user.getInternalId(), GlobalIds.USERID_LEN );
+            // this is not a wildcard search. Must be exact match.
+            filterbuf.append( GlobalIds.FILTER_PREFIX );
+            filterbuf.append( objectClassImpl );
+            filterbuf.append( ")(" );
+            filterbuf.append( GlobalIds.FT_IID );
+            filterbuf.append( "=" );
+            filterbuf.append( searchVal );
+            filterbuf.append( "))" );
+        }
+        else
+        {
+            // Beware - returns ALL users!!:"
+            filterbuf.append( "(objectclass=" );
+            filterbuf.append( objectClassImpl );
+            filterbuf.append( ")" );
+        }
+
+        return filterbuf.toString();
+    }
+
+
     /**
      * @param user
      * @param limit
@@ -1838,6 +2031,62 @@ final class UserDAO extends LdapDataProvider
     }
 
 
+    /**
+     * Add a list of RBAC role assignments to a user with a single modify.  Every assignment must be for the same user.
+     *
+     * @param uRoles contains the userId and role names, along with optional temporal constraints, to be assigned.
+     * @return String containing the user's DN.
+     * @throws UpdateException in the event of ldap modify failure.
+     * @throws FinderException if one of the assignments already exists.
+     */
+    String assign( List<UserRole> uRoles ) throws UpdateException, FinderException
+    {
+        LdapConnection ld = null;
+        UserRole first = uRoles.get( 0 );
+        String userDn = getDn( first.getUserId(), first.getContextId() );
+
+        try
+        {
+            List<Modification> mods = new ArrayList<Modification>();
+            String[] szUserRoles = new String[uRoles.size()];
+            String[] names = new String[uRoles.size()];
+            for ( int i = 0; i < uRoles.size(); i++ )
+            {
+                szUserRoles[i] = uRoles.get( i ).getRawData();
+                names[i] = uRoles.get( i ).getName();
+            }
+
+            mods.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, GlobalIds.USER_ROLE_DATA,
+                szUserRoles ) );
+
+            mods.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, GlobalIds.USER_ROLE_ASSIGN, names ) );
+
+            ld = getAdminConnection();
+            modify( ld, userDn, mods, first );
+        }
+        catch ( LdapAttributeInUseException e )
+        {
+            String warning = "assign userId [" + first.getUserId() + "] roles [" + uRoles.size() + "] ";
+
+            warning += "assignment already exists.";
+            throw new FinderException( GlobalErrIds.URLE_ASSIGN_EXIST, warning );
+        }
+        catch ( LdapException e )
+        {
+            String warning = "assign userId [" + first.getUserId() + "] roles [" + uRoles.size() + "] ";
+
+            warning += "caught LDAPException=" + e.getMessage();
+            throw new UpdateException( GlobalErrIds.URLE_ASSIGN_FAILED, warning, e );
+        }
+        finally
+        {
+            closeAdminConnection( ld );
+        }
+
+        return userDn;
+    }
+
+
     /**
      * @param uRole
      * @return
@@ -2468,12 +2717,12 @@ final class UserDAO extends LdapDataProvider
         if ( roles != null )
         {
             long sequence = 0;
-            uRoles = new ArrayList<>();
+            uRoles = new ArrayList<>( roles.size() );
+            String delimiter = Config.getInstance().getDelimiter();
 
             for ( String raw : roles )
             {
-                UserAdminRole ure = new ObjectFactory().createUserAdminRole();
-                ure.load( raw, contextId, new RoleUtil() );
+                UserAdminRole ure = RoleConstraintCodec.decodeUserAdminRole( raw, delimiter, contextId );
                 ure.setSequenceId( sequence++ );
                 ure.setUserId( userId );
                 uRoles.add( ure );
@@ -2513,12 +2762,12 @@ final class UserDAO extends LdapDataProvider
         if ( roles != null )
         {
             long sequence = 0;
-            uRoles = new ArrayList<>();
+            uRoles = new ArrayList<>( roles.size() );
+            String delimiter = Config.getInstance().getDelimiter();
 
             for ( String raw : roles )
             {
-                UserRole ure = new ObjectFactory().createUserRole();
-                ure.load( raw, contextId, new RoleUtil() );
+                UserRole ure = RoleConstraintCodec.decodeUserRole( raw, delimiter, contextId );
                 ure.setUserId( userId );
                 ure.setSequenceId( sequence++ );
                 uRoles.add( ure );
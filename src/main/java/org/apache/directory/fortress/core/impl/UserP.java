@@ -21,15 +21,19 @@ package org.apache.directory.fortress.core.impl;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.BatchException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.PasswordException;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.ValidationException;
 import org.apache.directory.fortress.core.model.AdminRole;
@@ -44,6 +48,7 @@ import org.apache.directory.fortress.core.model.User;
 import org.apache.directory.fortress.core.model.UserAdminRole;
 import org.apache.directory.fortress.core.model.UserRole;
 import org.apache.directory.fortress.core.util.VUtil;
+import org.apache.directory.fortress.core.util.cache.CacheLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -101,6 +106,32 @@ final class UserP
     }
 
 
+    /**
+     * Takes a User entity that contains full or partial userId OR a full internal userId and opens a cursor over the matches.
+     *
+     * @param user contains all or partial userId or full internal userId.
+     * @return cursor over the fully populated matching User entities.  It must be closed by the caller.
+     * @throws SecurityException in the event of DAO search error.
+     */
+    ResultCursor<User> iterate( User user ) throws SecurityException
+    {
+        return uDao.iterateUsers( user );
+    }
+
+
+    /**
+     * Open a cursor over the role assignments of every user in the tenant.
+     *
+     * @param contextId maps to sub-tree in DIT, e.g. ou=contextId, dc=example, dc=com.
+     * @return cursor over User entities that contain only the userId and assigned role names.  It must be closed by the caller.
+     * @throws SecurityException in the event of DAO search error.
+     */
+    ResultCursor<User> iterateRoleAssignments( String contextId ) throws SecurityException
+    {
+        return uDao.iterateRoleAssignments( contextId );
+    }
+
+
     List<User> search( OrgUnit ou, boolean limitSize ) throws SecurityException
     {
         return uDao.findUsers( ou, limitSize );
@@ -221,6 +252,34 @@ final class UserP
     }
 
 
+    /**
+     * Return the matching User entity, looking first in the user cache maintained by {@link UserUtil}.  This is used on the
+     * authentication paths of {@link AccessMgrImpl}, where the entry is read on every logon.  The entity returned is a copy that
+     * may be changed by the caller.  When the user cache is not enabled this method is the same as {@link #read(User, boolean)}.
+     *
+     * @param user  contains full userId value.
+     * @param isRoles return user's assigned roles if "true".
+     * @return User entity containing all attributes associated with User in directory.
+     * @throws SecurityException in the event of User not found or DAO search error.
+     */
+    User readCached( final User user, final boolean isRoles ) throws SecurityException
+    {
+        if ( !UserUtil.isEnabled() )
+        {
+            return read( user, isRoles );
+        }
+
+        return UserUtil.getInstance().get( user, isRoles, new CacheLoader()
+        {
+            @Override
+            public Object load( Object key ) throws SecurityException
+            {
+                return read( user, isRoles );
+            }
+        } );
+    }
+
+
     /**
      * Adds a new User entity to directory.  The User entity input object will be validated to ensure that:
      * userId is present, orgUnitId is valid, roles (optiona) are valid, reasonability checks on all of the
@@ -260,6 +319,57 @@ final class UserP
     }
 
 
+    /**
+     * Adds a list of new User entities to directory, each validated as with {@link #add(User)}, over a single connection.
+     * A user that fails doesn't stop the others from being added.
+     *
+     * @param entities contains the User entities targeted for insertion.
+     * @throws BatchException once every user has been tried, containing the exception of each that failed keyed by its
+     * position in the list.
+     */
+    void add( List<User> entities ) throws BatchException
+    {
+        Map<Integer, SecurityException> failures = new HashMap<>();
+        List<User> validUsers = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for ( int i = 0; i < entities.size(); i++ )
+        {
+            try
+            {
+                // Ensure the input data is valid.
+                validate( entities.get( i ), false );
+                validUsers.add( entities.get( i ) );
+                validIndexes.add( i );
+            }
+            catch ( SecurityException se )
+            {
+                failures.put( i, se );
+            }
+        }
+
+        if ( !validUsers.isEmpty() )
+        {
+            try
+            {
+                uDao.create( validUsers );
+            }
+            catch ( BatchException be )
+            {
+                for ( Map.Entry<Integer, SecurityException> failure : be.getFailures().entrySet() )
+                {
+                    failures.put( validIndexes.get( failure.getKey() ), failure.getValue() );
+                }
+            }
+        }
+
+        if ( !failures.isEmpty() )
+        {
+            String error = "add users failed [" + failures.size() + "] of [" + entities.size() + "]";
+            throw new BatchException( GlobalErrIds.FT_BATCH_FAILED, error, failures );
+        }
+    }
+
+
     /**
      * Update existing user's attributes with the input entity.  Null or empty attributes will be ignored.
      * This method will ignore userId as input as change userId is not allowed.  If password is changed
@@ -309,6 +419,7 @@ final class UserP
             validate( entity, true );
         }
         entity = uDao.update( entity );
+        UserUtil.getInstance().clear( entity.getUserId(), entity.getContextId() );
         return entity;
     }
 
@@ -334,6 +445,7 @@ final class UserP
         }
         user.setDescription( "DELETED" );
         User outUser = uDao.update( user );
+        UserUtil.getInstance().clear( user.getUserId(), user.getContextId() );
         return outUser.getDn();
     }
 
@@ -357,7 +469,9 @@ final class UserP
                 + "] can't be removed due to policy violation, rc=" + GlobalErrIds.USER_PLCY_VIOLATION;
             throw new SecurityException( GlobalErrIds.USER_PLCY_VIOLATION, warning );
         }
-        return uDao.remove( user );
+        String userDn = uDao.remove( user );
+        UserUtil.getInstance().clear( user.getUserId(), user.getContextId() );
+        return userDn;
     }
 
 
@@ -371,6 +485,7 @@ final class UserP
     void deletePwPolicy( User user ) throws SecurityException
     {
         uDao.deletePwPolicy( user );
+        UserUtil.getInstance().clear( user.getUserId(), user.getContextId() );
     }
 
 
@@ -389,6 +504,8 @@ final class UserP
 
         if ( !session.isAuthenticated() )
         {
+            // The failure may have locked the user's account:
+            UserUtil.getInstance().clear( user.getUserId(), user.getContextId() );
             String info = "UserP.authenticate failed  for userId [" + user.getUserId() + "] reason code ["
                 + session.getErrorId() + "] msg [" + session.getMsg() + "]";
             throw new PasswordException( session.getErrorId(), info );
@@ -501,7 +618,7 @@ final class UserP
         throws SecurityException
     {
         // read user entity:
-        User user = read( inUser, true );
+        User user = readCached( inUser, true );
         user.setContextId( inUser.getContextId() );
 
         // authenticate password, check pw policies and validate user temporal constraints:
@@ -523,7 +640,7 @@ final class UserP
     private Session createSessionTrusted( User inUser )
         throws SecurityException
     {
-        User user = read( inUser, true );
+        User user = readCached( inUser, true );
         user.setContextId( inUser.getContextId() );
 
         if ( user.isLocked() )
@@ -552,6 +669,7 @@ final class UserP
     void lock( User user ) throws SecurityException
     {
         uDao.lock( user );
+        UserUtil.getInstance().clear( user.getUserId(), user.getContextId() );
     }
 
 
@@ -564,6 +682,7 @@ final class UserP
     void unlock( User user ) throws SecurityException
     {
         uDao.unlock( user );
+        UserUtil.getInstance().clear( user.getUserId(), user.getContextId() );
     }
 
 
@@ -578,6 +697,7 @@ final class UserP
     {
         String userId = entity.getUserId();
         boolean result = uDao.changePassword( entity, newPassword );
+        UserUtil.getInstance().clear( userId, entity.getContextId() );
         if ( !result )
         {
             LOG.warn( "changePassword failed for user [{}]", userId );
@@ -595,6 +715,7 @@ final class UserP
     void resetPassword( User user ) throws SecurityException
     {
         uDao.resetUserPassword( user );
+        UserUtil.getInstance().clear( user.getUserId(), user.getContextId() );
     }
 
 
@@ -636,7 +757,31 @@ final class UserP
     {
         validate( uRole );
         // "assign" custom Fortress role data, i.e. temporal constraints, onto the user node:
-        return uDao.assign( uRole );
+        String userDn = uDao.assign( uRole );
+        UserUtil.getInstance().clear( uRole.getUserId(), uRole.getContextId() );
+        return userDn;
+    }
+
+
+    /**
+     * This command assigns a user to a list of roles with a single update of the user node.  Every assignment must be for the
+     * same user and is validated as with {@link #assign(UserRole)}.
+     *
+     * @param uRoles entities contain the userId and role names for targeted assignment.
+     * @return String containing the user's DN.  This value is used to update the "roleOccupant" attribute on associated role entities.
+     * @throws SecurityException in the event data error in user or role objects or system error.
+     */
+    String assign( List<UserRole> uRoles ) throws SecurityException
+    {
+        for ( UserRole uRole : uRoles )
+        {
+            validate( uRole );
+        }
+        // "assign" custom Fortress role data, i.e. temporal constraints, onto the user node:
+        String userDn = uDao.assign( uRoles );
+        UserRole first = uRoles.get( 0 );
+        UserUtil.getInstance().clear( first.getUserId(), first.getContextId() );
+        return userDn;
     }
 
 
@@ -658,7 +803,9 @@ final class UserP
     {
         validate( uRole );
         // "deassign" custom Fortress role data from the user's node:
-        return uDao.deassign( uRole );
+        String userDn = uDao.deassign( uRole );
+        UserUtil.getInstance().clear( uRole.getUserId(), uRole.getContextId() );
+        return userDn;
     }
 
 
@@ -690,7 +837,9 @@ final class UserP
     {
         validate( uRole );
         // Assign custom Fortress role data, i.e. temporal constraints, onto the user node:
-        return uDao.assign( uRole );
+        String userDn = uDao.assign( uRole );
+        UserUtil.getInstance().clear( uRole.getUserId(), uRole.getContextId() );
+        return userDn;
     }
 
 
@@ -710,7 +859,9 @@ final class UserP
     {
         validate( uRole );
         // Deassign custom Fortress role data from the user's node:
-        return uDao.deassign( uRole );
+        String userDn = uDao.deassign( uRole );
+        UserUtil.getInstance().clear( uRole.getUserId(), uRole.getContextId() );
+        return userDn;
     }
 
 
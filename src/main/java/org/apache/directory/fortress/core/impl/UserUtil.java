@@ -0,0 +1,178 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.Cache;
+import org.apache.directory.fortress.core.util.cache.CacheLoader;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This utility maintains the cache of user entries read by {@link UserP} on behalf of {@link AccessMgrImpl#authenticate} and
+ * {@link AccessMgrImpl#createSession}.  Each element contains the {@link User} unloaded from the directory, with or without its
+ * {@link User#getRoles()} and {@link User#getAdminRoles()}, and is keyed by tenant (contextId), role flag and userId.  The cache is
+ * bounded and expires its elements according to the 'fortress.users' entry in ehcache.xml.  Entries are cleared by {@link UserP}
+ * whenever a user is updated, deleted, locked, unlocked, has its password changed or reset, or is assigned or deassigned a role.
+ * <p>
+ * Callers are handed a copy of the element, made with {@link User#User(User)}, because they modify the user and its role lists.
+ * <p>
+ * The cache is switched on with fortress config param: 'enable.user.cache=true'.  It is off by default because password policy
+ * lockouts, and changes made by other processes, are only seen once the element expires.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class UserUtil
+{
+    private static final String CLS_NM = UserUtil.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String FORTRESS_USERS = "fortress.users";
+    private static final String IS_USER_CACHE_ENABLED_PARM = "enable.user.cache";
+    private static final String SEP = ":";
+    private Cache userCache;
+
+    private static volatile UserUtil INSTANCE = null;
+
+    static UserUtil getInstance()
+    {
+        if ( INSTANCE == null )
+        {
+            synchronized ( UserUtil.class )
+            {
+                if ( INSTANCE == null )
+                {
+                    INSTANCE = new UserUtil();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+
+    private void init()
+    {
+        // Get a reference to the CacheManager Singleton object:
+        CacheMgr cacheMgr = CacheMgr.getInstance();
+        // This cache contains the user entries keyed by tenant and userId:
+        userCache = cacheMgr.getCache( FORTRESS_USERS );
+    }
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private UserUtil()
+    {
+        init();
+    }
+
+
+    /**
+     * Return true if the user cache is in use.
+     *
+     * @return boolean value which is true if 'enable.user.cache' has been set.
+     */
+    static boolean isEnabled()
+    {
+        return Config.getInstance().getBoolean( IS_USER_CACHE_ENABLED_PARM, false );
+    }
+
+
+    /**
+     * Look in cache for the user entry that matches the given key, loading it on a miss.  Other readers of the same key wait for
+     * the load rather than repeating it.
+     *
+     * @param user    contains {@link User#getUserId()} and {@link User#getContextId()}.
+     * @param isRoles if true the entry must contain the user's assigned roles.
+     * @param loader  reads the user entry from the directory.
+     * @return copy of the User that was cached or loaded, or null if not found.
+     * @throws SecurityException in the event the loader fails.
+     */
+    User get( User user, boolean isRoles, CacheLoader loader ) throws SecurityException
+    {
+        User entity = ( User ) userCache.get( getKey( user.getUserId(), user.getContextId(), isRoles ), loader );
+        if ( entity == null )
+        {
+            return null;
+        }
+        return new User( entity );
+    }
+
+
+    /**
+     * Clear the cached entries of the given user.
+     *
+     * @param userId    contains the rdn of the user.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    void clear( String userId, String contextId )
+    {
+        if ( isEnabled() )
+        {
+            LOG.debug( "{}.clear userId [{}]", CLS_NM, userId );
+            userCache.clear( getKey( userId, contextId, true ) );
+            userCache.clear( getKey( userId, contextId, false ) );
+        }
+    }
+
+
+    /**
+     * Build the cache key from tenant, role flag, and userId.  Userids are case insensitive in the directory so are folded here.
+     *
+     * @param userId    contains the rdn of the user.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     * @param isRoles   true if the entry contains the user's assigned roles.
+     * @return String containing the key.
+     */
+    private static String getKey( String userId, String contextId, boolean isRoles )
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( getContextId( contextId ) ).append( SEP );
+        sb.append( isRoles ).append( SEP );
+        sb.append( StringUtils.lowerCase( userId ) );
+        return sb.toString();
+    }
+
+
+    /**
+     *
+     * @param contextId
+     * @return
+     */
+    private static String getContextId( String contextId )
+    {
+        String szContextId = GlobalIds.HOME;
+        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equals( GlobalIds.NULL ) )
+        {
+            szContextId = contextId;
+        }
+        return szContextId;
+    }
+}
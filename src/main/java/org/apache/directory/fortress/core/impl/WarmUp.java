@@ -0,0 +1,332 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.util.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Preloads the policy caches of the tenants listed in fortress config param: 'warmup.contexts' so the first requests after a
+ * restart don't have to.  For every tenant the role, admin role, user ou and perm ou hierarchies, the SSD and DSD sets and the
+ * password policy names are loaded concurrently on 'warmup.threads' daemon threads.
+ * <p>
+ * The warm-up is begun by {@link #start()}, which applications may call during their own startup, otherwise by the first call
+ * to {@link org.apache.directory.fortress.core.AccessMgrFactory#createInstance(String)}.  When 'warmup.gate' is 'true' the
+ * factory waits for it to finish, but no later than 'warmup.gate.timeout' seconds after it began.  Failures are logged and leave the corresponding cache
+ * to be loaded on first use, the warm-up is considered finished regardless.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class WarmUp
+{
+    private static final String CLS_NM = WarmUp.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String WARMUP_CONTEXTS = "warmup.contexts";
+    private static final String WARMUP_THREADS = "warmup.threads";
+    private static final String WARMUP_GATE = "warmup.gate";
+    private static final String WARMUP_GATE_TIMEOUT = "warmup.gate.timeout";
+
+    private static final CountDownLatch READY = new CountDownLatch( 1 );
+    private static final AtomicInteger FAILURES = new AtomicInteger();
+    private static volatile boolean isStarted = false;
+    // Time, in milliseconds since the epoch, after which the gate no longer waits:
+    private static volatile long deadline;
+
+
+    /**
+     * Private constructor
+     */
+    private WarmUp()
+    {
+    }
+
+
+    /**
+     * One cache of one tenant.
+     */
+    private abstract static class Task implements Runnable
+    {
+        private final String name;
+        private final String contextId;
+
+
+        private Task( String name, String contextId )
+        {
+            this.name = name;
+            this.contextId = contextId;
+        }
+
+
+        @Override
+        public void run()
+        {
+            long start = System.currentTimeMillis();
+            try
+            {
+                load( contextId );
+                LOG.debug( "{} contextId [{}] loaded in [{}] ms", name, contextId, System.currentTimeMillis() - start );
+            }
+            catch ( SecurityException | RuntimeException e )
+            {
+                FAILURES.incrementAndGet();
+                LOG.warn( "{} contextId [{}] caught {}={}", name, contextId, e.getClass().getSimpleName(), e.getMessage() );
+            }
+        }
+
+
+        /**
+         * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+         * @throws SecurityException in the event of system error.
+         */
+        abstract void load( String contextId ) throws SecurityException;
+    }
+
+
+    /**
+     * Begin loading the caches of every tenant in 'warmup.contexts', unless already begun.  This method returns immediately.
+     */
+    public static void start()
+    {
+        if ( isStarted )
+        {
+            return;
+        }
+        synchronized ( WarmUp.class )
+        {
+            if ( isStarted )
+            {
+                return;
+            }
+            deadline = System.currentTimeMillis()
+                + TimeUnit.SECONDS.toMillis( Config.getInstance().getInt( WARMUP_GATE_TIMEOUT, 60 ) );
+            isStarted = true;
+            begin();
+        }
+    }
+
+
+    /**
+     * Submit the tasks of every tenant in 'warmup.contexts'.  Called once, by {@link #start()}.
+     */
+    private static void begin()
+    {
+        String contexts = Config.getInstance().getProperty( WARMUP_CONTEXTS );
+        if ( StringUtils.isEmpty( contexts ) )
+        {
+            READY.countDown();
+            return;
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        for ( String contextId : StringUtils.split( contexts, ',' ) )
+        {
+            addTasks( tasks, contextId.trim() );
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool( Config.getInstance().getInt( WARMUP_THREADS, 4 ),
+            new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger();
+
+
+                @Override
+                public Thread newThread( Runnable runnable )
+                {
+                    Thread thread = new Thread( runnable, "fortress-warmup-" + count.incrementAndGet() );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            } );
+        final long start = System.currentTimeMillis();
+        for ( Task task : tasks )
+        {
+            executor.execute( task );
+        }
+        executor.shutdown();
+
+        // Signal readiness once every task has run:
+        Thread waiter = new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    executor.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+                READY.countDown();
+                LOG.info( "warm-up finished in [{}] ms with [{}] failures", System.currentTimeMillis() - start,
+                    FAILURES.get() );
+            }
+        }, "fortress-warmup" );
+        waiter.setDaemon( true );
+        waiter.start();
+        LOG.info( "warm-up started for contexts [{}]", contexts );
+    }
+
+
+    /**
+     * @return true once every cache has been loaded, or failed to load.
+     */
+    public static boolean isReady()
+    {
+        return READY.getCount() == 0;
+    }
+
+
+    /**
+     * @return number of caches that failed to load.
+     */
+    public static int getFailures()
+    {
+        return FAILURES.get();
+    }
+
+
+    /**
+     * Wait for the warm-up to finish.
+     *
+     * @param timeout maximum time to wait.
+     * @param unit    unit of timeout.
+     * @return true if the warm-up has finished, false if the timeout elapsed first.
+     * @throws InterruptedException if the calling thread was interrupted while waiting.
+     */
+    public static boolean awaitReady( long timeout, TimeUnit unit ) throws InterruptedException
+    {
+        return READY.await( timeout, unit );
+    }
+
+
+    /**
+     * Start the warm-up and, if fortress config param: 'warmup.gate' is 'true', wait for it to finish.  Called by the manager
+     * factories before an instance is returned.  The wait ends 'warmup.gate.timeout' seconds after the warm-up began, so once
+     * that has passed callers go straight through.
+     */
+    public static void gate()
+    {
+        start();
+        if ( isReady() || !Config.getInstance().getBoolean( WARMUP_GATE, false ) )
+        {
+            return;
+        }
+        long remaining = deadline - System.currentTimeMillis();
+        if ( remaining <= 0 )
+        {
+            return;
+        }
+        try
+        {
+            if ( !awaitReady( remaining, TimeUnit.MILLISECONDS ) )
+            {
+                LOG.warn( "gate warm-up did not finish within [{}] seconds of starting, continuing",
+                    Config.getInstance().getInt( WARMUP_GATE_TIMEOUT, 60 ) );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * @param tasks     list the tenant's tasks are added to.
+     * @param contextId maps to sub-tree in DIT, for example ou=contextId, dc=jts, dc = com.
+     */
+    private static void addTasks( List<Task> tasks, String contextId )
+    {
+        tasks.add( new Task( "role hierarchy", contextId )
+        {
+            @Override
+            void load( String contextId )
+            {
+                RoleUtil.getInstance().load( contextId );
+            }
+        } );
+        tasks.add( new Task( "admin role hierarchy", contextId )
+        {
+            @Override
+            void load( String contextId )
+            {
+                AdminRoleUtil.load( contextId );
+            }
+        } );
+        tasks.add( new Task( "user ou hierarchy", contextId )
+        {
+            @Override
+            void load( String contextId )
+            {
+                UsoUtil.getInstance().load( contextId );
+            }
+        } );
+        tasks.add( new Task( "perm ou hierarchy", contextId )
+        {
+            @Override
+            void load( String contextId )
+            {
+                PsoUtil.getInstance().load( contextId );
+            }
+        } );
+        tasks.add( new Task( "dsd sets", contextId )
+        {
+            @Override
+            void load( String contextId ) throws SecurityException
+            {
+                SDUtil.getInstance().loadDsdCache( contextId );
+            }
+        } );
+        tasks.add( new Task( "ssd sets", contextId )
+        {
+            @Override
+            void load( String contextId ) throws SecurityException
+            {
+                SDUtil.getInstance().loadSsdCache( contextId );
+            }
+        } );
+        tasks.add( new Task( "password policies", contextId )
+        {
+            @Override
+            void load( String contextId )
+            {
+                new PolicyP().load( contextId );
+            }
+        } );
+    }
+}
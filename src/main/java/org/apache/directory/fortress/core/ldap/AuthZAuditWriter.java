@@ -0,0 +1,579 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapNoSuchObjectException;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class writes the authorization audit records that are left in the OpenLDAP slapd access log by
+ * {@link org.apache.directory.fortress.core.impl.PermDAO#checkPermission}.  Each record is an ldap compare on the permission
+ * operation node, asserting the end user's identity with the proxy authorization control.
+ * <p>
+ * By default the compare is performed synchronously on the caller's connection.  When 'audit.authz.async=true' the records are
+ * placed onto a bounded queue and written by a pool of background threads, so that the latency of checkAccess no longer includes
+ * the compare.  The writers drain the queue in batches, using one connection per batch, from the admin pool or the log pool
+ * when 'audit.authz.pool=log'.
+ * <p>
+ * The asynchronous writer may be configured with these fortress properties:
+ * <ul>
+ * <li>audit.authz.async - true to enable, default false</li>
+ * <li>audit.authz.queue.size - number of records that may wait to be written, default 10000</li>
+ * <li>audit.authz.writers - number of writer threads, default 2</li>
+ * <li>audit.authz.batch.size - number of records written per connection borrowed, default 100</li>
+ * <li>audit.authz.full.policy - 'block' to make the caller wait when the queue is full, 'drop' to discard the record, default block</li>
+ * <li>audit.authz.shutdown.timeout.ms - time to wait for the queue to be flushed on shutdown, default 10000</li>
+ * </ul>
+ * The queue is flushed when {@link LdapConnectionProvider#closeAllConnectionPools()} is called or the jvm exits.  The counters
+ * returned by {@link #getEnqueued()}, {@link #getWritten()}, {@link #getDropped()}, {@link #getBlocked()} and {@link #getFailed()}
+ * may be used to monitor back pressure.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class AuthZAuditWriter extends LdapDataProvider
+{
+    private static final String CLS_NM = AuthZAuditWriter.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+
+    private static final String AUDIT_ASYNC = "audit.authz.async";
+    private static final String AUDIT_QUEUE_SIZE = "audit.authz.queue.size";
+    private static final String AUDIT_WRITERS = "audit.authz.writers";
+    private static final String AUDIT_BATCH_SIZE = "audit.authz.batch.size";
+    private static final String AUDIT_FULL_POLICY = "audit.authz.full.policy";
+    private static final String AUDIT_POOL = "audit.authz.pool";
+    private static final String AUDIT_SHUTDOWN_TIMEOUT = "audit.authz.shutdown.timeout.ms";
+    private static final String DROP = "drop";
+    private static final String LOG_POOL = "log";
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_WRITERS = 2;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_SHUTDOWN_TIMEOUT = 10000;
+    private static final long POLL_INTERVAL = 1000;
+
+    private final boolean async;
+    private final boolean drop;
+    private final int batchSize;
+    private final long shutdownTimeout;
+    private final Sink sink;
+    private BlockingQueue<AuditRecord> queue;
+    private ExecutorService writers;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private static volatile AuthZAuditWriter INSTANCE = null;
+
+    public static AuthZAuditWriter getInstance()
+    {
+        if ( INSTANCE == null )
+        {
+            synchronized ( AuthZAuditWriter.class )
+            {
+                if ( INSTANCE == null )
+                {
+                    INSTANCE = new AuthZAuditWriter();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private AuthZAuditWriter()
+    {
+        async = Config.getInstance().getBoolean( AUDIT_ASYNC, false );
+        drop = DROP.equalsIgnoreCase( Config.getInstance().getProperty( AUDIT_FULL_POLICY, "block" ) );
+        batchSize = Math.max( 1, Config.getInstance().getInt( AUDIT_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+        shutdownTimeout = Config.getInstance().getInt( AUDIT_SHUTDOWN_TIMEOUT, DEFAULT_SHUTDOWN_TIMEOUT );
+        sink = new CompareSink( LOG_POOL.equalsIgnoreCase( Config.getInstance().getProperty( AUDIT_POOL, "admin" ) ) );
+
+        if ( async )
+        {
+            init( Config.getInstance().getInt( AUDIT_QUEUE_SIZE, DEFAULT_QUEUE_SIZE ),
+                Config.getInstance().getInt( AUDIT_WRITERS, DEFAULT_WRITERS ) );
+            // Flush whatever remains when the jvm exits:
+            Runtime.getRuntime().addShutdownHook( new Thread( "fortress-authz-audit-shutdown" )
+            {
+                @Override
+                public void run()
+                {
+                    stop();
+                }
+            } );
+        }
+    }
+
+
+    /**
+     * Package private constructor, used by the unit test to supply its own sink.  The writer is asynchronous.
+     *
+     * @param queueSize       number of records that may wait to be written.
+     * @param numWriters      number of writer threads.
+     * @param batchSize       number of records passed to the sink at once.
+     * @param drop            true to discard a record when the queue is full, false to make the caller wait.
+     * @param shutdownTimeout milliseconds {@link #stop()} waits for the queue to be flushed.
+     * @param sink            writes the records.
+     */
+    AuthZAuditWriter( int queueSize, int numWriters, int batchSize, boolean drop, long shutdownTimeout, Sink sink )
+    {
+        this.async = true;
+        this.drop = drop;
+        this.batchSize = Math.max( 1, batchSize );
+        this.shutdownTimeout = shutdownTimeout;
+        this.sink = sink;
+        init( queueSize, numWriters );
+    }
+
+
+    /**
+     * Start the writer threads.
+     *
+     * @param queueSize  number of records that may wait to be written.
+     * @param numWriters number of writer threads.
+     */
+    private void init( int queueSize, int numWriters )
+    {
+        queueSize = Math.max( 1, queueSize );
+        numWriters = Math.max( 1, numWriters );
+        LOG.info( "{} async enabled queue size [{}], writers [{}], batch size [{}], drop [{}]",
+            CLS_NM, queueSize, numWriters, batchSize, drop );
+        queue = new ArrayBlockingQueue<>( queueSize );
+        writers = Executors.newFixedThreadPool( numWriters, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, "fortress-authz-audit-" + count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+        running = true;
+
+        for ( int i = 0; i < numWriters; i++ )
+        {
+            writers.execute( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    drain();
+                }
+            } );
+        }
+    }
+
+
+    /**
+     * Return true if the records are written by the background threads.
+     *
+     * @return boolean value set by 'audit.authz.async'.
+     */
+    public boolean isAsync()
+    {
+        return async;
+    }
+
+
+    /**
+     * Write the audit record.  In synchronous mode the compare is performed on the given connection before returning, otherwise the
+     * record is queued and the connection isn't used.
+     *
+     * @param connection     handle to ldap connection, only used in synchronous mode.
+     * @param permDn         contains distinguished name of the permission operation.
+     * @param userDn         contains the distinguished name of the user.
+     * @param attributeValue contains the operation name on success or the value that forces the compare to fail.
+     * @throws LdapException                in the event ldap system error occurs in synchronous mode.
+     * @throws UnsupportedEncodingException in the event the server cannot perform the operation in synchronous mode.
+     */
+    public void write( LdapConnection connection, String permDn, String userDn, String attributeValue )
+        throws LdapException, UnsupportedEncodingException
+    {
+        if ( !async )
+        {
+            compareNode( connection, permDn, userDn, new DefaultAttribute( GlobalIds.POP_NAME, attributeValue ) );
+            return;
+        }
+
+        AuditRecord record = new AuditRecord( permDn, userDn, attributeValue );
+        if ( !running )
+        {
+            dropped.incrementAndGet();
+            LOG.debug( "{}.write writer stopped, dropped dn [{}]", CLS_NM, permDn );
+        }
+        else if ( queue.offer( record ) )
+        {
+            accept( record );
+        }
+        else if ( drop )
+        {
+            dropped.incrementAndGet();
+            LOG.debug( "{}.write queue full, dropped dn [{}]", CLS_NM, permDn );
+        }
+        else
+        {
+            blocked.incrementAndGet();
+            put( record );
+        }
+    }
+
+
+    /**
+     * Wait for room on the queue.  The writer may be stopped while the caller waits, so the wait is made in intervals and given
+     * up once there are no writers left to make room.
+     *
+     * @param record contains the data for the compare.
+     */
+    private void put( AuditRecord record )
+    {
+        try
+        {
+            while ( running )
+            {
+                if ( queue.offer( record, POLL_INTERVAL, TimeUnit.MILLISECONDS ) )
+                {
+                    accept( record );
+                    return;
+                }
+            }
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+        }
+        dropped.incrementAndGet();
+        LOG.debug( "{}.write writer stopped, dropped dn [{}]", CLS_NM, record.permDn );
+    }
+
+
+    /**
+     * Count a record that has been placed on the queue.  If the writer was stopped in the meantime, and has already flushed the
+     * queue, the record is taken back off and counted as dropped instead.
+     *
+     * @param record contains the data for the compare.
+     */
+    private void accept( AuditRecord record )
+    {
+        if ( !running && queue.remove( record ) )
+        {
+            dropped.incrementAndGet();
+            LOG.debug( "{}.write writer stopped, dropped dn [{}]", CLS_NM, record.permDn );
+        }
+        else
+        {
+            enqueued.incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Loop run by each writer thread.  Exits after the writer has been stopped and the queue is empty.
+     */
+    private void drain()
+    {
+        List<AuditRecord> batch = new ArrayList<>( batchSize );
+        while ( running || !queue.isEmpty() )
+        {
+            try
+            {
+                AuditRecord record = queue.poll( POLL_INTERVAL, TimeUnit.MILLISECONDS );
+                if ( record == null )
+                {
+                    continue;
+                }
+                batch.add( record );
+                queue.drainTo( batch, batchSize - 1 );
+                writeBatch( batch );
+            }
+            catch ( InterruptedException ie )
+            {
+                // Keep going until the queue has been flushed, the executor is only interrupted after the shutdown timeout:
+                if ( !running )
+                {
+                    return;
+                }
+            }
+            catch ( RuntimeException re )
+            {
+                LOG.warn( "{}.drain caught RuntimeException={}", CLS_NM, re.getMessage(), re );
+            }
+            finally
+            {
+                batch.clear();
+            }
+        }
+    }
+
+
+    /**
+     * Pass a batch of records to the sink and count the ones it wrote.
+     *
+     * @param batch contains the records to write.
+     */
+    private void writeBatch( List<AuditRecord> batch )
+    {
+        int count = sink.write( batch );
+        written.addAndGet( count );
+        failed.addAndGet( batch.size() - count );
+    }
+
+
+    /**
+     * Stop accepting records and wait for the queue to be flushed, up to 'audit.authz.shutdown.timeout.ms'.  Records that remain
+     * on the queue afterwards are counted as dropped.
+     */
+    synchronized void stop()
+    {
+        if ( !running )
+        {
+            return;
+        }
+        running = false;
+        writers.shutdown();
+        try
+        {
+            if ( !writers.awaitTermination( shutdownTimeout, TimeUnit.MILLISECONDS ) )
+            {
+                LOG.warn( "{}.stop timed out with [{}] records not written", CLS_NM, queue.size() );
+                writers.shutdownNow();
+            }
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            writers.shutdownNow();
+        }
+        // Whatever the writers left behind, or was queued as they exited, will never be written:
+        List<AuditRecord> leftovers = new ArrayList<>();
+        queue.drainTo( leftovers );
+        dropped.addAndGet( leftovers.size() );
+        LOG.info( "{}.stop enqueued [{}], written [{}], dropped [{}], blocked [{}], failed [{}]", CLS_NM, enqueued.get(),
+            written.get(), dropped.get(), blocked.get(), failed.get() );
+    }
+
+
+    /**
+     * Flush and stop the asynchronous writer if it has been started.  Called before the connection pools are closed.
+     */
+    public static void shutdown()
+    {
+        AuthZAuditWriter writer = INSTANCE;
+        if ( writer != null && writer.async )
+        {
+            writer.stop();
+        }
+    }
+
+
+    /**
+     * Return the number of records waiting to be written.
+     *
+     * @return int value.
+     */
+    public int getQueueSize()
+    {
+        return queue != null ? queue.size() : 0;
+    }
+
+
+    /**
+     * Return the number of records that have been queued.
+     *
+     * @return long value.
+     */
+    public long getEnqueued()
+    {
+        return enqueued.get();
+    }
+
+
+    /**
+     * Return the number of records that have been written to the directory.
+     *
+     * @return long value.
+     */
+    public long getWritten()
+    {
+        return written.get();
+    }
+
+
+    /**
+     * Return the number of records discarded because the queue was full, with 'audit.authz.full.policy=drop', or the writer was stopped.
+     *
+     * @return long value.
+     */
+    public long getDropped()
+    {
+        return dropped.get();
+    }
+
+
+    /**
+     * Return the number of times a caller had to wait for room on the queue.
+     *
+     * @return long value.
+     */
+    public long getBlocked()
+    {
+        return blocked.get();
+    }
+
+
+    /**
+     * Return the number of records that could not be written because of an ldap error.
+     *
+     * @return long value.
+     */
+    public long getFailed()
+    {
+        return failed.get();
+    }
+
+
+    /**
+     * Writes the batches of records taken off the queue.
+     */
+    interface Sink
+    {
+        /**
+         * @param batch contains the records to write.
+         * @return the number of records written, the others are counted as failed.
+         */
+        int write( List<AuditRecord> batch );
+    }
+
+
+    /**
+     * Performs the compares for a batch of records on a single connection, from the admin pool or the log pool.
+     */
+    private final class CompareSink implements Sink
+    {
+        private final boolean useLogPool;
+
+
+        private CompareSink( boolean useLogPool )
+        {
+            this.useLogPool = useLogPool;
+        }
+
+
+        @Override
+        public int write( List<AuditRecord> batch )
+        {
+            int count = 0;
+            LdapConnection ld = null;
+            try
+            {
+                ld = useLogPool ? getLogConnection() : getAdminConnection();
+                for ( AuditRecord record : batch )
+                {
+                    try
+                    {
+                        compareNode( ld, record.permDn, record.userDn, new DefaultAttribute( GlobalIds.POP_NAME,
+                            record.attributeValue ) );
+                        count++;
+                    }
+                    catch ( LdapNoSuchObjectException e )
+                    {
+                        // The compare on a permission that doesn't exist still leaves a record:
+                        count++;
+                    }
+                    catch ( LdapException | UnsupportedEncodingException e )
+                    {
+                        LOG.warn( "{}.writeBatch dn [{}] caught {}={}", CLS_NM, record.permDn, e.getClass().getSimpleName(),
+                            e.getMessage() );
+                    }
+                }
+            }
+            catch ( LdapException e )
+            {
+                LOG.warn( "{}.writeBatch could not get connection, lost [{}] records, caught LdapException={}", CLS_NM,
+                    batch.size(), e.getMessage() );
+            }
+            finally
+            {
+                if ( ld != null )
+                {
+                    if ( useLogPool )
+                    {
+                        closeLogConnection( ld );
+                    }
+                    else
+                    {
+                        closeAdminConnection( ld );
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+
+    /**
+     * Contains the data for a single compare.
+     */
+    static final class AuditRecord
+    {
+        private final String permDn;
+        private final String userDn;
+        private final String attributeValue;
+
+
+        private AuditRecord( String permDn, String userDn, String attributeValue )
+        {
+            this.permDn = permDn;
+            this.userDn = userDn;
+            this.attributeValue = attributeValue;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.cache.LruMap;
+
+
+/**
+ * Holds the distinguished names that are used over and over by the DAOs so they are not rebuilt and reparsed on every call.
+ * <ul>
+ *   <li>Container roots, e.g. {@link GlobalIds#USER_ROOT} or {@link GlobalIds#ROLE_ROOT}, are computed once per tenant from the
+ *   config and kept for the life of the process.</li>
+ *   <li>Parsed {@link Dn} instances of the search bases and entries that are read are kept up to 'ldap.dn.cache.size' entries.
+ *   When the limit is reached the least recently used are evicted, so the working set stays cached.</li>
+ * </ul>
+ * Call {@link #clear()} if the container roots in the config have been changed at runtime.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class DnRegistry
+{
+    private static final String DN_CACHE_SIZE = "ldap.dn.cache.size";
+    private static final int DEFAULT_DN_CACHE_SIZE = 10000;
+    // Key of the tenant's suffix, which is not a config param:
+    private static final String SUFFIX_ROOT = "";
+
+    private static final ConcurrentMap<String, String> ROOTS = new ConcurrentHashMap<>();
+    private static final LruMap<String, Dn> DNS = new LruMap<>( Math.max( 1, Config.getInstance().getInt( DN_CACHE_SIZE,
+        DEFAULT_DN_CACHE_SIZE ) ) );
+
+
+    /**
+     * Private constructor
+     */
+    private DnRegistry()
+    {
+    }
+
+
+    /**
+     * Given a contextId and a fortress param name return the LDAP dn.
+     *
+     * @param contextId is to determine what sub-tree to use.
+     * @param root      contains the fortress parameter name that corresponds with a particular LDAP container.
+     * @return String contains the dn to use for operation.
+     */
+    static String getRootDn( String contextId, String root )
+    {
+        String key = contextId + ":" + root;
+        String dn = ROOTS.get( key );
+        if ( dn == null )
+        {
+            dn = buildRootDn( contextId, root );
+            if ( dn != null )
+            {
+                ROOTS.put( key, dn );
+            }
+        }
+
+        return dn;
+    }
+
+
+    /**
+     * Given a contextId return the LDAP dn that includes the suffix.
+     *
+     * @param contextId is to determine what sub-tree to use.
+     * @return String contains the dn to use for operation.
+     */
+    static String getRootDn( String contextId )
+    {
+        return getRootDn( contextId, SUFFIX_ROOT );
+    }
+
+
+    /**
+     * Return the parsed form of a distinguished name, from the cache if it has been parsed before.
+     *
+     * @param dn contains ldap distinguished name.
+     * @return the parsed dn.
+     * @throws LdapInvalidDnException if the dn is malformed.
+     */
+    static Dn getDn( String dn ) throws LdapInvalidDnException
+    {
+        Dn parsed = DNS.get( dn );
+        if ( parsed == null )
+        {
+            parsed = new Dn( dn );
+            Dn existing = DNS.putIfAbsent( dn, parsed );
+            if ( existing != null )
+            {
+                parsed = existing;
+            }
+        }
+
+        return parsed;
+    }
+
+
+    /**
+     * Empty the registry, the names will be rebuilt from the config on next use.
+     */
+    static void clear()
+    {
+        ROOTS.clear();
+        DNS.clear();
+    }
+
+
+    /**
+     * @param contextId is to determine what sub-tree to use.
+     * @param root      contains the fortress parameter name, or {@link #SUFFIX_ROOT} for the tenant's suffix.
+     * @return String contains the dn to use for operation.
+     */
+    private static String buildRootDn( String contextId, String root )
+    {
+        boolean isTenant = StringUtils.isNotEmpty( contextId ) && !contextId.equalsIgnoreCase( GlobalIds.NULL )
+            && !contextId.equals( GlobalIds.HOME );
+        String suffix = Config.getInstance().getProperty( GlobalIds.SUFFIX );
+
+        if ( SUFFIX_ROOT.equals( root ) )
+        {
+            if ( isTenant )
+            {
+                return SchemaConstants.OU_AT + "=" + contextId + "," + suffix;
+            }
+
+            return suffix;
+        }
+
+        String szDn = Config.getInstance().getProperty( root );
+
+        // The contextId must not be null, or "HOME" or "null"
+        if ( isTenant )
+        {
+            int idx = szDn.indexOf( suffix );
+            if ( idx > 0 )
+            {
+                // Found. The DN is ,ou=<contextId>,
+                return szDn.substring( 0, idx - 1 ) + "," + SchemaConstants.OU_AT + "=" + contextId + ","
+                    + szDn.substring( idx );
+            }
+
+            return "";
+        }
+
+        return szDn;
+    }
+}
@@ -19,8 +19,11 @@
  */
 package org.apache.directory.fortress.core.ldap;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.pool.PoolableObjectFactory;
@@ -34,9 +37,14 @@ import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.crypto.EncryptUtil;
+import org.apache.directory.fortress.core.util.metrics.Gauge;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
+import org.apache.directory.fortress.core.util.metrics.Timer;
+import org.apache.directory.ldap.client.api.LdapAsyncConnection;
 import org.apache.directory.ldap.client.api.LdapConnection;
 import org.apache.directory.ldap.client.api.LdapConnectionConfig;
 import org.apache.directory.ldap.client.api.LdapConnectionPool;
+import org.apache.directory.ldap.client.api.LdapNetworkConnection;
 import org.apache.directory.ldap.client.api.ValidatingPoolableLdapConnectionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,7 +55,13 @@ import org.slf4j.LoggerFactory;
  *   <li>Admin Connections - bound with ldap service account creds</li>
  *   <li>User Connections - unbound used for authentication</li>
  *   <li>Audit Log Connections - bound with slapo access log service account creds (OpenLDAP only)</li>
+ *   <li>Replica Connections - optional, bound with ldap service account creds to the servers listed in 'ldap.replica.hosts'</li>
  * </ul>
+ * <p>
+ * When replicas are configured, the read-only DAO methods on the hot path borrow with {@link #getReadConnection()} and are balanced
+ * across the replicas, see {@link ReplicaSet}.  Mutations always use the admin pool.  After any thread has written to the directory,
+ * every read goes to the admin pool for the next 'ldap.replica.sticky.millis', regardless of replication lag.  Most of these reads fill
+ * caches that are shared by every thread, so a lagging replica must not be able to put the state from before the write back into one.
  *
  * Each connection pool is initialized on first invocation of getInstance() which stores a reference to self used by subsequent callers.
  * <p>
@@ -68,6 +82,16 @@ public class LdapConnectionProvider
 
     private static final String ENABLE_LDAP_STARTTLS = "enable.ldap.starttls";
 
+    private static final String LDAP_REPLICA_HOSTS = "ldap.replica.hosts";
+    private static final String LDAP_REPLICA_BALANCE = "ldap.replica.balance";
+    private static final String LDAP_REPLICA_HEALTH_INTERVAL = "ldap.replica.health.interval";
+    private static final String LDAP_REPLICA_STICKY = "ldap.replica.sticky.millis";
+
+    private static final String LDAP_POOL_TEST_ON_BORROW = "ldap.pool.test.on.borrow";
+    private static final String LDAP_POOL_EVICTION_INTERVAL = "ldap.pool.eviction.interval";
+    private static final String LDAP_POOL_MAX_WAIT = "ldap.pool.max.wait";
+    private static final String LDAP_POOL_PREWARM = "ldap.pool.prewarm";
+
     private boolean IS_SSL;
     private boolean IS_SET_TRUST_STORE_PROP;
     private boolean IS_SSL_DEBUG;
@@ -87,6 +111,24 @@ public class LdapConnectionProvider
      */
     private static LdapConnectionPool userPool;
 
+    /**
+     * The coordinates of the Admin connections, used to open the ones that are not pooled
+     */
+    private static LdapConnectionConfig adminConfig;
+
+    /**
+     * The Replica connection pools, null unless 'ldap.replica.hosts' is set
+     */
+    private static ReplicaSet replicaSet;
+
+    /**
+     * Borrow latencies of the connection pools
+     */
+    private static final Timer ADMIN_BORROW_TMR = Metrics.getInstance().getTimer( "pool.admin.borrow" );
+    private static final Timer LOG_BORROW_TMR = Metrics.getInstance().getTimer( "pool.log.borrow" );
+    private static final Timer USER_BORROW_TMR = Metrics.getInstance().getTimer( "pool.user.borrow" );
+    private static final Timer READ_BORROW_TMR = Metrics.getInstance().getTimer( "pool.read.borrow" );
+
     private static volatile LdapConnectionProvider INSTANCE = null;
 
     /**
@@ -212,24 +254,16 @@ public class LdapConnectionProvider
             throw new CfgRuntimeException( GlobalErrIds.FT_APACHE_LDAP_POOL_INIT_FAILED, error, ex );
         }
 
+        adminConfig = config;
         PoolableObjectFactory<LdapConnection> poolFactory = new ValidatingPoolableLdapConnectionFactory( config );
 
         // Create the Admin pool
         adminPool = new LdapConnectionPool( poolFactory );
-        adminPool.setTestOnBorrow( true );
-        adminPool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_GROW );
-        adminPool.setMaxActive( max );
-        adminPool.setMinIdle( min );
-        adminPool.setMaxIdle( -1 );
-        //adminPool.setMaxWait( 0 );
+        configurePool( adminPool, min, max );
 
         // Create the User pool
         userPool = new LdapConnectionPool( poolFactory );
-        userPool.setTestOnBorrow( true );
-        userPool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_GROW );
-        userPool.setMaxActive( max );
-        userPool.setMinIdle( min );
-        userPool.setMaxIdle( -1 );
+        configurePool( userPool, min, max );
 
         // This pool of access log connections is used by {@link org.apache.directory.fortress.AuditMgr}.
         // To enable, set {@code log.admin.user} && {@code log.admin.pw} inside fortress.properties file:
@@ -267,11 +301,189 @@ public class LdapConnectionProvider
             logConfig.setCredentials( logPw );
             poolFactory = new ValidatingPoolableLdapConnectionFactory( logConfig );
             logPool = new LdapConnectionPool( poolFactory );
-            logPool.setTestOnBorrow( true );
-            logPool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_GROW );
-            logPool.setMaxActive( logmax );
-            logPool.setMinIdle( logmin );
+            configurePool( logPool, logmin, logmax );
+            registerGauges( "pool.log", logPool );
+            prewarm( "pool.log", logPool, logmin );
+        }
+
+        registerGauges( "pool.admin", adminPool );
+        registerGauges( "pool.user", userPool );
+        prewarm( "pool.admin", adminPool, min );
+        prewarm( "pool.user", userPool, min );
+
+        String replicaHosts = Config.getInstance().getProperty( LDAP_REPLICA_HOSTS );
+        if ( StringUtils.isNotEmpty( replicaHosts ) )
+        {
+            initReplicas( config, replicaHosts, port, min, max );
+        }
+    }
+
+
+    /**
+     * Create a connection pool for every replica server and the set that balances reads across them.
+     *
+     * @param config       contains the coordinates of the provider, which are copied to the replicas.
+     * @param replicaHosts comma separated list of host or host:port.
+     * @param defaultPort  port to use when a replica does not specify one.
+     * @param min          minimum number of idle connections in each replica pool.
+     * @param max          maximum number of active connections in each replica pool.
+     */
+    private void initReplicas( LdapConnectionConfig config, String replicaHosts, int defaultPort, int min, int max )
+    {
+        List<ReplicaSet.Replica> replicas = new ArrayList<>();
+        for ( String replicaHost : StringUtils.split( replicaHosts, ',' ) )
+        {
+            String host = replicaHost.trim();
+            int port = defaultPort;
+            int idx = host.lastIndexOf( ':' );
+            if ( idx > 0 )
+            {
+                port = Integer.parseInt( host.substring( idx + 1 ).trim() );
+                host = host.substring( 0, idx ).trim();
+            }
+
+            LdapConnectionConfig replicaConfig = new LdapConnectionConfig();
+            replicaConfig.setLdapHost( host );
+            replicaConfig.setLdapPort( port );
+            replicaConfig.setName( config.getName() );
+            replicaConfig.setCredentials( config.getCredentials() );
+            replicaConfig.setUseSsl( config.isUseSsl() );
+            replicaConfig.setUseTls( config.isUseTls() );
+            if ( config.getTrustManagers() != null )
+            {
+                replicaConfig.setTrustManagers( config.getTrustManagers() );
+            }
+            replicaConfig.setLdapApiService( config.getLdapApiService() );
+
+            LdapConnectionPool replicaPool = new LdapConnectionPool( new ValidatingPoolableLdapConnectionFactory(
+                replicaConfig ) );
+            configurePool( replicaPool, min, max );
+
+            String name = host + ":" + port;
+            registerGauges( "pool.replica." + name, replicaPool );
+            prewarm( "pool.replica." + name, replicaPool, min );
+            replicas.add( new ReplicaSet.Replica( name, replicaPool ) );
+            LOG.info( "LDAP REPLICA POOL:  host=[{}], port=[{}], min=[{}], max=[{}]", host, port, min, max );
+        }
+
+        ReplicaSet.Balance balance = ReplicaSet.Balance.ROUND_ROBIN;
+        if ( "least-outstanding".equalsIgnoreCase( Config.getInstance().getProperty( LDAP_REPLICA_BALANCE ) ) )
+        {
+            balance = ReplicaSet.Balance.LEAST_OUTSTANDING;
+        }
+        replicaSet = new ReplicaSet( replicas, balance, Config.getInstance().getInt( LDAP_REPLICA_HEALTH_INTERVAL, 30 ),
+            Config.getInstance().getInt( LDAP_REPLICA_STICKY, ( int ) TimeUnit.SECONDS.toMillis( 5 ) ) );
+    }
+
+
+    /**
+     * Apply the validation and exhaustion policy to a pool.
+     * <p>
+     * By default connections are validated on every borrow and the pool grows past max when exhausted.  When
+     * 'ldap.pool.test.on.borrow' is 'false', idle connections are validated instead by an eviction thread that runs every
+     * 'ldap.pool.eviction.interval' seconds, which also keeps the pool filled to min, so a borrow only takes a connection off the
+     * queue.  When 'ldap.pool.max.wait' is set, max is a hard limit and a borrow waits that many milliseconds for a connection
+     * before it fails.
+     *
+     * @param pool contains the connections.
+     * @param min  minimum number of idle connections.
+     * @param max  maximum number of active connections.
+     */
+    private static void configurePool( LdapConnectionPool pool, int min, int max )
+    {
+        pool.setMaxActive( max );
+        pool.setMinIdle( min );
+        pool.setMaxIdle( -1 );
+
+        if ( Config.getInstance().getBoolean( LDAP_POOL_TEST_ON_BORROW, true ) )
+        {
+            pool.setTestOnBorrow( true );
+        }
+        else
+        {
+            pool.setTestOnBorrow( false );
+            pool.setTestWhileIdle( true );
+            pool.setTimeBetweenEvictionRunsMillis( TimeUnit.SECONDS.toMillis( Config.getInstance().getInt(
+                LDAP_POOL_EVICTION_INTERVAL, 30 ) ) );
+            // Test every idle connection on each run, and leave them in the pool regardless of age:
+            pool.setNumTestsPerEvictionRun( -1 );
+            pool.setMinEvictableIdleTimeMillis( -1 );
+        }
+
+        int maxWait = Config.getInstance().getInt( LDAP_POOL_MAX_WAIT, -1 );
+        if ( maxWait > 0 )
+        {
+            pool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_BLOCK );
+            pool.setMaxWait( maxWait );
+        }
+        else
+        {
+            pool.setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_GROW );
+        }
+    }
+
+
+    /**
+     * Open min connections when fortress config param: 'ldap.pool.prewarm' is 'true', so the first requests after startup do not
+     * pay for the connects and binds.  A failure is logged and leaves the pool to connect on demand.
+     *
+     * @param name name of the pool, for logging.
+     * @param pool contains the connections.
+     * @param min  minimum number of idle connections.
+     */
+    private static void prewarm( String name, LdapConnectionPool pool, int min )
+    {
+        if ( !Config.getInstance().getBoolean( LDAP_POOL_PREWARM, false ) )
+        {
+            return;
         }
+        try
+        {
+            for ( int i = pool.getNumIdle(); i < min; i++ )
+            {
+                pool.addObject();
+            }
+            LOG.info( "prewarm [{}] idle connections [{}]", name, pool.getNumIdle() );
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( "prewarm [{}] caught Exception={}", name, e.getMessage() );
+        }
+    }
+
+
+    /**
+     * Publish the number of active and idle connections of a pool, along with its max, to {@link Metrics}.
+     *
+     * @param name prefix of the gauge names.
+     * @param pool contains the connections.
+     */
+    private static void registerGauges( String name, final LdapConnectionPool pool )
+    {
+        Metrics.getInstance().register( name + ".active", new Gauge()
+        {
+            @Override
+            public long getValue()
+            {
+                return pool.getNumActive();
+            }
+        } );
+        Metrics.getInstance().register( name + ".idle", new Gauge()
+        {
+            @Override
+            public long getValue()
+            {
+                return pool.getNumIdle();
+            }
+        } );
+        Metrics.getInstance().register( name + ".max", new Gauge()
+        {
+            @Override
+            public long getValue()
+            {
+                return pool.getMaxActive();
+            }
+        } );
     }
 
 
@@ -311,6 +523,20 @@ public class LdapConnectionProvider
     }
 
 
+    /**
+     * Return a connection that was borrowed with {@link #getReadConnection()} to the pool it came from.
+     *
+     * @param connection handle to ldap connection object.
+     */
+    public void closeReadConnection( LdapConnection connection )
+    {
+        if ( replicaSet == null || !replicaSet.releaseConnection( connection ) )
+        {
+            closeAdminConnection( connection );
+        }
+    }
+
+
     /**
      * Calls the PoolMgr to close the User LDAP connection.
      *
@@ -329,6 +555,18 @@ public class LdapConnectionProvider
     }
 
 
+    /**
+     * Return the number of connections currently borrowed from the admin pool.  Connections that are never given back show up
+     * here, so this is also used by tests to check that they are.
+     *
+     * @return int value.
+     */
+    public int getNumActiveAdminConnections()
+    {
+        return adminPool.getNumActive();
+    }
+
+
     /**
      * Calls the PoolMgr to get an Admin connection to the LDAP server.
      *
@@ -337,14 +575,102 @@ public class LdapConnectionProvider
      */
     public LdapConnection getAdminConnection() throws LdapException
     {
+        long start = ADMIN_BORROW_TMR.start();
         try
         {
             return adminPool.getConnection();
         }
+        catch ( NoSuchElementException e )
+        {
+            Metrics.getInstance().increment( "pool.admin.exhausted" );
+            throw new LdapException( e.getMessage(), e );
+        }
         catch ( Exception e )
         {
             throw new LdapException( e.getMessage(), e );
         }
+        finally
+        {
+            ADMIN_BORROW_TMR.stop( start );
+        }
+    }
+
+
+    /**
+     * Open a dedicated Admin connection that is not pooled.  It is meant for callers that keep a connection for their lifetime and
+     * send many requests on it without waiting for the replies, such as the RBAC accelerator pipeline.  The caller must close it.
+     *
+     * @return bound ldap connection.
+     * @throws LdapException If the connection could not be opened or bound.
+     */
+    public LdapAsyncConnection openAdminConnection() throws LdapException
+    {
+        LdapNetworkConnection connection = new LdapNetworkConnection( adminConfig );
+        try
+        {
+            connection.bind();
+        }
+        catch ( LdapException e )
+        {
+            try
+            {
+                connection.close();
+            }
+            catch ( IOException ioe )
+            {
+                LOG.warn( "openAdminConnection close failed: " + ioe.getMessage() );
+            }
+            throw e;
+        }
+        return connection;
+    }
+
+
+    /**
+     * Get a connection for a read-only operation.  It comes from one of the replicas when they are configured, or from the admin
+     * pool when they are not, when they are all down, or when any thread has written within the last 'ldap.replica.sticky.millis'.
+     * The connection must be returned with {@link #closeReadConnection(LdapConnection)}.
+     *
+     * @return ldap connection.
+     * @throws LdapException If we had an issue getting an LDAP connection
+     */
+    public LdapConnection getReadConnection() throws LdapException
+    {
+        if ( replicaSet == null || replicaSet.isSticky() )
+        {
+            return getAdminConnection();
+        }
+
+        LdapConnection connection;
+        long start = READ_BORROW_TMR.start();
+        try
+        {
+            connection = replicaSet.getConnection();
+        }
+        finally
+        {
+            READ_BORROW_TMR.stop( start );
+        }
+
+        if ( connection == null )
+        {
+            // Every replica is down, fail over to the provider:
+            return getAdminConnection();
+        }
+
+        return connection;
+    }
+
+
+    /**
+     * Record that the directory has been written to so that reads stay on the admin pool for a while.
+     */
+    public void markWrite()
+    {
+        if ( replicaSet != null )
+        {
+            replicaSet.markWrite();
+        }
     }
 
 
@@ -356,14 +682,24 @@ public class LdapConnectionProvider
      */
     public LdapConnection getLogConnection() throws LdapException
     {
+        long start = LOG_BORROW_TMR.start();
         try
         {
             return logPool.getConnection();
         }
+        catch ( NoSuchElementException e )
+        {
+            Metrics.getInstance().increment( "pool.log.exhausted" );
+            throw new LdapException( e.getMessage(), e );
+        }
         catch ( Exception e )
         {
             throw new LdapException( e.getMessage(), e );
         }
+        finally
+        {
+            LOG_BORROW_TMR.stop( start );
+        }
     }
 
 
@@ -375,14 +711,24 @@ public class LdapConnectionProvider
      */
     public LdapConnection getUserConnection() throws LdapException
     {
+        long start = USER_BORROW_TMR.start();
         try
         {
             return userPool.getConnection();
         }
+        catch ( NoSuchElementException e )
+        {
+            Metrics.getInstance().increment( "pool.user.exhausted" );
+            throw new LdapException( e.getMessage(), e );
+        }
         catch ( Exception e )
         {
             throw new LdapException( e.getMessage(), e );
         }
+        finally
+        {
+            USER_BORROW_TMR.stop( start );
+        }
     }
 
     /**
@@ -390,6 +736,9 @@ public class LdapConnectionProvider
      */
     public static void closeAllConnectionPools()
     {
+        // Write the authorization audit records still waiting in queue before the connections go away:
+        AuthZAuditWriter.shutdown();
+
         try
         {
             LOG.info( "Closing admin pool" );
@@ -410,6 +759,11 @@ public class LdapConnectionProvider
             LOG.warn( "Error closing user pool: " + e.getMessage() );
         }
 
+        if ( replicaSet != null )
+        {
+            replicaSet.close();
+        }
+
         try
         {
             LOG.info( "Closing log pool" );
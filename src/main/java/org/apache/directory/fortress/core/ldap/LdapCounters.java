@@ -20,84 +20,107 @@
 package org.apache.directory.fortress.core.ldap;
 
 
-import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
+import org.apache.directory.fortress.core.util.metrics.Timer;
 
 
 /**
- * This class handles simple counters that correspond to ldap operations.
+ * This class handles simple counters that correspond to ldap operations.  The counts are read from the 'ldap.*' timers of
+ * {@link Metrics} which also record the latency of each operation.
  *
  */
 public class LdapCounters
 {
-    private AtomicInteger readCtr = new AtomicInteger( 0 );
-    private AtomicInteger searchCtr = new AtomicInteger( 0 );
-    private AtomicInteger compareCtr = new AtomicInteger( 0 );
-    private AtomicInteger addCtr = new AtomicInteger( 0 );
-    private AtomicInteger modCtr = new AtomicInteger( 0 );
-    private AtomicInteger deleteCtr = new AtomicInteger( 0 );
-    private AtomicInteger bindCtr = new AtomicInteger( 0 );
+    static final String READ = "ldap.read";
+    static final String SEARCH = "ldap.search";
+    static final String COMPARE = "ldap.compare";
+    static final String ADD = "ldap.add";
+    static final String MOD = "ldap.modify";
+    static final String DELETE = "ldap.delete";
+    static final String BIND = "ldap.bind";
+
+    private final Timer readTmr = Metrics.getInstance().getTimer( READ );
+    private final Timer searchTmr = Metrics.getInstance().getTimer( SEARCH );
+    private final Timer compareTmr = Metrics.getInstance().getTimer( COMPARE );
+    private final Timer addTmr = Metrics.getInstance().getTimer( ADD );
+    private final Timer modTmr = Metrics.getInstance().getTimer( MOD );
+    private final Timer deleteTmr = Metrics.getInstance().getTimer( DELETE );
+    private final Timer bindTmr = Metrics.getInstance().getTimer( BIND );
 
 
     /**
      * Increment the search counter.
+     * @deprecated the operation is recorded with its latency by {@link LdapDataProvider}.
      */
+    @Deprecated
     public void incrementSearch()
     {
-        searchCtr.incrementAndGet();
+        searchTmr.record( 0 );
     }
 
 
     /**
      * Increment the read counter.
+     * @deprecated the operation is recorded with its latency by {@link LdapDataProvider}.
      */
+    @Deprecated
     public void incrementRead()
     {
-        readCtr.incrementAndGet();
+        readTmr.record( 0 );
     }
 
 
     /**
      * Increment the compare counter.
+     * @deprecated the operation is recorded with its latency by {@link LdapDataProvider}.
      */
+    @Deprecated
     public void incrementCompare()
     {
-        compareCtr.incrementAndGet();
+        compareTmr.record( 0 );
     }
 
 
     /**
      *  Increment the add counter.
+     * @deprecated the operation is recorded with its latency by {@link LdapDataProvider}.
      */
+    @Deprecated
     public void incrementAdd()
     {
-        addCtr.incrementAndGet();
+        addTmr.record( 0 );
     }
 
 
     /**
      *  Increment the mod counter.
+     * @deprecated the operation is recorded with its latency by {@link LdapDataProvider}.
      */
+    @Deprecated
     public void incrementMod()
     {
-        modCtr.incrementAndGet();
+        modTmr.record( 0 );
     }
 
 
     /**
      *  Increment the delete counter.
+     * @deprecated the operation is recorded with its latency by {@link LdapDataProvider}.
      */
+    @Deprecated
     public void incrementDelete()
     {
-        deleteCtr.incrementAndGet();
+        deleteTmr.record( 0 );
     }
 
     /**
      *  Increment the bind counter.
+     * @deprecated the operation is recorded with its latency by {@link LdapDataProvider}.
      */
-
+    @Deprecated
     public void incrementBind()
     {
-        bindCtr.incrementAndGet();
+        bindTmr.record( 0 );
     }
 
 
@@ -107,7 +130,7 @@ public class LdapCounters
      */
     public long getSearch()
     {
-        return searchCtr.intValue();
+        return searchTmr.getCount();
     }
 
 
@@ -117,7 +140,7 @@ public class LdapCounters
      */
     public long getRead()
     {
-        return readCtr.intValue();
+        return readTmr.getCount();
     }
 
 
@@ -127,7 +150,7 @@ public class LdapCounters
      */
     public long getCompare()
     {
-        return compareCtr.intValue();
+        return compareTmr.getCount();
     }
 
 
@@ -137,7 +160,7 @@ public class LdapCounters
      */
     public long getAdd()
     {
-        return addCtr.intValue();
+        return addTmr.getCount();
     }
 
 
@@ -147,7 +170,7 @@ public class LdapCounters
      */
     public long getMod()
     {
-        return modCtr.intValue();
+        return modTmr.getCount();
     }
 
 
@@ -157,7 +180,7 @@ public class LdapCounters
      */
     public long getDelete()
     {
-        return deleteCtr.intValue();
+        return deleteTmr.getCount();
     }
 
 
@@ -167,6 +190,6 @@ public class LdapCounters
      */
     public long getBind()
     {
-        return bindCtr.intValue();
+        return bindTmr.getCount();
     }
-}
\ No newline at end of file
+}
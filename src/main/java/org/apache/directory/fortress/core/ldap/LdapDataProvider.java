@@ -69,6 +69,8 @@ import org.apache.directory.fortress.core.model.FortEntity;
 import org.apache.directory.fortress.core.model.Hier;
 import org.apache.directory.fortress.core.model.Relationship;
 import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
+import org.apache.directory.fortress.core.util.metrics.Timer;
 import org.apache.directory.ldap.client.api.LdapConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,6 +94,13 @@ public abstract class LdapDataProvider
 
     private static final int MAX_DEPTH = 100;
     private static final LdapCounters COUNTERS = new LdapCounters();
+    private static final Timer READ_TMR = Metrics.getInstance().getTimer( LdapCounters.READ );
+    private static final Timer SEARCH_TMR = Metrics.getInstance().getTimer( LdapCounters.SEARCH );
+    private static final Timer COMPARE_TMR = Metrics.getInstance().getTimer( LdapCounters.COMPARE );
+    private static final Timer ADD_TMR = Metrics.getInstance().getTimer( LdapCounters.ADD );
+    private static final Timer MOD_TMR = Metrics.getInstance().getTimer( LdapCounters.MOD );
+    private static final Timer DELETE_TMR = Metrics.getInstance().getTimer( LdapCounters.DELETE );
+    private static final Timer BIND_TMR = Metrics.getInstance().getTimer( LdapCounters.BIND );
 
     private static final PasswordPolicy PP_REQ_CTRL = new PasswordPolicyImpl();
     
@@ -108,32 +117,7 @@ public abstract class LdapDataProvider
      */
     protected String getRootDn( String contextId, String root )
     {
-        String szDn = Config.getInstance().getProperty( root );
-
-        // The contextId must not be null, or "HOME" or "null"
-        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equalsIgnoreCase( GlobalIds.NULL ) && !contextId
-            .equals( GlobalIds.HOME ) )
-        {
-          int idx = szDn.indexOf( Config.getInstance().getProperty( GlobalIds.SUFFIX ) );
-          if ( idx > 0 )
-            {
-                // Found. The DN is ,ou=<contextId>,
-                StringBuilder dn = new StringBuilder();
-                dn.append( szDn.substring( 0, idx - 1 ) ).append( "," ).append( SchemaConstants.OU_AT ).append( "=" )
-                    .append(
-                        contextId ).append( "," ).append( szDn.substring( idx ) );
-
-                return dn.toString();
-            }
-            else
-            {
-                return "";
-            }
-        }
-        else
-        {
-            return szDn;
-        }
+        return DnRegistry.getRootDn( contextId, root );
     }
 
     /**
@@ -144,18 +128,7 @@ public abstract class LdapDataProvider
      */
     protected String getRootDn( String contextId )
     {
-        StringBuilder dn = new StringBuilder();
-        if ( StringUtils.isNotEmpty( contextId ) && !contextId.equalsIgnoreCase( GlobalIds.NULL ) && !contextId
-            .equals( GlobalIds.HOME ) )
-        {
-            dn.append( SchemaConstants.OU_AT ).append( "=" ).append( contextId ).append( "," +
-                "" ).append( Config.getInstance().getProperty( GlobalIds.SUFFIX ) );
-        }
-        else
-        {
-            dn.append( Config.getInstance().getProperty( GlobalIds.SUFFIX ) );
-        }
-        return dn.toString();
+        return DnRegistry.getRootDn( contextId );
     }
 
 
@@ -170,9 +143,15 @@ public abstract class LdapDataProvider
      */
     protected Entry read( LdapConnection connection, String dn, String[] attrs ) throws LdapException
     {
-        COUNTERS.incrementRead();
-
-        return connection.lookup( dn, attrs );
+        long start = READ_TMR.start();
+        try
+        {
+            return connection.lookup( DnRegistry.getDn( dn ), attrs );
+        }
+        finally
+        {
+            READ_TMR.stop( start );
+        }
     }
 
 
@@ -187,9 +166,15 @@ public abstract class LdapDataProvider
      */
     protected Entry read( LdapConnection connection, Dn dn, String[] attrs ) throws LdapException
     {
-        COUNTERS.incrementRead();
-
-        return connection.lookup( dn, attrs );
+        long start = READ_TMR.start();
+        try
+        {
+            return connection.lookup( dn, attrs );
+        }
+        finally
+        {
+            READ_TMR.stop( start );
+        }
     }
 
 
@@ -208,9 +193,15 @@ public abstract class LdapDataProvider
      */
     protected Entry read( LdapConnection connection, String dn, String[] attrs, String userDn ) throws LdapException
     {
-        COUNTERS.incrementRead();
-
-        return connection.lookup( dn, attrs );
+        long start = READ_TMR.start();
+        try
+        {
+            return connection.lookup( DnRegistry.getDn( dn ), attrs );
+        }
+        finally
+        {
+            READ_TMR.stop( start );
+        }
     }
 
 
@@ -223,8 +214,16 @@ public abstract class LdapDataProvider
      */
     protected void add( LdapConnection connection, Entry entry ) throws LdapException
     {
-        COUNTERS.incrementAdd();
-        connection.add( entry );
+        markWrite();
+        long start = ADD_TMR.start();
+        try
+        {
+            connection.add( entry );
+        }
+        finally
+        {
+            ADD_TMR.stop( start );
+        }
     }
 
 
@@ -238,8 +237,6 @@ public abstract class LdapDataProvider
      */
     protected void add( LdapConnection connection, Entry entry, FortEntity entity ) throws LdapException
     {
-        COUNTERS.incrementAdd();
-
         if ( !Config.getInstance().isAuditDisabled() && ( entity != null ) && ( entity.getAdminSession() != null ) )
         {
             if ( StringUtils.isNotEmpty( entity.getAdminSession().getInternalUserId() ) )
@@ -258,7 +255,16 @@ public abstract class LdapDataProvider
             }
         }
 
-        connection.add( entry );
+        markWrite();
+        long start = ADD_TMR.start();
+        try
+        {
+            connection.add( entry );
+        }
+        finally
+        {
+            ADD_TMR.stop( start );
+        }
     }
 
 
@@ -272,9 +278,17 @@ public abstract class LdapDataProvider
      */
     protected void modify( LdapConnection connection, String dn, List<Modification> mods ) throws LdapException
     {
-        COUNTERS.incrementMod();
-        connection.modify( dn, mods.toArray( new Modification[]
-            {} ) );
+        markWrite();
+        long start = MOD_TMR.start();
+        try
+        {
+            connection.modify( dn, mods.toArray( new Modification[]
+                {} ) );
+        }
+        finally
+        {
+            MOD_TMR.stop( start );
+        }
     }
 
 
@@ -288,9 +302,17 @@ public abstract class LdapDataProvider
      */
     protected void modify( LdapConnection connection, Dn dn, List<Modification> mods ) throws LdapException
     {
-        COUNTERS.incrementMod();
-        connection.modify( dn, mods.toArray( new Modification[]
-            {} ) );
+        markWrite();
+        long start = MOD_TMR.start();
+        try
+        {
+            connection.modify( dn, mods.toArray( new Modification[]
+                {} ) );
+        }
+        finally
+        {
+            MOD_TMR.stop( start );
+        }
     }
 
 
@@ -306,10 +328,18 @@ public abstract class LdapDataProvider
     protected void modify( LdapConnection connection, String dn, List<Modification> mods,
         FortEntity entity ) throws LdapException
     {
-        COUNTERS.incrementMod();
         audit( mods, entity );
-        connection.modify( dn, mods.toArray( new Modification[]
-            {} ) );
+        markWrite();
+        long start = MOD_TMR.start();
+        try
+        {
+            connection.modify( dn, mods.toArray( new Modification[]
+                {} ) );
+        }
+        finally
+        {
+            MOD_TMR.stop( start );
+        }
     }
 
 
@@ -325,10 +355,18 @@ public abstract class LdapDataProvider
     protected void modify( LdapConnection connection, Dn dn, List<Modification> mods,
         FortEntity entity ) throws LdapException
     {
-        COUNTERS.incrementMod();
         audit( mods, entity );
-        connection.modify( dn, mods.toArray( new Modification[]
-            {} ) );
+        markWrite();
+        long start = MOD_TMR.start();
+        try
+        {
+            connection.modify( dn, mods.toArray( new Modification[]
+                {} ) );
+        }
+        finally
+        {
+            MOD_TMR.stop( start );
+        }
     }
 
 
@@ -341,8 +379,16 @@ public abstract class LdapDataProvider
      */
     protected void delete( LdapConnection connection, String dn ) throws LdapException
     {
-        COUNTERS.incrementDelete();
-        connection.delete( dn );
+        markWrite();
+        long start = DELETE_TMR.start();
+        try
+        {
+            connection.delete( dn );
+        }
+        finally
+        {
+            DELETE_TMR.stop( start );
+        }
     }
 
 
@@ -358,7 +404,6 @@ public abstract class LdapDataProvider
      */
     protected void delete( LdapConnection connection, String dn, FortEntity entity ) throws LdapException
     {
-        COUNTERS.incrementDelete();
         List<Modification> mods = new ArrayList<Modification>();
         audit( mods, entity );
 
@@ -367,7 +412,16 @@ public abstract class LdapDataProvider
             modify( connection, dn, mods );
         }
 
-        connection.delete( dn );
+        markWrite();
+        long start = DELETE_TMR.start();
+        try
+        {
+            connection.delete( dn );
+        }
+        finally
+        {
+            DELETE_TMR.stop( start );
+        }
     }
 
 
@@ -383,7 +437,6 @@ public abstract class LdapDataProvider
      */
     protected void delete( LdapConnection connection, Dn dn, FortEntity entity ) throws LdapException
     {
-        COUNTERS.incrementDelete();
         List<Modification> mods = new ArrayList<Modification>();
         audit( mods, entity );
 
@@ -392,7 +445,16 @@ public abstract class LdapDataProvider
             modify( connection, dn, mods );
         }
 
-        connection.delete( dn );
+        markWrite();
+        long start = DELETE_TMR.start();
+        try
+        {
+            connection.delete( dn );
+        }
+        finally
+        {
+            DELETE_TMR.stop( start );
+        }
     }
 
 
@@ -488,7 +550,6 @@ public abstract class LdapDataProvider
         }
 
         // delete the node:
-        COUNTERS.incrementDelete();
         delete( connection, dn );
     }
 
@@ -543,16 +604,22 @@ public abstract class LdapDataProvider
     protected SearchCursor search( LdapConnection connection, String baseDn, SearchScope scope, String filter,
         String[] attrs, boolean attrsOnly ) throws LdapException
     {
-        COUNTERS.incrementSearch();
-
         SearchRequest searchRequest = new SearchRequestImpl();
-        searchRequest.setBase( new Dn( baseDn ) );
+        searchRequest.setBase( DnRegistry.getDn( baseDn ) );
         searchRequest.setScope( scope );
         searchRequest.setFilter( filter );
         searchRequest.setTypesOnly( attrsOnly );
         searchRequest.addAttributes( attrs );
 
-        return connection.search( searchRequest );
+        long start = SEARCH_TMR.start();
+        try
+        {
+            return connection.search( searchRequest );
+        }
+        finally
+        {
+            SEARCH_TMR.stop( start );
+        }
     }
 
 
@@ -573,18 +640,24 @@ public abstract class LdapDataProvider
     protected SearchCursor search( LdapConnection connection, String baseDn, SearchScope scope, String filter,
         String[] attrs, boolean attrsOnly, int maxEntries ) throws LdapException
     {
-        COUNTERS.incrementSearch();
-
         SearchRequest searchRequest = new SearchRequestImpl();
 
-        searchRequest.setBase( new Dn( baseDn ) );
+        searchRequest.setBase( DnRegistry.getDn( baseDn ) );
         searchRequest.setFilter( filter );
         searchRequest.setScope( scope );
         searchRequest.setSizeLimit( maxEntries );
         searchRequest.setTypesOnly( attrsOnly );
         searchRequest.addAttributes( attrs );
 
-        return connection.search( searchRequest );
+        long start = SEARCH_TMR.start();
+        try
+        {
+            return connection.search( searchRequest );
+        }
+        finally
+        {
+            SEARCH_TMR.stop( start );
+        }
     }
 
 
@@ -608,13 +681,22 @@ public abstract class LdapDataProvider
     {
         SearchRequest searchRequest = new SearchRequestImpl();
 
-        searchRequest.setBase( new Dn( baseDn ) );
+        searchRequest.setBase( DnRegistry.getDn( baseDn ) );
         searchRequest.setFilter( filter );
         searchRequest.setScope( scope );
         searchRequest.setTypesOnly( attrsOnly );
         searchRequest.addAttributes( attrs );
 
-        SearchCursor result = connection.search( searchRequest );
+        SearchCursor result;
+        long start = SEARCH_TMR.start();
+        try
+        {
+            result = connection.search( searchRequest );
+        }
+        finally
+        {
+            SEARCH_TMR.stop( start );
+        }
 
         Entry entry = result.getEntry();
 
@@ -647,17 +729,24 @@ public abstract class LdapDataProvider
     protected Entry searchNode( LdapConnection connection, String baseDn, SearchScope scope, String filter,
         String[] attrs, boolean attrsOnly, String userDn ) throws LdapException, CursorException
     {
-        COUNTERS.incrementSearch();
-
         SearchRequest searchRequest = new SearchRequestImpl();
 
-        searchRequest.setBase( new Dn( baseDn ) );
+        searchRequest.setBase( DnRegistry.getDn( baseDn ) );
         searchRequest.setFilter( filter );
         searchRequest.setScope( scope );
         searchRequest.setTypesOnly( attrsOnly );
         searchRequest.addAttributes( attrs );
 
-        SearchCursor result = connection.search( searchRequest );
+        SearchCursor result;
+        long start = SEARCH_TMR.start();
+        try
+        {
+            result = connection.search( searchRequest );
+        }
+        finally
+        {
+            SEARCH_TMR.stop( start );
+        }
 
         Entry entry = result.getEntry();
 
@@ -690,10 +779,8 @@ public abstract class LdapDataProvider
     protected boolean compareNode( LdapConnection connection, String dn, String userDn,
         Attribute attribute ) throws LdapException, UnsupportedEncodingException
     {
-        COUNTERS.incrementCompare();
-
         CompareRequest compareRequest = new CompareRequestImpl();
-        compareRequest.setName( new Dn( dn ) );
+        compareRequest.setName( DnRegistry.getDn( dn ) );
         compareRequest.setAttributeId( attribute.getId() );
         compareRequest.setAssertionValue( attribute.getString() );
 
@@ -701,7 +788,16 @@ public abstract class LdapDataProvider
         ProxiedAuthz proxiedAuthzControl = new ProxiedAuthzImpl();
         proxiedAuthzControl.setAuthzId( "dn: " + userDn );
         compareRequest.addControl( proxiedAuthzControl );
-        CompareResponse response = connection.compare( compareRequest );
+        CompareResponse response;
+        long start = COMPARE_TMR.start();
+        try
+        {
+            response = connection.compare( compareRequest );
+        }
+        finally
+        {
+            COMPARE_TMR.stop( start );
+        }
         return response.getLdapResult().getResultCode() == ResultCodeEnum.SUCCESS;
     }
 
@@ -1191,13 +1287,20 @@ public abstract class LdapDataProvider
      */
     protected BindResponse bind( LdapConnection connection, String szUserDn, char[] password ) throws LdapException
     {
-        COUNTERS.incrementBind();
         Dn userDn = new Dn( szUserDn );
         BindRequest bindReq = new BindRequestImpl();
         bindReq.setDn( userDn );
         bindReq.setCredentials( new String( password ) );
         bindReq.addControl( PP_REQ_CTRL );
-        return connection.bind( bindReq );
+        long start = BIND_TMR.start();
+        try
+        {
+            return connection.bind( bindReq );
+        }
+        finally
+        {
+            BIND_TMR.stop( start );
+        }
     }
 
 
@@ -1246,6 +1349,39 @@ public abstract class LdapDataProvider
     }
 
 
+    /**
+     * Get a connection for a read-only operation, which may come from a replica, see
+     * {@link LdapConnectionProvider#getReadConnection()}.
+     *
+     * @return ldap connection.
+     * @throws LdapException If we had an issue getting an LDAP connection
+     */
+    protected LdapConnection getReadConnection() throws LdapException
+    {
+        return LdapConnectionProvider.getInstance().getReadConnection();
+    }
+
+
+    /**
+     * Return a connection that was borrowed with {@link #getReadConnection()}.
+     *
+     * @param connection handle to ldap connection object.
+     */
+    protected void closeReadConnection( LdapConnection connection )
+    {
+        LdapConnectionProvider.getInstance().closeReadConnection( connection );
+    }
+
+
+    /**
+     * Keep the reads of the calling thread on the provider after it has written, so it sees its own writes.
+     */
+    private static void markWrite()
+    {
+        LdapConnectionProvider.getInstance().markWrite();
+    }
+
+
     /**
      * Calls the PoolMgr to get an Log connection to the LDAP server.
      *
@@ -0,0 +1,329 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+import java.io.IOException;
+
+import org.apache.directory.api.ldap.model.cursor.CursorException;
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapOperationException;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.message.controls.PagedResultsImpl;
+import org.apache.directory.fortress.core.FinderException;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ResultCursor;
+import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
+import org.apache.directory.fortress.core.util.metrics.Timer;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class reads the results of an ldap search a page at a time using the RFC 2696 Simple Paged Results control.  When
+ * the entries of one page have been consumed the next page is requested using the cookie returned by the server, until the
+ * server returns an empty cookie.  The page size is set by fortress config param: 'ldap.page.size', which defaults to
+ * {@link GlobalIds#BATCH_SIZE}.  If the server does not support the control it returns the whole result set as a single page.
+ * <p>
+ * The cursor owns the connection it was created with and gives it back, by calling {@link #release(LdapConnection)}, as soon
+ * as the search is exhausted, fails or is closed.  When the cursor is closed before the last page, the rest of the current page
+ * is skipped to obtain its cookie, which is then sent with a page size of zero so the server discards the search's state rather
+ * than holding it until it times out.  Subclasses convert each entry into an entity in {@link #unload(Entry, long)}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <T> the type of entity returned by the cursor.
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public abstract class PagedSearchCursor<T> implements ResultCursor<T>
+{
+    private static final String CLS_NM = PagedSearchCursor.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String PAGE_SIZE = "ldap.page.size";
+    private static final Timer SEARCH_TMR = Metrics.getInstance().getTimer( LdapCounters.SEARCH );
+
+    private final SearchRequest request;
+    private final int pageSize;
+    private final int errorId;
+    private LdapConnection connection;
+    private SearchCursor cursor;
+    private byte[] cookie;
+    private boolean isDone;
+    private T current;
+    private long sequence;
+
+
+    /**
+     * Search for the first page of entries.  If this constructor throws the caller still owns the connection.
+     *
+     * @param connection is LdapConnection object used for all communication with host.
+     * @param baseDn     contains address of distinguished name to begin ldap search
+     * @param scope      indicates depth of search starting at basedn.
+     * @param filter     contains the search criteria
+     * @param attrs      is the requested list of attritubutes to return from directory search.
+     * @param errorId    is the error id, defined in {@link org.apache.directory.fortress.core.GlobalErrIds}, of the exception
+     *                   thrown when a later page can't be read.
+     * @throws LdapException thrown in the event of error in ldap client or server code.
+     */
+    protected PagedSearchCursor( LdapConnection connection, String baseDn, SearchScope scope, String filter,
+        String[] attrs, int errorId ) throws LdapException
+    {
+        this.request = new SearchRequestImpl();
+        this.request.setBase( DnRegistry.getDn( baseDn ) );
+        this.request.setScope( scope );
+        this.request.setFilter( filter );
+        this.request.addAttributes( attrs );
+        this.pageSize = Config.getInstance().getInt( PAGE_SIZE, GlobalIds.BATCH_SIZE );
+        this.errorId = errorId;
+        this.cursor = search( connection, null, pageSize );
+        this.connection = connection;
+    }
+
+
+    /**
+     * Convert the ldap entry into the entity returned by this cursor.
+     *
+     * @param entry    contains the ldap entry that was read.
+     * @param sequence is the position of the entry within the result set.
+     * @return entity containing the data of the entry.
+     * @throws LdapException thrown in the event of error in ldap client or server code.
+     */
+    protected abstract T unload( Entry entry, long sequence ) throws LdapException;
+
+
+    /**
+     * Give the connection back to the pool it was taken from.
+     *
+     * @param connection is LdapConnection object that was passed into the constructor.
+     */
+    protected abstract void release( LdapConnection connection );
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean next() throws FinderException
+    {
+        try
+        {
+            while ( cursor != null )
+            {
+                if ( cursor.next() )
+                {
+                    if ( cursor.isEntry() )
+                    {
+                        current = unload( cursor.getEntry(), sequence++ );
+                        return true;
+                    }
+                    continue;
+                }
+
+                cookie = getCookie( cursor.getSearchResultDone() );
+                closeCursor();
+
+                if ( cookie == null || cookie.length == 0 )
+                {
+                    break;
+                }
+
+                cursor = search( connection, cookie, pageSize );
+            }
+        }
+        catch ( LdapException e )
+        {
+            isDone = true;
+            close();
+            String error = "next base [" + request.getBase() + "] filter [" + request.getFilter()
+                + "] caught LdapException=" + e.getMessage();
+            throw new FinderException( errorId, error, e );
+        }
+        catch ( CursorException e )
+        {
+            isDone = true;
+            close();
+            String error = "next base [" + request.getBase() + "] filter [" + request.getFilter()
+                + "] caught CursorException=" + e.getMessage();
+            throw new FinderException( errorId, error, e );
+        }
+
+        isDone = true;
+        close();
+        return false;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get()
+    {
+        return current;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close()
+    {
+        if ( !isDone && connection != null )
+        {
+            isDone = true;
+            abandon();
+        }
+        closeCursor();
+        current = null;
+
+        if ( connection != null )
+        {
+            release( connection );
+            connection = null;
+        }
+    }
+
+
+    /**
+     * Tell the server that no more pages will be requested.  Per RFC 2696 this is a request with the cookie of the last page
+     * and a size of zero.  The rest of the current page has to be read first as its cookie comes after its entries.  Failures are
+     * only logged since the server will discard the search's state once it times out anyway.
+     */
+    private void abandon()
+    {
+        try
+        {
+            if ( cursor != null )
+            {
+                while ( cursor.next() )
+                {
+                    // Skip the entries that weren't asked for.
+                }
+                cookie = getCookie( cursor.getSearchResultDone() );
+                closeCursor();
+            }
+
+            if ( cookie != null && cookie.length > 0 )
+            {
+                cursor = search( connection, cookie, 0 );
+                while ( cursor.next() )
+                {
+                    // The server returns no entries, only its response.
+                }
+            }
+        }
+        catch ( LdapException e )
+        {
+            LOG.warn( "abandon base [{}] caught LdapException={}", request.getBase(), e.getMessage() );
+        }
+        catch ( CursorException e )
+        {
+            LOG.warn( "abandon base [{}] caught CursorException={}", request.getBase(), e.getMessage() );
+        }
+    }
+
+
+    /**
+     * Send the search request for a page of entries.
+     *
+     * @param connection is LdapConnection object used for all communication with host.
+     * @param cookie     returned by the server with the previous page, null for the first page.
+     * @param size       number of entries to return, zero to end the search.
+     * @return cursor positioned before the first entry of the page.
+     * @throws LdapException thrown in the event of error in ldap client or server code.
+     */
+    private SearchCursor search( LdapConnection connection, byte[] cookie, int size ) throws LdapException
+    {
+        PagedResults control = new PagedResultsImpl();
+        control.setSize( size );
+        control.setCookie( cookie );
+        request.addControl( control );
+
+        long start = SEARCH_TMR.start();
+        try
+        {
+            return connection.search( request );
+        }
+        finally
+        {
+            SEARCH_TMR.stop( start );
+        }
+    }
+
+
+    /**
+     * Return the cookie that is used to request the next page.
+     *
+     * @param done contains the result of the page that was just read.
+     * @return the cookie or null if this was the last page.
+     * @throws LdapException if the server failed the search.
+     */
+    private byte[] getCookie( SearchResultDone done ) throws LdapException
+    {
+        if ( done == null )
+        {
+            return null;
+        }
+
+        ResultCodeEnum resultCode = done.getLdapResult().getResultCode();
+        if ( resultCode != ResultCodeEnum.SUCCESS )
+        {
+            throw new LdapOperationException( resultCode, done.getLdapResult().getDiagnosticMessage() );
+        }
+
+        PagedResults control = ( PagedResults ) done.getControl( PagedResults.OID );
+        if ( control == null )
+        {
+            return null;
+        }
+
+        return control.getCookie();
+    }
+
+
+    /**
+     * Close the cursor of the current page.  The search is abandoned by the client api if it hadn't completed.
+     */
+    private void closeCursor()
+    {
+        if ( cursor != null )
+        {
+            try
+            {
+                cursor.close();
+            }
+            catch ( IOException e )
+            {
+                LOG.warn( "closeCursor base [{}] caught IOException={}", request.getBase(), e.getMessage() );
+            }
+            cursor = null;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.LdapConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Balances read connections across the connection pools of the replica servers and fails over between them.
+ * <p>
+ * A replica whose pool fails to supply a connection is marked down and skipped until the health check, which runs every
+ * 'ldap.replica.health.interval' seconds, has borrowed a valid connection from it again.  When every replica is down,
+ * {@link #getConnection()} returns null and the caller is expected to use the provider, see {@link LdapConnectionProvider}.
+ * <p>
+ * The set also tracks the time of the last write made by this process.  For 'ldap.replica.sticky.millis' afterwards {@link #isSticky()}
+ * is true and the caller is expected to read from the provider, so the results of reads, which are often cached by every thread, include
+ * the write even if it has not yet reached the replicas.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class ReplicaSet
+{
+    private static final String CLS_NM = ReplicaSet.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+
+    /**
+     * How the next replica is chosen.
+     */
+    enum Balance
+    {
+        /** Each read goes to the next replica in turn. */
+        ROUND_ROBIN,
+
+        /** Each read goes to the replica with the fewest connections in use. */
+        LEAST_OUTSTANDING
+    }
+
+    private final List<Replica> replicas;
+    private final Balance balance;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<LdapConnection, Replica> borrowed = Collections
+        .synchronizedMap( new IdentityHashMap<LdapConnection, Replica>() );
+    private final ScheduledExecutorService healthService;
+    private final long stickyMillis;
+    private volatile long lastWrite;
+
+
+    /**
+     * A replica server along with its pool of connections.
+     */
+    static final class Replica
+    {
+        private final String name;
+        private final LdapConnectionPool pool;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean isUp = true;
+
+
+        /**
+         * @param name contains host:port of the server.
+         * @param pool contains connections to the server.
+         */
+        Replica( String name, LdapConnectionPool pool )
+        {
+            this.name = name;
+            this.pool = pool;
+        }
+
+
+        /**
+         * @return host:port of the server.
+         */
+        String getName()
+        {
+            return name;
+        }
+
+
+        /**
+         * @return true unless the last attempt to borrow from this replica failed.
+         */
+        boolean isUp()
+        {
+            return isUp;
+        }
+    }
+
+
+    /**
+     * Create the set and start its health check.
+     *
+     * @param replicas       contains the replica servers, must not be empty.
+     * @param balance        how the next replica is chosen.
+     * @param healthInterval seconds between checks of the replicas that are down.
+     * @param stickyMillis   milliseconds after a write during which reads should go to the provider.
+     */
+    ReplicaSet( List<Replica> replicas, Balance balance, int healthInterval, long stickyMillis )
+    {
+        this.replicas = Collections.unmodifiableList( new ArrayList<>( replicas ) );
+        this.balance = balance;
+        this.stickyMillis = stickyMillis;
+        // No write has been made yet:
+        this.lastWrite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos( stickyMillis );
+        healthService = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+        {
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, "fortress-replica-health" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+        healthService.scheduleWithFixedDelay( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                checkHealth();
+            }
+        }, healthInterval, healthInterval, TimeUnit.SECONDS );
+        LOG.info( "ReplicaSet replicas [{}] balance [{}] health interval [{}] seconds sticky [{}] millis", this.replicas.size(),
+            balance, healthInterval, stickyMillis );
+    }
+
+
+    /**
+     * @return the replica servers of this set.
+     */
+    List<Replica> getReplicas()
+    {
+        return replicas;
+    }
+
+
+    /**
+     * Borrow a connection from the next replica that is up.  Replicas that fail to supply one are marked down and the one after
+     * is tried.  A replica whose pool is exhausted is skipped but not marked down.
+     *
+     * @return ldap connection, or null if no replica could supply one.
+     */
+    LdapConnection getConnection()
+    {
+        for ( Replica replica : order() )
+        {
+            if ( !replica.isUp )
+            {
+                continue;
+            }
+            try
+            {
+                LdapConnection connection = replica.pool.getConnection();
+                replica.outstanding.incrementAndGet();
+                borrowed.put( connection, replica );
+                return connection;
+            }
+            catch ( NoSuchElementException e )
+            {
+                // The pool is at its hard max, the server itself is fine:
+                LOG.debug( "getConnection replica [{}] exhausted, caught NoSuchElementException={}", replica.name,
+                    e.getMessage() );
+            }
+            catch ( Exception e )
+            {
+                replica.isUp = false;
+                LOG.warn( "getConnection replica [{}] marked down, caught Exception={}", replica.name, e.getMessage() );
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Record that this process has written to the directory.
+     */
+    void markWrite()
+    {
+        lastWrite = System.nanoTime();
+    }
+
+
+    /**
+     * @return true if this process has written to the directory within the last 'ldap.replica.sticky.millis'.
+     */
+    boolean isSticky()
+    {
+        return System.nanoTime() - lastWrite < TimeUnit.MILLISECONDS.toNanos( stickyMillis );
+    }
+
+
+    /**
+     * Return a connection to the pool of the replica it was borrowed from.
+     *
+     * @param connection handle to ldap connection object.
+     * @return false if the connection was not borrowed from this set.
+     */
+    boolean releaseConnection( LdapConnection connection )
+    {
+        Replica replica = borrowed.remove( connection );
+        if ( replica == null )
+        {
+            return false;
+        }
+        replica.outstanding.decrementAndGet();
+        try
+        {
+            replica.pool.releaseConnection( connection );
+        }
+        catch ( Exception e )
+        {
+            throw new RuntimeException( e.getMessage(), e );
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Stop the health check and close the pools of every replica.
+     */
+    void close()
+    {
+        healthService.shutdownNow();
+        for ( Replica replica : replicas )
+        {
+            try
+            {
+                LOG.info( "Closing replica pool [{}]", replica.name );
+                replica.pool.close();
+            }
+            catch ( Exception e )
+            {
+                LOG.warn( "Error closing replica pool [{}]: {}", replica.name, e.getMessage() );
+            }
+        }
+    }
+
+
+    /**
+     * @return the replicas in the order they should be tried for the next read.
+     */
+    private List<Replica> order()
+    {
+        int size = replicas.size();
+        List<Replica> ordered = new ArrayList<>( size );
+        if ( balance == Balance.LEAST_OUTSTANDING )
+        {
+            ordered.addAll( replicas );
+            Collections.sort( ordered, new Comparator<Replica>()
+            {
+                @Override
+                public int compare( Replica r1, Replica r2 )
+                {
+                    return Integer.compare( r1.outstanding.get(), r2.outstanding.get() );
+                }
+            } );
+        }
+        else
+        {
+            int start = ( next.getAndIncrement() & Integer.MAX_VALUE ) % size;
+            for ( int i = 0; i < size; i++ )
+            {
+                ordered.add( replicas.get( ( start + i ) % size ) );
+            }
+        }
+
+        return ordered;
+    }
+
+
+    /**
+     * Try to borrow a connection from every replica that is down, and mark it up again if one is supplied.
+     */
+    void checkHealth()
+    {
+        for ( Replica replica : replicas )
+        {
+            if ( replica.isUp )
+            {
+                continue;
+            }
+            try
+            {
+                // The pool validates the connection on borrow:
+                LdapConnection connection = replica.pool.getConnection();
+                replica.pool.releaseConnection( connection );
+                replica.isUp = true;
+                LOG.info( "checkHealth replica [{}] is up", replica.name );
+            }
+            catch ( Exception e )
+            {
+                LOG.debug( "checkHealth replica [{}] still down, caught Exception={}", replica.name, e.getMessage() );
+            }
+        }
+    }
+}
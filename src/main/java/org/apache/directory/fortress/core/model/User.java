@@ -34,6 +34,8 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
+import org.apache.directory.fortress.core.util.time.ParsedConstraint;
+
 
 /**
  * All entities ({@link User}, {@link org.apache.directory.fortress.core.model.Role}, 
@@ -296,6 +298,8 @@ public class User extends FortEntity implements Constraint, Serializable
     private String beginLockDate;
     private String endLockDate;
     private String dayMask;
+    @XmlTransient
+    private transient ParsedConstraint parsedConstraint;
     private String name;
     private String employeeType;
     private String title;
@@ -493,6 +497,95 @@ public class User extends FortEntity implements Constraint, Serializable
     }
 
 
+    /**
+     * Construct a copy of the given User.  Its lists, properties, address and role assignments are copied so the copy may be
+     * changed without affecting the original.  Used by Fortress Core to hand out cached entries.
+     *
+     * @param user contains the User entity to copy.
+     */
+    public User( User user )
+    {
+        this.modCode = user.modCode;
+        this.modId = user.modId;
+        this.adminSession = user.adminSession;
+        this.sequenceId = user.sequenceId;
+        this.contextId = user.contextId;
+        this.userId = user.userId;
+        this.password = user.password != null ? user.password.clone() : null;
+        this.newPassword = user.newPassword != null ? user.newPassword.clone() : null;
+        this.internalId = user.internalId;
+        if ( user.roles != null )
+        {
+            this.roles = new ArrayList<>( user.roles.size() );
+            for ( UserRole role : user.roles )
+            {
+                this.roles.add( new UserRole( role ) );
+            }
+        }
+        if ( user.adminRoles != null )
+        {
+            this.adminRoles = new ArrayList<>( user.adminRoles.size() );
+            for ( UserAdminRole role : user.adminRoles )
+            {
+                this.adminRoles.add( new UserAdminRole( role ) );
+            }
+        }
+        this.pwPolicy = user.pwPolicy;
+        this.cn = user.cn;
+        this.sn = user.sn;
+        this.dn = user.dn;
+        this.ou = user.ou;
+        this.displayName = user.displayName;
+        this.description = user.description;
+        this.beginTime = user.beginTime;
+        this.endTime = user.endTime;
+        this.beginDate = user.beginDate;
+        this.endDate = user.endDate;
+        this.beginLockDate = user.beginLockDate;
+        this.endLockDate = user.endLockDate;
+        this.dayMask = user.dayMask;
+        this.parsedConstraint = user.parsedConstraint;
+        this.name = user.name;
+        this.employeeType = user.employeeType;
+        this.title = user.title;
+        this.timeout = user.timeout;
+        this.reset = user.reset;
+        this.locked = user.locked;
+        this.system = user.system;
+        if ( user.props != null )
+        {
+            this.addProperties( user.getProperties() );
+        }
+        else
+        {
+            this.props = null;
+        }
+        if ( user.address != null )
+        {
+            Address addr = user.address;
+            this.address = new Address();
+            this.address.setAddresses( new ArrayList<>( addr.getAddresses() ) );
+            this.address.setCity( addr.getCity() );
+            this.address.setState( addr.getState() );
+            this.address.setCountry( addr.getCountry() );
+            this.address.setPostalCode( addr.getPostalCode() );
+            this.address.setPostOfficeBox( addr.getPostOfficeBox() );
+            this.address.setBuilding( addr.getBuilding() );
+            this.address.setDepartmentNumber( addr.getDepartmentNumber() );
+            this.address.setRoomNumber( addr.getRoomNumber() );
+        }
+        this.phones = user.phones != null ? new ArrayList<>( user.phones ) : null;
+        this.mobiles = user.mobiles != null ? new ArrayList<>( user.mobiles ) : null;
+        this.emails = user.emails != null ? new ArrayList<>( user.emails ) : null;
+        this.jpegPhoto = user.jpegPhoto != null ? user.jpegPhoto.clone() : null;
+        this.uidNumber = user.uidNumber;
+        this.gidNumber = user.gidNumber;
+        this.homeDirectory = user.homeDirectory;
+        this.loginShell = user.loginShell;
+        this.gecos = user.gecos;
+    }
+
+
     /**
      * Used to retrieve User's valid userId attribute.  The Fortress userId maps to 'uid' for InetOrgPerson object class.
      *
@@ -1245,6 +1338,24 @@ public class User extends FortEntity implements Constraint, Serializable
     }
 
 
+    /**
+     * Return the temporal constraint values converted for use by the {@link org.apache.directory.fortress.core.util.time.Validator}s.
+     * The result is cached on this entity and rebuilt if any of the values have been changed since.
+     *
+     * @return ParsedConstraint containing the converted values.
+     */
+    public ParsedConstraint getParsedConstraint()
+    {
+        ParsedConstraint parsed = parsedConstraint;
+        if ( parsed == null || !parsed.isCurrent( this ) )
+        {
+            parsed = ParsedConstraint.parse( this );
+            parsedConstraint = parsed;
+        }
+        return parsed;
+    }
+
+
     /**
      * Set the daymask that specifies what days of week user is allowed to signon to system.  The format is 1234567, i.e. 23456 (Monday, Tuesday, Wednesday, Thursday, Friday).
      * This attribute is optional but if set will be validated for reasonableness.
@@ -150,6 +150,33 @@ public class UserAdminRole extends UserRole implements Administrator
     }
 
 
+    /**
+     * Construct a copy of the given UserAdminRole.  Its OS-P and OS-U sets are copied so the copy may be changed without affecting
+     * the original.
+     *
+     * @param role contains the UserAdminRole entity to copy.
+     */
+    public UserAdminRole( UserAdminRole role )
+    {
+        super( role );
+        if ( role.osPs != null )
+        {
+            this.osPs = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+            this.osPs.addAll( role.osPs );
+        }
+        if ( role.osUs != null )
+        {
+            this.osUs = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+            this.osUs.addAll( role.osUs );
+        }
+        this.beginRange = role.beginRange;
+        this.endRange = role.endRange;
+        this.beginInclusive = role.beginInclusive;
+        this.endInclusive = role.endInclusive;
+        this.parents = role.parents;
+    }
+
+
     /**
      * This method loads UserAdminRole entity temporal and ARBAC constraint instance variables with data that was retrieved from the
      * 'ftARC' attribute on the 'ftUserAttrs' object class.  This is the raw format that Fortress uses to condense the temporal and ARBAC data into
@@ -172,7 +199,7 @@ public class UserAdminRole extends UserRole implements Administrator
                     {
                         case 0:
                             name = tokens[i];
-                            parents = parentUtil.getParentsCB( name.toUpperCase(), contextId );
+                            setParents( parentUtil, contextId );
                             break;
 
                         case 1:
@@ -594,6 +621,10 @@ public class UserAdminRole extends UserRole implements Administrator
     @Override
     public Set<String> getParents()
     {
+        if ( parents == null )
+        {
+            parents = resolveParents();
+        }
         return parents;
     }
 
@@ -20,18 +20,23 @@
 package org.apache.directory.fortress.core.model;
 
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Set;
 
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlSeeAlso;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.bind.annotation.XmlType;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.time.ParsedConstraint;
 
 
 /**
@@ -89,8 +94,15 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     private String beginLockDate;
     private String endLockDate;
     private String dayMask;
+    @XmlTransient
+    private transient ParsedConstraint parsedConstraint;
     @XmlElement( nillable = true )
     private Set<String> parents;
+    // Looks up the parents on first use, see #setParents(ParentUtil, String):
+    @XmlTransient
+    private transient ParentUtil parentUtil;
+    @XmlTransient
+    private transient String parentContextId;
 
 
     /**
@@ -138,6 +150,35 @@ public class UserRole extends FortEntity implements Serializable, Constraint
         name = role;
     }
 
+
+    /**
+     * Construct a copy of the given UserRole.  The parents, if not yet looked up, are looked up by the copy on first use.
+     *
+     * @param role contains the UserRole entity to copy.
+     */
+    public UserRole( UserRole role )
+    {
+        this.modCode = role.modCode;
+        this.modId = role.modId;
+        this.adminSession = role.adminSession;
+        this.sequenceId = role.sequenceId;
+        this.contextId = role.contextId;
+        this.userId = role.userId;
+        this.name = role.name;
+        this.timeout = role.timeout;
+        this.beginTime = role.beginTime;
+        this.endTime = role.endTime;
+        this.beginDate = role.beginDate;
+        this.endDate = role.endDate;
+        this.beginLockDate = role.beginLockDate;
+        this.endLockDate = role.endLockDate;
+        this.dayMask = role.dayMask;
+        this.parsedConstraint = role.parsedConstraint;
+        this.parents = role.parents;
+        this.parentUtil = role.parentUtil;
+        this.parentContextId = role.parentContextId;
+    }
+
     /**
      * This method loads UserRole entity temporal constraint instance variables with data that was retrieved from the
      * 'ftRC' attribute on the 'ftUserAttrs' object class.  This is the raw format that Fortress uses to condense the
@@ -161,7 +202,7 @@ public class UserRole extends FortEntity implements Serializable, Constraint
                     {
                         case 0:
                             name = tokens[i];
-                            parents = parentUtil.getParentsCB( name.toUpperCase(), contextId );
+                            setParents( parentUtil, contextId );
                             break;
 
                         case 1:
@@ -552,6 +593,24 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     }
 
 
+    /**
+     * Return the temporal constraint values converted for use by the {@link org.apache.directory.fortress.core.util.time.Validator}s.
+     * The result is cached on this entity and rebuilt if any of the values have been changed since.
+     *
+     * @return ParsedConstraint containing the converted values.
+     */
+    public ParsedConstraint getParsedConstraint()
+    {
+        ParsedConstraint parsed = parsedConstraint;
+        if ( parsed == null || !parsed.isCurrent( this ) )
+        {
+            parsed = ParsedConstraint.parse( this );
+            parsedConstraint = parsed;
+        }
+        return parsed;
+    }
+
+
     /**
      * Get the names of roles that are parents (direct ascendants) of this role.
      *
@@ -559,6 +618,10 @@ public class UserRole extends FortEntity implements Serializable, Constraint
      */
     public Set<String> getParents()
     {
+        if ( parents == null )
+        {
+            parents = resolveParents();
+        }
         return parents;
     }
 
@@ -574,6 +637,57 @@ public class UserRole extends FortEntity implements Serializable, Constraint
     }
 
 
+    /**
+     * Defer the lookup of the parents of this role until {@link #getParents()} is first called.  Most callers never ask for
+     * the parents of every role a user has been assigned.  For internal use only.
+     *
+     * @param parentUtil provides method to getParents.
+     * @param contextId  contains the tenant id.
+     */
+    public void setParents( ParentUtil parentUtil, String contextId )
+    {
+        this.parentUtil = parentUtil;
+        this.parentContextId = contextId;
+    }
+
+
+    /**
+     * Look up the parents of this role with the {@link ParentUtil} passed to {@link #setParents(ParentUtil, String)}.
+     *
+     * @return Set of parent role names, or null if there is nothing to look them up with.
+     */
+    protected Set<String> resolveParents()
+    {
+        ParentUtil util = parentUtil;
+        if ( util == null || name == null )
+        {
+            return null;
+        }
+        Set<String> resolved = util.getParentsCB( name.toUpperCase(), parentContextId );
+        parentUtil = null;
+        return resolved;
+    }
+
+
+    /**
+     * The parents are looked up before this entity is serialized since the {@link ParentUtil} isn't.
+     */
+    private void writeObject( ObjectOutputStream out ) throws IOException
+    {
+        getParents();
+        out.defaultWriteObject();
+    }
+
+
+    /**
+     * The parents are looked up before this entity is marshalled since fields are accessed directly.
+     */
+    private void beforeMarshal( Marshaller marshaller )
+    {
+        getParents();
+    }
+
+
     /**
      * Matches the userId and role name from two UserRole entities.
      *
@@ -19,7 +19,9 @@
  */
 package org.apache.directory.fortress.core.rest;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -93,9 +95,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setEntity(new User(userId, password));
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_AUTHN);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_AUTHN );
         if (response.getErrorCode() == 0)
         {
             retSession = response.getSession();
@@ -119,17 +119,15 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setEntity(user);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse;
+        FortResponse response;
         if(isTrusted)
         {
-            szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_CREATE_TRUSTED);
+            response = RestUtils.getInstance().post(request, HttpIds.RBAC_CREATE_TRUSTED);
         }
         else
         {
-            szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_CREATE);
+            response = RestUtils.getInstance().post(request, HttpIds.RBAC_CREATE);
         }
-        FortResponse response = RestUtils.unmarshall(szResponse);
         if (response.getErrorCode() == 0)
         {
             retSession = response.getSession();
@@ -155,9 +153,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         request.setContextId(this.contextId);
         request.setSession(session);
         request.setEntity(perm);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_AUTHZ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_AUTHZ );
         if (response.getErrorCode() == 0)
         {
             result = response.getAuthorized();
@@ -171,6 +167,34 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The permissions of the session are retrieved from the server with one request, see {@link #sessionPermissions(Session)},
+     * and each permission in the list is matched against them.
+     */
+    @Override
+    public Map<Permission, Boolean> checkAccess(Session session, List<Permission> perms)
+        throws SecurityException
+    {
+        String methodName = CLS_NM + ".checkAccess";
+        VUtil.assertNotNull(perms, GlobalErrIds.PERM_NULL, methodName);
+        for (Permission perm : perms)
+        {
+            VUtil.assertNotNull(perm, GlobalErrIds.PERM_NULL, methodName);
+            VUtil.assertNotNullOrEmpty(perm.getOpName(), GlobalErrIds.PERM_OPERATION_NULL, methodName);
+            VUtil.assertNotNullOrEmpty(perm.getObjName(), GlobalErrIds.PERM_OBJECT_NULL, methodName);
+        }
+        // Permission.equals compares the object name, operation name and object id without regard to case:
+        List<Permission> sessionPerms = sessionPermissions(session);
+        Map<Permission, Boolean> results = new LinkedHashMap<>();
+        for (Permission perm : perms)
+        {
+            results.put(perm, sessionPerms != null && sessionPerms.contains(perm));
+        }
+        return results;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -183,9 +207,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_PERMS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_PERMS );
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -211,9 +233,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_ROLES );
         if (response.getErrorCode() == 0)
         {
             retRoles = response.getEntities();
@@ -239,9 +259,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_AUTHZ_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_AUTHZ_ROLES );
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -271,9 +289,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         request.setContextId(this.contextId);
         request.setSession(session);
         request.setEntity(role);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_ADD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_ADD );
         if (response.getErrorCode() == 0)
         {
             Session outSession = response.getSession();
@@ -299,9 +315,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         request.setContextId(this.contextId);
         request.setSession(session);
         request.setEntity(role);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_DROP);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_DROP );
         if (response.getErrorCode() == 0)
         {
             Session outSession = response.getSession();
@@ -325,9 +339,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_USERID);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_USERID );
         if (response.getErrorCode() == 0)
         {
             User outUser = (User) response.getEntity();
@@ -354,9 +366,7 @@ public class AccessMgrRestImpl extends Manageable implements AccessMgr
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.RBAC_USER);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.RBAC_USER );
         if (response.getErrorCode() == 0)
         {
             retUser = (User) response.getEntity();
@@ -20,7 +20,13 @@
 package org.apache.directory.fortress.core.rest;
 
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.directory.fortress.core.AdminMgr;
+import org.apache.directory.fortress.core.BatchException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.impl.Manageable;
@@ -94,9 +100,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retUser = ( User ) response.getEntity();
@@ -109,6 +113,34 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rest server has no batch service so each user is posted separately.
+     */
+    @Override
+    public List<User> addUsers( List<User> users )
+        throws SecurityException
+    {
+        VUtil.assertNotNull( users, GlobalErrIds.USER_NULL, CLS_NM + ".addUsers" );
+        Map<Integer, SecurityException> failures = new HashMap<>();
+        List<User> newUsers = new ArrayList<>( users.size() );
+        for ( int i = 0; i < users.size(); i++ )
+        {
+            try
+            {
+                newUsers.add( addUser( users.get( i ) ) );
+            }
+            catch ( SecurityException se )
+            {
+                failures.put( i, se );
+            }
+        }
+        throwBatchException( "addUsers", users.size(), failures );
+        return newUsers;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -124,9 +156,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_DISABLE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_DISABLE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -149,9 +179,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_DELETE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -175,9 +203,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retUser = ( User ) response.getEntity();
@@ -207,9 +233,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_CHGPW );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_CHGPW );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -232,9 +256,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_LOCK );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_LOCK );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -257,9 +279,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_UNLOCK );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_UNLOCK );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -284,9 +304,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_RESET );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_RESET );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -322,9 +340,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retRole = ( Role ) response.getEntity();
@@ -352,9 +368,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DELETE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -378,9 +392,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retRole = ( Role ) response.getEntity();
@@ -408,9 +420,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ASGN );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ASGN );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -418,6 +428,32 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rest server has no batch service so each assignment is posted separately.
+     */
+    @Override
+    public void assignUsers( List<UserRole> uRoles )
+        throws SecurityException
+    {
+        VUtil.assertNotNull( uRoles, GlobalErrIds.URLE_NULL, CLS_NM + ".assignUsers" );
+        Map<Integer, SecurityException> failures = new HashMap<>();
+        for ( int i = 0; i < uRoles.size(); i++ )
+        {
+            try
+            {
+                assignUser( uRoles.get( i ) );
+            }
+            catch ( SecurityException se )
+            {
+                failures.put( i, se );
+            }
+        }
+        throwBatchException( "assignUsers", uRoles.size(), failures );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -433,9 +469,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DEASGN );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DEASGN );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -459,9 +493,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retPerm = ( Permission ) response.getEntity();
@@ -490,9 +522,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retPerm = ( Permission ) response.getEntity();
@@ -520,9 +550,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.PERM_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_DELETE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -546,9 +574,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.OBJ_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retObj = ( PermObj ) response.getEntity();
@@ -577,9 +603,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.OBJ_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retObj = ( PermObj ) response.getEntity();
@@ -607,9 +631,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.OBJ_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_DELETE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -639,9 +661,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_GRANT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_GRANT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -649,6 +669,52 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rest server has no batch service so each grant is posted separately.
+     */
+    @Override
+    public void grantPermissions( List<Permission> perms, Role role )
+        throws SecurityException
+    {
+        VUtil.assertNotNull( perms, GlobalErrIds.PERM_OPERATION_NULL, CLS_NM + ".grantPermissions" );
+        VUtil.assertNotNull( role, GlobalErrIds.ROLE_NULL, CLS_NM + ".grantPermissions" );
+        Map<Integer, SecurityException> failures = new HashMap<>();
+        for ( int i = 0; i < perms.size(); i++ )
+        {
+            try
+            {
+                grantPermission( perms.get( i ), role );
+            }
+            catch ( SecurityException se )
+            {
+                failures.put( i, se );
+            }
+        }
+        throwBatchException( "grantPermissions", perms.size(), failures );
+    }
+
+
+    /**
+     * Throw the failures of a batch api, if there were any, once all of its items have been posted.
+     *
+     * @param methodName contains the name of the batch api.
+     * @param size       contains the number of items passed to it.
+     * @param failures   contains the exception of each item that failed keyed by its position in the list.
+     * @throws BatchException if any item failed.
+     */
+    private static void throwBatchException( String methodName, int size, Map<Integer, SecurityException> failures )
+        throws BatchException
+    {
+        if ( !failures.isEmpty() )
+        {
+            String error = CLS_NM + "." + methodName + " failed [" + failures.size() + "] of [" + size + "]";
+            throw new BatchException( GlobalErrIds.FT_BATCH_FAILED, error, failures );
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -671,9 +737,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_REVOKE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_REVOKE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -703,9 +767,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_GRANT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_GRANT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -735,9 +797,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.USER_REVOKE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_REVOKE );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -764,9 +824,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DESC );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DESC );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -793,9 +851,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ASC );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ASC );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -822,9 +878,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_ADDINHERIT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ADDINHERIT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -851,9 +905,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.ROLE_DELINHERIT );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_DELINHERIT );
         if ( response.getErrorCode() != 0 )
         {
             throw new SecurityException( response.getErrorCode(), response.getErrorMessage() );
@@ -877,9 +929,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -907,9 +957,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -940,9 +988,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_ADD_MEMBER );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_ADD_MEMBER );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -973,9 +1019,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_DEL_MEMBER );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_DEL_MEMBER );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1004,9 +1048,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_DELETE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1036,9 +1078,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.SSD_CARD_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_CARD_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1067,9 +1107,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_ADD );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_ADD );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1097,9 +1135,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1130,9 +1166,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_ADD_MEMBER );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_ADD_MEMBER );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1163,9 +1197,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_DEL_MEMBER );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_DEL_MEMBER );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1194,9 +1226,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_DELETE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_DELETE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -1226,9 +1256,7 @@ public final class AdminMgrRestImpl extends Manageable implements AdminMgr
         {
             request.setSession( adminSess );
         }
-        String szRequest = RestUtils.marshal( request );
-        String szResponse = RestUtils.getInstance().post( szRequest, HttpIds.DSD_CARD_UPDATE );
-        FortResponse response = RestUtils.unmarshall( szResponse );
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_CARD_UPDATE );
         if ( response.getErrorCode() == 0 )
         {
             retSet = ( SDSet ) response.getEntity();
@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.apache.directory.fortress.core.AuditMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.impl.Manageable;
 import org.apache.directory.fortress.core.model.AuthZ;
@@ -32,6 +33,7 @@ import org.apache.directory.fortress.core.model.FortRequest;
 import org.apache.directory.fortress.core.model.FortResponse;
 import org.apache.directory.fortress.core.model.Mod;
 import org.apache.directory.fortress.core.model.UserAudit;
+import org.apache.directory.fortress.core.util.ListCursor;
 import org.apache.directory.fortress.core.util.VUtil;
 
 /**
@@ -125,9 +127,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_UAUTHZS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.AUDIT_UAUTHZS );
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -161,9 +161,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_AUTHZS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.AUDIT_AUTHZS );
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -181,6 +179,19 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The Fortress Rest server returns the entire result set in one response, this cursor steps through it in memory.
+     */
+    @Override
+    public ResultCursor<AuthZ> iterateAuthZs(UserAudit uAudit)
+        throws SecurityException
+    {
+        return new ListCursor<>( searchAuthZs( uAudit ) );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -197,9 +208,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_BINDS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.AUDIT_BINDS );
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -233,9 +242,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_SESSIONS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.AUDIT_SESSIONS );
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -269,9 +276,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_MODS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.AUDIT_MODS );
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
@@ -305,9 +310,7 @@ public class AuditMgrRestImpl extends Manageable implements AuditMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.AUDIT_INVLD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.AUDIT_INVLD );
         if (response.getErrorCode() == 0)
         {
             outRecords = response.getEntities();
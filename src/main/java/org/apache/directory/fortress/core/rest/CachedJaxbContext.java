@@ -19,7 +19,9 @@
  */
 package org.apache.directory.fortress.core.rest;
 
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Map;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -31,6 +33,8 @@ import javax.xml.bind.Unmarshaller;
  * processing.
  * The intent is to reduce the performance penalty for calling JAXBContext.newInstance( class );
  * <p>
+ * Marshallers and unmarshallers are not thread safe so are cached per thread, see {@link #getMarshaller(Class)} and {@link #getUnmarshaller(Class)}.
+ * <p>
  * This class is thread safe.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
@@ -41,6 +45,24 @@ public class CachedJaxbContext
 
     private static volatile Hashtable<Class, JAXBCachedEntry> jaxbInstanceCache = new Hashtable();
 
+    private static final ThreadLocal<Map<Class, Marshaller>> marshallers = new ThreadLocal<Map<Class, Marshaller>>()
+    {
+        @Override
+        protected Map<Class, Marshaller> initialValue()
+        {
+            return new HashMap<>();
+        }
+    };
+
+    private static final ThreadLocal<Map<Class, Unmarshaller>> unmarshallers = new ThreadLocal<Map<Class, Unmarshaller>>()
+    {
+        @Override
+        protected Map<Class, Unmarshaller> initialValue()
+        {
+            return new HashMap<>();
+        }
+    };
+
     /**
      * Once constructed this object can be stored as static member of class that performs JAX XML processing.
      *
@@ -87,4 +109,46 @@ public class CachedJaxbContext
         JAXBContext context = getJaxbContext( type );
         return context.createMarshaller();
     }
+
+
+    /**
+     * Return a handle to JAXB marshaller for a particular data type that is reused by the calling thread.  The marshaller
+     * must not be passed to another thread.
+     *
+     * @param type contains the class name associated with a particular data type.
+     * @return handle to JAXB marshaller.
+     * @throws JAXBException in the event the marshaller cannot be retrieved.
+     */
+    public Marshaller getMarshaller( Class type ) throws JAXBException
+    {
+        Map<Class, Marshaller> cache = marshallers.get();
+        Marshaller marshaller = cache.get( type );
+        if ( marshaller == null )
+        {
+            marshaller = createMarshaller( type );
+            cache.put( type, marshaller );
+        }
+        return marshaller;
+    }
+
+
+    /**
+     * Return a handle to JAXB unmarshaller for a particular data type that is reused by the calling thread.  The unmarshaller
+     * must not be passed to another thread.
+     *
+     * @param type contains the class name associated with a particular data type.
+     * @return handle to JAXB unmarshaller.
+     * @throws JAXBException in the event the unmarshaller cannot be retrieved.
+     */
+    public Unmarshaller getUnmarshaller( Class type ) throws JAXBException
+    {
+        Map<Class, Unmarshaller> cache = unmarshallers.get();
+        Unmarshaller unmarshaller = cache.get( type );
+        if ( unmarshaller == null )
+        {
+            unmarshaller = createUnMarshaller( type );
+            cache.put( type, unmarshaller );
+        }
+        return unmarshaller;
+    }
 }
@@ -19,7 +19,9 @@
  */
 package org.apache.directory.fortress.core.rest;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -80,9 +82,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         UserRole uRole = new UserRole(user.getUserId(), role.getName());
         request.setSession(session);
         request.setEntity(uRole);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_ASSIGN);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_ASSIGN );
         if (response.getErrorCode() == 0)
         {
             result = response.getAuthorized();
@@ -114,9 +114,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         UserRole uRole = new UserRole(user.getUserId(), role.getName());
         request.setSession(session);
         request.setEntity(uRole);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_DEASSIGN);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_DEASSIGN );
         if (response.getErrorCode() == 0)
         {
             result = response.getAuthorized();
@@ -150,9 +148,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         context.setRole(role);
         request.setSession(session);
         request.setEntity(context);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_GRANT);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_GRANT );
         if (response.getErrorCode() == 0)
         {
             result = response.getAuthorized();
@@ -186,9 +182,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         context.setRole(role);
         request.setSession(session);
         request.setEntity(context);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_REVOKE);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_REVOKE );
         if (response.getErrorCode() == 0)
         {
             result = response.getAuthorized();
@@ -220,9 +214,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         request.setContextId(this.contextId);
         request.setSession(session);
         request.setEntity(perm);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_AUTHZ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_AUTHZ );
         if (response.getErrorCode() == 0)
         {
             result = response.getAuthorized();
@@ -237,6 +229,26 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rest server has no function to return the administrative permissions of a session so each permission is checked in turn.
+     */
+    @Override
+    public Map<Permission, Boolean> checkAccess(Session session, List<Permission> perms)
+        throws SecurityException
+    {
+        String methodName = CLS_NM + ".checkAccess";
+        VUtil.assertNotNull(perms, GlobalErrIds.PERM_NULL, methodName);
+        Map<Permission, Boolean> results = new LinkedHashMap<>();
+        for (Permission perm : perms)
+        {
+            results.put(perm, checkAccess(session, perm));
+        }
+        return results;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -251,9 +263,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         request.setContextId(this.contextId);
         request.setSession(session);
         request.setEntity(role);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_ADD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_ADD );
         if (response.getErrorCode() == 0)
         {
             Session outSession = response.getSession();
@@ -280,9 +290,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         request.setContextId(this.contextId);
         request.setSession(session);
         request.setEntity(role);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_DROP);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_DROP );
         if (response.getErrorCode() == 0)
         {
             Session outSession = response.getSession();
@@ -307,9 +315,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_ROLES );
         if (response.getErrorCode() == 0)
         {
             roles = response.getEntities();
@@ -336,9 +342,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_AUTHZ_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_AUTHZ_ROLES );
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -368,9 +372,7 @@ public class DelAccessMgrRestImpl extends AccessMgrRestImpl implements DelAccess
         FortRequest request = new FortRequest();
         request.setContextId(this.contextId);
         request.setSession(session);
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ADMIN_PERMS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ADMIN_PERMS );
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
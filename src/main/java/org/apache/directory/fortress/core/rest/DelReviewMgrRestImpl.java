@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.apache.directory.fortress.core.DelReviewMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.impl.Manageable;
 import org.apache.directory.fortress.core.model.AdminRole;
@@ -33,6 +34,7 @@ import org.apache.directory.fortress.core.model.OrgUnit;
 import org.apache.directory.fortress.core.model.Permission;
 import org.apache.directory.fortress.core.model.User;
 import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.util.ListCursor;
 import org.apache.directory.fortress.core.util.VUtil;
 
 /**
@@ -72,9 +74,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ARLE_READ );
         if (response.getErrorCode() == 0)
         {
             retRole = (AdminRole) response.getEntity();
@@ -103,9 +103,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ARLE_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retRoles = response.getEntities();
@@ -134,9 +132,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ARLE_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ARLE_ASGNED );
         if (response.getErrorCode() == 0)
         {
             retUserRoles = response.getEntities();
@@ -165,9 +161,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_ASGNED_ADMIN);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_ASGNED_ADMIN );
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -201,9 +195,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ORG_READ );
         if (response.getErrorCode() == 0)
         {
             retOrg = (OrgUnit) response.getEntity();
@@ -233,9 +225,7 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ORG_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ORG_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retOrgs = response.getEntities();
@@ -248,6 +238,19 @@ public class DelReviewMgrRestImpl extends Manageable implements DelReviewMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The Fortress Rest server returns the entire result set in one response, this cursor steps through it in memory.
+     */
+    @Override
+    public ResultCursor<OrgUnit> iterateOrgs(OrgUnit.Type type, String searchVal)
+        throws SecurityException
+    {
+        return new ListCursor<>( search( type, searchVal ) );
+    }
+
+
 	@Override
 	public List<Permission> rolePermissions(AdminRole role)
 			throws SecurityException {
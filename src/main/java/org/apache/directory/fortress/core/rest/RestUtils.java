@@ -21,21 +21,22 @@ package org.apache.directory.fortress.core.rest;
 
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.RestException;
 import org.apache.directory.fortress.core.model.FortRequest;
@@ -45,25 +46,43 @@ import org.apache.directory.fortress.core.model.Props;
 import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.crypto.EncryptUtil;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.entity.ContentProducer;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.EntityTemplate;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
- * This utility class provides methods that wrap Apache's HTTP Client APIs.  This class is thread safe.
+ * This utility class provides methods that wrap Apache's HTTP Client APIs.  A single client, backed by a pool of persistent
+ * connections to the fortress rest server, is shared by all requests.  The pool is sized with 'http.max.conn' and 'http.max.conn.route',
+ * connections are kept alive for 'http.keepalive.ms' unless the server says otherwise and are closed after 'http.idle.timeout.ms' of disuse.
+ * <p>
+ * This class is thread safe.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -86,6 +105,21 @@ public class RestUtils
     private static final int HTTP_404_NOT_FOUND = 404;
     private static CachedJaxbContext cachedJaxbContext = new CachedJaxbContext();
 
+    /**
+     * Used to manage the http connection pool.
+     *
+     */
+    private static final String HTTP_MAX_CONN = "http.max.conn";
+    private static final String HTTP_MAX_CONN_ROUTE = "http.max.conn.route";
+    private static final String HTTP_KEEPALIVE_MS = "http.keepalive.ms";
+    private static final String HTTP_IDLE_TIMEOUT_MS = "http.idle.timeout.ms";
+    private static final int DEFAULT_MAX_CONN = 100;
+    private static final int DEFAULT_MAX_CONN_ROUTE = 20;
+    private static final int DEFAULT_KEEPALIVE_MS = 30000;
+    private static final int DEFAULT_IDLE_TIMEOUT_MS = 60000;
+    private CloseableHttpClient httpClient;
+    private HttpHost httpHost;
+
     /**
      * Used to manage trust store properties.  If enabled, create SSL connection.
      *
@@ -132,6 +166,45 @@ public class RestUtils
             System.setProperty( "javax.net.ssl.trustStore", TRUST_STORE );
             System.setProperty( "javax.net.ssl.trustStorePassword", TRUST_STORE_PW );
         }
+
+        httpHost = new HttpHost( HTTP_HOST, StringUtils.isNotEmpty( HTTP_PORT ) ? Integer.parseInt( HTTP_PORT ) : -1,
+            HTTP_PROTOCOL );
+        httpClient = createHttpClient();
+    }
+
+
+    /**
+     * Create the http client that is shared by all requests.  Must be called after the trust store properties have been set.
+     *
+     * @return handle to pooled http client.
+     */
+    private static CloseableHttpClient createHttpClient()
+    {
+        PoolingHttpClientConnectionManager connMgr = new PoolingHttpClientConnectionManager();
+        connMgr.setMaxTotal( Config.getInstance().getInt( HTTP_MAX_CONN, DEFAULT_MAX_CONN ) );
+        connMgr.setDefaultMaxPerRoute( Config.getInstance().getInt( HTTP_MAX_CONN_ROUTE, DEFAULT_MAX_CONN_ROUTE ) );
+        final long keepAlive = Config.getInstance().getInt( HTTP_KEEPALIVE_MS, DEFAULT_KEEPALIVE_MS );
+        long idleTimeout = Config.getInstance().getInt( HTTP_IDLE_TIMEOUT_MS, DEFAULT_IDLE_TIMEOUT_MS );
+        LOG.info( "createHttpClient maxConn [{}], maxConnRoute [{}], keepAlive [{}], idleTimeout [{}]", connMgr.getMaxTotal(),
+            connMgr.getDefaultMaxPerRoute(), keepAlive, idleTimeout );
+
+        // Use the keep-alive sent by the server or the configured value if none:
+        ConnectionKeepAliveStrategy keepAliveStrategy = new ConnectionKeepAliveStrategy()
+        {
+            @Override
+            public long getKeepAliveDuration( HttpResponse response, HttpContext context )
+            {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration( response, context );
+                return duration > 0 ? duration : keepAlive;
+            }
+        };
+
+        return HttpClientBuilder.create()
+            .setConnectionManager( connMgr )
+            .setKeepAliveStrategy( keepAliveStrategy )
+            .evictExpiredConnections()
+            .evictIdleConnections( idleTimeout, TimeUnit.MILLISECONDS )
+            .build();
     }
 
     private RestUtils(){
@@ -150,17 +223,10 @@ public class RestUtils
         String szRetValue;
         try
         {
-            // Create a JAXB context passing in the class of the object we want to marshal/unmarshal
-            final JAXBContext context = cachedJaxbContext.getJaxbContext( FortRequest.class );
-            // =============================================================================================================
-            // Marshalling OBJECT to XML
-            // =============================================================================================================
-            // Create the marshaller, that will transform the object into XML
-            final Marshaller marshaller = context.createMarshaller();
             // Create a stringWriter to hold the XML
             final StringWriter stringWriter = new StringWriter();
             // Marshal the javaObject and write the XML to the stringWriter
-            marshaller.marshal( request, stringWriter );
+            cachedJaxbContext.getMarshaller( FortRequest.class ).marshal( request, stringWriter );
             szRetValue = stringWriter.toString();
         }
         catch ( JAXBException je )
@@ -184,12 +250,31 @@ public class RestUtils
         FortResponse response;
         try
         {
-            // Create a JAXB context passing in the class of the object we want to marshal/unmarshal
-            final JAXBContext context = cachedJaxbContext.getJaxbContext( FortResponse.class );
+            response = ( FortResponse ) cachedJaxbContext.getUnmarshaller( FortResponse.class ).unmarshal(
+                new StringReader( szResponse ) );
+        }
+        catch ( JAXBException je )
+        {
+            String error = "unmarshall caught JAXBException=" + je;
+            throw new RestException( GlobalErrIds.REST_UNMARSHALL_ERR, error, je );
+        }
+        return response;
+    }
 
-            // Create the unmarshaller, that will transform the XML back into an object
-            final Unmarshaller unmarshaller = context.createUnmarshaller();
-            response = ( FortResponse ) unmarshaller.unmarshal( new StringReader( szResponse ) );
+
+    /**
+     * Unmarshall the XML response directly from the stream into its associated Java objects.
+     *
+     * @param inputStream contains the xml response.
+     * @return FortResponse
+     * @throws RestException
+     */
+    private static FortResponse unmarshall( InputStream inputStream ) throws RestException
+    {
+        FortResponse response;
+        try
+        {
+            response = ( FortResponse ) cachedJaxbContext.getUnmarshaller( FortResponse.class ).unmarshal( inputStream );
         }
         catch ( JAXBException je )
         {
@@ -227,8 +312,7 @@ public class RestUtils
         LOG.debug( "get function1:{}, id1:{}, id2:{}, id3:{}, url:{}", function, id, id2, id3, url );
         HttpGet get = new HttpGet(url);
         setMethodHeaders( get );
-        return handleHttpMethod( get ,HttpClientBuilder.create()
-                .setDefaultCredentialsProvider(getCredentialProvider(userId, password)).build() );
+        return handleHttpMethod( get, getContext( userId, password ) );
     }
 
 
@@ -269,36 +353,18 @@ public class RestUtils
         {
             HttpEntity entity = new StringEntity( szInput, ContentType.TEXT_XML );
             post.setEntity( entity );
-            org.apache.http.client.HttpClient httpclient = HttpClientBuilder.create()
-                    .setDefaultCredentialsProvider(getCredentialProvider(userId, password)).build();
-            HttpResponse response = httpclient.execute( post );
-            String error;
+            HttpResponse response = httpClient.execute( post, getContext( userId, password ) );
+            int statusCode = response.getStatusLine().getStatusCode();
 
-            switch ( response.getStatusLine().getStatusCode() )
+            if ( statusCode == HTTP_OK )
+            {
+                szResponse = IOUtils.toString( response.getEntity().getContent(), "UTF-8" );
+                LOG.debug( "post URI=[{}], function=[{}], response=[{}]", URI, function, szResponse );
+            }
+            else
             {
-                case HTTP_OK :
-                    szResponse = IOUtils.toString( response.getEntity().getContent(), "UTF-8" );
-                    LOG.debug( "post URI=[{}], function=[{}], response=[{}]", URI, function, szResponse );
-                    break;
-                case HTTP_401_UNAUTHORIZED :
-                    error = "post URI=[" + URI + "], function=[" + function
-                            + "], 401 function unauthorized on host";
-                    LOG.error( error );
-                    throw new RestException( GlobalErrIds.REST_UNAUTHORIZED_ERR, error );
-                case HTTP_403_FORBIDDEN :
-                    error = "post URI=[" + URI + "], function=[" + function
-                            + "], 403 function forbidden on host";
-                    LOG.error( error );
-                    throw new RestException( GlobalErrIds.REST_FORBIDDEN_ERR, error );
-                case HTTP_404_NOT_FOUND :
-                    error = "post URI=[" + URI + "], function=[" + function + "], 404 not found from host";
-                    LOG.error( error );
-                    throw new RestException( GlobalErrIds.REST_NOT_FOUND_ERR, error );
-                default :
-                    error = "post URI=[" + URI + "], function=[" + function
-                            + "], error received from host: " + response.getStatusLine().getStatusCode();
-                    LOG.error( error );
-                    throw new RestException( GlobalErrIds.REST_UNKNOWN_ERR, error );
+                EntityUtils.consume( response.getEntity() );
+                throw getStatusException( statusCode, function );
             }
         }
         catch ( IOException ioe )
@@ -344,6 +410,160 @@ public class RestUtils
         return post(null,null,szInput, function);
     }
 
+
+    /**
+     * Perform an HTTP Post REST operation.  The request is marshalled directly into the http entity and the response
+     * unmarshalled directly from it so that the xml is never held as a String.
+     *
+     * @param userId
+     * @param password
+     * @param request contains the entity to be marshalled.
+     * @param function
+     * @return FortResponse containing the unmarshalled response
+     * @throws RestException
+     */
+    public FortResponse post( String userId, String password, final FortRequest request, String function )
+        throws RestException
+    {
+        LOG.debug( "post URI=[{}], function=[{}]", URI, function );
+        FortResponse fortResponse;
+        HttpPost post = new HttpPost( URI + function );
+        post.addHeader( "Accept", "text/xml" );
+        setMethodHeaders( post );
+        EntityTemplate entity = new EntityTemplate( new ContentProducer()
+        {
+            @Override
+            public void writeTo( OutputStream outputStream ) throws IOException
+            {
+                try
+                {
+                    cachedJaxbContext.getMarshaller( FortRequest.class ).marshal( request, outputStream );
+                }
+                catch ( JAXBException je )
+                {
+                    throw new IOException( je );
+                }
+            }
+        } );
+        entity.setContentType( ContentType.TEXT_XML.toString() );
+        post.setEntity( entity );
+
+        try ( CloseableHttpResponse response = httpClient.execute( post, getContext( userId, password ) ) )
+        {
+            int statusCode = response.getStatusLine().getStatusCode();
+            HttpEntity responseEntity = response.getEntity();
+
+            if ( statusCode != HTTP_OK )
+            {
+                EntityUtils.consume( responseEntity );
+                throw getStatusException( statusCode, function );
+            }
+
+            try ( InputStream inputStream = responseEntity.getContent() )
+            {
+                fortResponse = unmarshall( inputStream );
+            }
+            // Read to the end so the connection may be reused:
+            EntityUtils.consume( responseEntity );
+        }
+        catch ( IOException ioe )
+        {
+            if ( ioe.getCause() instanceof JAXBException )
+            {
+                String error = "post URI=[" + URI + "], function=[" + function + "] caught JAXBException=" + ioe.getCause();
+                throw new RestException( GlobalErrIds.REST_MARSHALL_ERR, error, ioe.getCause() );
+            }
+            String error = "post URI=[" + URI + "], function=[" + function + "] caught IOException=" + ioe;
+            LOG.error( error );
+            throw new RestException( GlobalErrIds.REST_IO_ERR, error, ioe );
+        }
+        catch ( WebApplicationException we )
+        {
+            String error = "post URI=[" + URI + "], function=[" + function
+                + "] caught WebApplicationException=" + we;
+            LOG.error( error );
+            throw new RestException( GlobalErrIds.REST_WEB_ERR, error, we );
+        }
+        finally
+        {
+            // Release current connection to the connection pool.
+            post.releaseConnection();
+        }
+        return fortResponse;
+    }
+
+
+    /**
+     * Perform an HTTP Post REST operation using the configured http user.
+     *
+     * @param request contains the entity to be marshalled.
+     * @param function
+     * @return FortResponse containing the unmarshalled response
+     * @throws RestException
+     */
+    public FortResponse post( FortRequest request, String function ) throws RestException
+    {
+        return post( null, null, request, function );
+    }
+
+
+    /**
+     * Map an http error status to its corresponding exception.
+     *
+     * @param statusCode returned by the server.
+     * @param function
+     * @return RestException containing the error.
+     */
+    private RestException getStatusException( int statusCode, String function )
+    {
+        String error;
+        RestException re;
+
+        switch ( statusCode )
+        {
+            case HTTP_401_UNAUTHORIZED :
+                error = "post URI=[" + URI + "], function=[" + function
+                        + "], 401 function unauthorized on host";
+                re = new RestException( GlobalErrIds.REST_UNAUTHORIZED_ERR, error );
+                break;
+            case HTTP_403_FORBIDDEN :
+                error = "post URI=[" + URI + "], function=[" + function
+                        + "], 403 function forbidden on host";
+                re = new RestException( GlobalErrIds.REST_FORBIDDEN_ERR, error );
+                break;
+            case HTTP_404_NOT_FOUND :
+                error = "post URI=[" + URI + "], function=[" + function + "], 404 not found from host";
+                re = new RestException( GlobalErrIds.REST_NOT_FOUND_ERR, error );
+                break;
+            default :
+                error = "post URI=[" + URI + "], function=[" + function
+                        + "], error received from host: " + statusCode;
+                re = new RestException( GlobalErrIds.REST_UNKNOWN_ERR, error );
+                break;
+        }
+        LOG.error( error );
+        return re;
+    }
+
+
+    /**
+     * Create the context for a single request.  The basic credentials are sent with the first request rather than
+     * after the server's challenge which saves a round trip.
+     *
+     * @param uid if null the configured http user is used.
+     * @param password if null the configured http password is used.
+     * @return HttpClientContext to be passed with request.
+     */
+    private HttpClientContext getContext( String uid, String password )
+    {
+        HttpClientContext context = HttpClientContext.create();
+        context.setCredentialsProvider( getCredentialProvider( uid, password ) );
+        AuthCache authCache = new BasicAuthCache();
+        authCache.put( httpHost, new BasicScheme() );
+        context.setAuthCache( authCache );
+        return context;
+    }
+
     private CredentialsProvider getCredentialProvider(String uid, String password) {
         BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
         credentialsProvider.setCredentials( new AuthScope(HTTP_HOST,Integer.valueOf(HTTP_PORT)),
@@ -387,15 +607,16 @@ public class RestUtils
      * Process the HTTP method request.
      *
      * @param httpGetRequest
+     * @param context
      * @return String containing response
      * @throws Exception
      */
-    private static String handleHttpMethod( HttpRequestBase httpGetRequest ,org.apache.http.client.HttpClient client ) throws RestException
+    private String handleHttpMethod( HttpRequestBase httpGetRequest, HttpClientContext context ) throws RestException
     {
         String szResponse = null;
         try
         {
-            HttpResponse response = client.execute( httpGetRequest );
+            HttpResponse response = httpClient.execute( httpGetRequest, context );
             LOG.debug( "handleHttpMethod Response status : {}", response.getStatusLine().getStatusCode() );
 
             Response.Status status = Response.Status.fromStatusCode( response.getStatusLine().getStatusCode() );
@@ -417,6 +638,7 @@ public class RestUtils
             {
                 LOG.debug( "handleHttpMethod Unknown error" );
             }
+            EntityUtils.consume( response.getEntity() );
         }
         catch ( IOException ioe )
         {
@@ -26,6 +26,7 @@ import java.util.TreeSet;
 
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.ReviewMgr;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.impl.Manageable;
 import org.apache.directory.fortress.core.model.FortRequest;
@@ -37,6 +38,7 @@ import org.apache.directory.fortress.core.model.Role;
 import org.apache.directory.fortress.core.model.SDSet;
 import org.apache.directory.fortress.core.model.User;
 import org.apache.directory.fortress.core.model.UserRole;
+import org.apache.directory.fortress.core.util.ListCursor;
 import org.apache.directory.fortress.core.util.VUtil;
 
 /**
@@ -95,9 +97,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_READ );
         if (response.getErrorCode() == 0)
         {
             retPerm = (Permission) response.getEntity();
@@ -126,9 +126,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_READ );
         if (response.getErrorCode() == 0)
         {
             retObj = (PermObj) response.getEntity();
@@ -157,9 +155,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -172,6 +168,19 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The Fortress Rest server returns the entire result set in one response, this cursor steps through it in memory.
+     */
+    @Override
+    public ResultCursor<Permission> iteratePermissions(Permission permission)
+        throws SecurityException
+    {
+        return new ListCursor<>( findPermissions( permission ) );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -188,9 +197,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_OBJ_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_OBJ_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -219,9 +226,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_SEARCH_ANY);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_SEARCH_ANY );
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -250,9 +255,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retObjs = response.getEntities();
@@ -283,9 +286,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.OBJ_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.OBJ_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retObjs = response.getEntities();
@@ -314,9 +315,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_READ );
         if (response.getErrorCode() == 0)
         {
             retRole = (Role) response.getEntity();
@@ -345,9 +344,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retRoles = response.getEntities();
@@ -360,6 +357,19 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The Fortress Rest server returns the entire result set in one response, this cursor steps through it in memory.
+     */
+    @Override
+    public ResultCursor<Role> iterateRoles(String searchVal)
+        throws SecurityException
+    {
+        return new ListCursor<>( findRoles( searchVal ) );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -377,9 +387,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retRoles = response.getValues();
@@ -408,9 +416,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_READ );
         if (response.getErrorCode() == 0)
         {
             retUser = (User) response.getEntity();
@@ -439,9 +445,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -454,6 +458,19 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The Fortress Rest server returns the entire result set in one response, this cursor steps through it in memory.
+     */
+    @Override
+    public ResultCursor<User> iterateUsers(User user)
+        throws SecurityException
+    {
+        return new ListCursor<>( findUsers( user ) );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -472,9 +489,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -504,9 +519,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_SEARCH);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_SEARCH );
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getValues();
@@ -536,9 +549,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_ASGNED );
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getValues();
@@ -572,9 +583,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_ASGNED );
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -603,9 +612,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ASGNED );
         if (response.getErrorCode() == 0)
         {
             retUserRoles = response.getEntities();
@@ -634,9 +641,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_ASGNED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_ASGNED );
         if (response.getErrorCode() == 0)
         {
             retUserRoles = response.getValues();
@@ -665,9 +670,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_AUTHZED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_AUTHZED );
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getEntities();
@@ -700,9 +703,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_AUTHZED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_AUTHZED );
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -745,9 +746,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.ROLE_PERMS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.ROLE_PERMS );
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -776,9 +775,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.USER_PERMS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.USER_PERMS );
         if (response.getErrorCode() == 0)
         {
             retPerms = response.getEntities();
@@ -807,9 +804,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_ROLES );
         if (response.getErrorCode() == 0)
         {
             retRoleNames = response.getValues();
@@ -838,9 +833,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_ROLES_AUTHZED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_ROLES_AUTHZED );
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -871,9 +864,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_USERS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_USERS );
         if (response.getErrorCode() == 0)
         {
             retUsers = response.getValues();
@@ -902,9 +893,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.PERM_USERS_AUTHZED);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.PERM_USERS_AUTHZED );
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -935,9 +924,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_ROLE_SETS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_ROLE_SETS );
         if (response.getErrorCode() == 0)
         {
             retSsdRoleSets = response.getEntities();
@@ -970,9 +957,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_READ );
         if (response.getErrorCode() == 0)
         {
             retSet = (SDSet) response.getEntity();
@@ -1000,9 +985,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
          {
              request.setSession(adminSess);
          }
-         String szRequest = RestUtils.marshal(request);
-         String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_SETS);
-         FortResponse response = RestUtils.unmarshall(szResponse);
+         FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_SETS );
          if (response.getErrorCode() == 0)
          {
              retSsdSets = response.getEntities();
@@ -1035,9 +1018,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_ROLES );
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -1068,9 +1049,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.SSD_CARD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.SSD_CARD );
         if (response.getErrorCode() == 0)
         {
             retSet = (SDSet) response.getEntity();
@@ -1099,9 +1078,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_ROLE_SETS);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_ROLE_SETS );
         if (response.getErrorCode() == 0)
         {
             retDsdRoleSets = response.getEntities();
@@ -1134,9 +1111,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_READ);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_READ );
         if (response.getErrorCode() == 0)
         {
             retSet = (SDSet) response.getEntity();
@@ -1164,9 +1139,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
          {
              request.setSession(adminSess);
          }
-         String szRequest = RestUtils.marshal(request);
-         String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_SETS);
-         FortResponse response = RestUtils.unmarshall(szResponse);
+         FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_SETS );
          if (response.getErrorCode() == 0)
          {
              retDsdSets = response.getEntities();
@@ -1199,9 +1172,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_ROLES);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_ROLES );
         if (response.getErrorCode() == 0)
         {
             Set<String> tempNames = response.getValueSet();
@@ -1232,9 +1203,7 @@ public class ReviewMgrRestImpl extends Manageable implements ReviewMgr
         {
             request.setSession(adminSess);
         }
-        String szRequest = RestUtils.marshal(request);
-        String szResponse = RestUtils.getInstance().post(szRequest, HttpIds.DSD_CARD);
-        FortResponse response = RestUtils.unmarshall(szResponse);
+        FortResponse response = RestUtils.getInstance().post( request, HttpIds.DSD_CARD );
         if (response.getErrorCode() == 0)
         {
             retSet = (SDSet) response.getEntity();
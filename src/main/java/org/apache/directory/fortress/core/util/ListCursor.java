@@ -0,0 +1,96 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util;
+
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.directory.fortress.core.ResultCursor;
+
+
+/**
+ * This class adapts a List that was already read into memory to the {@link ResultCursor} interface.  It is used by the
+ * REST implementations of the manager apis, whose server returns the entire result set in one response.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <T> the type of entity contained in the list.
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class ListCursor<T> implements ResultCursor<T>
+{
+    private Iterator<T> iterator;
+    private T current;
+
+
+    /**
+     * Create a cursor over the given list.
+     *
+     * @param list contains the entities to be returned, may be null.
+     */
+    public ListCursor( List<T> list )
+    {
+        List<T> entities = list;
+        if ( entities == null )
+        {
+            entities = Collections.emptyList();
+        }
+        this.iterator = entities.iterator();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean next()
+    {
+        if ( iterator.hasNext() )
+        {
+            current = iterator.next();
+            return true;
+        }
+        close();
+        return false;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T get()
+    {
+        return current;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close()
+    {
+        iterator = Collections.emptyIterator();
+        current = null;
+    }
+}
@@ -23,6 +23,8 @@ package org.apache.directory.fortress.core.util.cache;
 import net.sf.ehcache.search.Attribute;
 import net.sf.ehcache.search.Query;
 
+import org.apache.directory.fortress.core.SecurityException;
+
 
 /**
  * This Interface is implemented by cacheable Fortress objects and is used to wrap the caching implementation to provide isolation.
@@ -41,6 +43,30 @@ public interface Cache
     Object get( Object key ) throws CacheException;
 
 
+    /**
+     * Given a key name, return the corresponding value, loading and storing it if not found.  Concurrent callers that miss on
+     * the same key wait for a single load rather than each reading the directory.
+     *
+     * @param key is the name used to store the entry.
+     * @param loader supplies the value when it isn't in the cache.
+     * @return entry stored in the cache, or null if the loader returned null.
+     * @throws SecurityException thrown by the loader.
+     * @throws CacheException will wraps the implementation's exception.
+     */
+    Object get( Object key, CacheLoader loader ) throws SecurityException, CacheException;
+
+
+    /**
+     * Given a key name, return the corresponding value if it is in the cache.  Unlike {@link #get(Object)} this never waits
+     * on, or holds up, a load of the key and isn't counted as a hit or miss.
+     *
+     * @param key is the name used to store the entry.
+     * @return entry stored in the cache, or null if not found.
+     * @throws CacheException will wraps the implementation's exception.
+     */
+    Object peek( Object key ) throws CacheException;
+
+
     /**
      * Add a new entry to the cache.
      *
@@ -0,0 +1,42 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import org.apache.directory.fortress.core.SecurityException;
+
+
+/**
+ * This Interface is implemented by callers of {@link Cache#get(Object, CacheLoader)} to supply the value of an entry that isn't
+ * in the cache.  Only one thread loads a given key at a time, the others wait for and share its result.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface CacheLoader
+{
+    /**
+     * Load the value for a key that was not found in the cache.
+     *
+     * @param key is the name the entry will be stored as.
+     * @return value to store, or null if there is nothing to store.
+     * @throws SecurityException in the event of system or rule violation, it is rethrown to every thread waiting on the key.
+     */
+    Object load( Object key ) throws SecurityException;
+}
@@ -19,22 +19,37 @@
  */
 package org.apache.directory.fortress.core.util.cache;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
 import net.sf.ehcache.constructs.blocking.BlockingCache;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
 
 import org.apache.directory.fortress.core.CfgException;
 import org.apache.directory.fortress.core.CfgRuntimeException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.util.ClassUtil;
 import org.apache.directory.fortress.core.util.Config;
+import org.apache.directory.fortress.core.util.metrics.Gauge;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * This class is a facade and shields internal Fortress objects from specifics of the actual
- * cache implementation that is in use.
+ * cache implementation that is in use.  The implementation is selected by the 'cache.provider' property:
+ * <ol>
+ * <li>'ehcache', the default, returns {@link EhCacheImpl}</li>
+ * <li>'local' returns {@link LocalCacheImpl}.  Its size and time to live are taken from the cache's entry in the Ehcache config
+ * file, and 'cache.[name].max.weight' optionally bounds its weight.</li>
+ * </ol>
+ * There is one {@link Cache} instance per cache name.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -42,7 +57,11 @@ public final class CacheMgr
 {
     private static final Logger LOG = LoggerFactory.getLogger( CacheMgr.class.getName() );
     private static final String EHCACHE_CONFIG_FILE = "ehcache.config.file";
+    private static final String CACHE_PROVIDER = "cache.provider";
+    private static final String LOCAL_PROVIDER = "local";
     private CacheManager mEhCacheImpl;
+    private boolean isLocal;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
     
     private static volatile CacheMgr INSTANCE = null; 
     
@@ -80,6 +99,108 @@ public final class CacheMgr
             LOG.error( "CfgException caught in static initializer=" + ce.getMessage());
             throw new CfgRuntimeException( GlobalErrIds.FT_CACHE_NOT_CONFIGURED, cacheConfig, ce );
         }
+        isLocal = LOCAL_PROVIDER.equalsIgnoreCase( Config.getInstance().getProperty( CACHE_PROVIDER, "ehcache" ) );
+        LOG.info( "init cache provider [{}]", isLocal ? LOCAL_PROVIDER : "ehcache" );
+        if ( Metrics.getInstance().isEnabled() && !isLocal )
+        {
+            for ( String cacheName : mEhCacheImpl.getCacheNames() )
+            {
+                registerMetrics( cacheName );
+            }
+        }
+    }
+
+
+    /**
+     * Create an in process cache sized by the cache's entry in the Ehcache config file.
+     *
+     * @param cacheName contains the name of the cache.
+     * @return reference to the new cache.
+     */
+    private LocalCacheImpl createLocalCache( final String cacheName )
+    {
+        Ehcache ehcache = mEhCacheImpl.getEhcache( cacheName );
+        if ( ehcache == null )
+        {
+            String error = "createLocalCache cache: " + cacheName + " is null";
+            throw new CfgRuntimeException( GlobalErrIds.FT_CACHE_NOT_CONFIGURED, error );
+        }
+        CacheConfiguration config = ehcache.getCacheConfiguration();
+        long maxWeight = Config.getInstance().getInt( "cache." + cacheName + ".max.weight", 0 );
+        long ttl = config.isEternal() ? 0 : config.getTimeToLiveSeconds();
+        long tti = config.isEternal() ? 0 : config.getTimeToIdleSeconds();
+        final LocalCacheImpl cache = new LocalCacheImpl( cacheName, config.getMaxEntriesLocalHeap(), maxWeight, ttl, tti );
+        Metrics metrics = Metrics.getInstance();
+        metrics.register( getMetricName( cacheName, "size" ), new Gauge()
+        {
+            @Override
+            public long getValue()
+            {
+                return cache.getSize();
+            }
+        } );
+        metrics.register( getMetricName( cacheName, "weight" ), new Gauge()
+        {
+            @Override
+            public long getValue()
+            {
+                return cache.getWeight();
+            }
+        } );
+        return cache;
+    }
+
+
+    /**
+     * Publish the size of a cache and count its evictions and expirations in {@link Metrics}.  The hits and misses are counted by
+     * {@link EhCacheImpl}.
+     *
+     * @param cacheName contains the name of the cache.
+     */
+    private void registerMetrics( final String cacheName )
+    {
+        Metrics metrics = Metrics.getInstance();
+        final AtomicLong evictions = metrics.getCounter( getMetricName( cacheName, "eviction" ) );
+        final AtomicLong expirations = metrics.getCounter( getMetricName( cacheName, "expiration" ) );
+        mEhCacheImpl.getEhcache( cacheName ).getCacheEventNotificationService().registerListener(
+            new CacheEventListenerAdapter()
+            {
+                @Override
+                public void notifyElementEvicted( Ehcache cache, Element element )
+                {
+                    evictions.incrementAndGet();
+                }
+
+
+                @Override
+                public void notifyElementExpired( Ehcache cache, Element element )
+                {
+                    expirations.incrementAndGet();
+                }
+            } );
+        metrics.register( getMetricName( cacheName, "size" ), new Gauge()
+        {
+            @Override
+            public long getValue()
+            {
+                // Look it up every time because the cache may since have been decorated:
+                Ehcache cache = mEhCacheImpl.getEhcache( cacheName );
+                return cache != null ? cache.getSize() : 0;
+            }
+        } );
+    }
+
+
+    /**
+     * Return the name that a cache metric is registered under, i.e. 'cache.fortress.roles.hit'.
+     *
+     * @param cacheName contains the name of the cache.
+     * @param metric    contains the name of the metric.
+     * @return String containing the metric name.
+     */
+    static String getMetricName( String cacheName, String metric )
+    {
+        return "cache." + cacheName + "." + metric;
     }
 
     /**
@@ -93,13 +214,39 @@ public final class CacheMgr
     }
 
     /**
-     * Create a new reference to the ehcache cache implementation.
+     * Return the reference to the cache implementation, creating it on first use.
      *
      * @param cacheName contains the name of the cache to retrieve
      * @return reference to cache for specified object.
      */
     public Cache getCache( String cacheName )
-    {    	
+    {
+        Cache cache = caches.get( cacheName );
+        if ( cache == null )
+        {
+            cache = createCache( cacheName );
+            Cache existing = caches.putIfAbsent( cacheName, cache );
+            if ( existing != null )
+            {
+                cache = existing;
+            }
+        }
+        return cache;
+    }
+
+
+    /**
+     * Create a new reference to the cache implementation.
+     *
+     * @param cacheName contains the name of the cache to create
+     * @return reference to cache for specified object.
+     */
+    private Cache createCache( String cacheName )
+    {
+        if ( isLocal )
+        {
+            return createLocalCache( cacheName );
+        }
         Ehcache cache = mEhCacheImpl.getEhcache( cacheName );
         if(cache != null){
     	    return new EhCacheImpl( cacheName, new BlockingCache(cache) );
@@ -116,5 +263,12 @@ public final class CacheMgr
     public void clearAll()
     {
         mEhCacheImpl.clearAll();
+        if ( isLocal )
+        {
+            for ( Cache cache : caches.values() )
+            {
+                cache.flush();
+            }
+        }
     }
 }
@@ -20,6 +20,8 @@
 package org.apache.directory.fortress.core.util.cache;
 
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import net.sf.ehcache.Element;
 import net.sf.ehcache.constructs.blocking.BlockingCache;
 import net.sf.ehcache.constructs.blocking.LockTimeoutException;
@@ -28,6 +30,8 @@ import net.sf.ehcache.search.Query;
 
 import org.apache.directory.fortress.core.CfgRuntimeException;
 import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +48,9 @@ public class EhCacheImpl implements Cache
 	
     private BlockingCache cache;
     private final String name;
+    private final boolean isMetrics;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
 
 
     /**
@@ -61,6 +68,10 @@ public class EhCacheImpl implements Cache
             throw new CfgRuntimeException( GlobalErrIds.FT_CACHE_NOT_CONFIGURED, error );
         }
         this.cache = blockingCache;
+        Metrics metrics = Metrics.getInstance();
+        this.isMetrics = metrics.isEnabled();
+        this.hits = metrics.getCounter( CacheMgr.getMetricName( name, "hit" ) );
+        this.misses = metrics.getCounter( CacheMgr.getMetricName( name, "miss" ) );
     }
 
 
@@ -84,10 +95,18 @@ public class EhCacheImpl implements Cache
             Element element = cache.get( key );
             if ( element != null )
             {
+                if ( isMetrics )
+                {
+                    hits.incrementAndGet();
+                }
                 return element.getObjectValue();
             }
             else
             {
+                if ( isMetrics )
+                {
+                    misses.incrementAndGet();
+                }
                 return null;
             }
         }
@@ -104,6 +123,76 @@ public class EhCacheImpl implements Cache
     }
 
 
+    /**
+     * Given a key name, return the corresponding value, loading and storing it if not found.  The {@link BlockingCache} holds the
+     * lock on a key that was missed until it is put, so concurrent callers wait for a single load.
+     *
+     * @param key is the name used to store the entry.
+     * @param loader supplies the value when it isn't in the cache.
+     * @return entry stored in the cache, or null if the loader returned null.
+     * @throws SecurityException thrown by the loader.
+     * @throws CacheException in the event ehcache throws an exception it will be wrapped.
+     */
+    @Override
+    public Object get( Object key, CacheLoader loader ) throws SecurityException, CacheException
+    {
+        Object value = get( key );
+        if ( value != null )
+        {
+            return value;
+        }
+        boolean isLoaded = false;
+        try
+        {
+            value = loader.load( key );
+            isLoaded = true;
+        }
+        finally
+        {
+            if ( !isLoaded || value == null )
+            {
+                // Release the lock on the key:
+                cache.put( new Element( key, null ) );
+            }
+        }
+        if ( value != null )
+        {
+            put( key, value );
+        }
+        return value;
+    }
+
+
+    /**
+     * Given a key name, return the corresponding value if it is in the cache.  The element is read with
+     * {@link BlockingCache#getQuiet(Object)}, which doesn't take the key's lock.
+     *
+     * @param key is the name used to store the entry.
+     * @return entry stored in the cache, or null if not found.
+     * @throws CacheException in the event ehcache throws an exception it will be wrapped.
+     */
+    @Override
+    public Object peek( Object key ) throws CacheException
+    {
+        if ( cache == null )
+        {
+            String error = "peek detected null cache name [" + name + "]";
+            throw new CacheException( GlobalErrIds.FT_NULL_CACHE, error );
+        }
+        try
+        {
+            Element element = cache.getQuiet( key );
+            return element != null ? element.getObjectValue() : null;
+        }
+        catch ( net.sf.ehcache.CacheException ce )
+        {
+            String error = "peek cache name [" + name + "] key [" + key + "] caught CacheException="
+                + ce.getMessage();
+            throw new CacheException( GlobalErrIds.FT_CACHE_GET_ERR, error, ce );
+        }
+    }
+
+
     /**
      * Add a new entry to the cache.
      *
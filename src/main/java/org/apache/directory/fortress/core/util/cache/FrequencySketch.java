@@ -0,0 +1,128 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+/**
+ * This class estimates how often each key of a {@link LocalCacheImpl} has been accessed recently.  It is a count-min sketch, each
+ * key is counted in four of the sixteen counters per entry of capacity, that saturate at 15.  Every counter is halved once the number of increments reaches ten times the
+ * capacity of the cache so that keys which were popular long ago age out.
+ * <p>
+ * This class is not thread safe.  {@link LocalCacheImpl} buffers the accesses on each thread and only calls it while holding its
+ * eviction lock.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class FrequencySketch
+{
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = { 0x97cb3127, 0xc3a5c85c, 0xb492b66f, 0x9ae16a3b };
+
+    private final byte[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+
+    /**
+     * Create a sketch sized for a cache of the given capacity.
+     *
+     * @param capacity maximum number of entries in the cache.
+     */
+    FrequencySketch( long capacity )
+    {
+        int entries = ( int ) Math.max( 16, Math.min( capacity, 1 << 24 ) );
+        // Sixteen counters per entry, rounded up to a power of two:
+        int size = Integer.highestOneBit( entries - 1 ) << 5;
+        table = new byte[size];
+        mask = size - 1;
+        sampleSize = 10 * entries;
+    }
+
+
+    /**
+     * Record an access of the key.
+     *
+     * @param key that was accessed.
+     */
+    void increment( Object key )
+    {
+        int hash = spread( key.hashCode() );
+        boolean isAdded = false;
+        for ( int seed : SEEDS )
+        {
+            int index = indexOf( hash, seed );
+            if ( table[index] < MAX_COUNT )
+            {
+                table[index]++;
+                isAdded = true;
+            }
+        }
+        if ( isAdded && ++additions >= sampleSize )
+        {
+            reset();
+        }
+    }
+
+
+    /**
+     * Return the estimated number of recent accesses of the key.
+     *
+     * @param key to look up.
+     * @return count between 0 and 15.
+     */
+    int frequency( Object key )
+    {
+        int hash = spread( key.hashCode() );
+        int frequency = MAX_COUNT;
+        for ( int seed : SEEDS )
+        {
+            frequency = Math.min( frequency, table[indexOf( hash, seed )] );
+        }
+        return frequency;
+    }
+
+
+    /**
+     * Halve every counter.
+     */
+    private void reset()
+    {
+        for ( int i = 0; i < table.length; i++ )
+        {
+            table[i] >>= 1;
+        }
+        additions = sampleSize / 2;
+    }
+
+
+    private int indexOf( int hash, int seed )
+    {
+        int h = ( hash ^ seed ) * 0x9e3779b9;
+        return ( h ^ ( h >>> 16 ) ) & mask;
+    }
+
+
+    private static int spread( int hash )
+    {
+        int h = hash * 0x85ebca6b;
+        return h ^ ( h >>> 15 );
+    }
+}
@@ -0,0 +1,683 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.sf.ehcache.search.Attribute;
+import net.sf.ehcache.search.Query;
+
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
+import org.apache.directory.fortress.core.util.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class provides cache functionality in process, without a third party provider.  It is used in place of {@link EhCacheImpl}
+ * when fortress.properties has 'cache.provider=local':
+ * <ol>
+ * <li>Reads are lock free, a lookup in a {@link java.util.concurrent.ConcurrentHashMap}.  The key is also added to a small buffer
+ * owned by the calling thread, which is applied to the access frequencies when it fills up.  If another thread holds the eviction
+ * lock at that moment the buffer is dropped, so under contention the frequencies are sampled rather than exact.</li>
+ * <li>The cache is bounded by number of entries and, optionally, by weight where a collection weighs one plus its size.  Once full
+ * the oldest entry is evicted, unless the {@link FrequencySketch} shows it was used more often than the new entry, in which case
+ * the new entry is dropped instead.  This keeps a burst of one time lookups from flushing the entries that are used all the time.</li>
+ * <li>Entries expire after the time to live, or time to idle, that is configured for the cache.</li>
+ * <li>{@link #get(Object, CacheLoader)} loads each missing key once no matter how many threads ask for it.  Unlike the Ehcache
+ * {@code BlockingCache}, a plain {@link #get(Object)} never blocks.</li>
+ * </ol>
+ * Hits, misses, loads, evictions, expirations and rejected entries are counted in {@link Metrics} under the cache's name.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LocalCacheImpl implements Cache
+{
+    private static final String CLS_NM = LocalCacheImpl.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final int READ_BUFFER_SIZE = 16;
+
+    private final String name;
+    private final long maxEntries;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final long ttiNanos;
+    private final ConcurrentMap<Object, Node> map = new ConcurrentHashMap<>();
+    // Entries in the order they were stored, used to pick eviction victims.  Replaced and removed entries are skipped:
+    private final Queue<Node> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger orderSize = new AtomicInteger();
+    private final AtomicLong weight = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // Only used while holding the eviction lock:
+    private final FrequencySketch sketch;
+    private final ThreadLocal<ReadBuffer> reads = new ThreadLocal<ReadBuffer>()
+    {
+        @Override
+        protected ReadBuffer initialValue()
+        {
+            return new ReadBuffer();
+        }
+    };
+    private final ConcurrentMap<Object, FutureTask<Object>> loading = new ConcurrentHashMap<>();
+    private final boolean isMetrics;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final AtomicLong expirations;
+    private final AtomicLong rejections;
+    private final AtomicLong loadErrors;
+    private final Timer loads;
+
+
+    /**
+     * Create an in process cache.
+     *
+     * @param name       name for the cache instance.
+     * @param maxEntries maximum number of entries, zero for no limit.
+     * @param maxWeight  maximum total weight of the entries, zero for no limit.
+     * @param ttlSeconds time to live of an entry, zero if entries don't expire.
+     * @param ttiSeconds time an entry may go unused before it expires, zero if entries don't expire.
+     */
+    LocalCacheImpl( String name, long maxEntries, long maxWeight, long ttlSeconds, long ttiSeconds )
+    {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos( ttlSeconds );
+        this.ttiNanos = TimeUnit.SECONDS.toNanos( ttiSeconds );
+        boolean isBounded = maxEntries > 0 || maxWeight > 0;
+        this.sketch = isBounded ? new FrequencySketch( maxEntries > 0 ? maxEntries : maxWeight ) : null;
+        Metrics metrics = Metrics.getInstance();
+        this.isMetrics = metrics.isEnabled();
+        this.hits = metrics.getCounter( CacheMgr.getMetricName( name, "hit" ) );
+        this.misses = metrics.getCounter( CacheMgr.getMetricName( name, "miss" ) );
+        this.evictions = metrics.getCounter( CacheMgr.getMetricName( name, "eviction" ) );
+        this.expirations = metrics.getCounter( CacheMgr.getMetricName( name, "expiration" ) );
+        this.rejections = metrics.getCounter( CacheMgr.getMetricName( name, "rejection" ) );
+        this.loadErrors = metrics.getCounter( CacheMgr.getMetricName( name, "load.error" ) );
+        this.loads = metrics.getTimer( CacheMgr.getMetricName( name, "load" ) );
+        LOG.info( "LocalCacheImpl name [{}] maxEntries [{}] maxWeight [{}] ttl [{}] tti [{}]", name, maxEntries, maxWeight,
+            ttlSeconds, ttiSeconds );
+    }
+
+
+    /**
+     * Given a key name, return the corresponding value.
+     *
+     * @param key is the name used to store the entry.
+     * @return entry stored in the cache.
+     */
+    @Override
+    public Object get( Object key )
+    {
+        if ( key == null )
+        {
+            return null;
+        }
+        Node node = getNode( key );
+        if ( sketch != null )
+        {
+            record( key );
+        }
+        if ( node == null )
+        {
+            if ( isMetrics )
+            {
+                misses.incrementAndGet();
+            }
+            return null;
+        }
+        if ( isMetrics )
+        {
+            hits.incrementAndGet();
+        }
+        return node.value;
+    }
+
+
+    /**
+     * Given a key name, return the corresponding value, loading and storing it if not found.  The first thread to miss on a
+     * key runs the loader, the others wait for its result.
+     *
+     * @param key is the name used to store the entry.
+     * @param loader supplies the value when it isn't in the cache.
+     * @return entry stored in the cache, or null if the loader returned null.
+     * @throws SecurityException thrown by the loader.
+     * @throws CacheException if interrupted while waiting on another thread's load.
+     */
+    @Override
+    public Object get( final Object key, final CacheLoader loader ) throws SecurityException, CacheException
+    {
+        Object value = get( key );
+        if ( value != null )
+        {
+            return value;
+        }
+        FutureTask<Object> task = new FutureTask<>( new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                return load( key, loader );
+            }
+        } );
+        FutureTask<Object> existing = loading.putIfAbsent( key, task );
+        if ( existing == null )
+        {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                loading.remove( key, task );
+            }
+        }
+        else
+        {
+            task = existing;
+        }
+        try
+        {
+            return task.get();
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            String error = "get cache name [" + name + "] key [" + key + "] interrupted waiting on load";
+            throw new CacheException( GlobalErrIds.FT_CACHE_GET_ERR, error, ie );
+        }
+        catch ( ExecutionException ee )
+        {
+            Throwable cause = ee.getCause();
+            if ( cause instanceof SecurityException )
+            {
+                throw ( SecurityException ) cause;
+            }
+            if ( cause instanceof RuntimeException )
+            {
+                throw ( RuntimeException ) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw ( Error ) cause;
+            }
+            String error = "get cache name [" + name + "] key [" + key + "] caught Exception=" + cause;
+            throw new CacheException( GlobalErrIds.FT_CACHE_GET_ERR, error, ( Exception ) cause );
+        }
+    }
+
+
+    /**
+     * Given a key name, return the corresponding value if it is in the cache and hasn't expired.  Its access time and usage
+     * counts are left as they were.
+     *
+     * @param key is the name used to store the entry.
+     * @return entry stored in the cache, or null if not found.
+     */
+    @Override
+    public Object peek( Object key )
+    {
+        if ( key == null )
+        {
+            return null;
+        }
+        Node node = map.get( key );
+        if ( node == null || ( ( ttlNanos > 0 || ttiNanos > 0 ) && isExpired( node, System.nanoTime() ) ) )
+        {
+            return null;
+        }
+        return node.value;
+    }
+
+
+    /**
+     * Run the loader and store its result, unless another thread stored the key since it was missed.
+     */
+    private Object load( Object key, CacheLoader loader ) throws SecurityException
+    {
+        Node node = getNode( key );
+        if ( node != null )
+        {
+            return node.value;
+        }
+        long start = loads.start();
+        Object value;
+        try
+        {
+            value = loader.load( key );
+        }
+        catch ( SecurityException | RuntimeException e )
+        {
+            loadErrors.incrementAndGet();
+            throw e;
+        }
+        loads.stop( start );
+        if ( value != null )
+        {
+            put( key, value );
+        }
+        return value;
+    }
+
+
+    /**
+     * Add a new entry to the cache.  Storing a null value removes the entry.  The entry is dropped right away if the cache is
+     * full and it has been used less than the entry that would be evicted to make room.
+     *
+     * @param key name to be used for the entry.
+     * @param value object that is stored.
+     */
+    @Override
+    public void put( Object key, Object value )
+    {
+        if ( value == null )
+        {
+            clear( key );
+            return;
+        }
+        Node node = new Node( key, value, weigh( value ), System.nanoTime() );
+        if ( maxWeight > 0 && node.weight > maxWeight )
+        {
+            LOG.warn( "put cache name [{}] key [{}] weight [{}] exceeds max [{}]", name, key, node.weight, maxWeight );
+            clear( key );
+            return;
+        }
+        Node old = map.put( key, node );
+        if ( old != null )
+        {
+            weight.addAndGet( -old.weight );
+        }
+        weight.addAndGet( node.weight );
+        if ( sketch != null )
+        {
+            record( key );
+            order.add( node );
+            orderSize.incrementAndGet();
+            evict( node );
+        }
+    }
+
+
+    /**
+     * Clear a cache entry for a given name.
+     *
+     * @param key name that entry is stored as.
+     * @return boolean value will be false if entry not found and true if entry was found and removed.
+     */
+    @Override
+    public boolean clear( Object key )
+    {
+        Node old = map.remove( key );
+        if ( old == null )
+        {
+            return false;
+        }
+        onRemoved( old );
+        return true;
+    }
+
+
+    /**
+     * Remove all entries from this cache.
+     */
+    @Override
+    public void flush()
+    {
+        for ( Node node : map.values() )
+        {
+            if ( map.remove( node.key, node ) )
+            {
+                onRemoved( node );
+            }
+        }
+        compact();
+    }
+
+
+    /**
+     * The Ehcache search api is not supported by this provider.
+     *
+     * @throws CacheException always.
+     */
+    @Override
+    public <T> Attribute<T> getSearchAttribute( String attributeName ) throws CacheException
+    {
+        String error = "getSearchAttribute cache name [" + name + "] not supported by local cache provider";
+        throw new CacheException( GlobalErrIds.FT_CACHE_NOT_CONFIGURED, error );
+    }
+
+
+    /**
+     * The Ehcache search api is not supported by this provider.
+     *
+     * @throws CacheException always.
+     */
+    @Override
+    public Query createQuery()
+    {
+        String error = "createQuery cache name [" + name + "] not supported by local cache provider";
+        throw new CacheException( GlobalErrIds.FT_CACHE_NOT_CONFIGURED, error );
+    }
+
+
+    /**
+     * Return the number of entries, including those that have expired but not yet been removed.
+     *
+     * @return number of entries.
+     */
+    public long getSize()
+    {
+        return map.size();
+    }
+
+
+    /**
+     * Return the total weight of the entries.
+     *
+     * @return weight of entries.
+     */
+    public long getWeight()
+    {
+        return weight.get();
+    }
+
+
+    /**
+     * Return the node for a key if it is present and not expired.  Expired nodes are removed.
+     */
+    private Node getNode( Object key )
+    {
+        Node node = map.get( key );
+        if ( node == null )
+        {
+            return null;
+        }
+        if ( ttlNanos > 0 || ttiNanos > 0 )
+        {
+            long now = System.nanoTime();
+            if ( isExpired( node, now ) )
+            {
+                expire( node );
+                return null;
+            }
+            if ( ttiNanos > 0 )
+            {
+                node.accessed = now;
+            }
+        }
+        return node;
+    }
+
+
+    private boolean isExpired( Node node, long now )
+    {
+        return ( ttlNanos > 0 && now - node.created >= ttlNanos ) || ( ttiNanos > 0 && now - node.accessed >= ttiNanos );
+    }
+
+
+    private void expire( Node node )
+    {
+        if ( map.remove( node.key, node ) )
+        {
+            onRemoved( node );
+            if ( isMetrics )
+            {
+                expirations.incrementAndGet();
+            }
+        }
+    }
+
+
+    private void onRemoved( Node node )
+    {
+        weight.addAndGet( -node.weight );
+    }
+
+
+    private boolean isOverCapacity()
+    {
+        return ( maxEntries > 0 && map.size() > maxEntries ) || ( maxWeight > 0 && weight.get() > maxWeight );
+    }
+
+
+    /**
+     * Remove entries, oldest first, until the cache is back within its bounds.  If the oldest entry has been used more often
+     * than the one just stored, the oldest is kept and the new entry is dropped.
+     *
+     * @param candidate the entry just stored.
+     */
+    private void evict( Node candidate )
+    {
+        if ( !isOverCapacity() )
+        {
+            if ( orderSize.get() > 2 * map.size() + 64 )
+            {
+                compact();
+            }
+            return;
+        }
+        evictionLock.lock();
+        try
+        {
+            drain( reads.get() );
+            while ( isOverCapacity() )
+            {
+                Node victim = order.poll();
+                if ( victim == null )
+                {
+                    break;
+                }
+                orderSize.decrementAndGet();
+                if ( map.get( victim.key ) != victim )
+                {
+                    // Already replaced or removed:
+                    continue;
+                }
+                if ( isExpired( victim, System.nanoTime() ) )
+                {
+                    expire( victim );
+                    continue;
+                }
+                if ( candidate != null && victim != candidate && map.get( candidate.key ) == candidate
+                    && sketch.frequency( candidate.key ) <= sketch.frequency( victim.key ) )
+                {
+                    // Give the victim another turn at the back of the queue and drop the new entry:
+                    order.add( victim );
+                    orderSize.incrementAndGet();
+                    if ( map.remove( candidate.key, candidate ) )
+                    {
+                        onRemoved( candidate );
+                        if ( isMetrics )
+                        {
+                            rejections.incrementAndGet();
+                        }
+                    }
+                    candidate = null;
+                    continue;
+                }
+                if ( map.remove( victim.key, victim ) )
+                {
+                    onRemoved( victim );
+                    if ( isMetrics )
+                    {
+                        evictions.incrementAndGet();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+
+    /**
+     * Add the key to the calling thread's buffer of accesses.  A full buffer is applied to the {@link FrequencySketch} if the
+     * eviction lock is free, otherwise it is discarded.
+     *
+     * @param key that was accessed.
+     */
+    private void record( Object key )
+    {
+        ReadBuffer buffer = reads.get();
+        buffer.keys[buffer.size++] = key;
+        if ( buffer.size == READ_BUFFER_SIZE )
+        {
+            if ( evictionLock.tryLock() )
+            {
+                try
+                {
+                    drain( buffer );
+                }
+                finally
+                {
+                    evictionLock.unlock();
+                }
+            }
+            else
+            {
+                buffer.clear();
+            }
+        }
+    }
+
+
+    /**
+     * Apply the buffered accesses to the {@link FrequencySketch}, the caller must hold the eviction lock.
+     *
+     * @param buffer belongs to the calling thread.
+     */
+    private void drain( ReadBuffer buffer )
+    {
+        for ( int i = 0; i < buffer.size; i++ )
+        {
+            sketch.increment( buffer.keys[i] );
+        }
+        buffer.clear();
+    }
+
+
+    /**
+     * Drop the replaced and removed entries from the eviction queue so that it doesn't grow without bound.
+     */
+    private void compact()
+    {
+        if ( !evictionLock.tryLock() )
+        {
+            return;
+        }
+        try
+        {
+            for ( Iterator<Node> it = order.iterator(); it.hasNext(); )
+            {
+                Node node = it.next();
+                if ( map.get( node.key ) != node )
+                {
+                    it.remove();
+                    orderSize.decrementAndGet();
+                }
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+
+    /**
+     * A collection weighs one plus the number of its elements, anything else weighs one.
+     */
+    private static int weigh( Object value )
+    {
+        if ( value instanceof Collection )
+        {
+            return 1 + ( ( Collection<?> ) value ).size();
+        }
+        else if ( value instanceof Map )
+        {
+            return 1 + ( ( Map<?, ?> ) value ).size();
+        }
+        return 1;
+    }
+
+
+    /**
+     * The keys accessed by one thread that have not yet been applied to the {@link FrequencySketch}.
+     */
+    private static final class ReadBuffer
+    {
+        private final Object[] keys = new Object[READ_BUFFER_SIZE];
+        private int size;
+
+
+        private void clear()
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                keys[i] = null;
+            }
+            size = 0;
+        }
+    }
+
+
+    /**
+     * A cache entry.
+     */
+    private static final class Node
+    {
+        private final Object key;
+        private final Object value;
+        private final int weight;
+        private final long created;
+        private volatile long accessed;
+
+
+        private Node( Object key, Object value, int weight, long created )
+        {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.created = created;
+            this.accessed = created;
+        }
+    }
+}
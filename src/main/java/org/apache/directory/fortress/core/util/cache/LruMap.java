@@ -0,0 +1,175 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A map bounded to a number of entries that evicts the least recently used entry once it is full.  It is meant for small values
+ * that are looked up on every call, such as parsed names or interned strings, where going through {@link Cache} would cost
+ * more than it saves.
+ * <p>
+ * The entries are spread across segments by hash, each an access ordered {@link LinkedHashMap} with its own lock, so
+ * concurrent callers seldom wait on one another.  Recency is tracked per segment, so the entry evicted is the least recently
+ * used of its segment rather than of the whole map.
+ * <p>
+ * This class is thread safe.
+ *
+ * @param <K> type of the keys.
+ * @param <V> type of the values.
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class LruMap<K, V>
+{
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+
+
+    /**
+     * Create a map that holds up to the given number of entries.
+     *
+     * @param maxSize maximum number of entries, must be greater than zero.
+     */
+    @SuppressWarnings("unchecked")
+    public LruMap( int maxSize )
+    {
+        if ( maxSize <= 0 )
+        {
+            throw new IllegalArgumentException( "maxSize must be greater than zero" );
+        }
+        int numSegments = Math.min( SEGMENTS, maxSize );
+        segments = new Segment[numSegments];
+        for ( int i = 0; i < numSegments; i++ )
+        {
+            // Divide the entries as evenly as possible so the segment sizes add up to the maximum:
+            segments[i] = new Segment<>( maxSize / numSegments + ( i < maxSize % numSegments ? 1 : 0 ) );
+        }
+    }
+
+
+    /**
+     * Return the value of the key and mark it as most recently used.
+     *
+     * @param key must not be null.
+     * @return the value or null if not found.
+     */
+    public V get( K key )
+    {
+        Segment<K, V> segment = getSegment( key );
+        synchronized ( segment )
+        {
+            return segment.get( key );
+        }
+    }
+
+
+    /**
+     * Add the value unless the key is already mapped, in which case the existing value is returned and marked as most
+     * recently used.  The least recently used entry of the segment is evicted if it is full.
+     *
+     * @param key   must not be null.
+     * @param value must not be null.
+     * @return the existing value or null if the given value was added.
+     */
+    public V putIfAbsent( K key, V value )
+    {
+        Segment<K, V> segment = getSegment( key );
+        synchronized ( segment )
+        {
+            V existing = segment.get( key );
+            if ( existing == null )
+            {
+                segment.put( key, value );
+            }
+            return existing;
+        }
+    }
+
+
+    /**
+     * Return the number of entries.
+     *
+     * @return int value, never greater than the maximum size.
+     */
+    public int size()
+    {
+        int size = 0;
+        for ( Segment<K, V> segment : segments )
+        {
+            synchronized ( segment )
+            {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+
+    /**
+     * Remove every entry.
+     */
+    public void clear()
+    {
+        for ( Segment<K, V> segment : segments )
+        {
+            synchronized ( segment )
+            {
+                segment.clear();
+            }
+        }
+    }
+
+
+    private Segment<K, V> getSegment( K key )
+    {
+        int hash = key.hashCode();
+        // Spread the high bits down so keys that differ only there don't share a segment:
+        hash ^= hash >>> 16;
+        return segments[( hash & Integer.MAX_VALUE ) % segments.length];
+    }
+
+
+    /**
+     * One part of the map, guarded by its own monitor.
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, V>
+    {
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
+
+
+        private Segment( int maxSize )
+        {
+            super( 16, 0.75f, true );
+            this.maxSize = maxSize;
+        }
+
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<K, V> eldest )
+        {
+            return size() > maxSize;
+        }
+    }
+}
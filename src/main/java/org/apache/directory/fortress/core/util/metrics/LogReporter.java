@@ -0,0 +1,57 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.metrics;
+
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This {@link MetricsReporter} writes the metrics to the slf4j logger named after this class.  To enable, set the fortress config
+ * parameter 'metrics.reporter=org.apache.directory.fortress.core.util.metrics.LogReporter'.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LogReporter implements MetricsReporter
+{
+    private static final String CLS_NM = LogReporter.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void report( Map<String, Long> metrics )
+    {
+        if ( LOG.isInfoEnabled() )
+        {
+            StringBuilder sb = new StringBuilder( "fortress metrics" );
+            for ( Map.Entry<String, Long> metric : metrics.entrySet() )
+            {
+                sb.append( ' ' ).append( metric.getKey() ).append( '=' ).append( metric.getValue() );
+            }
+            LOG.info( sb.toString() );
+        }
+    }
+}
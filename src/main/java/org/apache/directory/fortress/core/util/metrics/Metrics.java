@@ -0,0 +1,385 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.metrics;
+
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.directory.fortress.core.util.ClassUtil;
+import org.apache.directory.fortress.core.util.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * This class is the registry of the metrics that are recorded on the Fortress hot paths:
+ * <ol>
+ * <li>ldap operation latencies, 'ldap.read', 'ldap.search', 'ldap.compare', 'ldap.bind', 'ldap.modify', 'ldap.add' and 'ldap.delete'</li>
+ * <li>connection pool borrow latencies, 'pool.admin.borrow', 'pool.user.borrow' and 'pool.log.borrow', and the active and idle connection gauges of each pool</li>
+ * <li>cache hit, miss, eviction and expiration counters and the size gauge of every cache, i.e. 'cache.fortress.roles.hit'</li>
+ * <li>manager api call latencies, i.e. 'api.AccessMgr.checkAccess', if enabled with 'metrics.api.enabled=true'</li>
+ * </ol>
+ * The metrics are published as attributes of the JMX MBean 'org.apache.directory.fortress:type=Metrics' and may also be pushed to a
+ * {@link MetricsReporter} on a fixed interval.  The following fortress config parameters are used:
+ * <ul>
+ * <li>metrics.enabled - default is true, if false nothing is recorded</li>
+ * <li>metrics.jmx.enabled - default is true, if false the MBean is not registered</li>
+ * <li>metrics.api.enabled - default is false, if true the managers returned by the factories are wrapped to time every api call</li>
+ * <li>metrics.reporter - class name of the {@link MetricsReporter}, none by default</li>
+ * <li>metrics.report.interval - seconds between reports, default is 60</li>
+ * </ul>
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class Metrics
+{
+    private static final String CLS_NM = Metrics.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
+    private static final String ENABLED = "metrics.enabled";
+    private static final String JMX_ENABLED = "metrics.jmx.enabled";
+    private static final String API_ENABLED = "metrics.api.enabled";
+    private static final String REPORTER = "metrics.reporter";
+    private static final String REPORT_INTERVAL = "metrics.report.interval";
+    private static final String OBJECT_NAME = "org.apache.directory.fortress:type=Metrics";
+
+    private final boolean enabled;
+    private final boolean apiEnabled;
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reporterService;
+
+    private static volatile Metrics INSTANCE = null;
+
+    public static Metrics getInstance()
+    {
+        if ( INSTANCE == null )
+        {
+            synchronized ( Metrics.class )
+            {
+                if ( INSTANCE == null )
+                {
+                    INSTANCE = new Metrics();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+
+    /**
+     * Private constructor
+     *
+     */
+    private Metrics()
+    {
+        Config cfg = Config.getInstance();
+        enabled = cfg.getBoolean( ENABLED, true );
+        apiEnabled = enabled && cfg.getBoolean( API_ENABLED, false );
+        if ( enabled )
+        {
+            if ( cfg.getBoolean( JMX_ENABLED, true ) )
+            {
+                registerMBean();
+            }
+            String reporterName = cfg.getProperty( REPORTER );
+            if ( StringUtils.isNotEmpty( reporterName ) )
+            {
+                startReporter( reporterName, cfg.getInt( REPORT_INTERVAL, 60 ) );
+            }
+        }
+        LOG.info( "Metrics enabled [{}] api enabled [{}]", enabled, apiEnabled );
+    }
+
+
+    /**
+     * Return true if metrics are being recorded.
+     *
+     * @return boolean value which is false if 'metrics.enabled=false'.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+
+    /**
+     * Return the counter with the given name, creating it if necessary.  Callers should hold onto the reference rather than look it up
+     * on every use.
+     *
+     * @param name of counter.
+     * @return counter that is registered under name.
+     */
+    public AtomicLong getCounter( String name )
+    {
+        AtomicLong counter = counters.get( name );
+        if ( counter == null )
+        {
+            AtomicLong newCounter = new AtomicLong();
+            counter = counters.putIfAbsent( name, newCounter );
+            if ( counter == null )
+            {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+
+    /**
+     * Return the timer with the given name, creating it if necessary.  Callers should hold onto the reference rather than look it up
+     * on every use.
+     *
+     * @param name of timer.
+     * @return timer that is registered under name.
+     */
+    public Timer getTimer( String name )
+    {
+        Timer timer = timers.get( name );
+        if ( timer == null )
+        {
+            Timer newTimer = new Timer( enabled );
+            timer = timers.putIfAbsent( name, newTimer );
+            if ( timer == null )
+            {
+                timer = newTimer;
+            }
+        }
+        return timer;
+    }
+
+
+    /**
+     * Register a gauge, replacing one that was previously registered under the same name.
+     *
+     * @param name  of gauge.
+     * @param gauge supplies the value.
+     */
+    public void register( String name, Gauge gauge )
+    {
+        if ( enabled )
+        {
+            gauges.put( name, gauge );
+        }
+    }
+
+
+    /**
+     * Increment the counter with given name.  This is a convenience for infrequent events, hot paths should use {@link #getCounter(String)}.
+     *
+     * @param name of counter.
+     */
+    public void increment( String name )
+    {
+        if ( enabled )
+        {
+            getCounter( name ).incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Return the current value of every metric.  Each timer is expanded into its count, mean, 50th and 99th percentiles and max,
+     * for example 'ldap.search.count', 'ldap.search.mean.us', 'ldap.search.p50.us', 'ldap.search.p99.us' and 'ldap.search.max.us'.
+     *
+     * @return Map of metric name to value, sorted by name.
+     */
+    public SortedMap<String, Long> getSnapshot()
+    {
+        SortedMap<String, Long> snapshot = new TreeMap<>();
+        for ( Map.Entry<String, AtomicLong> counter : counters.entrySet() )
+        {
+            snapshot.put( counter.getKey(), counter.getValue().get() );
+        }
+        for ( Map.Entry<String, Timer> entry : timers.entrySet() )
+        {
+            String name = entry.getKey();
+            Timer timer = entry.getValue();
+            snapshot.put( name + ".count", timer.getCount() );
+            snapshot.put( name + ".mean.us", timer.getMean() );
+            snapshot.put( name + ".p50.us", timer.getPercentile( 0.5 ) );
+            snapshot.put( name + ".p99.us", timer.getPercentile( 0.99 ) );
+            snapshot.put( name + ".max.us", timer.getMax() );
+        }
+        for ( Map.Entry<String, Gauge> gauge : gauges.entrySet() )
+        {
+            try
+            {
+                snapshot.put( gauge.getKey(), gauge.getValue().getValue() );
+            }
+            catch ( RuntimeException e )
+            {
+                LOG.debug( "getSnapshot gauge [{}] caught RuntimeException={}", gauge.getKey(), e.getMessage() );
+            }
+        }
+        return snapshot;
+    }
+
+
+    /**
+     * Wrap a manager so that the latency of each of its api calls is recorded in timer 'api.[interface name].[method name]'.  The
+     * manager is returned as is unless 'metrics.api.enabled=true'.
+     *
+     * @param type interface of the manager, i.e. {@code AccessMgr.class}.
+     * @param mgr  instance to wrap.
+     * @param <T>  type of manager.
+     * @return manager that records its api calls.
+     */
+    public <T> T wrap( Class<T> type, T mgr )
+    {
+        if ( !apiEnabled || mgr == null || Proxy.isProxyClass( mgr.getClass() ) )
+        {
+            return mgr;
+        }
+        return type.cast( Proxy.newProxyInstance( type.getClassLoader(), new Class<?>[]
+            { type }, new ApiHandler( "api." + type.getSimpleName() + ".", mgr ) ) );
+    }
+
+
+    /**
+     * Register the MBean that publishes the snapshot.  Failure is logged but otherwise ignored, i.e. when another copy of fortress within
+     * the same jvm has already registered it.
+     */
+    private void registerMBean()
+    {
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean( new MetricsJmx( this ),
+                new ObjectName( OBJECT_NAME ) );
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( "registerMBean [{}] caught Exception={}", OBJECT_NAME, e.getMessage() );
+        }
+    }
+
+
+    /**
+     * Start the daemon thread that pushes the snapshot to the reporter.
+     *
+     * @param reporterName class name of reporter.
+     * @param interval     seconds between reports.
+     */
+    private void startReporter( String reporterName, int interval )
+    {
+        final MetricsReporter reporter;
+        try
+        {
+            reporter = ( MetricsReporter ) ClassUtil.createInstance( reporterName );
+        }
+        catch ( Exception e )
+        {
+            LOG.error( "startReporter could not create [{}] caught Exception={}", reporterName, e.getMessage() );
+            return;
+        }
+        reporterService = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+        {
+            @Override
+            public Thread newThread( Runnable runnable )
+            {
+                Thread thread = new Thread( runnable, "fortress-metrics-reporter" );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+        reporterService.scheduleAtFixedRate( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    reporter.report( getSnapshot() );
+                }
+                catch ( RuntimeException e )
+                {
+                    LOG.warn( "reporter [{}] caught RuntimeException={}", reporter.getClass().getName(), e.getMessage() );
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS );
+        LOG.info( "startReporter [{}] interval [{}] seconds", reporterName, interval );
+    }
+
+
+    /**
+     * Times every call made through the proxy returned by {@link #wrap(Class, Object)}.
+     */
+    private final class ApiHandler implements InvocationHandler
+    {
+        private final String prefix;
+        private final Object mgr;
+        private final ConcurrentMap<Method, Timer> methodTimers = new ConcurrentHashMap<>();
+
+
+        private ApiHandler( String prefix, Object mgr )
+        {
+            this.prefix = prefix;
+            this.mgr = mgr;
+        }
+
+
+        @Override
+        public Object invoke( Object proxy, Method method, Object[] args ) throws Throwable
+        {
+            if ( method.getDeclaringClass() == Object.class )
+            {
+                return method.invoke( mgr, args );
+            }
+            Timer timer = methodTimers.get( method );
+            if ( timer == null )
+            {
+                timer = getTimer( prefix + method.getName() );
+                methodTimers.put( method, timer );
+            }
+            long start = timer.start();
+            try
+            {
+                return method.invoke( mgr, args );
+            }
+            catch ( InvocationTargetException e )
+            {
+                throw e.getCause();
+            }
+            finally
+            {
+                timer.stop( start );
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.metrics;
+
+
+import java.util.Map;
+import java.util.SortedMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+
+/**
+ * This MBean publishes each entry of {@link Metrics#getSnapshot()} as a read only attribute.  The attributes are computed when read so
+ * metrics registered after startup appear the next time the MBean info is fetched.  A 'reset' operation is not offered because the
+ * values are running totals meant to be differenced by the monitoring system.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class MetricsJmx implements DynamicMBean
+{
+    private final Metrics metrics;
+
+
+    MetricsJmx( Metrics metrics )
+    {
+        this.metrics = metrics;
+    }
+
+
+    @Override
+    public Object getAttribute( String attribute ) throws AttributeNotFoundException, MBeanException, ReflectionException
+    {
+        Long value = metrics.getSnapshot().get( attribute );
+        if ( value == null )
+        {
+            throw new AttributeNotFoundException( attribute );
+        }
+        return value;
+    }
+
+
+    @Override
+    public void setAttribute( Attribute attribute ) throws AttributeNotFoundException
+    {
+        throw new AttributeNotFoundException( "attribute [" + attribute.getName() + "] is read only" );
+    }
+
+
+    @Override
+    public AttributeList getAttributes( String[] attributes )
+    {
+        SortedMap<String, Long> snapshot = metrics.getSnapshot();
+        AttributeList list = new AttributeList();
+        for ( String name : attributes )
+        {
+            Long value = snapshot.get( name );
+            if ( value != null )
+            {
+                list.add( new Attribute( name, value ) );
+            }
+        }
+        return list;
+    }
+
+
+    @Override
+    public AttributeList setAttributes( AttributeList attributes )
+    {
+        return new AttributeList();
+    }
+
+
+    @Override
+    public Object invoke( String actionName, Object[] params, String[] signature ) throws ReflectionException
+    {
+        throw new ReflectionException( new NoSuchMethodException( actionName ) );
+    }
+
+
+    @Override
+    public MBeanInfo getMBeanInfo()
+    {
+        SortedMap<String, Long> snapshot = metrics.getSnapshot();
+        MBeanAttributeInfo[] attrs = new MBeanAttributeInfo[snapshot.size()];
+        int i = 0;
+        for ( Map.Entry<String, Long> entry : snapshot.entrySet() )
+        {
+            attrs[i++] = new MBeanAttributeInfo( entry.getKey(), Long.class.getName(), entry.getKey(), true, false,
+                false );
+        }
+        return new MBeanInfo( Metrics.class.getName(), "Apache Fortress metrics", attrs, null,
+            new MBeanOperationInfo[0], null );
+    }
+}
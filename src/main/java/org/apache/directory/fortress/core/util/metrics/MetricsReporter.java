@@ -0,0 +1,43 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.metrics;
+
+
+import java.util.Map;
+
+
+/**
+ * Interface for publishing Fortress metrics to an external monitoring system.  Implementations are named by the fortress config
+ * parameter 'metrics.reporter' and called every 'metrics.report.interval' seconds with a snapshot of every counter, timer and
+ * gauge.  The implementation must have a public no-arg constructor.
+ * <p>
+ * See {@link LogReporter} for an example.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface MetricsReporter
+{
+    /**
+     * Publish the metrics.
+     *
+     * @param metrics contains the metric names, sorted, and their current values.  See {@link Metrics#getSnapshot()}.
+     */
+    void report( Map<String, Long> metrics );
+}
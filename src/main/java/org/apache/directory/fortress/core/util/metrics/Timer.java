@@ -0,0 +1,258 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.metrics;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * This class records the number and latency of a given operation, i.e. an ldap search or a connection pool borrow.  Latencies are kept
+ * in a fixed histogram of power of two microsecond buckets so that recording is a handful of atomic increments with no allocation
+ * and no locking.  Percentiles are reported as the upper bound of the bucket the percentile falls into.
+ * <p>
+ * The count, total and histogram are striped: each thread records into one of several cells, chosen by its id, and the cells are
+ * summed when read.  Threads recording at the same time rarely share a cell, so they don't contend on the same cache line as they
+ * would on a single set of counters.  The max is shared but only written when it grows.  As the cells are summed one at a time, a
+ * read made while operations are being recorded may include some of their fields but not others.
+ * <p>
+ * Instances are obtained from {@link Metrics#getTimer(String)}.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class Timer
+{
+    private static final int BUCKETS = 32;
+    // position of the fields within a cell:
+    private static final int COUNT = 0;
+    private static final int TOTAL = 1;
+    private static final int BUCKET = 2;
+    // longs per cell, rounded up to a multiple of 8 so no two cells share a 64 byte cache line:
+    private static final int CELL_SIZE = ( BUCKET + BUCKETS + 7 ) & ~7;
+    private static final int CELLS = getCells();
+
+    private final boolean enabled;
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLongArray cells;
+
+
+    /**
+     * Package private constructor, called by {@link Metrics}.
+     *
+     * @param enabled if false the timer won't record anything.
+     */
+    Timer( boolean enabled )
+    {
+        this.enabled = enabled;
+        // one empty cell up front keeps the first cell off the cache line of the array header:
+        cells = new AtomicLongArray( enabled ? ( CELLS + 1 ) * CELL_SIZE : 0 );
+    }
+
+
+    /**
+     * Return the start time to be passed into {@link #stop(long)} once the operation completes.
+     *
+     * @return current value of the system timer in nanoseconds, or zero if disabled.
+     */
+    public long start()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+
+    /**
+     * Record an operation that began at the given time.
+     *
+     * @param start value returned from {@link #start()}.
+     */
+    public void stop( long start )
+    {
+        if ( enabled )
+        {
+            record( System.nanoTime() - start );
+        }
+    }
+
+
+    /**
+     * Record an operation with the given latency.
+     *
+     * @param nanos elapsed time of operation in nanoseconds.
+     */
+    public void record( long nanos )
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        if ( nanos < 0 )
+        {
+            nanos = 0;
+        }
+        int cell = getCell();
+        cells.incrementAndGet( cell + COUNT );
+        cells.addAndGet( cell + TOTAL, nanos );
+        cells.incrementAndGet( cell + BUCKET + getBucket( TimeUnit.NANOSECONDS.toMicros( nanos ) ) );
+        long current = max.get();
+        while ( nanos > current && !max.compareAndSet( current, nanos ) )
+        {
+            current = max.get();
+        }
+    }
+
+
+    /**
+     * Return the number of operations recorded.
+     *
+     * @return long containing count.
+     */
+    public long getCount()
+    {
+        return sum( COUNT );
+    }
+
+
+    /**
+     * Return the average latency.
+     *
+     * @return mean latency in microseconds, zero if nothing has been recorded.
+     */
+    public long getMean()
+    {
+        long ops = sum( COUNT );
+        return ops == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros( sum( TOTAL ) / ops );
+    }
+
+
+    /**
+     * Return the largest latency recorded.
+     *
+     * @return max latency in microseconds.
+     */
+    public long getMax()
+    {
+        return TimeUnit.NANOSECONDS.toMicros( max.get() );
+    }
+
+
+    /**
+     * Return the latency that the given fraction of operations completed within.
+     *
+     * @param quantile between 0 and 1, i.e. 0.99 for the 99th percentile.
+     * @return upper bound of the bucket containing the quantile, in microseconds.
+     */
+    public long getPercentile( double quantile )
+    {
+        long[] counts = new long[BUCKETS];
+        long ops = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            counts[i] = sum( BUCKET + i );
+            ops += counts[i];
+        }
+        if ( ops == 0 )
+        {
+            return 0;
+        }
+        long target = ( long ) Math.ceil( quantile * ops );
+        long seen = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            seen += counts[i];
+            if ( seen >= target )
+            {
+                return getUpperBound( i );
+            }
+        }
+        return getUpperBound( BUCKETS - 1 );
+    }
+
+
+    /**
+     * @param field position of the field within a cell.
+     * @return the field added up across the cells.
+     */
+    private long sum( int field )
+    {
+        if ( !enabled )
+        {
+            return 0;
+        }
+        long sum = 0;
+        for ( int i = 1; i <= CELLS; i++ )
+        {
+            sum += cells.get( i * CELL_SIZE + field );
+        }
+        return sum;
+    }
+
+
+    /**
+     * @return position in the array of the cell the calling thread records into.
+     */
+    private static int getCell()
+    {
+        long id = Thread.currentThread().getId();
+        return ( ( int ) ( id ^ ( id >>> 32 ) ) & ( CELLS - 1 ) ) * CELL_SIZE + CELL_SIZE;
+    }
+
+
+    /**
+     * @return the number of cells, the power of two at or above twice the number of processors, at most 64.
+     */
+    private static int getCells()
+    {
+        int cells = 1;
+        while ( cells < 64 && cells < 2 * Runtime.getRuntime().availableProcessors() )
+        {
+            cells <<= 1;
+        }
+        return cells;
+    }
+
+
+    /**
+     * Bucket 0 holds latencies under 1 microsecond, bucket i holds [2^(i-1), 2^i) microseconds and the last bucket holds everything
+     * larger.
+     *
+     * @param micros latency.
+     * @return index of bucket.
+     */
+    private static int getBucket( long micros )
+    {
+        int bucket = 64 - Long.numberOfLeadingZeros( micros );
+        return bucket < BUCKETS ? bucket : BUCKETS - 1;
+    }
+
+
+    /**
+     *
+     * @param bucket index.
+     * @return largest latency in microseconds held by bucket.
+     */
+    private static long getUpperBound( int bucket )
+    {
+        return 1L << bucket;
+    }
+}
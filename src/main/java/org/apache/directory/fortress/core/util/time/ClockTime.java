@@ -58,6 +58,37 @@ public class ClockTime
      */
     @Override
     public int validate( Session session, Constraint constraint, Time time, VUtil.ConstraintType type )
+    {
+        ParsedConstraint parsed = ParsedConstraint.get( constraint );
+        if ( !parsed.isValid() )
+        {
+            return validateRaw( constraint, time );
+        }
+        int rc = GlobalErrIds.ACTV_FAILED_TIME;
+        int beginTime = parsed.getBeginTime();
+        int endTime = parsed.getEndTime();
+
+        if ( ( beginTime == ParsedConstraint.NOT_SET ) || ( ( beginTime == 0 ) && ( endTime == 0 ) ) )
+        {
+            rc = 0;
+        }
+        else if ( beginTime <= time.currentTime && endTime >= time.currentTime )
+        {
+            rc = 0;
+        }
+
+        return rc;
+    }
+
+
+    /**
+     * Convert and compare the time strings, used when the constraint could not be converted.
+     *
+     * @param constraint contains the begin and end times.
+     * @param time       contains the current time.
+     * @return '0' if validation succeeds else {@link org.apache.directory.fortress.core.GlobalErrIds#ACTV_FAILED_TIME} if failed.
+     */
+    private static int validateRaw( Constraint constraint, Time time )
     {
         int rc = GlobalErrIds.ACTV_FAILED_TIME;
 
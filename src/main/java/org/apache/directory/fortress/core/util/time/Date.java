@@ -60,6 +60,32 @@ public class Date
      */
     @Override
     public int validate(Session session, Constraint constraint, Time time, VUtil.ConstraintType type )
+    {
+        ParsedConstraint parsed = ParsedConstraint.get( constraint );
+        if ( !parsed.isValid() )
+        {
+            return validateRaw( constraint, time );
+        }
+        int rc = GlobalErrIds.ACTV_FAILED_DATE;
+        int beginDate = parsed.getBeginDate();
+        int endDate = parsed.getEndDate();
+        if ( ( beginDate == ParsedConstraint.NOT_SET || beginDate <= time.dateValue )
+            && ( endDate == ParsedConstraint.NOT_SET || endDate >= time.dateValue ) )
+        {
+            rc = 0;
+        }
+        return rc;
+    }
+
+
+    /**
+     * Compare the date strings, used when the constraint contains values that are not in YYYYMMDD format.
+     *
+     * @param constraint contains the begin and end dates.
+     * @param time       contains the current time stamp.
+     * @return '0' if validation succeeds else {@link GlobalErrIds#ACTV_FAILED_DATE} if failed.
+     */
+    private static int validateRaw( Constraint constraint, Time time )
     {
         int rc = GlobalErrIds.ACTV_FAILED_DATE;
         boolean noBegin = false;
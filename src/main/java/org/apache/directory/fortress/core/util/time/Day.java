@@ -20,7 +20,6 @@
 package org.apache.directory.fortress.core.util.time;
 
 import org.apache.directory.fortress.core.GlobalErrIds;
-import org.apache.directory.fortress.core.GlobalIds;
 import org.apache.directory.fortress.core.model.Constraint;
 import org.apache.directory.fortress.core.model.Session;
 import org.apache.directory.fortress.core.util.VUtil;
@@ -57,17 +56,10 @@ public class Day
     public int validate(Session session, Constraint constraint, Time time, VUtil.ConstraintType type )
     {
         int rc = GlobalErrIds.ACTV_FAILED_DAY;
-        if (constraint.getDayMask() == null || constraint.getDayMask().compareToIgnoreCase(GlobalIds.ALL) == 0)
+        if ( ParsedConstraint.get( constraint ).isDayAllowed( time.dayOfWeek ) )
         {
             rc = 0;
         }
-        else
-        {
-            if (constraint.getDayMask().contains(time.day))
-            {
-                rc = 0;
-            }
-        }
         return rc;
     }
 }
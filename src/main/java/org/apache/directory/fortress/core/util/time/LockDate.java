@@ -60,6 +60,34 @@ public class LockDate
      */
     @Override
     public int validate(Session session, Constraint constraint, Time time, VUtil.ConstraintType type )
+    {
+        ParsedConstraint parsed = ParsedConstraint.get( constraint );
+        if ( !parsed.isValid() )
+        {
+            return validateRaw( constraint, time );
+        }
+        int rc = GlobalErrIds.ACTV_FAILED_LOCK;
+        int beginLockDate = parsed.getBeginLockDate();
+        int endLockDate = parsed.getEndLockDate();
+
+        // if either beginLockDate or endLockDate equal to null or 'none', validation will automatically pass.
+        if ( beginLockDate == ParsedConstraint.NOT_SET || endLockDate == ParsedConstraint.NOT_SET
+            || !( beginLockDate <= time.dateValue && endLockDate >= time.dateValue ) )
+        {
+            rc = 0;
+        }
+        return rc;
+    }
+
+
+    /**
+     * Compare the date strings, used when the constraint contains values that are not in YYYYMMDD format.
+     *
+     * @param constraint contains the begin and end lock dates.
+     * @param time       contains the current time stamp.
+     * @return '0' if validation succeeds else {@link GlobalErrIds#ACTV_FAILED_LOCK} if failed.
+     */
+    private static int validateRaw( Constraint constraint, Time time )
     {
         int rc = GlobalErrIds.ACTV_FAILED_LOCK;
 
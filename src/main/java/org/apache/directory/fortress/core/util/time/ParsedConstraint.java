@@ -0,0 +1,332 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.time;
+
+
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.User;
+import org.apache.directory.fortress.core.model.UserRole;
+
+
+/**
+ * Contains the values of a {@link Constraint} converted to the numeric form compared by the {@link ClockTime}, {@link Date},
+ * {@link Day} and {@link LockDate} validators against {@link Time}.  Dates are stored as YYYYMMDD ints and the day mask as a bit per
+ * day of week so that the checks done on every call to {@link org.apache.directory.fortress.core.util.VUtil#validateConstraints} are
+ * integer comparisons only.
+ * <p>
+ * Instances are cached on {@link User} and {@link UserRole} and rebuilt when any of the underlying constraint values is replaced.
+ * If a value could not be converted, i.e. it wasn't validated before being stored, {@link #isValid()} returns false and the
+ * validators fall back to comparing the raw strings.
+ * <p>
+ * This class is immutable and thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class ParsedConstraint
+{
+    /**
+     * Stored in place of a begin or end value that is null or set to {@link GlobalIds#NONE}, which disables the check.
+     */
+    public static final int NOT_SET = -1;
+
+    /**
+     * Stored in place of a day mask that is null or set to {@link GlobalIds#ALL}, which disables the check.
+     */
+    public static final int ALL_DAYS = -1;
+
+    private static final int DATE_LEN = 8;
+
+    // The raw values are kept to detect when the constraint has been changed:
+    private final String rawBeginTime;
+    private final String rawEndTime;
+    private final String rawBeginDate;
+    private final String rawEndDate;
+    private final String rawBeginLockDate;
+    private final String rawEndLockDate;
+    private final String rawDayMask;
+
+    private final int beginTime;
+    private final int endTime;
+    private final int beginDate;
+    private final int endDate;
+    private final int beginLockDate;
+    private final int endLockDate;
+    private final int dayMask;
+    private final boolean valid;
+
+
+    /**
+     * Private constructor, use {@link #get(Constraint)}.
+     *
+     * @param constraint contains the values to be converted.
+     */
+    private ParsedConstraint( Constraint constraint )
+    {
+        rawBeginTime = constraint.getBeginTime();
+        rawEndTime = constraint.getEndTime();
+        rawBeginDate = constraint.getBeginDate();
+        rawEndDate = constraint.getEndDate();
+        rawBeginLockDate = constraint.getBeginLockDate();
+        rawEndLockDate = constraint.getEndLockDate();
+        rawDayMask = constraint.getDayMask();
+
+        boolean isValid = true;
+        if ( isNone( rawBeginTime ) )
+        {
+            beginTime = NOT_SET;
+            endTime = NOT_SET;
+        }
+        else
+        {
+            int begin;
+            int end;
+            try
+            {
+                begin = Integer.parseInt( rawBeginTime );
+                end = Integer.parseInt( rawEndTime );
+            }
+            catch ( NumberFormatException ne )
+            {
+                begin = NOT_SET;
+                end = NOT_SET;
+                isValid = false;
+            }
+            beginTime = begin;
+            endTime = end;
+        }
+
+        beginDate = parseDate( rawBeginDate );
+        endDate = parseDate( rawEndDate );
+        beginLockDate = parseDate( rawBeginLockDate );
+        endLockDate = parseDate( rawEndLockDate );
+        dayMask = parseDayMask( rawDayMask );
+        this.valid = isValid && beginDate != Integer.MIN_VALUE && endDate != Integer.MIN_VALUE
+            && beginLockDate != Integer.MIN_VALUE && endLockDate != Integer.MIN_VALUE;
+    }
+
+
+    /**
+     * Return the converted values of the constraint.  The values are cached on {@link User} and {@link UserRole} entities, other
+     * implementations of {@link Constraint} are converted on every call.
+     *
+     * @param constraint contains the temporal values.
+     * @return ParsedConstraint containing the converted values.
+     */
+    public static ParsedConstraint get( Constraint constraint )
+    {
+        if ( constraint instanceof UserRole )
+        {
+            return ( ( UserRole ) constraint ).getParsedConstraint();
+        }
+        else if ( constraint instanceof User )
+        {
+            return ( ( User ) constraint ).getParsedConstraint();
+        }
+        return parse( constraint );
+    }
+
+
+    /**
+     * Convert the values of the constraint.  This method is meant to be called by the entities that cache the result, others
+     * should call {@link #get(Constraint)}.
+     *
+     * @param constraint contains the temporal values.
+     * @return ParsedConstraint containing the converted values.
+     */
+    public static ParsedConstraint parse( Constraint constraint )
+    {
+        return new ParsedConstraint( constraint );
+    }
+
+
+    /**
+     * Return true if this object was converted from the current values of the constraint.  The raw values are compared by
+     * reference since every setter replaces the String.
+     *
+     * @param constraint contains the temporal values.
+     * @return boolean value, false if any of the values have changed since this object was built.
+     */
+    public boolean isCurrent( Constraint constraint )
+    {
+        return rawBeginTime == constraint.getBeginTime()
+            && rawEndTime == constraint.getEndTime()
+            && rawBeginDate == constraint.getBeginDate()
+            && rawEndDate == constraint.getEndDate()
+            && rawBeginLockDate == constraint.getBeginLockDate()
+            && rawEndLockDate == constraint.getEndLockDate()
+            && rawDayMask == constraint.getDayMask();
+    }
+
+
+    /**
+     * Return false if one of the times or dates could not be converted to a number.
+     *
+     * @return boolean value.
+     */
+    public boolean isValid()
+    {
+        return valid;
+    }
+
+
+    /**
+     * Begin time in HHMM format or {@link #NOT_SET}.
+     *
+     * @return int value.
+     */
+    public int getBeginTime()
+    {
+        return beginTime;
+    }
+
+
+    /**
+     * End time in HHMM format or {@link #NOT_SET} if begin time isn't set.
+     *
+     * @return int value.
+     */
+    public int getEndTime()
+    {
+        return endTime;
+    }
+
+
+    /**
+     * Begin date in YYYYMMDD format or {@link #NOT_SET}.
+     *
+     * @return int value.
+     */
+    public int getBeginDate()
+    {
+        return beginDate;
+    }
+
+
+    /**
+     * End date in YYYYMMDD format or {@link #NOT_SET}.
+     *
+     * @return int value.
+     */
+    public int getEndDate()
+    {
+        return endDate;
+    }
+
+
+    /**
+     * Begin lock date in YYYYMMDD format or {@link #NOT_SET}.
+     *
+     * @return int value.
+     */
+    public int getBeginLockDate()
+    {
+        return beginLockDate;
+    }
+
+
+    /**
+     * End lock date in YYYYMMDD format or {@link #NOT_SET}.
+     *
+     * @return int value.
+     */
+    public int getEndLockDate()
+    {
+        return endLockDate;
+    }
+
+
+    /**
+     * Return true if the day mask allows the given day of week.
+     *
+     * @param dayOfWeek 1 thru 7 for Sun thru Sat.
+     * @return boolean value.
+     */
+    public boolean isDayAllowed( int dayOfWeek )
+    {
+        return dayMask == ALL_DAYS || ( dayMask & ( 1 << dayOfWeek ) ) != 0;
+    }
+
+
+    /**
+     *
+     * @param value contains raw constraint value.
+     * @return true if value is null or set to 'none'.
+     */
+    private static boolean isNone( String value )
+    {
+        return value == null || value.compareToIgnoreCase( GlobalIds.NONE ) == 0;
+    }
+
+
+    /**
+     * Convert YYYYMMDD string to int.
+     *
+     * @param date contains raw constraint value.
+     * @return int value, {@link #NOT_SET} if none or Integer.MIN_VALUE if invalid.
+     */
+    private static int parseDate( String date )
+    {
+        if ( isNone( date ) )
+        {
+            return NOT_SET;
+        }
+        if ( date.length() != DATE_LEN )
+        {
+            return Integer.MIN_VALUE;
+        }
+        int value = 0;
+        for ( int i = 0; i < DATE_LEN; i++ )
+        {
+            char c = date.charAt( i );
+            if ( c < '0' || c > '9' )
+            {
+                return Integer.MIN_VALUE;
+            }
+            value = value * 10 + ( c - '0' );
+        }
+        return value;
+    }
+
+
+    /**
+     * Convert the day mask to bit set, i.e. '23456' sets bits 2 thru 6.
+     *
+     * @param dayMask contains raw constraint value.
+     * @return int containing a bit for every day allowed or {@link #ALL_DAYS}.
+     */
+    private static int parseDayMask( String dayMask )
+    {
+        if ( dayMask == null || dayMask.compareToIgnoreCase( GlobalIds.ALL ) == 0 )
+        {
+            return ALL_DAYS;
+        }
+        int mask = 0;
+        for ( int i = 0; i < dayMask.length(); i++ )
+        {
+            char c = dayMask.charAt( i );
+            if ( c >= '1' && c <= '7' )
+            {
+                mask |= 1 << ( c - '0' );
+            }
+        }
+        return mask;
+    }
+}
@@ -34,6 +34,8 @@ import java.util.*;
  */
 public final class TUtil
 {
+    private static volatile Time currentTime;
+
     /**
      * Private constructor
      *
@@ -43,47 +45,62 @@ public final class TUtil
     }
 
     /**
-     * Get the curent timestamp from Java and convert to {@link Time} format.
+     * Get the curent timestamp from Java and convert to {@link Time} format.  The timestamp has minute resolution so it is computed
+     * once per minute and kept until the next minute begins.  Every caller gets its own copy so the cached value can't be changed.
      *
      * @return Time
      */
     public static Time getCurrentTime()
     {
-        Time time = new Time();
-        GregorianCalendar gc = new GregorianCalendar();
-        String szMinute = "" + gc.get( GregorianCalendar.MINUTE );
-        String szHour = "" + gc.get( GregorianCalendar.HOUR_OF_DAY );
-
-        time.day = "" + gc.get( GregorianCalendar.DAY_OF_WEEK );
-        String szDay = "" + gc.get( GregorianCalendar.DAY_OF_MONTH );
-        int month = gc.get( GregorianCalendar.MONTH );
-        String szMonth = "" + ( month + 1 );
-        String szYear = "" + gc.get( GregorianCalendar.YEAR );
-
-        if ( szMinute.length() == 1 )
-        {
-            szMinute = "0" + szMinute;
-        }
+        return new Time( getCurrentTime( System.currentTimeMillis() ) );
+    }
 
-        if ( szHour.length() == 1 )
-        {
-            szHour = "0" + szHour;
-        }
 
-        if ( szDay.length() == 1 )
-        {
-            szDay = "0" + szDay;
-        }
-
-        if ( szMonth.length() == 1 )
+    /**
+     * Return the cached timestamp if it's valid for the given time, else compute and cache a new one.  The object returned is
+     * shared and must not be passed outside of this package.
+     *
+     * @param now contains the current time in millis.
+     * @return Time
+     */
+    static Time getCurrentTime( long now )
+    {
+        Time time = currentTime;
+        // Recompute when the minute has changed or if the system clock was set back:
+        if ( time == null || now >= time.expiration || now < time.start )
         {
-            szMonth = "0" + szMonth;
+            time = newTime( now );
+            currentTime = time;
         }
+        return time;
+    }
 
-        String szCurrentTime = szHour + szMinute;
 
-        time.currentTime = Integer.valueOf( szCurrentTime );
-        time.date = szYear + szMonth + szDay;
+    /**
+     * Convert the given timestamp to {@link Time} format.
+     *
+     * @param millis contains the current time.
+     * @return Time
+     */
+    static Time newTime( long millis )
+    {
+        Time time = new Time();
+        GregorianCalendar gc = new GregorianCalendar();
+        gc.setTimeInMillis( millis );
+        int minute = gc.get( GregorianCalendar.MINUTE );
+        int hour = gc.get( GregorianCalendar.HOUR_OF_DAY );
+        int dayOfWeek = gc.get( GregorianCalendar.DAY_OF_WEEK );
+        int day = gc.get( GregorianCalendar.DAY_OF_MONTH );
+        int month = gc.get( GregorianCalendar.MONTH ) + 1;
+        int year = gc.get( GregorianCalendar.YEAR );
+
+        time.currentTime = hour * 100 + minute;
+        time.dayOfWeek = dayOfWeek;
+        time.day = String.valueOf( dayOfWeek );
+        time.dateValue = year * 10000 + month * 100 + day;
+        time.date = String.format( "%04d%02d%02d", year, month, day );
+        time.start = millis - gc.get( GregorianCalendar.SECOND ) * 1000L - gc.get( GregorianCalendar.MILLISECOND );
+        time.expiration = time.start + 60000L;
         return time;
     }
 
@@ -21,6 +21,7 @@ package org.apache.directory.fortress.core.util.time;
 
 /**
  * Class contains a custom timestamp that is processed by {@link Validator} to check {@link org.apache.directory.fortress.core.model.Constraint}.
+ * {@link TUtil#getCurrentTime()} computes the timestamp once per minute and returns a copy of it to every caller.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -40,5 +41,50 @@ public class Time
      * Stored in 'YYYYMMDD' format.  i.e. '20110101' is January 1, 2011.
      */
     public String date;
+
+    /**
+     * Day of week, 1 thru 7 for Sun thru Sat, as int.
+     */
+    public int dayOfWeek;
+
+    /**
+     * Date in 'YYYYMMDD' format as int.  i.e. 20110101 is January 1, 2011.
+     */
+    public int dateValue;
+
+    /**
+     * The start of the minute this timestamp is valid for, in millis.
+     */
+    long start;
+
+    /**
+     * The start of the following minute, in millis.
+     */
+    long expiration;
+
+
+    /**
+     * Default constructor.
+     */
+    public Time()
+    {
+    }
+
+
+    /**
+     * Copy constructor, used to hand out the timestamp that is shared for the current minute.
+     *
+     * @param time contains the values to be copied.
+     */
+    Time( Time time )
+    {
+        this.currentTime = time.currentTime;
+        this.day = time.day;
+        this.date = time.date;
+        this.dayOfWeek = time.dayOfWeek;
+        this.dateValue = time.dateValue;
+        this.start = time.start;
+        this.expiration = time.expiration;
+    }
 }
 
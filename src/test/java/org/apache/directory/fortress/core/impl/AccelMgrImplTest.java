@@ -21,6 +21,8 @@ package org.apache.directory.fortress.core.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -36,6 +38,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.directory.fortress.core.AccelMgr;
 import org.apache.directory.fortress.core.AccelMgrFactory;
+import org.apache.directory.fortress.core.AsyncAccelMgr;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.util.LogUtil;
@@ -58,6 +61,7 @@ public class AccelMgrImplTest extends TestCase
         suite.addTest( new AccelMgrImplTest( "testCreateSession" ) );
         suite.addTest( new AccelMgrImplTest( "testCreateSessionWithRole" ) );
         suite.addTest( new AccelMgrImplTest( "testCheckAccess" ) );
+        suite.addTest( new AccelMgrImplTest( "testCheckAccessAsync" ) );
         suite.addTest( new AccelMgrImplTest( "testAddActiveRole" ) );
         suite.addTest( new AccelMgrImplTest( "testDropActiveRole" ) );
         return suite;
@@ -285,6 +289,93 @@ public class AccelMgrImplTest extends TestCase
     }
 
 
+    /**
+     *
+     */
+    public void testCheckAccessAsync()
+    {
+        // public Future<Boolean> checkAccess(Session session, Permission perm)
+        checkAccessAsync( "CHCK-ACS-ASYNC TU3 TOB3 TOP3 ", UserTestData.USERS_TU3, PermTestData.OBJS_TOB3,
+            PermTestData.OPS_TOP3, PermTestData.OBJS_TOB2, PermTestData.OPS_TOP1 );
+
+        checkAccessAsync( "CHCK-ACS-ASYNC TU1_UPD TO1 TOP1 ", UserTestData.USERS_TU1_UPD, PermTestData.OBJS_TOB1,
+            PermTestData.OPS_TOP1, PermTestData.OBJS_TOB3, PermTestData.OPS_TOP3 );
+    }
+
+
+    /**
+     * Send the checkAccess requests of each user without waiting for the replies, then verify them.
+     *
+     * @param msg
+     * @param uArray
+     * @param oArray
+     * @param opArray
+     * @param oArrayBad
+     * @param opArrayBad
+     */
+    public static void checkAccessAsync( String msg, String[][] uArray, String[][] oArray, String[][] opArray,
+        String[][] oArrayBad, String[][] opArrayBad )
+    {
+        LogUtil.logIt( msg );
+        try
+        {
+            AsyncAccelMgr accelMgr = AccelMgrFactory.createAsyncInstance( TestUtils.getContext() );
+            for ( String[] usr : uArray )
+            {
+                User user = UserTestData.getUser( usr );
+                Session session = accelMgr.createSession( user ).get();
+                assertNotNull( session );
+                List<Future<Boolean>> goodResults = new ArrayList<>();
+                List<Future<Boolean>> badResults = new ArrayList<>();
+                int i = 0;
+                for ( String[] obj : oArray )
+                {
+                    int j = 0;
+                    for ( String[] op : opArray )
+                    {
+                        Permission goodPerm = new Permission(
+                            PermTestData.getName( obj ),
+                            PermTestData.getName( op ),
+                            PermTestData.getObjId( opArray[j] ) );
+                        goodResults.add( accelMgr.checkAccess( session, goodPerm ) );
+
+                        Permission badPerm = new Permission(
+                            PermTestData.getName( oArrayBad[i] ),
+                            PermTestData.getName( opArrayBad[j] ),
+                            PermTestData.getObjId( opArrayBad[j] ) );
+                        badResults.add( accelMgr.checkAccess( session, badPerm ) );
+                        j++;
+                    }
+                    i++;
+                }
+                for ( Future<Boolean> result : goodResults )
+                {
+                    // Positive test case, should return 'true':
+                    assertTrue( CLS_NM + ".checkAccessAsync failed userId [" + user.getUserId() + "]", result.get() );
+                }
+                for ( Future<Boolean> result : badResults )
+                {
+                    // Negative test case, should return 'false':
+                    assertFalse( CLS_NM + ".checkAccessAsync failed userId [" + user.getUserId() + "]", result.get() );
+                }
+                accelMgr.deleteSession( session ).get();
+            }
+            LOG.debug( "checkAccessAsync successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "checkAccessAsync: failed with SecurityException rc=" + ex.getErrorId() + ", " +
+                "msg=" + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        catch ( InterruptedException | ExecutionException ex )
+        {
+            LOG.error( "checkAccessAsync: failed with " + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+    }
+
+
     /**
      *
      */
@@ -0,0 +1,376 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.ExtendedRequestImpl;
+import org.apache.directory.api.ldap.model.message.ExtendedResponse;
+import org.apache.directory.api.ldap.model.message.ExtendedResponseImpl;
+import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.ldap.client.api.LdapAsyncConnection;
+import org.apache.directory.ldap.client.api.future.ExtendedFuture;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for the pipelining, in-flight limit, timeout and reconnect paths of {@link AccelPipeline}.  The connections are mocks
+ * that hold on to each request until the test replies to it, so no ldap server or accelerator is needed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AccelPipelineTest
+{
+    private static final int ERROR_ID = 1;
+    private static final long TIMEOUT = 30000;
+
+    /** Returns the message id of the response, or fails if it is negative. */
+    private static final AccelPipeline.Reply<Integer> REPLY = new AccelPipeline.Reply<Integer>()
+    {
+        @Override
+        public Integer unload( ExtendedResponse response ) throws SecurityException
+        {
+            if ( response.getMessageId() < 0 )
+            {
+                throw new SecurityException( ERROR_ID + 1, "unload failed" );
+            }
+            return response.getMessageId();
+        }
+    };
+
+
+    /**
+     * Many requests are outstanding on one connection at once and each is completed by its own reply, in whatever order they come.
+     */
+    @Test
+    public void testPipelined() throws Exception
+    {
+        Server server = new Server();
+        AccelPipeline pipeline = new AccelPipeline( 1, 8, TIMEOUT, server );
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            results.add( pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID ) );
+        }
+        assertEquals( 4, server.getSent() );
+        for ( int i = 3; i >= 0; i-- )
+        {
+            server.reply( i, i );
+        }
+        for ( int i = 0; i < 4; i++ )
+        {
+            assertEquals( Integer.valueOf( i ), results.get( i ).get( 1, TimeUnit.SECONDS ) );
+        }
+        assertEquals( 1, server.getOpened() );
+    }
+
+
+    /**
+     * A reply the converter rejects fails its request only.
+     */
+    @Test
+    public void testFailedReply() throws Exception
+    {
+        Server server = new Server();
+        AccelPipeline pipeline = new AccelPipeline( 1, 8, TIMEOUT, server );
+
+        Future<Integer> failed = pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID );
+        Future<Integer> passed = pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID );
+        server.reply( 0, -1 );
+        server.reply( 1, 1 );
+        assertEquals( ERROR_ID + 1, getError( failed ).getErrorId() );
+        assertEquals( Integer.valueOf( 1 ), passed.get( 1, TimeUnit.SECONDS ) );
+    }
+
+
+    /**
+     * A sender waits once the connection carries its maximum number of requests, until a reply frees a slot.
+     */
+    @Test
+    public void testInflightLimit() throws Exception
+    {
+        Server server = new Server();
+        final AccelPipeline pipeline = new AccelPipeline( 1, 2, TIMEOUT, server );
+
+        List<Future<Integer>> results = new ArrayList<>();
+        results.add( pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID ) );
+        results.add( pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID ) );
+
+        final AtomicReference<Future<Integer>> third = new AtomicReference<>();
+        Thread sender = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    third.set( pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID ) );
+                }
+                catch ( SecurityException e )
+                {
+                    // the test fails below on the missing future
+                }
+            }
+        };
+        sender.start();
+        sender.join( 200 );
+        assertTrue( "sender must wait for a free slot", sender.isAlive() );
+        assertEquals( 2, server.getSent() );
+
+        server.reply( 0, 0 );
+        sender.join( 1000 );
+        assertFalse( sender.isAlive() );
+        assertEquals( 3, server.getSent() );
+        server.reply( 1, 1 );
+        server.reply( 2, 2 );
+        assertEquals( Integer.valueOf( 0 ), results.get( 0 ).get( 1, TimeUnit.SECONDS ) );
+        assertEquals( Integer.valueOf( 1 ), results.get( 1 ).get( 1, TimeUnit.SECONDS ) );
+        assertEquals( Integer.valueOf( 2 ), third.get().get( 1, TimeUnit.SECONDS ) );
+    }
+
+
+    /**
+     * Requests sent together time out together, the wait of each is measured from when it was sent and not from when the
+     * requests ahead of it were completed.  Their slots are freed.
+     */
+    @Test
+    public void testTimeout() throws Exception
+    {
+        long timeout = 300;
+        int count = 5;
+        Server server = new Server();
+        AccelPipeline pipeline = new AccelPipeline( 1, count, timeout, server );
+
+        long start = System.nanoTime();
+        List<Future<Integer>> results = new ArrayList<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            results.add( pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID ) );
+        }
+        for ( Future<Integer> result : results )
+        {
+            assertEquals( ERROR_ID, getError( result ).getErrorId() );
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+        assertTrue( "elapsed " + elapsed + " ms", elapsed < 2 * timeout );
+
+        // every slot is free again, a late reply to an abandoned request is ignored:
+        server.reply( 0, 0 );
+        for ( int i = 0; i < count; i++ )
+        {
+            results.set( i, pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID ) );
+            server.reply( count + i, i );
+        }
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( Integer.valueOf( i ), results.get( i ).get( 1, TimeUnit.SECONDS ) );
+        }
+    }
+
+
+    /**
+     * A connection found closed is closed and replaced before the next request is sent on it.
+     */
+    @Test
+    public void testReconnect() throws Exception
+    {
+        Server server = new Server();
+        AccelPipeline pipeline = new AccelPipeline( 1, 8, TIMEOUT, server );
+
+        Future<Integer> result = pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID );
+        server.reply( 0, 0 );
+        assertEquals( Integer.valueOf( 0 ), result.get( 1, TimeUnit.SECONDS ) );
+
+        server.connections.get( 0 ).connected = false;
+        result = pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID );
+        assertEquals( 2, server.getOpened() );
+        assertTrue( server.connections.get( 0 ).closed );
+        server.reply( 1, 1 );
+        assertEquals( Integer.valueOf( 1 ), result.get( 1, TimeUnit.SECONDS ) );
+    }
+
+
+    /**
+     * A request that cannot be sent fails the caller, and the next one reopens the connection.
+     */
+    @Test
+    public void testSendFailed() throws Exception
+    {
+        Server server = new Server();
+        AccelPipeline pipeline = new AccelPipeline( 1, 1, TIMEOUT, server );
+
+        server.down = true;
+        try
+        {
+            pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID );
+            fail( "send must fail while the server is down" );
+        }
+        catch ( SecurityException e )
+        {
+            assertEquals( ERROR_ID, e.getErrorId() );
+        }
+
+        // the slot of the failed request was given back:
+        server.down = false;
+        Future<Integer> result = pipeline.send( new ExtendedRequestImpl(), REPLY, ERROR_ID );
+        server.reply( 0, 0 );
+        assertEquals( Integer.valueOf( 0 ), result.get( 1, TimeUnit.SECONDS ) );
+    }
+
+
+    private static SecurityException getError( Future<?> result ) throws Exception
+    {
+        try
+        {
+            result.get( 5, TimeUnit.SECONDS );
+        }
+        catch ( ExecutionException e )
+        {
+            return ( SecurityException ) e.getCause();
+        }
+        fail( "request must fail" );
+        return null;
+    }
+
+
+    /**
+     * Opens mock connections and records the requests sent on them, in order.
+     */
+    private static final class Server implements AccelPipeline.Connector
+    {
+        private final List<Connection> connections = new ArrayList<>();
+        private final List<ExtendedFuture> sent = new ArrayList<>();
+        private volatile boolean down;
+
+
+        @Override
+        public synchronized LdapAsyncConnection open() throws LdapException
+        {
+            if ( down )
+            {
+                throw new LdapException( "server down" );
+            }
+            Connection connection = new Connection( this );
+            connections.add( connection );
+            return connection.proxy;
+        }
+
+
+        private synchronized ExtendedFuture send( LdapAsyncConnection connection )
+        {
+            ExtendedFuture future = new ExtendedFuture( connection, sent.size() );
+            sent.add( future );
+            return future;
+        }
+
+
+        /**
+         * Reply to the request that was sent in the given position with a response carrying the given message id.
+         */
+        private void reply( int request, int messageId ) throws Exception
+        {
+            ExtendedFuture future;
+            synchronized ( this )
+            {
+                future = sent.get( request );
+            }
+            future.set( new ExtendedResponseImpl( messageId ) );
+        }
+
+
+        private synchronized int getSent()
+        {
+            return sent.size();
+        }
+
+
+        private synchronized int getOpened()
+        {
+            return connections.size();
+        }
+    }
+
+
+    /**
+     * Handles the calls on a mock connection, the ones the pipeline makes and the abandon of a cancelled request.
+     */
+    private static final class Connection implements InvocationHandler
+    {
+        private final Server server;
+        private final LdapAsyncConnection proxy;
+        private volatile boolean connected = true;
+        private volatile boolean closed;
+
+
+        private Connection( Server server )
+        {
+            this.server = server;
+            this.proxy = ( LdapAsyncConnection ) Proxy.newProxyInstance( getClass().getClassLoader(),
+                new Class<?>[] { LdapAsyncConnection.class }, this );
+        }
+
+
+        @Override
+        public Object invoke( Object target, Method method, Object[] args )
+        {
+            switch ( method.getName() )
+            {
+                case "extendedAsync":
+                    return server.send( proxy );
+
+                case "isConnected":
+                    return connected;
+
+                case "close":
+                    connected = false;
+                    closed = true;
+                    return null;
+
+                default:
+                    Class<?> type = method.getReturnType();
+                    if ( type == boolean.class )
+                    {
+                        return false;
+                    }
+                    if ( type == int.class )
+                    {
+                        return 0;
+                    }
+                    return null;
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ package org.apache.directory.fortress.core.impl;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import junit.framework.Test;
@@ -71,6 +72,7 @@ public class AccessMgrImplTest extends TestCase
         suite.addTest( new AdminMgrImplTest( "testUnlockUserAccount" ) );
 */
         suite.addTest( new AccessMgrImplTest( "testCheckAccess" ) );
+        suite.addTest( new AccessMgrImplTest( "testCheckAccessList" ) );
         return suite;
     }
 
@@ -806,6 +808,79 @@ public class AccessMgrImplTest extends TestCase
     }
 
 
+    /**
+     *
+     */
+    public void testCheckAccessList()
+    {
+        // public Map<Permission, Boolean> checkAccess(Session session, List<Permission> perms)
+        checkAccessList( "CHCK-ACS-LST TU1_UPD TO1 TOP1 ", UserTestData.USERS_TU1_UPD, PermTestData.OBJS_TOB1,
+            PermTestData.OPS_TOP1, PermTestData.OBJS_TOB3, PermTestData.OPS_TOP3 );
+        checkAccessList( "CHCK-ACS-LST TU3 TO3 TOP1 ", UserTestData.USERS_TU3, PermTestData.OBJS_TOB3,
+            PermTestData.OPS_TOP3, PermTestData.OBJS_TOB2, PermTestData.OPS_TOP2 );
+    }
+
+
+    public static void checkAccessList( String msg, String[][] uArray, String[][] oArray, String[][] opArray,
+        String[][] oArrayBad, String[][] opArrayBad )
+    {
+        LogUtil.logIt( msg );
+        try
+        {
+            AccessMgr accessMgr = AccessMgrFactory.createInstance( TestUtils.getContext() );
+            for ( String[] usr : uArray )
+            {
+                User user = UserTestData.getUser( usr );
+                Session session = accessMgr.createSession( user, false );
+                assertNotNull( session );
+                List<Permission> goodPerms = new ArrayList<>();
+                List<Permission> badPerms = new ArrayList<>();
+                int i = 0;
+                for ( String[] obj : oArray )
+                {
+                    int j = 0;
+                    for ( String[] op : opArray )
+                    {
+                        goodPerms.add( new Permission( PermTestData.getName( obj ), PermTestData.getName( op ),
+                            PermTestData.getObjId( opArray[j] ) ) );
+                        badPerms.add( new Permission( PermTestData.getName( oArrayBad[i] ),
+                            PermTestData.getName( opArrayBad[j] ), PermTestData.getObjId( opArrayBad[j] ) ) );
+                        j++;
+                    }
+                    i++;
+                }
+                List<Permission> perms = new ArrayList<>( goodPerms );
+                perms.addAll( badPerms );
+                Map<Permission, Boolean> results = accessMgr.checkAccess( session, perms );
+                assertEquals( CLS_NM + ".checkAccessList failed userId [" + user.getUserId() + "] result size",
+                    perms.size(), results.size() );
+                for ( Permission perm : goodPerms )
+                {
+                    // Positive test case, should return 'true':
+                    assertTrue( CLS_NM + ".checkAccessList failed userId [" + user.getUserId() + "] Perm [" + perm + "]",
+                        results.get( perm ) );
+                    // The result must match that of a single check:
+                    assertTrue( CLS_NM + ".checkAccessList single check failed userId [" + user.getUserId() + "] Perm [" + perm + "]",
+                        accessMgr.checkAccess( session, perm ) );
+                }
+                for ( Permission perm : badPerms )
+                {
+                    // Negative test case, should return 'false':
+                    assertFalse( CLS_NM + ".checkAccessList failed userId [" + user.getUserId() + "] Perm [" + perm + "]",
+                        results.get( perm ) );
+                }
+            }
+            LOG.debug( "checkAccessList successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "checkAccessList: failed with SecurityException rc=" + ex.getErrorId() + ", " +
+                "msg=" + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+    }
+
+
     /**
      *
      */
@@ -20,7 +20,11 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import junit.framework.Test;
@@ -40,10 +44,12 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.directory.fortress.core.AdminMgr;
 import org.apache.directory.fortress.core.AdminMgrFactory;
+import org.apache.directory.fortress.core.BatchException;
 import org.apache.directory.fortress.core.GlobalErrIds;
 import org.apache.directory.fortress.core.ReviewMgr;
 import org.apache.directory.fortress.core.SecurityException;
 import org.apache.directory.fortress.core.util.LogUtil;
+import org.apache.directory.fortress.core.util.metrics.Metrics;
 
 
 /**
@@ -56,6 +62,12 @@ public class AdminMgrImplTest extends TestCase
     private static final String CLS_NM = AdminMgrImplTest.class.getName();
     private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
     private static Session adminSess = null;
+    // Names of the entities used by the batch api tests, which add and remove them on their own:
+    private static final String BATCH_USER = "tbatchuser";
+    private static final String BATCH_ROLE = "tbatchrole";
+    private static final String BATCH_SSD = "tbatchssd";
+    private static final String BATCH_OBJ = "tbatchobj";
+    private static final String LDAP_MODIFY = "ldap.modify";
 
 
     public AdminMgrImplTest( String name )
@@ -90,6 +102,9 @@ public class AdminMgrImplTest extends TestCase
         suite.addTest( new AdminMgrImplTest( "testDeleteSsdSet" ) );
         suite.addTest( new AdminMgrImplTest( "testCreateSsdSet" ) );
         suite.addTest( new AdminMgrImplTest( "testAddSsdRoleMember" ) );
+        suite.addTest( new AdminMgrImplTest( "testAddUsers" ) );
+        suite.addTest( new AdminMgrImplTest( "testAssignUsers" ) );
+        suite.addTest( new AdminMgrImplTest( "testGrantPermissions" ) );
 
         return suite;
     }
@@ -2326,6 +2341,300 @@ public class AdminMgrImplTest extends TestCase
     }
 
 
+    /**
+     * The users of a batch are added on their own, a duplicate or null user fails without stopping the others.
+     */
+    public void testAddUsers()
+    {
+        // public List<User> addUsers(List<User> users)
+        LogUtil.logIt( "ADD-USRS-BATCH" );
+        AdminMgr adminMgr = null;
+        try
+        {
+            adminMgr = AdminMgrFactory.createInstance( TestUtils.getContext() );
+            ReviewMgr reviewMgr = ReviewMgrImplTest.getManagedReviewMgr();
+            deleteBatchData( adminMgr );
+            List<User> users = new ArrayList<>();
+            users.add( getBatchUser( 1 ) );
+            users.add( getBatchUser( 2 ) );
+            users.add( getBatchUser( 1 ) );
+            users.add( null );
+            try
+            {
+                adminMgr.addUsers( users );
+                fail( CLS_NM + ".testAddUsers duplicate and null users should fail" );
+            }
+            catch ( BatchException be )
+            {
+                Map<Integer, SecurityException> failures = be.getFailures();
+                assertEquals( CLS_NM + ".testAddUsers failures", new HashSet<>( Arrays.asList( 2, 3 ) ),
+                    failures.keySet() );
+                assertEquals( CLS_NM + ".testAddUsers duplicate", GlobalErrIds.USER_ADD_FAILED,
+                    failures.get( 2 ).getErrorId() );
+                assertEquals( CLS_NM + ".testAddUsers null", GlobalErrIds.USER_NULL, failures.get( 3 ).getErrorId() );
+            }
+            for ( int i = 1; i <= 2; i++ )
+            {
+                User user = reviewMgr.readUser( new User( BATCH_USER + i ) );
+                assertEquals( CLS_NM + ".testAddUsers userId", BATCH_USER + i, user.getUserId() );
+            }
+            LOG.debug( "testAddUsers successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "testAddUsers: failed with SecurityException rc=" + ex.getErrorId() + ", msg=" + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        finally
+        {
+            deleteBatchData( adminMgr );
+        }
+    }
+
+
+    /**
+     * The assignments of a batch are checked against the SSD sets along with those made before them in the batch, duplicates
+     * and unknown roles fail on their own, and each user and role entry is modified once.
+     */
+    public void testAssignUsers()
+    {
+        // public void assignUsers(List<UserRole> uRoles)
+        LogUtil.logIt( "ASGN-USRS-BATCH" );
+        AdminMgr adminMgr = null;
+        try
+        {
+            adminMgr = AdminMgrFactory.createInstance( TestUtils.getContext() );
+            ReviewMgr reviewMgr = ReviewMgrImplTest.getManagedReviewMgr();
+            deleteBatchData( adminMgr );
+            adminMgr.addUser( getBatchUser( 1 ) );
+            adminMgr.addUser( getBatchUser( 2 ) );
+            for ( int i = 1; i <= 3; i++ )
+            {
+                adminMgr.addRole( new Role( BATCH_ROLE + i ) );
+            }
+            // Roles 1 and 2 are mutually exclusive:
+            SDSet ssd = new SDSet();
+            ssd.setName( BATCH_SSD );
+            ssd.setType( SDSet.SDType.STATIC );
+            ssd.setCardinality( 2 );
+            ssd.addMember( BATCH_ROLE + 1 );
+            ssd.addMember( BATCH_ROLE + 2 );
+            adminMgr.createSsdSet( ssd );
+
+            List<UserRole> uRoles = new ArrayList<>();
+            uRoles.add( new UserRole( BATCH_USER + 1, BATCH_ROLE + 3 ) );
+            uRoles.add( new UserRole( BATCH_USER + 1, BATCH_ROLE + 1 ) );
+            uRoles.add( new UserRole( BATCH_USER + 2, BATCH_ROLE + 3 ) );
+            // Conflicts with role 1 assigned earlier in the batch:
+            uRoles.add( new UserRole( BATCH_USER + 1, BATCH_ROLE + 2 ) );
+            uRoles.add( new UserRole( BATCH_USER + 1, BATCH_ROLE + 3 ) );
+            uRoles.add( new UserRole( BATCH_USER + 2, BATCH_ROLE + 4 ) );
+            uRoles.add( null );
+            long modifies = Metrics.getInstance().getTimer( LDAP_MODIFY ).getCount();
+            try
+            {
+                adminMgr.assignUsers( uRoles );
+                fail( CLS_NM + ".testAssignUsers invalid assignments should fail" );
+            }
+            catch ( BatchException be )
+            {
+                Map<Integer, SecurityException> failures = be.getFailures();
+                assertEquals( CLS_NM + ".testAssignUsers failures", new HashSet<>( Arrays.asList( 3, 4, 5, 6 ) ),
+                    failures.keySet() );
+                assertEquals( CLS_NM + ".testAssignUsers ssd", GlobalErrIds.SSD_VALIDATION_FAILED,
+                    failures.get( 3 ).getErrorId() );
+                assertEquals( CLS_NM + ".testAssignUsers duplicate", GlobalErrIds.URLE_ASSIGN_EXIST,
+                    failures.get( 4 ).getErrorId() );
+                assertEquals( CLS_NM + ".testAssignUsers role not found", GlobalErrIds.ROLE_NOT_FOUND,
+                    failures.get( 5 ).getErrorId() );
+                assertEquals( CLS_NM + ".testAssignUsers null", GlobalErrIds.URLE_NULL, failures.get( 6 ).getErrorId() );
+            }
+            if ( Metrics.getInstance().isEnabled() )
+            {
+                // One modify of each user entry and of each role entry:
+                assertEquals( CLS_NM + ".testAssignUsers modifies", modifies + 4,
+                    Metrics.getInstance().getTimer( LDAP_MODIFY ).getCount() );
+            }
+
+            assertEquals( CLS_NM + ".testAssignUsers user 1 roles",
+                new HashSet<>( Arrays.asList( BATCH_ROLE + 1, BATCH_ROLE + 3 ) ),
+                new HashSet<>( reviewMgr.assignedRoles( BATCH_USER + 1 ) ) );
+            assertEquals( CLS_NM + ".testAssignUsers user 2 roles",
+                new HashSet<>( Arrays.asList( BATCH_ROLE + 3 ) ),
+                new HashSet<>( reviewMgr.assignedRoles( BATCH_USER + 2 ) ) );
+            Set<String> occupants = new HashSet<>();
+            for ( User user : reviewMgr.assignedUsers( new Role( BATCH_ROLE + 3 ) ) )
+            {
+                occupants.add( user.getUserId() );
+            }
+            assertEquals( CLS_NM + ".testAssignUsers role 3 occupants",
+                new HashSet<>( Arrays.asList( BATCH_USER + 1, BATCH_USER + 2 ) ), occupants );
+            assertTrue( CLS_NM + ".testAssignUsers role 2 occupants",
+                reviewMgr.assignedUsers( new Role( BATCH_ROLE + 2 ) ).isEmpty() );
+            LOG.debug( "testAssignUsers successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "testAssignUsers: failed with SecurityException rc=" + ex.getErrorId() + ", msg=" + ex.getMessage(),
+                ex );
+            fail( ex.getMessage() );
+        }
+        finally
+        {
+            deleteBatchData( adminMgr );
+        }
+    }
+
+
+    /**
+     * The permissions of a batch are granted on their own, a missing or already granted operation fails without stopping the
+     * others, and every item fails if the role doesn't exist.
+     */
+    public void testGrantPermissions()
+    {
+        // public void grantPermissions(List<Permission> perms, Role role)
+        LogUtil.logIt( "GRNT-PRMS-BATCH" );
+        AdminMgr adminMgr = null;
+        try
+        {
+            adminMgr = AdminMgrFactory.createInstance( TestUtils.getContext() );
+            ReviewMgr reviewMgr = ReviewMgrImplTest.getManagedReviewMgr();
+            deleteBatchData( adminMgr );
+            Role role = new Role( BATCH_ROLE + 1 );
+            adminMgr.addRole( role );
+            PermObj pObj = PermTestData.getObj( PermTestData.OBJS_TOB1[0] );
+            pObj.setObjName( BATCH_OBJ );
+            adminMgr.addPermObj( pObj );
+            for ( int i = 1; i <= 2; i++ )
+            {
+                adminMgr.addPermission( new Permission( BATCH_OBJ, "op" + i ) );
+            }
+
+            List<Permission> perms = new ArrayList<>();
+            perms.add( new Permission( BATCH_OBJ, "op1" ) );
+            perms.add( new Permission( BATCH_OBJ, "op3" ) );
+            perms.add( new Permission( BATCH_OBJ, "op2" ) );
+            perms.add( new Permission( BATCH_OBJ, "op1" ) );
+            try
+            {
+                adminMgr.grantPermissions( perms, role );
+                fail( CLS_NM + ".testGrantPermissions invalid grants should fail" );
+            }
+            catch ( BatchException be )
+            {
+                Map<Integer, SecurityException> failures = be.getFailures();
+                assertEquals( CLS_NM + ".testGrantPermissions failures", new HashSet<>( Arrays.asList( 1, 3 ) ),
+                    failures.keySet() );
+                assertEquals( CLS_NM + ".testGrantPermissions op not found", GlobalErrIds.PERM_OP_NOT_FOUND,
+                    failures.get( 1 ).getErrorId() );
+                assertEquals( CLS_NM + ".testGrantPermissions duplicate", GlobalErrIds.PERM_ROLE_EXIST,
+                    failures.get( 3 ).getErrorId() );
+            }
+            Set<String> granted = new HashSet<>();
+            for ( Permission perm : reviewMgr.rolePermissions( role ) )
+            {
+                granted.add( perm.getOpName() );
+            }
+            assertEquals( CLS_NM + ".testGrantPermissions granted", new HashSet<>( Arrays.asList( "op1", "op2" ) ),
+                granted );
+
+            perms.clear();
+            perms.add( new Permission( BATCH_OBJ, "op1" ) );
+            perms.add( new Permission( BATCH_OBJ, "op2" ) );
+            try
+            {
+                adminMgr.grantPermissions( perms, new Role( BATCH_ROLE + 4 ) );
+                fail( CLS_NM + ".testGrantPermissions unknown role should fail" );
+            }
+            catch ( BatchException be )
+            {
+                Map<Integer, SecurityException> failures = be.getFailures();
+                assertEquals( CLS_NM + ".testGrantPermissions unknown role failures", 2, failures.size() );
+                for ( SecurityException se : failures.values() )
+                {
+                    assertEquals( CLS_NM + ".testGrantPermissions role not found", GlobalErrIds.ROLE_NOT_FOUND,
+                        se.getErrorId() );
+                }
+            }
+            LOG.debug( "testGrantPermissions successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "testGrantPermissions: failed with SecurityException rc=" + ex.getErrorId() + ", msg="
+                + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        finally
+        {
+            deleteBatchData( adminMgr );
+        }
+    }
+
+
+    /**
+     * @param i number of the user.
+     * @return a user in the same ou, and with the same password, as the first of the TU1 test users.
+     */
+    private static User getBatchUser( int i )
+    {
+        User user = UserTestData.getUser( UserTestData.USERS_TU1[0] );
+        user.setUserId( BATCH_USER + i );
+        return user;
+    }
+
+
+    /**
+     * Remove the entities of the batch api tests, those that aren't there are skipped.
+     *
+     * @param adminMgr used to remove the entities.
+     */
+    private static void deleteBatchData( AdminMgr adminMgr )
+    {
+        if ( adminMgr == null )
+        {
+            return;
+        }
+        List<Object> entities = new ArrayList<>();
+        SDSet ssd = new SDSet();
+        ssd.setName( BATCH_SSD );
+        ssd.setType( SDSet.SDType.STATIC );
+        entities.add( ssd );
+        entities.add( new User( BATCH_USER + 1 ) );
+        entities.add( new User( BATCH_USER + 2 ) );
+        for ( int i = 1; i <= 3; i++ )
+        {
+            entities.add( new Role( BATCH_ROLE + i ) );
+        }
+        entities.add( new PermObj( BATCH_OBJ ) );
+        for ( Object entity : entities )
+        {
+            try
+            {
+                if ( entity instanceof SDSet )
+                {
+                    adminMgr.deleteSsdSet( ( SDSet ) entity );
+                }
+                else if ( entity instanceof User )
+                {
+                    adminMgr.deleteUser( ( User ) entity );
+                }
+                else if ( entity instanceof Role )
+                {
+                    adminMgr.deleteRole( ( Role ) entity );
+                }
+                else
+                {
+                    adminMgr.deletePermObj( ( PermObj ) entity );
+                }
+            }
+            catch ( SecurityException se )
+            {
+                LOG.debug( "deleteBatchData [{}] not removed rc={}", entity, se.getErrorId() );
+            }
+        }
+    }
+
+
     public void testGrantPermissionUser()
     {
         //     public void grantPermission(Permission pOp, User user)
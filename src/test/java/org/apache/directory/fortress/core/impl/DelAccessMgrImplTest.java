@@ -0,0 +1,242 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.directory.fortress.core.model.Hier;
+import org.apache.directory.fortress.core.model.Relationship;
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.util.cache.CacheMgr;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for the can assign and can grant authority that {@link DelAccessMgrImpl} checks through {@link AuthorityIndex}.
+ * The hierarchies are built in memory and passed to the index, so no ldap server is needed.  Every case uses its own tenant
+ * so the compiled authorities of one don't satisfy another.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DelAccessMgrImplTest
+{
+    private final AuthorityIndex authorityIndex = new AuthorityIndex( CacheMgr.getInstance().getCache(
+        "fortress.authorities" ) );
+
+
+    /**
+     * An OS-U covers its descendants but not its ascendants, and isn't used for the OS-P check.
+     */
+    @Test
+    public void testUserOuDescendants()
+    {
+        String contextId = "testUserOuDescendants";
+        HierIndex ous = buildIndex( "OU2:OU1", "OU3:OU2", "OU4:OU1" );
+        UserAdminRole uaRole = buildAdminRole( "R1", null, true, true );
+        uaRole.setOsU( "OU2" );
+
+        assertTrue( isUserAuthority( uaRole, "OU2", "R1", contextId, ous, null ) );
+        assertTrue( isUserAuthority( uaRole, "ou3", "r1", contextId, ous, null ) );
+        assertFalse( isUserAuthority( uaRole, "OU1", "R1", contextId, ous, null ) );
+        assertFalse( isUserAuthority( uaRole, "OU4", "R1", contextId, ous, null ) );
+        assertFalse( isUserAuthority( uaRole, "OU3", "R2", contextId, ous, null ) );
+        assertFalse( isPermAuthority( uaRole, "OU2", "R1", contextId, ous, null ) );
+    }
+
+
+    /**
+     * An OS-P covers its descendants but not its ascendants, and isn't used for the OS-U check.
+     */
+    @Test
+    public void testPermOuDescendants()
+    {
+        String contextId = "testPermOuDescendants";
+        HierIndex ous = buildIndex( "POU2:POU1", "POU3:POU2" );
+        UserAdminRole uaRole = buildAdminRole( "R1", null, true, true );
+        uaRole.setOsP( "POU1" );
+
+        assertTrue( isPermAuthority( uaRole, "POU1", "R1", contextId, ous, null ) );
+        assertTrue( isPermAuthority( uaRole, "POU2", "R1", contextId, ous, null ) );
+        assertTrue( isPermAuthority( uaRole, "POU3", "R1", contextId, ous, null ) );
+        assertFalse( isPermAuthority( uaRole, "OTHER", "R1", contextId, ous, null ) );
+        assertFalse( isUserAuthority( uaRole, "POU1", "R1", contextId, ous, null ) );
+    }
+
+
+    /**
+     * A range with both ends inclusive covers the begin and end roles along with the ascendants between them.
+     */
+    @Test
+    public void testInclusiveRange()
+    {
+        String contextId = "testInclusiveRange";
+        HierIndex ous = buildIndex( "OU2:OU1" );
+        HierIndex roles = buildIndex( "R1:R2", "R2:R3", "R3:R4", "R5:R1" );
+        UserAdminRole uaRole = buildAdminRole( "R1", "R3", true, true );
+        uaRole.setOsU( "OU1" );
+
+        assertTrue( isUserAuthority( uaRole, "OU1", "R1", contextId, ous, roles ) );
+        assertTrue( isUserAuthority( uaRole, "OU1", "R2", contextId, ous, roles ) );
+        assertTrue( isUserAuthority( uaRole, "OU1", "R3", contextId, ous, roles ) );
+        assertFalse( isUserAuthority( uaRole, "OU1", "R4", contextId, ous, roles ) );
+        assertFalse( isUserAuthority( uaRole, "OU1", "R5", contextId, ous, roles ) );
+    }
+
+
+    /**
+     * A range with exclusive ends covers only the ascendants between the begin and end roles.
+     */
+    @Test
+    public void testExclusiveRange()
+    {
+        String contextId = "testExclusiveRange";
+        HierIndex ous = buildIndex( "OU2:OU1" );
+        HierIndex roles = buildIndex( "R1:R2", "R2:R3", "R3:R4" );
+        UserAdminRole uaRole = buildAdminRole( "R1", "R4", false, false );
+        uaRole.setOsU( "OU1" );
+
+        assertFalse( isUserAuthority( uaRole, "OU1", "R1", contextId, ous, roles ) );
+        assertTrue( isUserAuthority( uaRole, "OU1", "R2", contextId, ous, roles ) );
+        assertTrue( isUserAuthority( uaRole, "OU1", "R3", contextId, ous, roles ) );
+        assertFalse( isUserAuthority( uaRole, "OU1", "R4", contextId, ous, roles ) );
+
+        // The same ou's and range with different end points are compiled separately:
+        uaRole = buildAdminRole( "R1", "R4", true, false );
+        uaRole.setOsU( "OU1" );
+        assertTrue( isUserAuthority( uaRole, "OU1", "R1", contextId, ous, roles ) );
+        assertFalse( isUserAuthority( uaRole, "OU1", "R4", contextId, ous, roles ) );
+        uaRole = buildAdminRole( "R1", "R4", false, true );
+        uaRole.setOsU( "OU1" );
+        assertFalse( isUserAuthority( uaRole, "OU1", "R1", contextId, ous, roles ) );
+        assertTrue( isUserAuthority( uaRole, "OU1", "R4", contextId, ous, roles ) );
+    }
+
+
+    /**
+     * When the begin and end of the range are the same role, whatever its case, the range is that role alone.
+     */
+    @Test
+    public void testBeginEqualsEnd()
+    {
+        String contextId = "testBeginEqualsEnd";
+        HierIndex ous = buildIndex( "OU2:OU1" );
+        HierIndex roles = buildIndex( "R1:R2", "R2:R3" );
+        UserAdminRole uaRole = buildAdminRole( "R2", "r2", false, false );
+        uaRole.setOsU( "OU1" );
+
+        assertTrue( isUserAuthority( uaRole, "OU2", "R2", contextId, ous, roles ) );
+        assertFalse( isUserAuthority( uaRole, "OU2", "R1", contextId, ous, roles ) );
+        assertFalse( isUserAuthority( uaRole, "OU2", "R3", contextId, ous, roles ) );
+    }
+
+
+    /**
+     * An authority is recompiled when a hierarchy it was compiled from has been replaced, by an update or a reload.
+     */
+    @Test
+    public void testHierarchyChange()
+    {
+        String contextId = "testHierarchyChange";
+        HierIndex ous = buildIndex( "OU2:OU1" );
+        HierIndex roles = buildIndex( "R1:R2", "R2:R3" );
+        UserAdminRole uaRole = buildAdminRole( "R1", "R3", true, true );
+        uaRole.setOsU( "OU1" );
+
+        assertTrue( isUserAuthority( uaRole, "OU2", "R2", contextId, ous, roles ) );
+        assertFalse( isUserAuthority( uaRole, "OU3", "R2", contextId, ous, roles ) );
+
+        // OU3 is moved under OU1:
+        ous = buildIndex( "OU2:OU1", "OU3:OU2" );
+        assertTrue( isUserAuthority( uaRole, "OU3", "R2", contextId, ous, roles ) );
+
+        // R2 is taken out of the chain between R1 and R3:
+        roles = buildIndex( "R1:R3", "R2:R3" );
+        assertFalse( isUserAuthority( uaRole, "OU3", "R2", contextId, ous, roles ) );
+        assertTrue( isUserAuthority( uaRole, "OU3", "R3", contextId, ous, roles ) );
+
+        // OU2 and OU3 are removed from OU1:
+        ous = buildIndex( "OU4:OU1" );
+        assertFalse( isUserAuthority( uaRole, "OU3", "R3", contextId, ous, roles ) );
+        assertTrue( isUserAuthority( uaRole, "OU4", "R3", contextId, ous, roles ) );
+    }
+
+
+    /**
+     * An ou added to the admin role after it was checked is seen by the next check.
+     */
+    @Test
+    public void testScopeChange()
+    {
+        String contextId = "testScopeChange";
+        HierIndex ous = buildIndex( "OU2:OU1", "OU4:OU3" );
+        UserAdminRole uaRole = buildAdminRole( "R1", null, true, true );
+        uaRole.setOsU( "OU1" );
+
+        assertTrue( isUserAuthority( uaRole, "OU2", "R1", contextId, ous, null ) );
+        assertFalse( isUserAuthority( uaRole, "OU4", "R1", contextId, ous, null ) );
+        uaRole.setOsU( "OU3" );
+        assertTrue( isUserAuthority( uaRole, "OU4", "R1", contextId, ous, null ) );
+        assertTrue( isUserAuthority( uaRole, "OU2", "R1", contextId, ous, null ) );
+    }
+
+
+    private boolean isUserAuthority( UserAdminRole uaRole, String ou, String roleName, String contextId, HierIndex ous,
+        HierIndex roles )
+    {
+        return authorityIndex.isAuthority( true, uaRole, ou, roleName, contextId, ous, roles );
+    }
+
+
+    private boolean isPermAuthority( UserAdminRole uaRole, String ou, String roleName, String contextId, HierIndex ous,
+        HierIndex roles )
+    {
+        return authorityIndex.isAuthority( false, uaRole, ou, roleName, contextId, ous, roles );
+    }
+
+
+    private static UserAdminRole buildAdminRole( String beginRange, String endRange, boolean isBeginInclusive,
+        boolean isEndInclusive )
+    {
+        UserAdminRole uaRole = new UserAdminRole();
+        uaRole.setBeginRange( beginRange );
+        uaRole.setEndRange( endRange );
+        uaRole.setBeginInclusive( isBeginInclusive );
+        uaRole.setEndInclusive( isEndInclusive );
+        return uaRole;
+    }
+
+
+    /**
+     * @param relationships each in the form child:parent.
+     * @return the closure index of the hierarchy.
+     */
+    private static HierIndex buildIndex( String... relationships )
+    {
+        Hier hier = new Hier( Hier.Type.ROLE );
+        for ( String relationship : relationships )
+        {
+            String[] pair = relationship.split( ":" );
+            hier.setRelationship( new Relationship( pair[0], pair[1] ) );
+        }
+        return new HierIndex( HierUtil.buildGraph( hier ) );
+    }
+}
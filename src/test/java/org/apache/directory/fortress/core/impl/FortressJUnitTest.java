@@ -199,6 +199,9 @@ public class FortressJUnitTest extends TestCase
         suite.addTest( new AdminMgrImplTest( "testUpdatePermissionOp" ) );
         suite.addTest( new AdminMgrImplTest( "testGrantPermissionRole" ) );
         suite.addTest( new AdminMgrImplTest( "testGrantPermissionUser" ) );
+        suite.addTest( new AdminMgrImplTest( "testAddUsers" ) );
+        suite.addTest( new AdminMgrImplTest( "testAssignUsers" ) );
+        suite.addTest( new AdminMgrImplTest( "testGrantPermissions" ) );
 
         /***********************************************************/
         /* 3. Interrogation                                        */
@@ -220,6 +223,8 @@ public class FortressJUnitTest extends TestCase
         suite.addTest( new ReviewMgrImplTest( "testFindRoleNms" ) );
         suite.addTest( new ReviewMgrImplTest( "testReadUser" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindUsers" ) );
+        suite.addTest( new ReviewMgrImplTest( "testIterateUsers" ) );
+        suite.addTest( new ReviewMgrImplTest( "testIterateUsersClose" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindUserIds" ) );
         suite.addTest( new ReviewMgrImplTest( "testAssignedRoles" ) );
         suite.addTest( new ReviewMgrImplTest( "testAssignedRoleNms" ) );
@@ -239,6 +244,9 @@ public class FortressJUnitTest extends TestCase
         suite.addTest( new ReviewMgrImplTest( "testUserPermissions" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindSsdSets" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindDsdSets" ) );
+        suite.addTest( new ReviewMgrImplTest( "testAssignmentIndex" ) );
+        suite.addTest( new ReviewMgrImplTest( "testAssignmentIndexBuild" ) );
+        suite.addTest( new ReviewMgrImplTest( "testAssignmentIndexMaxAge" ) );
 
         /***********************************************************/
         /* 4. Security Checks                                      */
@@ -272,6 +280,7 @@ public class FortressJUnitTest extends TestCase
         suite.addTest( new AccessMgrImplTest( "createSessionsDSD" ) );
         suite.addTest( new AccessMgrImplTest( "testSessionRole" ) );
         suite.addTest( new AccessMgrImplTest( "testCheckAccess" ) );
+        suite.addTest( new AccessMgrImplTest( "testCheckAccessList" ) );
         suite.addTest( new AccessMgrImplTest( "testAddActiveRole" ) );
         suite.addTest( new AccessMgrImplTest( "testDropActiveRole" ) );
         suite.addTest( new AccessMgrImplTest( "testSessionPermission" ) );
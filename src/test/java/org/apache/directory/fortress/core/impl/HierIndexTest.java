@@ -0,0 +1,229 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.directory.fortress.core.model.Hier;
+import org.apache.directory.fortress.core.model.Relationship;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for the closure computed by {@link HierIndex} and maintained by
+ * {@link HierUtil#updateHier(java.util.concurrent.atomic.AtomicReference, Relationship, Hier.Op)}.  Every case is checked against
+ * the recursive traversals of the graph in {@link HierUtil}, which the index replaced.  No ldap server is needed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class HierIndexTest
+{
+    /**
+     * A diamond: D inherits from B and C which both inherit from A.
+     */
+    @Test
+    public void testDiamond()
+    {
+        HierIndex index = new HierIndex( HierUtil.buildGraph( buildHier( "D:B", "D:C", "B:A", "C:A" ) ) );
+        assertEquals( names( "A", "B", "C" ), index.getAscendants( "D" ) );
+        assertEquals( names( "B", "C", "D" ), index.getDescendants( "A" ) );
+        assertEquals( names( "A" ), index.getAscendants( "B" ) );
+        assertEquals( names(), index.getAscendants( "A" ) );
+        assertEquals( names(), index.getDescendants( "D" ) );
+        assertTrue( index.isAscendant( "D", "A" ) );
+        assertFalse( index.isAscendant( "A", "D" ) );
+        assertFalse( index.isAscendant( "B", "C" ) );
+        assertMatchesGraph( index );
+    }
+
+
+    /**
+     * Two diamonds stacked on each other, plus a disconnected tree, merged through the scratch row.
+     */
+    @Test
+    public void testMerge()
+    {
+        HierIndex index = new HierIndex( HierUtil.buildGraph( buildHier( "G:E", "G:F", "E:D", "F:D", "D:B", "D:C", "B:A",
+            "C:A", "Y:X" ) ) );
+        assertMatchesGraph( index );
+
+        Set<String> result = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        BitSet row = index.getRow();
+        index.addAscendants( "E", row );
+        index.addAscendants( "Y", row );
+        index.addNames( row, result );
+        assertEquals( names( "A", "B", "C", "D", "X" ), result );
+        assertTrue( "addNames must leave the scratch row empty", row.isEmpty() );
+
+        result.clear();
+        row = index.getRow();
+        index.addDescendants( "D", row );
+        index.addDescendants( "unknown", row );
+        index.addNames( row, result );
+        assertEquals( names( "E", "F", "G" ), result );
+    }
+
+
+    /**
+     * Lookups ignore case, both of the arguments and of the names stored in the graph.
+     */
+    @Test
+    public void testCaseInsensitive()
+    {
+        HierIndex index = new HierIndex( HierUtil.buildGraph( buildHier( "Child:Parent", "Parent:GrandParent" ) ) );
+        assertEquals( names( "PARENT", "GRANDPARENT" ), index.getAscendants( "child" ) );
+        assertEquals( names( "parent", "child" ), index.getDescendants( "GRANDPARENT" ) );
+        assertTrue( index.isAscendant( "CHILD", "grandparent" ) );
+        assertTrue( index.getAscendants( "child" ).contains( "gRaNdPaReNt" ) );
+        assertEquals( names(), index.getAscendants( null ) );
+        assertFalse( index.isAscendant( null, "parent" ) );
+    }
+
+
+    /**
+     * Edges added and removed through HierUtil.updateHier publish a new index, and leave the old one unchanged.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testUpdateHier() throws Exception
+    {
+        HierIndex first = new HierIndex( HierUtil.buildGraph( buildHier( "B:A", "C:A" ) ) );
+        AtomicReference<HierIndex> ref = new AtomicReference<>( first );
+
+        HierUtil.updateHier( ref, new Relationship( "D", "B" ), Hier.Op.ADD );
+        HierUtil.updateHier( ref, new Relationship( "D", "C" ), Hier.Op.ADD );
+        assertEquals( names( "A", "B", "C" ), ref.get().getAscendants( "D" ) );
+        assertEquals( names( "B", "C", "D" ), ref.get().getDescendants( "A" ) );
+        assertMatchesGraph( ref.get() );
+
+        HierUtil.updateHier( ref, new Relationship( "D", "B" ), Hier.Op.REM );
+        assertEquals( names( "A", "C" ), ref.get().getAscendants( "D" ) );
+        assertEquals( names( "D" ), ref.get().getDescendants( "C" ) );
+        assertEquals( names(), ref.get().getDescendants( "B" ) );
+        assertFalse( ref.get().isAscendant( "D", "B" ) );
+        assertMatchesGraph( ref.get() );
+
+        HierUtil.updateHier( ref, new Relationship( "C", "A" ), Hier.Op.REM );
+        assertEquals( names( "C" ), ref.get().getAscendants( "D" ) );
+        assertEquals( names( "B" ), ref.get().getDescendants( "A" ) );
+
+        // The version that was published first is immutable:
+        assertEquals( names( "B", "C" ), first.getDescendants( "A" ) );
+        assertEquals( names(), first.getAscendants( "D" ) );
+    }
+
+
+    /**
+     * A chain is built on a thread with a small stack, which a recursive build would overflow.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testDeepChain() throws Exception
+    {
+        final int depth = 4000;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread( null, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    String[] relationships = new String[depth - 1];
+                    for ( int i = 1; i < depth; i++ )
+                    {
+                        relationships[i - 1] = "R" + i + ":R" + ( i - 1 );
+                    }
+                    HierIndex index = new HierIndex( HierUtil.buildGraph( buildHier( relationships ) ) );
+                    assertEquals( depth - 1, index.getAscendants( "R" + ( depth - 1 ) ).size() );
+                    assertEquals( depth - 1, index.getDescendants( "R0" ).size() );
+                    assertTrue( index.isAscendant( "R" + ( depth - 1 ), "R0" ) );
+                    assertFalse( index.isAscendant( "R0", "R1" ) );
+                }
+                catch ( Throwable t )
+                {
+                    failure.set( t );
+                }
+            }
+        }, "HierIndexTest-deepChain", 64 * 1024 );
+        thread.start();
+        thread.join();
+        assertNull( "testDeepChain failed: " + failure.get(), failure.get() );
+    }
+
+
+    /**
+     * Every vertex must have the same ascendants and descendants as the recursive traversal of the graph.
+     *
+     * @param index contains the closure and the graph it was built from.
+     */
+    private static void assertMatchesGraph( HierIndex index )
+    {
+        for ( String vertex : index.getGraph().vertexSet() )
+        {
+            assertEquals( "ascendants of " + vertex, HierUtil.getAscendants( vertex, index.getGraph() ),
+                index.getAscendants( vertex ) );
+            assertEquals( "descendants of " + vertex, HierUtil.getDescendants( vertex, index.getGraph() ),
+                index.getDescendants( vertex ) );
+        }
+    }
+
+
+    /**
+     *
+     * @param relationships each contains child:parent.
+     * @return Hier containing the relationships.
+     */
+    private static Hier buildHier( String... relationships )
+    {
+        Hier hier = new Hier( Hier.Type.ROLE );
+        for ( String relationship : relationships )
+        {
+            String[] pair = relationship.split( ":" );
+            hier.setRelationship( new Relationship( pair[0], pair[1] ) );
+        }
+        return hier;
+    }
+
+
+    /**
+     *
+     * @param names to add.
+     * @return case insensitive set of names.
+     */
+    private static Set<String> names( String... names )
+    {
+        Set<String> set = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+        set.addAll( Arrays.asList( names ) );
+        return set;
+    }
+}
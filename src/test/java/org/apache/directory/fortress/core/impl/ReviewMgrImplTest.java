@@ -20,10 +20,15 @@
 package org.apache.directory.fortress.core.impl;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -39,10 +44,16 @@ import org.apache.directory.fortress.core.model.UserRole;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.directory.fortress.core.AdminMgr;
+import org.apache.directory.fortress.core.AdminMgrFactory;
 import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.ResultCursor;
 import org.apache.directory.fortress.core.ReviewMgr;
 import org.apache.directory.fortress.core.ReviewMgrFactory;
 import org.apache.directory.fortress.core.SecurityException;
+import org.apache.directory.fortress.core.ldap.LdapConnectionProvider;
+import org.apache.directory.fortress.core.util.Config;
 import org.apache.directory.fortress.core.util.LogUtil;
 
 
@@ -57,6 +68,11 @@ public class ReviewMgrImplTest extends TestCase
     private static final String CLS_NM = ReviewMgrImplTest.class.getName();
     private static final Logger LOG = LoggerFactory.getLogger( CLS_NM );
     private static Session adminSess = null;
+    private static final String PAGE_SIZE = "ldap.page.size";
+    private static final String ASSIGNMENT_INDEX = "enable.assignment.index";
+    private static final String IDX_USER = "tidxuser";
+    private static final String IDX_ROLE = "tidxrole";
+    private static final String IDX_OBJ = "tidxobj";
 
 
     public ReviewMgrImplTest( String name )
@@ -77,6 +93,8 @@ public class ReviewMgrImplTest extends TestCase
         suite.addTest( new ReviewMgrImplTest( "testFindRoles" ) );
         suite.addTest( new ReviewMgrImplTest( "testReadUser" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindUsers" ) );
+        suite.addTest( new ReviewMgrImplTest( "testIterateUsers" ) );
+        suite.addTest( new ReviewMgrImplTest( "testIterateUsersClose" ) );
         suite.addTest( new ReviewMgrImplTest( "testAssignedRoles" ) );
         suite.addTest( new ReviewMgrImplTest( "testAuthorizedUsers" ) );
         suite.addTest( new ReviewMgrImplTest( "testAuthorizedRoles" ) );
@@ -88,6 +106,9 @@ public class ReviewMgrImplTest extends TestCase
         suite.addTest( new ReviewMgrImplTest( "testAuthorizedPermissionUsers" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindSsdSets" ) );
         suite.addTest( new ReviewMgrImplTest( "testFindDsdSets" ) );
+        suite.addTest( new ReviewMgrImplTest( "testAssignmentIndex" ) );
+        suite.addTest( new ReviewMgrImplTest( "testAssignmentIndexBuild" ) );
+        suite.addTest( new ReviewMgrImplTest( "testAssignmentIndexMaxAge" ) );
 
         return suite;
     }
@@ -546,6 +567,132 @@ public class ReviewMgrImplTest extends TestCase
     }
 
 
+    public void testIterateUsers()
+    {
+        // public ResultCursor<User> iterateUsers(User user)
+        iterateUsers( "ITER-USRS TU1_UPD",
+            TestUtils.getSrchValue( UserTestData.getUserId( UserTestData.USERS_TU1[0] ) ), UserTestData.USERS_TU1_UPD );
+        iterateUsers( "ITER-USRS TU3", TestUtils.getSrchValue( UserTestData.getUserId( UserTestData.USERS_TU3[0] ) ),
+            UserTestData.USERS_TU3 );
+    }
+
+
+    /**
+     * Read the users two at a time, so the cursor has to request several pages, and check it returns the same users as
+     * the list api.
+     *
+     * @param msg
+     * @param srchValue
+     * @param uArray
+     */
+    public static void iterateUsers( String msg, String srchValue, String[][] uArray )
+    {
+        LogUtil.logIt( msg );
+        String pageSize = setPageSize( "2" );
+        try
+        {
+            ReviewMgr reviewMgr = getManagedReviewMgr();
+            List<User> users = reviewMgr.findUsers( new User( srchValue ) );
+            assertTrue( "iterateUsers needs more than one page of users", users.size() > 2 );
+            int count = 0;
+            ResultCursor<User> cursor = reviewMgr.iterateUsers( new User( srchValue ) );
+            try
+            {
+                while ( cursor.next() )
+                {
+                    User entity = cursor.get();
+                    assertTrue( "iterateUsers userId [" + entity.getUserId() + "] not found by findUsers",
+                        users.contains( entity ) );
+                    count++;
+                }
+            }
+            finally
+            {
+                cursor.close();
+            }
+            assertEquals( "iterateUsers count check", users.size(), count );
+            assertEquals( "iterateUsers list size check", uArray.length, count );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error(
+                "iterateUsers srchValue [" + srchValue + "] caught SecurityException rc=" + ex.getErrorId()
+                    + ", msg=" + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        finally
+        {
+            setPageSize( pageSize );
+        }
+    }
+
+
+    /**
+     * A cursor that is closed before its last page gives its connection back to the pool.
+     */
+    public void testIterateUsersClose()
+    {
+        // public ResultCursor<User> iterateUsers(User user)
+        String msg = "ITER-USRS-CLOSE TU1_UPD";
+        LogUtil.logIt( msg );
+        String srchValue = TestUtils.getSrchValue( UserTestData.getUserId( UserTestData.USERS_TU1[0] ) );
+        String pageSize = setPageSize( "2" );
+        try
+        {
+            ReviewMgr reviewMgr = getManagedReviewMgr();
+            LdapConnectionProvider provider = LdapConnectionProvider.getInstance();
+            // Run the admin checks once so anything they borrow is counted before the cursor is opened:
+            reviewMgr.findUsers( new User( srchValue ) );
+            int active = provider.getNumActiveAdminConnections();
+
+            // Close after the first entry, part way through the first page:
+            ResultCursor<User> cursor = reviewMgr.iterateUsers( new User( srchValue ) );
+            assertTrue( "iterateUsers first entry", cursor.next() );
+            assertEquals( "iterateUsers holds a connection", active + 1, provider.getNumActiveAdminConnections() );
+            cursor.close();
+            assertEquals( "iterateUsers released mid page", active, provider.getNumActiveAdminConnections() );
+
+            // Close after the third entry, part way through the second page:
+            cursor = reviewMgr.iterateUsers( new User( srchValue ) );
+            for ( int i = 0; i < 3; i++ )
+            {
+                assertTrue( "iterateUsers entry " + i, cursor.next() );
+            }
+            cursor.close();
+            assertEquals( "iterateUsers released after a page", active, provider.getNumActiveAdminConnections() );
+
+            // Closing again does nothing, and the pool still works after the searches were abandoned:
+            cursor.close();
+            assertEquals( "iterateUsers closed twice", active, provider.getNumActiveAdminConnections() );
+            assertEquals( "iterateUsers after close", UserTestData.USERS_TU1_UPD.length,
+                reviewMgr.findUsers( new User( srchValue ) ).size() );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error(
+                "testIterateUsersClose srchValue [" + srchValue + "] caught SecurityException rc=" + ex.getErrorId()
+                    + ", msg=" + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        finally
+        {
+            setPageSize( pageSize );
+        }
+    }
+
+
+    /**
+     * @param pageSize the page size to be used by cursors opened from now on, null for the default.
+     * @return the page size that was in effect.
+     */
+    private static String setPageSize( String pageSize )
+    {
+        String previous = Config.getInstance().getProperty( PAGE_SIZE );
+        Config.getInstance().setProperty( PAGE_SIZE, pageSize != null ? pageSize : String.valueOf( GlobalIds.BATCH_SIZE ) );
+        return previous;
+    }
+
+
     /**
      *
      * @param msg
@@ -1544,6 +1691,317 @@ public class ReviewMgrImplTest extends TestCase
     }
 
 
+    /**
+     * With the assignment index enabled, the review functions it answers give the same results as ldap after each kind of write
+     * the index applies in memory.
+     */
+    public void testAssignmentIndex()
+    {
+        LogUtil.logIt( "ASGN-IDX" );
+        String enabled = setAssignmentIndex( "true" );
+        AdminMgr adminMgr = null;
+        try
+        {
+            adminMgr = AdminMgrFactory.createInstance( TestUtils.getContext() );
+            ReviewMgr reviewMgr = getManagedReviewMgr();
+            deleteIndexData( adminMgr );
+            addIndexData( adminMgr );
+            AssignmentIndex.getInstance().build( TestUtils.getContext(), null );
+            assertIndexed( "add", reviewMgr );
+
+            adminMgr.assignUser( new UserRole( IDX_USER + 1, IDX_ROLE + 1 ) );
+            adminMgr.assignUser( new UserRole( IDX_USER + 2, IDX_ROLE + 1 ) );
+            adminMgr.assignUser( new UserRole( IDX_USER + 1, IDX_ROLE + 2 ) );
+            adminMgr.assignUser( new UserRole( IDX_USER + 2, IDX_ROLE + 3 ) );
+            assertIndexed( "assign", reviewMgr );
+
+            adminMgr.grantPermission( new Permission( IDX_OBJ, "op1" ), new Role( IDX_ROLE + 1 ) );
+            adminMgr.grantPermission( new Permission( IDX_OBJ, "op2" ), new Role( IDX_ROLE + 2 ) );
+            adminMgr.grantPermission( new Permission( IDX_OBJ, "op2" ), new Role( IDX_ROLE + 3 ) );
+            adminMgr.grantPermission( new Permission( IDX_OBJ, "op1" ), new User( IDX_USER + 1 ) );
+            adminMgr.grantPermission( new Permission( IDX_OBJ, "op2" ), new User( IDX_USER + 2 ) );
+            assertIndexed( "grant", reviewMgr );
+
+            adminMgr.deassignUser( new UserRole( IDX_USER + 2, IDX_ROLE + 1 ) );
+            assertIndexed( "deassign", reviewMgr );
+
+            adminMgr.revokePermission( new Permission( IDX_OBJ, "op2" ), new Role( IDX_ROLE + 2 ) );
+            adminMgr.revokePermission( new Permission( IDX_OBJ, "op2" ), new User( IDX_USER + 2 ) );
+            assertIndexed( "revoke", reviewMgr );
+
+            adminMgr.deleteRole( new Role( IDX_ROLE + 3 ) );
+            assertIndexed( "deleteRole", reviewMgr );
+
+            adminMgr.disableUser( new User( IDX_USER + 1 ) );
+            assertIndexed( "disableUser", reviewMgr );
+            LOG.debug( "testAssignmentIndex successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "testAssignmentIndex: failed with SecurityException rc=" + ex.getErrorId() + ", msg="
+                + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        finally
+        {
+            deleteIndexData( adminMgr );
+            setAssignmentIndex( enabled );
+        }
+    }
+
+
+    /**
+     * Writes made after a build has scanned ldap, and before it is published, are replayed onto the new index.
+     */
+    public void testAssignmentIndexBuild()
+    {
+        LogUtil.logIt( "ASGN-IDX-BUILD" );
+        String enabled = setAssignmentIndex( "true" );
+        AdminMgr adminMgr = null;
+        try
+        {
+            adminMgr = AdminMgrFactory.createInstance( TestUtils.getContext() );
+            ReviewMgr reviewMgr = getManagedReviewMgr();
+            deleteIndexData( adminMgr );
+            addIndexData( adminMgr );
+            AssignmentIndex.getInstance().build( TestUtils.getContext(), null );
+
+            final AdminMgr writer = adminMgr;
+            final List<SecurityException> errors = new ArrayList<>();
+            AssignmentIndex.getInstance().build( TestUtils.getContext(), new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        writer.assignUser( new UserRole( IDX_USER + 1, IDX_ROLE + 1 ) );
+                        writer.grantPermission( new Permission( IDX_OBJ, "op1" ), new Role( IDX_ROLE + 1 ) );
+                        writer.grantPermission( new Permission( IDX_OBJ, "op2" ), new User( IDX_USER + 2 ) );
+                    }
+                    catch ( SecurityException se )
+                    {
+                        errors.add( se );
+                    }
+                }
+            } );
+            if ( !errors.isEmpty() )
+            {
+                throw errors.get( 0 );
+            }
+            // The scan didn't see the writes, so they are only in the new index if the journal was replayed:
+            assertEquals( CLS_NM + ".testAssignmentIndexBuild assigned", Arrays.asList( IDX_ROLE + 1 ),
+                reviewMgr.assignedRoles( IDX_USER + 1 ) );
+            assertEquals( CLS_NM + ".testAssignmentIndexBuild granted", Arrays.asList( IDX_ROLE + 1 ),
+                reviewMgr.permissionRoles( new Permission( IDX_OBJ, "op1" ) ) );
+            assertIndexed( "build", reviewMgr );
+            LOG.debug( "testAssignmentIndexBuild successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "testAssignmentIndexBuild: failed with SecurityException rc=" + ex.getErrorId() + ", msg="
+                + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        finally
+        {
+            deleteIndexData( adminMgr );
+            setAssignmentIndex( enabled );
+        }
+    }
+
+
+    /**
+     * An index older than its max age isn't used, queries go to ldap until it has been rebuilt.
+     */
+    public void testAssignmentIndexMaxAge()
+    {
+        LogUtil.logIt( "ASGN-IDX-AGE" );
+        AdminMgr adminMgr = null;
+        try
+        {
+            adminMgr = AdminMgrFactory.createInstance( TestUtils.getContext() );
+            deleteIndexData( adminMgr );
+            addIndexData( adminMgr );
+            adminMgr.assignUser( new UserRole( IDX_USER + 1, IDX_ROLE + 1 ) );
+            User user = new User( IDX_USER + 1 );
+            user.setContextId( TestUtils.getContext() );
+
+            // An assignment only made in memory shows whether the answer came from the index:
+            AssignmentIndex current = new AssignmentIndex( true, 900000 );
+            current.build( TestUtils.getContext(), null );
+            current.assign( IDX_USER + 1, IDX_ROLE + 2, TestUtils.getContext() );
+            assertEquals( CLS_NM + ".testAssignmentIndexMaxAge current",
+                new HashSet<>( Arrays.asList( IDX_ROLE + 1, IDX_ROLE + 2 ) ),
+                new HashSet<>( current.getAssignedRoles( user ) ) );
+
+            AssignmentIndex expired = new AssignmentIndex( true, 0 );
+            expired.build( TestUtils.getContext(), null );
+            expired.assign( IDX_USER + 1, IDX_ROLE + 2, TestUtils.getContext() );
+            Thread.sleep( 10 );
+            assertEquals( CLS_NM + ".testAssignmentIndexMaxAge expired", Arrays.asList( IDX_ROLE + 1 ),
+                expired.getAssignedRoles( user ) );
+            LOG.debug( "testAssignmentIndexMaxAge successful" );
+        }
+        catch ( SecurityException ex )
+        {
+            LOG.error( "testAssignmentIndexMaxAge: failed with SecurityException rc=" + ex.getErrorId() + ", msg="
+                + ex.getMessage(), ex );
+            fail( ex.getMessage() );
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            fail( ie.getMessage() );
+        }
+        finally
+        {
+            deleteIndexData( adminMgr );
+        }
+    }
+
+
+    /**
+     * Fail unless the review functions answered by the assignment index give the same results with it enabled as from ldap.
+     *
+     * @param msg       names the writes made before the check.
+     * @param reviewMgr used to query.
+     * @throws SecurityException in the event of a system error.
+     */
+    private static void assertIndexed( String msg, ReviewMgr reviewMgr ) throws SecurityException
+    {
+        Map<String, Set<String>> indexed = getIndexAnswers( reviewMgr );
+        String enabled = setAssignmentIndex( "false" );
+        try
+        {
+            assertEquals( CLS_NM + ".assertIndexed " + msg, getIndexAnswers( reviewMgr ), indexed );
+        }
+        finally
+        {
+            setAssignmentIndex( enabled );
+        }
+    }
+
+
+    /**
+     * @param reviewMgr used to query.
+     * @return the results of the review functions answered by the assignment index for the users, roles and permissions of the
+     * assignment index tests, keyed by function and argument.
+     * @throws SecurityException in the event of a system error.
+     */
+    private static Map<String, Set<String>> getIndexAnswers( ReviewMgr reviewMgr ) throws SecurityException
+    {
+        Map<String, Set<String>> answers = new TreeMap<>();
+        for ( int i = 1; i <= 2; i++ )
+        {
+            List<String> roles = reviewMgr.assignedRoles( IDX_USER + i );
+            answers.put( "assignedRoles " + i, new TreeSet<>( roles != null ? roles : new ArrayList<String>() ) );
+        }
+        for ( int i = 1; i <= 3; i++ )
+        {
+            Set<String> perms = new TreeSet<>();
+            for ( Permission perm : reviewMgr.rolePermissions( new Role( IDX_ROLE + i ) ) )
+            {
+                perms.add( perm.getObjName() + "." + perm.getOpName() );
+            }
+            answers.put( "rolePermissions " + i, perms );
+        }
+        for ( int i = 1; i <= 2; i++ )
+        {
+            Permission perm = new Permission( IDX_OBJ, "op" + i );
+            answers.put( "permissionRoles " + i, new TreeSet<>( reviewMgr.permissionRoles( perm ) ) );
+            answers.put( "permissionUsers " + i, new TreeSet<>( reviewMgr.permissionUsers( perm ) ) );
+            Set<String> users = reviewMgr.authorizedPermissionUsers( perm );
+            answers.put( "authorizedPermissionUsers " + i, new TreeSet<>( users != null ? users : new HashSet<String>() ) );
+        }
+        return answers;
+    }
+
+
+    /**
+     * @param enabled the value of 'enable.assignment.index' from now on, null for the default.
+     * @return the value that was in effect.
+     */
+    private static String setAssignmentIndex( String enabled )
+    {
+        String previous = Config.getInstance().getProperty( ASSIGNMENT_INDEX );
+        Config.getInstance().setProperty( ASSIGNMENT_INDEX, enabled != null ? enabled : "false" );
+        return previous;
+    }
+
+
+    /**
+     * Add the users, roles and permissions of the assignment index tests, without any assignments or grants.
+     *
+     * @param adminMgr used to add the entities.
+     * @throws SecurityException in the event of a system error.
+     */
+    private static void addIndexData( AdminMgr adminMgr ) throws SecurityException
+    {
+        for ( int i = 1; i <= 2; i++ )
+        {
+            User user = UserTestData.getUser( UserTestData.USERS_TU1[0] );
+            user.setUserId( IDX_USER + i );
+            adminMgr.addUser( user );
+        }
+        for ( int i = 1; i <= 3; i++ )
+        {
+            adminMgr.addRole( new Role( IDX_ROLE + i ) );
+        }
+        PermObj pObj = PermTestData.getObj( PermTestData.OBJS_TOB1[0] );
+        pObj.setObjName( IDX_OBJ );
+        adminMgr.addPermObj( pObj );
+        for ( int i = 1; i <= 2; i++ )
+        {
+            adminMgr.addPermission( new Permission( IDX_OBJ, "op" + i ) );
+        }
+    }
+
+
+    /**
+     * Remove the entities of the assignment index tests, those that aren't there are skipped.
+     *
+     * @param adminMgr used to remove the entities.
+     */
+    private static void deleteIndexData( AdminMgr adminMgr )
+    {
+        if ( adminMgr == null )
+        {
+            return;
+        }
+        List<Object> entities = new ArrayList<>();
+        entities.add( new User( IDX_USER + 1 ) );
+        entities.add( new User( IDX_USER + 2 ) );
+        for ( int i = 1; i <= 3; i++ )
+        {
+            entities.add( new Role( IDX_ROLE + i ) );
+        }
+        entities.add( new PermObj( IDX_OBJ ) );
+        for ( Object entity : entities )
+        {
+            try
+            {
+                if ( entity instanceof User )
+                {
+                    adminMgr.deleteUser( ( User ) entity );
+                }
+                else if ( entity instanceof Role )
+                {
+                    adminMgr.deleteRole( ( Role ) entity );
+                }
+                else
+                {
+                    adminMgr.deletePermObj( ( PermObj ) entity );
+                }
+            }
+            catch ( SecurityException se )
+            {
+                LOG.debug( "deleteIndexData [{}] not removed rc={}", entity, se.getErrorId() );
+            }
+        }
+    }
+
+
     /**
      *
      * @return
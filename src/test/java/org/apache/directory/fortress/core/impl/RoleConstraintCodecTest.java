@@ -0,0 +1,226 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.impl;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.apache.directory.fortress.core.model.UserAdminRole;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link RoleConstraintCodec}.  The raw values are written in the 'ftRC' and 'ftARC' formats produced by
+ * {@link UserRole#getRawData()} and {@link UserAdminRole#getRawData()}, and the decoded entities must hold what
+ * {@link UserRole#load} and {@link UserAdminRole#load} would have loaded from them.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class RoleConstraintCodecTest
+{
+    private static final String DELIMITER = "$";
+    private static final String CONTEXT_ID = "HOME";
+
+
+    /**
+     * Every temporal field is loaded from its position.
+     */
+    @Test
+    public void testTemporal()
+    {
+        UserRole uRole = RoleConstraintCodec.decodeUserRole( "role1$30$0800$1700$20100101$21000101$20200101$20200131$1234567",
+            DELIMITER, CONTEXT_ID );
+        assertRole( uRole, "role1", 30, "0800", "1700", "20100101", "21000101", "20200101", "20200131", "1234567" );
+    }
+
+
+    /**
+     * Empty fields are skipped and leave the entity's defaults, as do fields missing from the end of a short value.
+     */
+    @Test
+    public void testEmptyFields()
+    {
+        assertRole( RoleConstraintCodec.decodeUserRole( "role1$0$$$$$$$", DELIMITER, CONTEXT_ID ), "role1", 0, null, null,
+            null, null, null, null, null );
+        assertRole( RoleConstraintCodec.decodeUserRole( "role1$$$1700$$21000101$$$7", DELIMITER, CONTEXT_ID ), "role1", null,
+            null, "1700", null, "21000101", null, null, "7" );
+        assertRole( RoleConstraintCodec.decodeUserRole( "role1", DELIMITER, CONTEXT_ID ), "role1", null, null, null, null, null,
+            null, null, null );
+        assertRole( RoleConstraintCodec.decodeUserRole( "$15", DELIMITER, CONTEXT_ID ), null, 15, null, null, null, null, null,
+            null, null );
+        assertRole( RoleConstraintCodec.decodeUserRole( "", DELIMITER, CONTEXT_ID ), null, null, null, null, null, null, null,
+            null, null );
+        assertRole( RoleConstraintCodec.decodeUserRole( null, DELIMITER, CONTEXT_ID ), null, null, null, null, null, null, null,
+            null, null );
+    }
+
+
+    /**
+     * The timeout is parsed as {@link Integer#parseInt(String)} would, including its sign, bounds and failures.
+     */
+    @Test
+    public void testTimeout()
+    {
+        for ( String timeout : Arrays.asList( "0", "7", "-1", "+5", "2147483647", "-2147483648", "0009" ) )
+        {
+            UserRole uRole = RoleConstraintCodec.decodeUserRole( "role1$" + timeout, DELIMITER, CONTEXT_ID );
+            assertEquals( timeout, Integer.valueOf( Integer.parseInt( timeout ) ), uRole.getTimeout() );
+        }
+
+        for ( String timeout : Arrays.asList( "x", "-", "+", "1x", "2147483648", "-2147483649", "99999999999" ) )
+        {
+            try
+            {
+                RoleConstraintCodec.decodeUserRole( "role1$" + timeout, DELIMITER, CONTEXT_ID );
+                fail( "timeout [" + timeout + "] must not parse" );
+            }
+            catch ( NumberFormatException e )
+            {
+                // expected, as thrown by Integer.parseInt
+            }
+        }
+    }
+
+
+    /**
+     * A delimiter of more than one character is handled.
+     */
+    @Test
+    public void testDelimiter()
+    {
+        UserRole uRole = RoleConstraintCodec.decodeUserRole( "role1||30||||1700||20100101||||||||1234567", "||", CONTEXT_ID );
+        assertRole( uRole, "role1", 30, null, "1700", "20100101", null, null, null, "1234567" );
+    }
+
+
+    /**
+     * The trailing ARBAC fields load the user and permission ou sets and the role range.  They are ignored for a user role.
+     */
+    @Test
+    public void testAdmin()
+    {
+        String raw = "admin1$60$0000$0000$20110101$none$none$none$1234567$U:ou1$U:ou2$P:pou1$R:[role1:role3]";
+        UserAdminRole uAdminRole = RoleConstraintCodec.decodeUserAdminRole( raw, DELIMITER, CONTEXT_ID );
+        assertRole( uAdminRole, "admin1", 60, "0000", "0000", "20110101", "none", "none", "none", "1234567" );
+        assertEquals( new HashSet<>( Arrays.asList( "ou1", "ou2" ) ), uAdminRole.getOsUSet() );
+        assertEquals( new HashSet<>( Arrays.asList( "pou1" ) ), uAdminRole.getOsPSet() );
+        assertRange( uAdminRole, "role1", true, "role3", true );
+
+        UserRole uRole = RoleConstraintCodec.decodeUserRole( raw, DELIMITER, CONTEXT_ID );
+        assertFalse( uRole instanceof UserAdminRole );
+        assertRole( uRole, "admin1", 60, "0000", "0000", "20110101", "none", "none", "none", "1234567" );
+    }
+
+
+    /**
+     * Either end of the role range may be inclusive or exclusive, and an admin role may have no ranges or ous at all.
+     */
+    @Test
+    public void testAdminRange()
+    {
+        assertRange( RoleConstraintCodec.decodeUserAdminRole( "admin1$0$$$$$$$$R:(role1:role3)", DELIMITER, CONTEXT_ID ),
+            "role1", false, "role3", false );
+        assertRange( RoleConstraintCodec.decodeUserAdminRole( "admin1$0$$$$$$$$R:[role1:role3)", DELIMITER, CONTEXT_ID ),
+            "role1", true, "role3", false );
+        assertRange( RoleConstraintCodec.decodeUserAdminRole( "admin1$0$$$$$$$$R:(role1:role3]", DELIMITER, CONTEXT_ID ),
+            "role1", false, "role3", true );
+        assertRange( RoleConstraintCodec.decodeUserAdminRole( "admin1$0$$$$$$$$R:[role2:role2]", DELIMITER, CONTEXT_ID ),
+            "role2", true, "role2", true );
+
+        UserAdminRole uAdminRole = RoleConstraintCodec.decodeUserAdminRole( "admin1$0$$$$$$$", DELIMITER, CONTEXT_ID );
+        assertNull( uAdminRole.getBeginRange() );
+        assertNull( uAdminRole.getEndRange() );
+        assertTrue( uAdminRole.getOsUSet() == null || uAdminRole.getOsUSet().isEmpty() );
+        assertTrue( uAdminRole.getOsPSet() == null || uAdminRole.getOsPSet().isEmpty() );
+    }
+
+
+    /**
+     * Values that repeat across entries are shared by the decoded entities.
+     */
+    @Test
+    public void testInterned()
+    {
+        String raw = "role1$30$0800$1700$20100101$21000101$20200101$20200131$1234567";
+        UserRole uRole1 = RoleConstraintCodec.decodeUserRole( new String( raw ), DELIMITER, CONTEXT_ID );
+        UserRole uRole2 = RoleConstraintCodec.decodeUserRole( new String( raw ), DELIMITER, CONTEXT_ID );
+        assertSame( uRole1.getName(), uRole2.getName() );
+        assertSame( uRole1.getBeginDate(), uRole2.getBeginDate() );
+        assertSame( uRole1.getDayMask(), uRole2.getDayMask() );
+    }
+
+
+    /**
+     * A constraint value is only reused when its text matches, not just its length.
+     */
+    @Test
+    public void testSharedMismatch()
+    {
+        String raw1 = "role1$30$0800$1700$20100101$21000101$20200101$20200131$1234567";
+        String raw2 = "role1$30$0900$1700$20100102$21000101$20200101$20200131$2345671";
+        UserRole uRole1 = RoleConstraintCodec.decodeUserRole( raw1, DELIMITER, CONTEXT_ID );
+        UserRole uRole2 = RoleConstraintCodec.decodeUserRole( raw2, DELIMITER, CONTEXT_ID );
+        assertRole( uRole1, "role1", 30, "0800", "1700", "20100101", "21000101", "20200101", "20200131", "1234567" );
+        assertRole( uRole2, "role1", 30, "0900", "1700", "20100102", "21000101", "20200101", "20200131", "2345671" );
+        assertSame( uRole1.getEndTime(), uRole2.getEndTime() );
+
+        String admin1 = "admin1$60$0000$0000$20110101$none$none$none$1234567$U:ou1$P:pou1";
+        String admin2 = "admin1$60$0000$0000$20110101$none$none$none$1234567$U:ou2$P:pou1";
+        UserAdminRole uAdminRole1 = RoleConstraintCodec.decodeUserAdminRole( admin1, DELIMITER, CONTEXT_ID );
+        UserAdminRole uAdminRole2 = RoleConstraintCodec.decodeUserAdminRole( admin2, DELIMITER, CONTEXT_ID );
+        assertEquals( new HashSet<>( Arrays.asList( "ou1" ) ), uAdminRole1.getOsUSet() );
+        assertEquals( new HashSet<>( Arrays.asList( "ou2" ) ), uAdminRole2.getOsUSet() );
+        assertEquals( uAdminRole1.getOsPSet(), uAdminRole2.getOsPSet() );
+    }
+
+
+    private static void assertRole( UserRole uRole, String name, Integer timeout, String beginTime, String endTime,
+        String beginDate, String endDate, String beginLockDate, String endLockDate, String dayMask )
+    {
+        assertEquals( name, uRole.getName() );
+        assertEquals( timeout, uRole.getTimeout() );
+        assertEquals( beginTime, uRole.getBeginTime() );
+        assertEquals( endTime, uRole.getEndTime() );
+        assertEquals( beginDate, uRole.getBeginDate() );
+        assertEquals( endDate, uRole.getEndDate() );
+        assertEquals( beginLockDate, uRole.getBeginLockDate() );
+        assertEquals( endLockDate, uRole.getEndLockDate() );
+        assertEquals( dayMask, uRole.getDayMask() );
+    }
+
+
+    private static void assertRange( UserAdminRole uAdminRole, String beginRange, boolean beginInclusive, String endRange,
+        boolean endInclusive )
+    {
+        assertEquals( beginRange, uAdminRole.getBeginRange() );
+        assertEquals( beginInclusive, uAdminRole.isBeginInclusive() );
+        assertEquals( endRange, uAdminRole.getEndRange() );
+        assertEquals( endInclusive, uAdminRole.isEndInclusive() );
+    }
+}
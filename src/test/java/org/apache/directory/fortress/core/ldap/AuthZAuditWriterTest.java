@@ -0,0 +1,332 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for the batching, full queue policies and shutdown of the asynchronous {@link AuthZAuditWriter}.  The records go to a
+ * sink that holds each batch until the test opens its gate, so no ldap server is needed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AuthZAuditWriterTest
+{
+    private static final long TIMEOUT = 10000;
+    private static final String PERM_DN = "ftOpNm=op,ftObjNm=obj,ou=Permissions,dc=example,dc=com";
+    private static final String USER_DN = "uid=user,ou=People,dc=example,dc=com";
+    private AuthZAuditWriter writer;
+    private Gate sink;
+
+
+    @After
+    public void tearDown()
+    {
+        if ( writer != null )
+        {
+            sink.open();
+            writer.stop();
+        }
+    }
+
+
+    /**
+     * The records that queue up while a batch is being written are taken off in batches of up to the batch size.
+     */
+    @Test
+    public void testBatch() throws Exception
+    {
+        sink = new Gate( true );
+        writer = new AuthZAuditWriter( 100, 1, 10, false, TIMEOUT, sink );
+
+        write( 1 );
+        sink.awaitBatch();
+        write( 25 );
+        sink.open();
+        awaitTotal( 26 );
+        assertEquals( Arrays.asList( 1, 10, 10, 5 ), sink.getBatches() );
+        assertEquals( 26, writer.getEnqueued() );
+        assertEquals( 26, writer.getWritten() );
+        assertEquals( 0, writer.getQueueSize() );
+    }
+
+
+    /**
+     * The records the sink doesn't write are counted as failed.
+     */
+    @Test
+    public void testFailed() throws Exception
+    {
+        sink = new Gate( false );
+        writer = new AuthZAuditWriter( 100, 1, 10, false, TIMEOUT, sink );
+
+        sink.open();
+        write( 3 );
+        awaitTotal( 3 );
+        assertEquals( 0, writer.getWritten() );
+        assertEquals( 3, writer.getFailed() );
+    }
+
+
+    /**
+     * With the drop policy a caller doesn't wait for room on a full queue, the record is discarded and counted.
+     */
+    @Test
+    public void testDrop() throws Exception
+    {
+        sink = new Gate( true );
+        writer = new AuthZAuditWriter( 2, 1, 10, true, TIMEOUT, sink );
+
+        write( 1 );
+        sink.awaitBatch();
+        // Two fill the queue, the rest are dropped:
+        write( 5 );
+        assertEquals( 3, writer.getEnqueued() );
+        assertEquals( 3, writer.getDropped() );
+        assertEquals( 0, writer.getBlocked() );
+        sink.open();
+        awaitTotal( 6 );
+        assertEquals( 3, writer.getWritten() );
+    }
+
+
+    /**
+     * With the block policy a caller waits for room on a full queue, and its record is written once there is.
+     */
+    @Test
+    public void testBlock() throws Exception
+    {
+        sink = new Gate( true );
+        writer = new AuthZAuditWriter( 1, 1, 10, false, TIMEOUT, sink );
+
+        write( 1 );
+        sink.awaitBatch();
+        write( 1 );
+        Thread caller = startWrite();
+        awaitBlocked();
+        caller.join( 200 );
+        assertTrue( caller.isAlive() );
+        sink.open();
+        caller.join( TIMEOUT );
+        assertFalse( caller.isAlive() );
+        awaitTotal( 3 );
+        assertEquals( 3, writer.getEnqueued() );
+        assertEquals( 3, writer.getWritten() );
+        assertEquals( 0, writer.getDropped() );
+    }
+
+
+    /**
+     * Stopping the writer releases a caller that waits for room on the queue, and every record ends up written, failed or dropped.
+     */
+    @Test
+    public void testStopReleasesBlocked() throws Exception
+    {
+        sink = new Gate( true );
+        writer = new AuthZAuditWriter( 1, 1, 10, false, 100, sink );
+
+        write( 1 );
+        sink.awaitBatch();
+        write( 1 );
+        Thread caller = startWrite();
+        awaitBlocked();
+        // The sink never opens, so the stop times out and interrupts the writer:
+        writer.stop();
+        caller.join( TIMEOUT );
+        assertFalse( caller.isAlive() );
+        awaitTotal( 3 );
+        assertTrue( writer.getDropped() >= 1 );
+
+        // Records written after the stop are dropped straight away:
+        write( 1 );
+        assertEquals( 4, getTotal() );
+    }
+
+
+    /**
+     * The writer stops once every queued record has been passed to the sink.
+     */
+    @Test
+    public void testStopFlushes() throws Exception
+    {
+        sink = new Gate( true );
+        writer = new AuthZAuditWriter( 100, 1, 10, false, TIMEOUT, sink );
+
+        write( 1 );
+        sink.awaitBatch();
+        write( 15 );
+        sink.open();
+        writer.stop();
+        assertEquals( 16, writer.getWritten() );
+        assertEquals( 0, writer.getDropped() );
+    }
+
+
+    private void write( int count ) throws Exception
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            writer.write( null, PERM_DN, USER_DN, "op" );
+        }
+    }
+
+
+    /**
+     * @return a thread that has been started to write one record.
+     */
+    private Thread startWrite()
+    {
+        Thread caller = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    write( 1 );
+                }
+                catch ( Exception e )
+                {
+                    throw new IllegalStateException( e );
+                }
+            }
+        };
+        caller.setDaemon( true );
+        caller.start();
+        return caller;
+    }
+
+
+    /**
+     * @return the number of records that have been written, have failed or were dropped.
+     */
+    private long getTotal()
+    {
+        return writer.getWritten() + writer.getFailed() + writer.getDropped();
+    }
+
+
+    private void awaitTotal( long total ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while ( getTotal() < total )
+        {
+            if ( System.currentTimeMillis() > deadline )
+            {
+                fail( "expected " + total + " records to be done, was " + getTotal() );
+            }
+            Thread.sleep( 10 );
+        }
+        assertEquals( total, getTotal() );
+    }
+
+
+    private void awaitBlocked() throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while ( writer.getBlocked() == 0 )
+        {
+            if ( System.currentTimeMillis() > deadline )
+            {
+                fail( "caller did not block" );
+            }
+            Thread.sleep( 10 );
+        }
+    }
+
+
+    /**
+     * A sink that holds each batch until its gate has been opened, and records the size of each.
+     */
+    private static final class Gate implements AuthZAuditWriter.Sink
+    {
+        private final boolean succeed;
+        private final CountDownLatch gate = new CountDownLatch( 1 );
+        private final Semaphore batched = new Semaphore( 0 );
+        private final List<Integer> batches = Collections.synchronizedList( new ArrayList<Integer>() );
+
+
+        /**
+         * @param succeed true if the records of a batch are written, false if they fail.
+         */
+        private Gate( boolean succeed )
+        {
+            this.succeed = succeed;
+        }
+
+
+        @Override
+        public int write( List<AuthZAuditWriter.AuditRecord> batch )
+        {
+            batches.add( batch.size() );
+            batched.release();
+            try
+            {
+                gate.await();
+            }
+            catch ( InterruptedException ie )
+            {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+            return succeed ? batch.size() : 0;
+        }
+
+
+        private void open()
+        {
+            gate.countDown();
+        }
+
+
+        /**
+         * Wait for the sink to be handed a batch.
+         */
+        private void awaitBatch() throws InterruptedException
+        {
+            assertTrue( "no batch", batched.tryAcquire( TIMEOUT, TimeUnit.MILLISECONDS ) );
+        }
+
+
+        private List<Integer> getBatches()
+        {
+            synchronized ( batches )
+            {
+                return new ArrayList<>( batches );
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.ldap;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.LdapConnectionPool;
+import org.apache.directory.ldap.client.api.LdapNetworkConnection;
+import org.junit.After;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for the balancing, failover, health check and read your writes window of {@link ReplicaSet}.  The replica pools are
+ * backed by a factory that hands out unconnected connections, or fails while its server is down, so no ldap server is needed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ReplicaSetTest
+{
+    private static final int HEALTH_INTERVAL = 3600;
+    private ReplicaSet replicaSet;
+
+
+    @After
+    public void tearDown()
+    {
+        if ( replicaSet != null )
+        {
+            replicaSet.close();
+        }
+    }
+
+
+    /**
+     * Round robin alternates between the replicas, and every connection goes back to the pool it came from.
+     */
+    @Test
+    public void testRoundRobin()
+    {
+        Server server1 = new Server();
+        Server server2 = new Server();
+        replicaSet = newReplicaSet( ReplicaSet.Balance.ROUND_ROBIN, 0, server1, server2 );
+
+        List<LdapConnection> connections = new ArrayList<>();
+        for ( int i = 0; i < 4; i++ )
+        {
+            connections.add( replicaSet.getConnection() );
+        }
+        assertEquals( 2, server1.getActive() );
+        assertEquals( 2, server2.getActive() );
+        assertTrue( server1.isOwner( connections.get( 0 ) ) != server1.isOwner( connections.get( 1 ) ) );
+
+        for ( LdapConnection connection : connections )
+        {
+            assertTrue( replicaSet.releaseConnection( connection ) );
+        }
+        assertEquals( 0, server1.getActive() );
+        assertEquals( 0, server2.getActive() );
+    }
+
+
+    /**
+     * Least outstanding picks the replica with the fewest connections in use.
+     */
+    @Test
+    public void testLeastOutstanding()
+    {
+        Server server1 = new Server();
+        Server server2 = new Server();
+        replicaSet = newReplicaSet( ReplicaSet.Balance.LEAST_OUTSTANDING, 0, server1, server2 );
+
+        LdapConnection first = replicaSet.getConnection();
+        Server busy = server1.isOwner( first ) ? server1 : server2;
+        Server idle = busy == server1 ? server2 : server1;
+        LdapConnection second = replicaSet.getConnection();
+        assertTrue( idle.isOwner( second ) );
+
+        replicaSet.releaseConnection( second );
+        assertTrue( idle.isOwner( replicaSet.getConnection() ) );
+    }
+
+
+    /**
+     * A replica that fails is marked down and the read goes to the next one.  With every replica down, null is returned so that
+     * the provider is used instead.
+     */
+    @Test
+    public void testFailover()
+    {
+        Server server1 = new Server();
+        Server server2 = new Server();
+        replicaSet = newReplicaSet( ReplicaSet.Balance.ROUND_ROBIN, 0, server1, server2 );
+        server1.setUp( false );
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            LdapConnection connection = replicaSet.getConnection();
+            assertNotNull( connection );
+            assertTrue( server2.isOwner( connection ) );
+        }
+        assertFalse( getReplica( 0 ).isUp() );
+        assertTrue( getReplica( 1 ).isUp() );
+        // Once marked down, the replica isn't tried again until the health check:
+        assertEquals( 1, server1.getFailures() );
+
+        server2.setUp( false );
+        assertNull( replicaSet.getConnection() );
+        assertFalse( getReplica( 1 ).isUp() );
+    }
+
+
+    /**
+     * A replica whose pool is at its hard max is skipped but not marked down.
+     */
+    @Test
+    public void testExhausted()
+    {
+        Server server1 = new Server();
+        Server server2 = new Server();
+        replicaSet = newReplicaSet( ReplicaSet.Balance.ROUND_ROBIN, 0, server1, server2 );
+        server1.getPool().setMaxActive( 1 );
+        server1.getPool().setWhenExhaustedAction( GenericObjectPool.WHEN_EXHAUSTED_FAIL );
+
+        LdapConnection held = null;
+        for ( int i = 0; i < 4 && held == null; i++ )
+        {
+            LdapConnection connection = replicaSet.getConnection();
+            if ( server1.isOwner( connection ) )
+            {
+                held = connection;
+            }
+        }
+        assertNotNull( held );
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            assertTrue( server2.isOwner( replicaSet.getConnection() ) );
+        }
+        assertTrue( getReplica( 0 ).isUp() );
+    }
+
+
+    /**
+     * The health check marks a replica up again once it can supply a connection.
+     */
+    @Test
+    public void testHealthCheck()
+    {
+        Server server1 = new Server();
+        Server server2 = new Server();
+        replicaSet = newReplicaSet( ReplicaSet.Balance.ROUND_ROBIN, 0, server1, server2 );
+        server1.setUp( false );
+        replicaSet.getConnection();
+        replicaSet.getConnection();
+        assertFalse( getReplica( 0 ).isUp() );
+
+        replicaSet.checkHealth();
+        assertFalse( getReplica( 0 ).isUp() );
+
+        server1.setUp( true );
+        replicaSet.checkHealth();
+        assertTrue( getReplica( 0 ).isUp() );
+        // The connection borrowed by the health check was returned:
+        assertEquals( 0, server1.getActive() );
+
+        boolean isUsed = false;
+        for ( int i = 0; i < 4; i++ )
+        {
+            isUsed |= server1.isOwner( replicaSet.getConnection() );
+        }
+        assertTrue( isUsed );
+    }
+
+
+    /**
+     * A connection that wasn't borrowed from the set, e.g. one the provider borrowed from the admin pool because every replica
+     * was down or a write was recent, is not accepted, so the provider returns it to the admin pool.
+     */
+    @Test
+    public void testReleaseForeign()
+    {
+        Server server1 = new Server();
+        replicaSet = newReplicaSet( ReplicaSet.Balance.ROUND_ROBIN, 0, server1 );
+
+        assertFalse( replicaSet.releaseConnection( new LdapNetworkConnection() ) );
+
+        LdapConnection connection = replicaSet.getConnection();
+        assertTrue( replicaSet.releaseConnection( connection ) );
+        // A second release is not accepted either:
+        assertFalse( replicaSet.releaseConnection( connection ) );
+        assertEquals( 0, server1.getActive() );
+    }
+
+
+    /**
+     * Reads should go to the provider for the sticky window after a write made by any thread.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testSticky() throws Exception
+    {
+        replicaSet = newReplicaSet( ReplicaSet.Balance.ROUND_ROBIN, 200, new Server() );
+        assertFalse( replicaSet.isSticky() );
+
+        Thread writer = new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                replicaSet.markWrite();
+            }
+        } );
+        writer.start();
+        writer.join();
+        assertTrue( replicaSet.isSticky() );
+
+        Thread.sleep( 300 );
+        assertFalse( replicaSet.isSticky() );
+    }
+
+
+    private ReplicaSet newReplicaSet( ReplicaSet.Balance balance, long stickyMillis, Server... servers )
+    {
+        List<ReplicaSet.Replica> replicas = new ArrayList<>();
+        for ( int i = 0; i < servers.length; i++ )
+        {
+            replicas.add( new ReplicaSet.Replica( "replica" + i + ":389", servers[i].getPool() ) );
+        }
+        return new ReplicaSet( replicas, balance, HEALTH_INTERVAL, stickyMillis );
+    }
+
+
+    private ReplicaSet.Replica getReplica( int i )
+    {
+        return replicaSet.getReplicas().get( i );
+    }
+
+
+    /**
+     * Stands in for a replica server.  Its pool hands out unconnected connections while it is up and fails to create them while
+     * it is down.
+     */
+    private static final class Server extends BasePoolableObjectFactory<LdapConnection>
+    {
+        private final Set<LdapConnection> created = Collections
+            .newSetFromMap( new IdentityHashMap<LdapConnection, Boolean>() );
+        private final LdapConnectionPool pool = new LdapConnectionPool( this );
+        private volatile boolean isUp = true;
+        private int failures;
+
+
+        private Server()
+        {
+            // Validate on borrow, as the provider's pools do by default:
+            pool.setTestOnBorrow( true );
+        }
+
+
+        @Override
+        public synchronized LdapConnection makeObject() throws Exception
+        {
+            if ( !isUp )
+            {
+                failures++;
+                throw new Exception( "server is down" );
+            }
+            LdapConnection connection = new LdapNetworkConnection();
+            created.add( connection );
+            return connection;
+        }
+
+
+        @Override
+        public boolean validateObject( LdapConnection connection )
+        {
+            return isUp;
+        }
+
+
+        private void setUp( boolean isUp )
+        {
+            this.isUp = isUp;
+        }
+
+
+        private synchronized boolean isOwner( LdapConnection connection )
+        {
+            return created.contains( connection );
+        }
+
+
+        private synchronized int getFailures()
+        {
+            return failures;
+        }
+
+
+        private int getActive()
+        {
+            return pool.getNumActive();
+        }
+
+
+        private LdapConnectionPool getPool()
+        {
+            return pool;
+        }
+    }
+}
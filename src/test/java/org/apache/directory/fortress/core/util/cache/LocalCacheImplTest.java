@@ -0,0 +1,419 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.SecurityException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for the in process cache provider, {@link LocalCacheImpl}.  No ldap server is needed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LocalCacheImplTest
+{
+    private static final int THREADS = 16;
+    private ExecutorService executor;
+
+
+    @Before
+    public void setUp()
+    {
+        executor = Executors.newFixedThreadPool( THREADS );
+    }
+
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+
+    /**
+     * Concurrent misses on a key run the loader once, and every caller gets the value it loaded.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testConcurrentLoad() throws Exception
+    {
+        final LocalCacheImpl cache = new LocalCacheImpl( "test.concurrent", 0, 0, 0, 0 );
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final CacheLoader loader = new CacheLoader()
+        {
+            @Override
+            public Object load( Object key ) throws SecurityException
+            {
+                loads.incrementAndGet();
+                await( release );
+                return new ArrayList<>();
+            }
+        };
+
+        List<Future<Object>> results = submit( cache, "key", loader );
+        // Give every thread time to miss before the load completes:
+        Thread.sleep( 200 );
+        release.countDown();
+
+        Object first = results.get( 0 ).get( 10, TimeUnit.SECONDS );
+        for ( Future<Object> result : results )
+        {
+            assertSame( first, result.get( 10, TimeUnit.SECONDS ) );
+        }
+        assertEquals( 1, loads.get() );
+        assertSame( first, cache.get( "key" ) );
+    }
+
+
+    /**
+     * A loader failure is thrown to every caller waiting on the key, and isn't stored, so the next caller loads again.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testLoadFailure() throws Exception
+    {
+        final LocalCacheImpl cache = new LocalCacheImpl( "test.failure", 0, 0, 0, 0 );
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch( 1 );
+        CacheLoader failing = new CacheLoader()
+        {
+            @Override
+            public Object load( Object key ) throws SecurityException
+            {
+                loads.incrementAndGet();
+                await( release );
+                throw new SecurityException( GlobalErrIds.FT_CACHE_GET_ERR, "load failed" );
+            }
+        };
+
+        List<Future<Object>> results = submit( cache, "key", failing );
+        Thread.sleep( 200 );
+        release.countDown();
+
+        for ( Future<Object> result : results )
+        {
+            try
+            {
+                result.get( 10, TimeUnit.SECONDS );
+                fail( "testLoadFailure expected SecurityException" );
+            }
+            catch ( ExecutionException ee )
+            {
+                assertTrue( ee.getCause() instanceof SecurityException );
+                assertEquals( GlobalErrIds.FT_CACHE_GET_ERR, ( ( SecurityException ) ee.getCause() ).getErrorId() );
+            }
+        }
+        assertEquals( 1, loads.get() );
+        assertNull( cache.get( "key" ) );
+
+        Object value = cache.get( "key", new CountingLoader( loads ) );
+        assertEquals( "key", value );
+        assertEquals( 2, loads.get() );
+    }
+
+
+    /**
+     * A loader that returns null stores nothing.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testLoadNull() throws Exception
+    {
+        LocalCacheImpl cache = new LocalCacheImpl( "test.null", 0, 0, 0, 0 );
+        final AtomicInteger loads = new AtomicInteger();
+        CacheLoader loader = new CacheLoader()
+        {
+            @Override
+            public Object load( Object key )
+            {
+                loads.incrementAndGet();
+                return null;
+            }
+        };
+        assertNull( cache.get( "key", loader ) );
+        assertNull( cache.get( "key", loader ) );
+        assertEquals( 2, loads.get() );
+        assertEquals( 0, cache.getSize() );
+    }
+
+
+    /**
+     * Storing null removes the entry, which is what callers of the Ehcache provider do to release a key.
+     */
+    @Test
+    public void testPutNull()
+    {
+        LocalCacheImpl cache = new LocalCacheImpl( "test.putnull", 0, 0, 0, 0 );
+        cache.put( "key", "value" );
+        assertEquals( "value", cache.get( "key" ) );
+        cache.put( "key", null );
+        assertNull( cache.get( "key" ) );
+        assertEquals( 0, cache.getSize() );
+        assertFalse( cache.clear( "key" ) );
+    }
+
+
+    /**
+     * Entries expire after the time to live whether or not they are used, and are loaded again afterwards.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testTimeToLive() throws Exception
+    {
+        LocalCacheImpl cache = new LocalCacheImpl( "test.ttl", 0, 0, 1, 0 );
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals( "key", cache.get( "key", new CountingLoader( loads ) ) );
+        Thread.sleep( 600 );
+        assertEquals( "key", cache.get( "key" ) );
+        Thread.sleep( 600 );
+        assertNull( cache.get( "key" ) );
+        assertEquals( 0, cache.getSize() );
+        assertEquals( "key", cache.get( "key", new CountingLoader( loads ) ) );
+        assertEquals( 2, loads.get() );
+    }
+
+
+    /**
+     * Entries expire after the time to idle only if they aren't used.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testTimeToIdle() throws Exception
+    {
+        LocalCacheImpl cache = new LocalCacheImpl( "test.tti", 0, 0, 0, 1 );
+        cache.put( "used", "value" );
+        cache.put( "idle", "value" );
+        for ( int i = 0; i < 3; i++ )
+        {
+            Thread.sleep( 500 );
+            assertEquals( "value", cache.get( "used" ) );
+        }
+        assertNull( cache.get( "idle" ) );
+        assertEquals( 1, cache.getSize() );
+    }
+
+
+    /**
+     * Peek returns an entry without refreshing its time to idle, and never loads.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testPeek() throws Exception
+    {
+        LocalCacheImpl cache = new LocalCacheImpl( "test.peek", 0, 0, 0, 1 );
+        assertNull( cache.peek( "key" ) );
+        cache.put( "key", "value" );
+        Thread.sleep( 600 );
+        assertEquals( "value", cache.peek( "key" ) );
+        // The peek above did not reset the idle time so the entry has expired by now:
+        Thread.sleep( 600 );
+        assertNull( cache.peek( "key" ) );
+    }
+
+
+    /**
+     * The number of entries, and their weight, stay within the bounds.
+     */
+    @Test
+    public void testBounds()
+    {
+        LocalCacheImpl cache = new LocalCacheImpl( "test.bounds", 10, 0, 0, 0 );
+        for ( int i = 0; i < 100; i++ )
+        {
+            cache.put( "key" + i, "value" + i );
+            assertTrue( cache.getSize() <= 10 );
+        }
+
+        cache = new LocalCacheImpl( "test.weight", 0, 20, 0, 0 );
+        for ( int i = 0; i < 100; i++ )
+        {
+            List<String> value = new ArrayList<>();
+            value.add( "a" );
+            value.add( "b" );
+            cache.put( "key" + i, value );
+            assertTrue( cache.getWeight() <= 20 );
+        }
+        cache.flush();
+        assertEquals( 0, cache.getSize() );
+        assertEquals( 0, cache.getWeight() );
+    }
+
+
+    /**
+     * Entries that are read often are kept when the cache fills up with keys that are only used once.
+     */
+    @Test
+    public void testFrequentKept()
+    {
+        LocalCacheImpl cache = new LocalCacheImpl( "test.frequent", 10, 0, 0, 0 );
+        for ( int i = 0; i < 5; i++ )
+        {
+            cache.put( "hot" + i, "value" + i );
+        }
+        for ( int j = 0; j < 20; j++ )
+        {
+            for ( int i = 0; i < 5; i++ )
+            {
+                assertEquals( "value" + i, cache.get( "hot" + i ) );
+            }
+        }
+        for ( int i = 0; i < 100; i++ )
+        {
+            cache.put( "cold" + i, "value" + i );
+        }
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertEquals( "value" + i, cache.get( "hot" + i ) );
+        }
+        assertTrue( cache.getSize() <= 10 );
+    }
+
+
+    /**
+     * Reads and writes on every thread at once keep the cache within its bounds.
+     *
+     * @throws Exception in the event of test failure.
+     */
+    @Test
+    public void testConcurrentReadWrite() throws Exception
+    {
+        final LocalCacheImpl cache = new LocalCacheImpl( "test.concurrent", 100, 0, 0, 0 );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        List<Future<Object>> results = new ArrayList<>();
+        for ( int t = 0; t < THREADS; t++ )
+        {
+            final int thread = t;
+            results.add( executor.submit( new Callable<Object>()
+            {
+                @Override
+                public Object call() throws Exception
+                {
+                    start.await();
+                    for ( int i = 0; i < 10000; i++ )
+                    {
+                        String key = "key" + ( ( i * 31 + thread ) % 500 );
+                        if ( cache.get( key ) == null )
+                        {
+                            cache.put( key, key );
+                        }
+                    }
+                    return null;
+                }
+            } ) );
+        }
+        start.countDown();
+        for ( Future<Object> result : results )
+        {
+            result.get( 30, TimeUnit.SECONDS );
+        }
+        assertTrue( cache.getSize() <= 100 );
+        assertEquals( cache.getSize(), cache.getWeight() );
+    }
+
+
+    /**
+     * Call get with loader on every thread at once.
+     */
+    private List<Future<Object>> submit( final LocalCacheImpl cache, final String key, final CacheLoader loader )
+    {
+        final CountDownLatch start = new CountDownLatch( 1 );
+        List<Future<Object>> results = new ArrayList<>();
+        for ( int i = 0; i < THREADS; i++ )
+        {
+            results.add( executor.submit( new Callable<Object>()
+            {
+                @Override
+                public Object call() throws Exception
+                {
+                    start.await();
+                    return cache.get( key, loader );
+                }
+            } ) );
+        }
+        start.countDown();
+        return results;
+    }
+
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 10, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Returns the key as the value and counts the loads.
+     */
+    private static final class CountingLoader implements CacheLoader
+    {
+        private final AtomicInteger loads;
+
+
+        private CountingLoader( AtomicInteger loads )
+        {
+            this.loads = loads;
+        }
+
+
+        @Override
+        public Object load( Object key )
+        {
+            loads.incrementAndGet();
+            return key;
+        }
+    }
+}
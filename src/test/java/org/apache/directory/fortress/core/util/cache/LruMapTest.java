@@ -0,0 +1,85 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.cache;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link LruMap}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LruMapTest
+{
+    /**
+     * The first value put for a key is kept and returned to later callers.
+     */
+    @Test
+    public void testPutIfAbsent()
+    {
+        LruMap<String, String> map = new LruMap<>( 10 );
+        assertNull( map.get( "key" ) );
+        assertNull( map.putIfAbsent( "key", "first" ) );
+        assertEquals( "first", map.putIfAbsent( "key", "second" ) );
+        assertEquals( "first", map.get( "key" ) );
+        assertEquals( 1, map.size() );
+        map.clear();
+        assertNull( map.get( "key" ) );
+        assertEquals( 0, map.size() );
+    }
+
+
+    /**
+     * The map never holds more than its maximum size.
+     */
+    @Test
+    public void testBounds()
+    {
+        LruMap<Integer, Integer> map = new LruMap<>( 100 );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            map.putIfAbsent( i, i );
+            assertEquals( Math.min( i + 1, 100 ), map.size() );
+        }
+    }
+
+
+    /**
+     * The least recently used entry is evicted, not the one that was read.
+     */
+    @Test
+    public void testLeastRecentlyUsed()
+    {
+        // Sixteen segments of two entries, small integers hash to themselves so 0, 16 and 32 share the first:
+        LruMap<Integer, Integer> map = new LruMap<>( 32 );
+        map.putIfAbsent( 0, 0 );
+        map.putIfAbsent( 16, 16 );
+        assertEquals( Integer.valueOf( 0 ), map.get( 0 ) );
+        map.putIfAbsent( 32, 32 );
+        assertEquals( Integer.valueOf( 0 ), map.get( 0 ) );
+        assertNull( map.get( 16 ) );
+        assertEquals( Integer.valueOf( 32 ), map.get( 32 ) );
+    }
+}
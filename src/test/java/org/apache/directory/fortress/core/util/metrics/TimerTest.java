@@ -0,0 +1,129 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.metrics;
+
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link Timer}, including the sums over the cells that concurrent threads record into.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class TimerTest
+{
+    /**
+     * Count, mean, max and percentiles are read back from what was recorded.
+     */
+    @Test
+    public void testRecord()
+    {
+        Timer timer = new Timer( true );
+        for ( int i = 0; i < 99; i++ )
+        {
+            timer.record( TimeUnit.MICROSECONDS.toNanos( 10 ) );
+        }
+        timer.record( TimeUnit.MICROSECONDS.toNanos( 1000 ) );
+        timer.record( -1 );
+
+        assertEquals( 101, timer.getCount() );
+        assertEquals( ( 99 * 10 + 1000 ) / 101, timer.getMean() );
+        assertEquals( 1000, timer.getMax() );
+        // 10us falls in [8, 16), 1000us in [512, 1024):
+        assertEquals( 16, timer.getPercentile( 0.5 ) );
+        assertEquals( 1024, timer.getPercentile( 1.0 ) );
+    }
+
+
+    /**
+     * A disabled timer records nothing.
+     */
+    @Test
+    public void testDisabled()
+    {
+        Timer timer = new Timer( false );
+        timer.stop( timer.start() );
+        timer.record( 1000 );
+
+        assertEquals( 0, timer.getCount() );
+        assertEquals( 0, timer.getMean() );
+        assertEquals( 0, timer.getMax() );
+        assertEquals( 0, timer.getPercentile( 0.99 ) );
+    }
+
+
+    /**
+     * Nothing recorded by concurrent threads is lost.
+     */
+    @Test
+    public void testConcurrent() throws Exception
+    {
+        final Timer timer = new Timer( true );
+        final int threads = 8;
+        final int records = 100000;
+        final CountDownLatch ready = new CountDownLatch( 1 );
+        List<Thread> recorders = new ArrayList<>();
+        for ( int i = 0; i < threads; i++ )
+        {
+            final long nanos = TimeUnit.MICROSECONDS.toNanos( i + 1 );
+            Thread recorder = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        ready.await();
+                    }
+                    catch ( InterruptedException ie )
+                    {
+                        return;
+                    }
+                    for ( int j = 0; j < records; j++ )
+                    {
+                        timer.record( nanos );
+                    }
+                }
+            };
+            recorder.start();
+            recorders.add( recorder );
+        }
+        ready.countDown();
+        for ( Thread recorder : recorders )
+        {
+            recorder.join();
+        }
+
+        assertEquals( threads * records, timer.getCount() );
+        // The mean of 1..8 us is 4.5 us, truncated:
+        assertEquals( 4, timer.getMean() );
+        assertEquals( threads, timer.getMax() );
+        // 8us falls in [8, 16):
+        assertEquals( 16, timer.getPercentile( 1.0 ) );
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.fortress.core.util.time;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.GregorianCalendar;
+
+import org.apache.directory.fortress.core.GlobalErrIds;
+import org.apache.directory.fortress.core.GlobalIds;
+import org.apache.directory.fortress.core.model.Constraint;
+import org.apache.directory.fortress.core.model.UserRole;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for the {@link ClockTime}, {@link Date}, {@link LockDate} and {@link Day} validators.  The results using
+ * {@link ParsedConstraint} and the per minute {@link Time} are compared with the string comparisons the validators used before,
+ * at the minute, day and lock date boundaries.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConstraintValidatorTest
+{
+    private static final String[][] TIMES =
+        {
+            { null, null },
+            { GlobalIds.NONE, GlobalIds.NONE },
+            { "0000", "0000" },
+            { "0000", "2359" },
+            { "0800", "1700" },
+            { "0800", "0800" },
+            { "2359", "2359" },
+    };
+
+    private static final String[] DATES =
+        {
+            null, GlobalIds.NONE, "20111230", "20111231", "20120101", "20120102"
+    };
+
+    private static final String[] DAY_MASKS =
+        {
+            null, GlobalIds.ALL, "1234567", "23456", "17", "7", "1"
+    };
+
+    private final ClockTime clockTime = new ClockTime();
+    private final Date date = new Date();
+    private final LockDate lockDate = new LockDate();
+    private final Day day = new Day();
+
+
+    /**
+     * Times at and either side of the minute and day boundaries around Dec 31, 2011 which was a Saturday.
+     *
+     * @return array of Time.
+     */
+    private static Time[] getBoundaries()
+    {
+        return new Time[]
+            {
+                TUtil.newTime( getMillis( 2011, 12, 30, 23, 59, 59, 999 ) ),
+                TUtil.newTime( getMillis( 2011, 12, 31, 0, 0, 0, 0 ) ),
+                TUtil.newTime( getMillis( 2011, 12, 31, 7, 59, 59, 999 ) ),
+                TUtil.newTime( getMillis( 2011, 12, 31, 8, 0, 0, 0 ) ),
+                TUtil.newTime( getMillis( 2011, 12, 31, 8, 0, 59, 999 ) ),
+                TUtil.newTime( getMillis( 2011, 12, 31, 8, 1, 0, 0 ) ),
+                TUtil.newTime( getMillis( 2011, 12, 31, 17, 0, 59, 999 ) ),
+                TUtil.newTime( getMillis( 2011, 12, 31, 17, 1, 0, 0 ) ),
+                TUtil.newTime( getMillis( 2011, 12, 31, 23, 59, 59, 999 ) ),
+                TUtil.newTime( getMillis( 2012, 1, 1, 0, 0, 0, 0 ) ),
+                TUtil.newTime( getMillis( 2012, 1, 1, 0, 0, 0, 1 ) ),
+                TUtil.newTime( getMillis( 2012, 1, 2, 0, 0, 0, 0 ) ),
+        };
+    }
+
+
+    /**
+     * The begin and end times are inclusive to the minute.
+     */
+    @Test
+    public void testClockTime()
+    {
+        UserRole constraint = new UserRole();
+        for ( Time time : getBoundaries() )
+        {
+            for ( String[] range : TIMES )
+            {
+                constraint.setBeginTime( range[0] );
+                constraint.setEndTime( range[1] );
+                assertEquals( describe( constraint, time ), validateTime( constraint, time ),
+                    clockTime.validate( null, constraint, time, null ) );
+            }
+        }
+        constraint.setBeginTime( "0800" );
+        constraint.setEndTime( "1700" );
+        assertEquals( GlobalErrIds.ACTV_FAILED_TIME,
+            clockTime.validate( null, constraint, TUtil.newTime( getMillis( 2011, 12, 31, 7, 59, 59, 999 ) ), null ) );
+        assertEquals( 0, clockTime.validate( null, constraint, TUtil.newTime( getMillis( 2011, 12, 31, 8, 0, 0, 0 ) ), null ) );
+        assertEquals( 0, clockTime.validate( null, constraint, TUtil.newTime( getMillis( 2011, 12, 31, 17, 0, 59, 999 ) ), null ) );
+        assertEquals( GlobalErrIds.ACTV_FAILED_TIME,
+            clockTime.validate( null, constraint, TUtil.newTime( getMillis( 2011, 12, 31, 17, 1, 0, 0 ) ), null ) );
+    }
+
+
+    /**
+     * The begin and end dates are inclusive to the day and either may be left out.
+     */
+    @Test
+    public void testDate()
+    {
+        UserRole constraint = new UserRole();
+        for ( Time time : getBoundaries() )
+        {
+            for ( String beginDate : DATES )
+            {
+                for ( String endDate : DATES )
+                {
+                    constraint.setBeginDate( beginDate );
+                    constraint.setEndDate( endDate );
+                    assertEquals( describe( constraint, time ), validateDate( constraint, time ),
+                        date.validate( null, constraint, time, null ) );
+                }
+            }
+        }
+        constraint.setBeginDate( "20111231" );
+        constraint.setEndDate( "20111231" );
+        assertEquals( 0, date.validate( null, constraint, TUtil.newTime( getMillis( 2011, 12, 31, 23, 59, 59, 999 ) ), null ) );
+        assertEquals( GlobalErrIds.ACTV_FAILED_DATE,
+            date.validate( null, constraint, TUtil.newTime( getMillis( 2012, 1, 1, 0, 0, 0, 0 ) ), null ) );
+    }
+
+
+    /**
+     * The lock dates are inclusive to the day and the check is skipped unless both are set.
+     */
+    @Test
+    public void testLockDate()
+    {
+        UserRole constraint = new UserRole();
+        for ( Time time : getBoundaries() )
+        {
+            for ( String beginLockDate : DATES )
+            {
+                for ( String endLockDate : DATES )
+                {
+                    constraint.setBeginLockDate( beginLockDate );
+                    constraint.setEndLockDate( endLockDate );
+                    assertEquals( describe( constraint, time ), validateLockDate( constraint, time ),
+                        lockDate.validate( null, constraint, time, null ) );
+                }
+            }
+        }
+        constraint.setBeginLockDate( "20120101" );
+        constraint.setEndLockDate( "20120101" );
+        assertEquals( 0, lockDate.validate( null, constraint, TUtil.newTime( getMillis( 2011, 12, 31, 23, 59, 59, 999 ) ), null ) );
+        assertEquals( GlobalErrIds.ACTV_FAILED_LOCK,
+            lockDate.validate( null, constraint, TUtil.newTime( getMillis( 2012, 1, 1, 0, 0, 0, 0 ) ), null ) );
+        assertEquals( GlobalErrIds.ACTV_FAILED_LOCK,
+            lockDate.validate( null, constraint, TUtil.newTime( getMillis( 2012, 1, 1, 23, 59, 59, 999 ) ), null ) );
+        assertEquals( 0, lockDate.validate( null, constraint, TUtil.newTime( getMillis( 2012, 1, 2, 0, 0, 0, 0 ) ), null ) );
+    }
+
+
+    /**
+     * The day of week changes with the date.
+     */
+    @Test
+    public void testDay()
+    {
+        UserRole constraint = new UserRole();
+        for ( Time time : getBoundaries() )
+        {
+            for ( String dayMask : DAY_MASKS )
+            {
+                constraint.setDayMask( dayMask );
+                assertEquals( describe( constraint, time ), validateDay( constraint, time ),
+                    day.validate( null, constraint, time, null ) );
+            }
+        }
+        // Saturday then Sunday:
+        constraint.setDayMask( "7" );
+        assertEquals( 0, day.validate( null, constraint, TUtil.newTime( getMillis( 2011, 12, 31, 23, 59, 59, 999 ) ), null ) );
+        assertEquals( GlobalErrIds.ACTV_FAILED_DAY,
+            day.validate( null, constraint, TUtil.newTime( getMillis( 2012, 1, 1, 0, 0, 0, 0 ) ), null ) );
+    }
+
+
+    /**
+     * Values that can't be converted are still compared as strings.
+     */
+    @Test
+    public void testUnconverted()
+    {
+        UserRole constraint = new UserRole();
+        constraint.setBeginDate( "2011123" );
+        constraint.setEndDate( "201201011" );
+        constraint.setBeginLockDate( "2012O101" );
+        constraint.setEndLockDate( "20120101" );
+        for ( Time time : getBoundaries() )
+        {
+            assertEquals( describe( constraint, time ), validateDate( constraint, time ),
+                date.validate( null, constraint, time, null ) );
+            assertEquals( describe( constraint, time ), validateLockDate( constraint, time ),
+                lockDate.validate( null, constraint, time, null ) );
+        }
+    }
+
+
+    /**
+     * The timestamp is computed once per minute, recomputed when the minute ends or the clock goes back, and the
+     * callers of {@link TUtil#getCurrentTime()} get copies of it.
+     */
+    @Test
+    public void testCurrentTime()
+    {
+        long start = getMillis( 2011, 12, 31, 23, 59, 0, 0 );
+        Time time = TUtil.getCurrentTime( start );
+        assertEquals( Integer.valueOf( 2359 ), time.currentTime );
+        assertEquals( "20111231", time.date );
+        assertSame( time, TUtil.getCurrentTime( start + 59999 ) );
+
+        Time next = TUtil.getCurrentTime( start + 60000 );
+        assertNotSame( time, next );
+        assertEquals( Integer.valueOf( 0 ), next.currentTime );
+        assertEquals( "20120101", next.date );
+        assertEquals( 20120101, next.dateValue );
+        assertEquals( "1", next.day );
+        assertEquals( 1, next.dayOfWeek );
+
+        Time back = TUtil.getCurrentTime( start + 59999 );
+        assertNotSame( next, back );
+        assertEquals( Integer.valueOf( 2359 ), back.currentTime );
+
+        Time copy = TUtil.getCurrentTime();
+        copy.currentTime = -1;
+        copy.date = null;
+        copy.dateValue = -1;
+        Time current = TUtil.getCurrentTime();
+        assertNotSame( copy, current );
+        assertEquals( current.dateValue, Integer.parseInt( current.date ) );
+        assertEquals( current.dayOfWeek, Integer.parseInt( current.day ) );
+    }
+
+
+    private static long getMillis( int year, int month, int dayOfMonth, int hour, int minute, int second, int millis )
+    {
+        GregorianCalendar gc = new GregorianCalendar( year, month - 1, dayOfMonth, hour, minute, second );
+        gc.set( GregorianCalendar.MILLISECOND, millis );
+        return gc.getTimeInMillis();
+    }
+
+
+    private static String describe( Constraint constraint, Time time )
+    {
+        return "time " + time.date + ":" + time.currentTime + " day " + time.day + " constraint " + constraint.getBeginTime()
+            + "-" + constraint.getEndTime() + " " + constraint.getBeginDate() + "-" + constraint.getEndDate() + " lock "
+            + constraint.getBeginLockDate() + "-" + constraint.getEndLockDate() + " mask " + constraint.getDayMask();
+    }
+
+
+    // The string comparisons done by the validators before the values were converted:
+
+    private static int validateTime( Constraint constraint, Time time )
+    {
+        int rc = GlobalErrIds.ACTV_FAILED_TIME;
+        if ( ( constraint.getBeginTime() == null )
+            || ( constraint.getBeginTime().compareToIgnoreCase( GlobalIds.NONE ) == 0 ) )
+        {
+            rc = 0;
+        }
+        else
+        {
+            Integer beginTime = Integer.valueOf( constraint.getBeginTime() );
+            Integer endTime = Integer.valueOf( constraint.getEndTime() );
+            if ( ( beginTime == 0 ) && ( endTime == 0 ) )
+            {
+                rc = 0;
+            }
+            else if ( beginTime.compareTo( time.currentTime ) <= 0 && endTime.compareTo( time.currentTime ) >= 0 )
+            {
+                rc = 0;
+            }
+        }
+        return rc;
+    }
+
+
+    private static int validateDate( Constraint constraint, Time time )
+    {
+        int rc = GlobalErrIds.ACTV_FAILED_DATE;
+        boolean noBegin = constraint.getBeginDate() == null
+            || constraint.getBeginDate().compareToIgnoreCase( GlobalIds.NONE ) == 0;
+        boolean noEnd = constraint.getEndDate() == null
+            || constraint.getEndDate().compareToIgnoreCase( GlobalIds.NONE ) == 0;
+        if ( ( noBegin || constraint.getBeginDate().compareTo( time.date ) <= 0 )
+            && ( noEnd || constraint.getEndDate().compareTo( time.date ) >= 0 ) )
+        {
+            rc = 0;
+        }
+        return rc;
+    }
+
+
+    private static int validateLockDate( Constraint constraint, Time time )
+    {
+        int rc = GlobalErrIds.ACTV_FAILED_LOCK;
+        if ( constraint.getBeginLockDate() == null
+            || constraint.getBeginLockDate().compareToIgnoreCase( GlobalIds.NONE ) == 0
+            || constraint.getEndLockDate() == null
+            || constraint.getEndLockDate().compareToIgnoreCase( GlobalIds.NONE ) == 0 )
+        {
+            rc = 0;
+        }
+        else if ( !( constraint.getBeginLockDate().compareTo( time.date ) <= 0
+            && constraint.getEndLockDate().compareTo( time.date ) >= 0 ) )
+        {
+            rc = 0;
+        }
+        return rc;
+    }
+
+
+    private static int validateDay( Constraint constraint, Time time )
+    {
+        int rc = GlobalErrIds.ACTV_FAILED_DAY;
+        if ( constraint.getDayMask() == null || constraint.getDayMask().compareToIgnoreCase( GlobalIds.ALL ) == 0
+            || constraint.getDayMask().contains( time.day ) )
+        {
+            rc = 0;
+        }
+        return rc;
+    }
+}